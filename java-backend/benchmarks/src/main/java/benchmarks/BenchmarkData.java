@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import simulation.simulationData.*;
+import util.Parser;
+
+/**
+ * Loads the simulation data the benchmarks run with: the file given by the simulation.data
+ * system property, or else the first simulation_data.json found from the working directory
+ * up, which is the one at the root of the repository.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+final class BenchmarkData {
+  static final int DEFAULT_FIELD_SIZE = 330; // The side of the field of a default headless run, 600 by 600 scaled by the default fieldScaleFactor.
+
+  private BenchmarkData() {}
+
+  /**
+   * @return The simulation data, as read from the file.
+   * @throws IOException If no file is found or it cannot be read.
+   */
+  static SimulationData load() throws IOException {
+    String property = System.getProperty("simulation.data");
+    if (property != null) return Parser.parseSimulationDataFromFile(property);
+
+    for (Path dir = Path.of(System.getProperty("user.dir")).toAbsolutePath(); dir != null; dir = dir.getParent()) {
+      Path file = dir.resolve("simulation_data.json");
+      if (Files.isRegularFile(file)) return Parser.parseSimulationDataFromFile(file.toString());
+    }
+    throw new IOException("simulation_data.json not found; set the simulation.data system property");
+  }
+
+  /**
+   * @return The number of entities the simulation data starts with.
+   */
+  static int getStartingEntities(SimulationData data) {
+    int count = 0;
+    for (AnimalData animalData : data.predatorsData) count += animalData.numberOfEntitiesAtStart;
+    for (AnimalData animalData : data.preysData) count += animalData.numberOfEntitiesAtStart;
+    for (PlantData plantData : data.plantsData) count += plantData.numberOfEntitiesAtStart;
+    return count;
+  }
+
+  /**
+   * Scales the number of entities every species starts with so that about a given number of
+   * entities start, keeping the share of every species.
+   * @param data The simulation data to change.
+   * @param entities The number of entities to start with.
+   * @return The side of a square field that keeps the density of a default headless run.
+   */
+  static int scaleTo(SimulationData data, int entities) {
+    double factor = (double) entities / getStartingEntities(data);
+    for (AnimalData animalData : data.predatorsData) animalData.numberOfEntitiesAtStart = (int) Math.round(animalData.numberOfEntitiesAtStart * factor);
+    for (AnimalData animalData : data.preysData) animalData.numberOfEntitiesAtStart = (int) Math.round(animalData.numberOfEntitiesAtStart * factor);
+    for (PlantData plantData : data.plantsData) plantData.numberOfEntitiesAtStart = (int) Math.round(plantData.numberOfEntitiesAtStart * factor);
+    return (int) Math.round(DEFAULT_FIELD_SIZE * Math.sqrt(factor));
+  }
+}
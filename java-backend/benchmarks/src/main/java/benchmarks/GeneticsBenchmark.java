@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import genetics.AnimalGenetics;
+import genetics.mutation.AnimalMutator;
+import simulation.simulationData.*;
+import util.SimulationRandom;
+
+/**
+ * Benchmarks making the genetics of an offspring: breeding two parents, which also mutates
+ * the offspring, and mutating alone.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneticsBenchmark {
+  private static final long SEED = 42;
+
+  private SimulationRandom random; // The random stream the offspring are made from.
+  private AnimalGenetics mother; // The genetics of one parent.
+  private AnimalGenetics father; // The genetics of the other parent, of the same species.
+
+  @Setup
+  public void setUp() throws Exception {
+    SimulationContext context = new SimulationContext(BenchmarkData.load());
+    random = new SimulationRandom(SEED);
+    AnimalData preyData = context.getPreysData()[0];
+    mother = preyData.generateRandomGenetics(context, random);
+    father = preyData.generateRandomGenetics(context, random);
+  }
+
+  @Benchmark
+  public AnimalGenetics breed() {
+    return mother.breed(father, random);
+  }
+
+  @Benchmark
+  public AnimalGenetics mutate() {
+    return AnimalMutator.mutateAnimalGenetics(mother, random);
+  }
+}
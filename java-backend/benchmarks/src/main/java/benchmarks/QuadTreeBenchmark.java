@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import entities.Plant;
+import entities.generic.Entity;
+import simulation.quadTree.QuadTree;
+import simulation.quadTree.Rectangle;
+import simulation.simulationData.*;
+import util.SimulationRandom;
+import util.Vector;
+
+/**
+ * Benchmarks of the quadtree the field uses by default, at several densities: the same
+ * number of entities put in fields of different sizes. Rebuilding the tree is what the
+ * field does every step; the queries are of about the sight of an animal.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuadTreeBenchmark {
+  private static final int CAPACITY = 2; // The capacity of the quadtrees of the field.
+  private static final int QUERIES = 256; // The queries per invocation of the query benchmark.
+  private static final double RADIUS = 40; // About the sight of the animals in the default data.
+  private static final long SEED = 42;
+
+  @Param({ "1000", "10000", "100000" })
+  public int entities; // The number of entities in the tree.
+
+  @Param({ "0.0025", "0.025", "0.25" })
+  public double density; // The entities per unit of area; a default run starts at about 0.0024.
+
+  private List<Entity> population; // The entities inserted.
+  private QuadTree tree; // The tree queried, holding the entities.
+  private double[] centres; // The x and y of the centre of every query.
+  private final List<Entity> found = new ArrayList<>(); // The buffer the queries fill.
+
+  @Setup
+  public void setUp() throws Exception {
+    SimulationContext context = new SimulationContext(BenchmarkData.load());
+    SimulationRandom random = new SimulationRandom(SEED);
+    double size = Math.sqrt(entities / density);
+    PlantData plantData = context.getPlantsData()[0];
+    population = new ArrayList<>(entities);
+    for (int i = 0; i < entities; i++) {
+      Vector position = new Vector(random.nextDouble() * size, random.nextDouble() * size);
+      population.add(new Plant(plantData.generateRandomGenetics(context, random), position, random.split()));
+    }
+
+    tree = new QuadTree(new Rectangle(0, 0, size, size), CAPACITY);
+    tree.update(population);
+    centres = new double[2 * QUERIES];
+    for (int i = 0; i < centres.length; i++) {
+      centres[i] = random.nextDouble() * size;
+    }
+  }
+
+  /**
+   * Clears the tree and inserts every entity again, as the field does after a step.
+   */
+  @Benchmark
+  public QuadTree insert() {
+    tree.update(population);
+    return tree;
+  }
+
+  /**
+   * Finds the entities around a point, into a buffer, as an animal looking around does.
+   */
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public void query(Blackhole blackhole) {
+    for (int i = 0; i < QUERIES; i++) {
+      found.clear();
+      blackhole.consume(tree.query(centres[2 * i], centres[2 * i + 1], RADIUS, found));
+    }
+  }
+
+  /**
+   * Counts the entities around a point without collecting them.
+   */
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public void countInRadius(Blackhole blackhole) {
+    for (int i = 0; i < QUERIES; i++) {
+      blackhole.consume(tree.countInRadius(centres[2 * i], centres[2 * i + 1], RADIUS));
+    }
+  }
+}
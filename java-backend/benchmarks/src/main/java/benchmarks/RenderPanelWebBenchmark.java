@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import entities.generic.Entity;
+import graphics.Display;
+import simulation.Simulator;
+import simulation.simulationData.*;
+
+/**
+ * Benchmarks sending a frame of the field to the web viewer: drawing every entity to a web
+ * display, as the engine does, and then RenderPanelWeb.update, which turns the frame into
+ * JSON and sends it. No viewer is connected, so the sending only looks for one; drawing only
+ * adds to the frame, so the time is mostly the serialization.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn") // The slow frames are logged otherwise.
+public class RenderPanelWebBenchmark {
+  private static final int SCREEN_SIZE = 600; // The display size the web API uses.
+  private static final long SEED = 42;
+
+  @Param({ "1000", "10000" })
+  public int entities; // The number of entities drawn.
+
+  private List<Entity> drawn; // The entities of the field, drawn every frame.
+  private double scaleFactor; // The scale from the field to the display.
+  private Display display; // The web display drawn to.
+
+  @Setup
+  public void setUp() throws Exception {
+    SimulationData data = BenchmarkData.load();
+    int size = BenchmarkData.scaleTo(data, entities);
+    Simulator simulator = new Simulator(new SimulationContext(data), size, size, 0, SEED);
+    drawn = simulator.getField().getAllEntities();
+    scaleFactor = (double) size / SCREEN_SIZE;
+    display = new Display(SCREEN_SIZE, SCREEN_SIZE, "benchmark");
+  }
+
+  @Benchmark
+  public Display frame() {
+    display.fill(Color.BLACK);
+    for (int i = drawn.size() - 1; i >= 0; i--) {
+      drawn.get(i).draw(display, scaleFactor);
+    }
+    display.update();
+    return display;
+  }
+}
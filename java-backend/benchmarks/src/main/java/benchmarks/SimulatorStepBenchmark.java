@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import simulation.Simulator;
+import simulation.simulationData.*;
+
+/**
+ * Benchmarks a step of the whole simulation, with about 1k, 10k and 100k entities at the
+ * start, in a field scaled to keep the density of a default headless run. Every iteration
+ * starts again from the same seeded field, so that the population does not drift too far
+ * from its starting size.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SimulatorStepBenchmark {
+  private static final long SEED = 42;
+
+  @Param({ "1000", "10000", "100000" })
+  public int entities; // The number of entities at the start.
+
+  @Param({ "0" })
+  public int stepThreads; // The threads of the two-phase step; 0 for the sequential step.
+
+  private SimulationContext context; // The simulation data, scaled to the number of entities.
+  private int size; // The side of the field.
+  private Simulator simulator; // The simulation stepped.
+
+  @Setup(Level.Trial)
+  public void setUpTrial() throws Exception {
+    SimulationData data = BenchmarkData.load();
+    size = BenchmarkData.scaleTo(data, entities);
+    context = new SimulationContext(data);
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpIteration() {
+    simulator = new Simulator(context, size, size, stepThreads, SEED);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDownIteration() {
+    simulator.shutdown();
+  }
+
+  @Benchmark
+  public Simulator step() {
+    simulator.step();
+    return simulator;
+  }
+}
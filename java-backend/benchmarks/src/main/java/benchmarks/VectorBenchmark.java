@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import util.SimulationRandom;
+import util.Vector;
+
+/**
+ * Benchmarks the vector math the animals move with, over an array of vectors so that the
+ * results are not folded into constants.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorBenchmark {
+  private static final int COUNT = 1024; // The vectors operated on per invocation.
+  private static final long SEED = 42;
+
+  private final Vector[] positions = new Vector[COUNT]; // Points in a default field.
+  private final Vector[] targets = new Vector[COUNT]; // Other points in the same field.
+
+  @Setup
+  public void setUp() {
+    SimulationRandom random = new SimulationRandom(SEED);
+    for (int i = 0; i < COUNT; i++) {
+      positions[i] = new Vector(random.nextDouble() * BenchmarkData.DEFAULT_FIELD_SIZE, random.nextDouble() * BenchmarkData.DEFAULT_FIELD_SIZE);
+      targets[i] = new Vector(random.nextDouble() * BenchmarkData.DEFAULT_FIELD_SIZE, random.nextDouble() * BenchmarkData.DEFAULT_FIELD_SIZE);
+    }
+  }
+
+  /**
+   * Moves towards a target at a speed, as an animal chasing its prey does.
+   */
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void moveTowards(Blackhole blackhole) {
+    for (int i = 0; i < COUNT; i++) {
+      Vector direction = targets[i].subtract(positions[i]).setMagnitude(1.5);
+      blackhole.consume(positions[i].add(direction));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void distanceSquared(Blackhole blackhole) {
+    for (int i = 0; i < COUNT; i++) {
+      blackhole.consume(targets[i].subtract(positions[i]).getMagnitudeSquared());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void normalise(Blackhole blackhole) {
+    for (int i = 0; i < COUNT; i++) {
+      blackhole.consume(positions[i].normalise());
+    }
+  }
+
+  /**
+   * Turns a vector into an angle and back, as wandering animals do.
+   */
+  @Benchmark
+  @OperationsPerInvocation(COUNT)
+  public void angle(Blackhole blackhole) {
+    for (int i = 0; i < COUNT; i++) {
+      blackhole.consume(Vector.getVectorFromAngle(positions[i].getAngle()).multiply(2));
+    }
+  }
+}
@@ -1,21 +1,30 @@
+import java.util.Arrays;
+
 import api.Connector;
 import simulation.simulationData.Data;
 import util.Parser;
 import view.Engine;
+import view.HeadlessRunner;
 
 /**
- * Main class to start the simulation through the Engine class.
+ * Main class to start the simulation through the Engine class, or without any display
+ * through the HeadlessRunner class when the first argument is --headless.
  * 
  * @author Mehmet Kutay Bozkurt and Anas Ahmed
  * @version 1.0
  */
 public class Main {
   public static void main(String[] args) throws Exception {
+    if (args.length > 0 && args[0].equals("--headless")) {
+      HeadlessRunner.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
     Connector.getInstance().start(); // For use with the web API.
 
     // If you want to run the simulation without the web API, uncomment the following lines
     // and change the constructor of Display to use RenderPanelGUI
     // Data.setSimulationData(Parser.parseSimulationData(Parser.getContentsOfFile(System.getProperty("user.dir") + "/simulation_data.json")));
-    // new Engine(800, 600, 60, "").start();
+    // new Engine(800, 600, 60, "", Data.getContext()).startOnOwnThread();
   }
 }
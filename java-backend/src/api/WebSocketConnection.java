@@ -193,11 +193,19 @@ public class WebSocketConnection {
    */
   private void sendFrame(byte[] payload, byte opcode) throws IOException {
     ByteBuffer frame = createWebSocketFrame(payload, opcode);
+    WebSocketSendEvent event = new WebSocketSendEvent(); // Costs nothing unless a flight recording is on.
+    event.begin();
     synchronized (channel) {
       while (frame.hasRemaining()) {
         channel.write(frame);
       }
     }
+    if (event.shouldCommit()) {
+      event.connectionId = id;
+      event.opcode = opcode;
+      event.bytes = frame.limit();
+      event.commit();
+    }
   }
   
   /**
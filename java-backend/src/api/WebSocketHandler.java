@@ -1,5 +1,8 @@
 package api;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -7,7 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.google.gson.Gson;
 
-import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
 import simulation.simulationData.SimulationData;
 import util.Parser;
 import view.Engine;
@@ -21,10 +24,20 @@ import view.Engine;
 public class WebSocketHandler extends WebSocketServer {
   private static final Logger logger = LoggerFactory.getLogger(WebSocketHandler.class);
   
+  private static final int RECORDING_KEYFRAME_INTERVAL = 3600; // Steps between two keyframes of a recording, a minute at 60 FPS.
+
   private Map<String, Engine> engines = new ConcurrentHashMap<>();
+  private final Path recordingDirectory; // Every session is recorded into this directory, null for none.
 
+  /**
+   * Constructor -- Sessions are recorded if the simulation.recordings system property names
+   * a directory to record them into.
+   * @param port The port to listen on.
+   */
   public WebSocketHandler(int port) {
     super(port);
+    String recordings = System.getProperty("simulation.recordings");
+    recordingDirectory = recordings != null ? Path.of(recordings) : null;
   }
 
   @Override
@@ -53,7 +66,13 @@ public class WebSocketHandler extends WebSocketServer {
   }
   
   /**
-   * Handle incoming WebSocket message for simulation control.
+   * Handle incoming WebSocket message for simulation control. The message types are:
+   * start_simulation, with the simulation data as data;
+   * set_speed, with the number of steps per frame as data;
+   * fast_forward, with {"step": n} or {"day": n} as data;
+   * cancel_fast_forward;
+   * history, with a JSON array of the columns to send as data, or none for the populations;
+   * set_profiling, with true or false as data.
    * @param message The message received from the WebSocket client.
    */
   @Override
@@ -64,11 +83,52 @@ public class WebSocketHandler extends WebSocketServer {
     Gson g = new Gson();
     APISchema schema = g.fromJson(message, APISchema.class);
 
-    if (!schema.type.equals("start_simulation")) {
-      logger.warn("Unknown message type: {}", schema.type);
+    if (schema.type.equals("start_simulation")) {
+      startSimulation(connection, schema);
       return;
     }
 
+    Engine engine = engines.get(connection.getId());
+    if (engine == null) {
+      logger.warn("No simulation is running for message type: {}", schema.type);
+      return;
+    }
+
+    try {
+      switch (schema.type) {
+        case "set_speed" -> engine.setSpeedMultiplier(Integer.parseInt(schema.data));
+        case "fast_forward" -> {
+          FastForwardSchema target = g.fromJson(schema.data, FastForwardSchema.class);
+          if (target.step != null) engine.fastForwardToStep(target.step);
+          else if (target.day != null) engine.fastForwardToDay(target.day);
+          else throw new IllegalArgumentException("A fast-forward needs a step or a day");
+        }
+        case "cancel_fast_forward" -> engine.cancelFastForward();
+        case "history" -> {
+          engine.sendHistory(schema.data != null ? List.of(g.fromJson(schema.data, String[].class)) : null);
+          return; // Does not change the simulation, so it is not recorded.
+        }
+        case "set_profiling" -> {
+          engine.setProfiling(Boolean.parseBoolean(schema.data));
+          return;
+        }
+        default -> {
+          logger.warn("Unknown message type: {}", schema.type);
+          return;
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.warn("Invalid {} message: {}", schema.type, e.getMessage());
+      return;
+    }
+    if (engine.getRecorder() != null) engine.getRecorder().recordControl(message);
+  }
+
+  /**
+   * Starts a new simulation for a client, stopping the one it had running.
+   * @param schema The start_simulation message.
+   */
+  private void startSimulation(WebSocketConnection connection, APISchema schema) {
     Engine engine = engines.get(connection.getId());
 
     if (engine != null) {
@@ -84,11 +144,20 @@ public class WebSocketHandler extends WebSocketServer {
       logger.error("Failed to parse the simulation data.", e);
       return;
     }
-    Data.setSimulationData(data);
+    SimulationContext context = new SimulationContext(data); // Not shared with the other sessions.
 
     // Start the simulation:
-    engine = new Engine(600, 600, 60, connection.getId());
+    engine = new Engine(600, 600, context.getFramesPerSecond(), connection.getId(), context);
     engines.put(connection.getId(), engine);
+    if (recordingDirectory != null) {
+      Path path = recordingDirectory.resolve(connection.getId() + "-" + System.currentTimeMillis() + ".ecol");
+      try {
+        engine.startRecording(path, schema.data, RECORDING_KEYFRAME_INTERVAL);
+        logger.info("Recording the simulation to {}", path);
+      } catch (IOException e) {
+        logger.error("Failed to start recording the simulation, running it unrecorded.", e);
+      }
+    }
     engine.start();
   }
 
@@ -106,4 +175,9 @@ public class WebSocketHandler extends WebSocketServer {
     public String type;
     public String data;
   }
+
+  private static class FastForwardSchema {
+    public Long step;
+    public Integer day;
+  }
 }
@@ -0,0 +1,33 @@
+package api;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a WebSocket frame written to a client, lasting from when the
+ * frame waits for the channel until it is written.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@Name("api.WebSocketSend")
+@Label("WebSocket Send")
+@Category("Simulation")
+@Description("A WebSocket frame written to a client")
+@StackTrace(false)
+public class WebSocketSendEvent extends Event {
+  @Label("Connection")
+  String connectionId; // The connection written to, the id of its engine.
+
+  @Label("Opcode")
+  byte opcode; // The opcode of the frame.
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes; // The length of the frame, with its header.
+}
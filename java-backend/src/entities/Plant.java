@@ -9,6 +9,7 @@ import genetics.PlantGenetics;
 import graphics.Display;
 import simulation.Field;
 import simulation.environment.Weather;
+import util.SimulationRandom;
 import util.Vector;
 
 /**
@@ -29,6 +30,14 @@ public class Plant extends Entity {
     this.genetics = genetics;
   }
 
+  /**
+   * Constructor -- Create a new plant entity with the given genetics, position and random stream.
+   */
+  public Plant(PlantGenetics genetics, Vector position, SimulationRandom random) {
+    super(genetics, position, random);
+    this.genetics = genetics;
+  }
+
   /**
    * Spawn new plants around this plant. The new plants have the same genetics
    * as the parent plant, though it may be mutated.
@@ -39,10 +48,10 @@ public class Plant extends Entity {
     double growthFactor = field.environment.getWeather() == Weather.RAINING ? genetics.getRainingGrowthFactor() : 1;
     double multiplyingRate = Math.min(genetics.getMultiplyingRate() * growthFactor, 1);
 
-    if (!(canMultiply() && Math.random() < multiplyingRate)) return Collections.emptyList();
+    if (!(canMultiply() && random.nextDouble() < multiplyingRate)) return Collections.emptyList();
 
     if (!field.environment.isDay()) { // If it's night, very low odds of multiplying.
-      if (Math.random() > 0.3) {
+      if (random.nextDouble() > 0.3) {
         return Collections.emptyList();
       }
     }
@@ -51,8 +60,8 @@ public class Plant extends Entity {
     int seeds = (int) (genetics.getNumberOfSeeds() * growthFactor);
     List<Plant> newPlants = new ArrayList<>();
     for (int i = 0; i < seeds; i++) {
-      Vector seedPos = position.getRandomPointInRadius(genetics.getMaxOffspringSpawnDistance() + growthFactor - 1);
-      newPlants.add(new Plant(genetics.getOffspringGenetics(), seedPos));
+      Vector seedPos = getPosition().getRandomPointInRadius(genetics.getMaxOffspringSpawnDistance() + growthFactor - 1, random);
+      newPlants.add(new Plant(genetics.getOffspringGenetics(random), seedPos, random.split()));
     }
 
     return newPlants;
@@ -66,15 +75,12 @@ public class Plant extends Entity {
     if (!isAlive()) return;
     super.update(field, deltaTime);
 
-    List<Entity> nearbyEntities = searchNearbyEntities(field, genetics.getOvercrowdingRadius());
-
     List<Plant> newPlants = multiply(field);
     for (Plant plant : newPlants) {
-      field.putInBounds(plant, plant.getSize());
-      field.addEntity(plant);
+      addOffspring(field, plant);
     }
 
-    handleOvercrowding(nearbyEntities);
+    handleOvercrowding(field);
   }
 
   /**
@@ -86,8 +92,8 @@ public class Plant extends Entity {
   public void draw(Display display, double scaleFactor) {
     int size = (int) (getCurrentVisualSize() / scaleFactor);
     size = Math.max(2, size);
-    int x = (int) (position.x() / scaleFactor);
-    int y = (int) (position.y() / scaleFactor);
+    int x = (int) (getX() / scaleFactor);
+    int y = (int) (getY() / scaleFactor);
     
     display.drawEqualTriangle(x, y, size, genetics.getColour());
   }
@@ -3,6 +3,7 @@ package entities;
 import entities.generic.*;
 import genetics.AnimalGenetics;
 import graphics.Display;
+import util.SimulationRandom;
 import util.Vector;
 
 /**
@@ -19,6 +20,13 @@ public class Predator extends Animal {
     super(genetics, location);
   }
 
+  /**
+   * Constructor -- Create a new predator entity with the given genetics, location and random stream.
+   */
+  public Predator(AnimalGenetics genetics, Vector location, SimulationRandom random) {
+    super(genetics, location, random);
+  }
+
   /**
    * Draw the predator entity to the display as a square.
    * @param display The display to draw to.
@@ -28,19 +36,19 @@ public class Predator extends Animal {
   public void draw(Display display, double scaleFactor) {
     int size = (int) (getCurrentVisualSize() / scaleFactor);
     size = Math.max(1, size);
-    int x = (int) ((position.x() - (double) size / 2) / scaleFactor); // Draw rectangle centered around x, y of predator.
-    int y = (int) ((position.y() - (double) size / 2) / scaleFactor);
+    int x = (int) ((getX() - (double) size / 2) / scaleFactor); // Draw rectangle centered around x, y of predator.
+    int y = (int) ((getY() - (double) size / 2) / scaleFactor);
 
     display.drawRectangle(x, y, size * 2, size * 2, genetics.getColour());
   }
 
   /**
-   * Create a new predator entity with the given genetics and location.
+   * Create a new predator entity with the given genetics, location and random stream.
    * Used for reproduction in the Animal class. Also used to avoid
    * code duplication.
    */
   @Override
-  protected Animal createOffspring(AnimalGenetics genetics, Vector position) {
-    return new Predator(genetics, position);
+  protected Animal createOffspring(AnimalGenetics genetics, Vector position, SimulationRandom random) {
+    return new Predator(genetics, position, random);
   }
 }
@@ -3,6 +3,7 @@ package entities;
 import entities.generic.*;
 import genetics.AnimalGenetics;
 import graphics.Display;
+import util.SimulationRandom;
 import util.Vector;
 
 /**
@@ -19,6 +20,13 @@ public class Prey extends Animal {
     super(genetics, location);
   }
 
+  /**
+   * Constructor -- Create a new prey entity with the given genetics, location and random stream.
+   */
+  public Prey(AnimalGenetics genetics, Vector location, SimulationRandom random) {
+    super(genetics, location, random);
+  }
+
   /**
    * Draw the prey entity to the display as a circle.
    * @param display The display to draw to.
@@ -28,19 +36,19 @@ public class Prey extends Animal {
   public void draw(Display display, double scaleFactor) {
     int size = (int) (getCurrentVisualSize() / scaleFactor);
     size = Math.max(1, size);
-    int x = (int) (position.x() / scaleFactor);
-    int y = (int) (position.y() / scaleFactor);
+    int x = (int) (getX() / scaleFactor);
+    int y = (int) (getY() / scaleFactor);
     
     display.drawCircle(x, y, size, genetics.getColour());
   }
 
   /**
-   * Create a new prey entity with the given genetics and location.
+   * Create a new prey entity with the given genetics, location and random stream.
    * Used for reproduction in the Animal class. Used to avoid code 
    * duplication.
    */
   @Override
-  protected Animal createOffspring(AnimalGenetics genetics, Vector position) {
-    return new Prey(genetics, position);
+  protected Animal createOffspring(AnimalGenetics genetics, Vector position, SimulationRandom random) {
+    return new Prey(genetics, position, random);
   }
 }
\ No newline at end of file
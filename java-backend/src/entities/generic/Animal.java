@@ -1,12 +1,14 @@
 package entities.generic;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
+import util.SimulationRandom;
 import util.Vector;
 import genetics.AnimalGenetics;
 import simulation.Field;
 import simulation.environment.Weather;
-import simulation.simulationData.Data;
 
 /**
  * Abstract class for all animals in the simulation. Contains controllers for
@@ -27,12 +29,22 @@ public abstract class Animal extends Entity {
   protected final AnimalBehaviourController behaviourController; // Controller for handling decision logic of animals.
 
   /**
-   * Constructor -- Create a new Animal.
+   * Constructor -- Create a new Animal with an unseeded random stream.
    * @param genetics The genetics of the animal.
    * @param position The position of the animal.
    */
   public Animal(AnimalGenetics genetics, Vector position) {
-    super(genetics, position);
+    this(genetics, position, new SimulationRandom(ThreadLocalRandom.current().nextLong()));
+  }
+
+  /**
+   * Constructor -- Create a new Animal.
+   * @param genetics The genetics of the animal.
+   * @param position The position of the animal.
+   * @param random The random stream of the animal.
+   */
+  public Animal(AnimalGenetics genetics, Vector position, SimulationRandom random) {
+    super(genetics, position, random);
     this.genetics = genetics;
     movementController = new AnimalMovementController(this, position);
     breedingController = new AnimalBreedingController(this);
@@ -40,6 +52,35 @@ public abstract class Animal extends Entity {
     behaviourController = new AnimalBehaviourController(this);
   }
 
+  /**
+   * Writes the state of the entity and of its controllers, for snapshots.
+   */
+  @Override
+  public void writeState(ByteBuffer buffer) {
+    super.writeState(buffer);
+    buffer.put((byte) (isAsleep ? 1 : 0));
+    movementController.writeState(buffer);
+    hungerController.writeState(buffer);
+    behaviourController.writeState(buffer);
+  }
+
+  @Override
+  public int getStateSize() {
+    return super.getStateSize() + 1 + movementController.getStateSize() + hungerController.getStateSize() + behaviourController.getStateSize();
+  }
+
+  /**
+   * Reads the state written by writeState.
+   */
+  @Override
+  public void readState(ByteBuffer buffer) {
+    super.readState(buffer);
+    isAsleep = buffer.get() != 0;
+    movementController.readState(buffer);
+    hungerController.readState(buffer);
+    behaviourController.readState(buffer);
+  }
+
   /**
    * Update the animal. Handle all the controllers and update the behaviour.
    */
@@ -48,32 +89,54 @@ public abstract class Animal extends Entity {
     if (!isAlive()) return;
     super.update(field, deltaTime);
 
-    // Cache the nearby entities to avoid multiple searches over the field, which would slow down the simulation.
-    List<Entity> nearbyEntities = searchNearbyEntities(field, genetics.getSight());
-    
     // Delagate the breeding to the controller. If breeding occurs, add the offspring to the field,
     // otherwise the list will be empty.
-    List<Animal> newEntities = breedingController.breed(nearbyEntities);
+    List<Animal> newEntities = breedingController.breed(field);
     for (Animal entity : newEntities) {
-      field.putInBounds(entity, entity.getSize());
-      field.addEntity(entity);
+      addOffspring(field, entity);
     }
 
-    handleOvercrowding(nearbyEntities);
+    handleOvercrowding(field);
 
     hungerController.handleHunger(deltaTime, newEntities.size());
 
     windyCondition(field); // Handle windy condition.
 
-    Vector lastPosition = position;
+    Vector lastPosition = getPosition();
     movementController.setLastPosition(lastPosition); // Update last position before moving.
 
-    // Update the behaviour of the animal, according to the nearby entities and the field:
-    behaviourController.updateBehaviour(field, nearbyEntities, deltaTime);
+    // Update the behaviour of the animal, according to the field:
+    behaviourController.updateBehaviour(field, deltaTime);
 
     stormyCondition(field, lastPosition); // Handle stormy condition.
   }
 
+  /**
+   * Animals search for food, mates and threats as far as they can see.
+   */
+  @Override
+  public double getSearchRadius() {
+    return genetics.getSight();
+  }
+
+  /**
+   * Also freezes whether this animal is ready to breed, as mates read it from other threads.
+   */
+  @Override
+  public void takeSnapshot() {
+    super.takeSnapshot();
+    breedingController.takeSnapshot();
+  }
+
+  /**
+   * Applies the meals claimed during the read phase before publishing the live state.
+   */
+  @Override
+  public void commit(Field field) {
+    hungerController.commitMeals();
+    super.commit(field);
+  }
+
   /**
    * Handle windy condition for the animal, moving it in the direction of the wind.
    * @param field The field the animal is in. Used to get access the environment.
@@ -82,8 +145,8 @@ public abstract class Animal extends Entity {
     // If wind is present, move the animal in the direction of the wind.
     if (field.environment.getWeather() == Weather.WINDY || field.environment.getWeather() == Weather.STORM) {
       // Wind strength is applied here:
-      Vector windVector = field.environment.getWindVector().multiply(Data.getWindStrength());
-      this.setPosition(position.add(windVector));
+      Vector windVector = field.environment.getWindVector().multiply(genetics.getContext().getWindStrength());
+      this.setPosition(getPosition().add(windVector));
     }
   }
 
@@ -95,19 +158,19 @@ public abstract class Animal extends Entity {
   private void stormyCondition(Field field, Vector lastPosition) {
     // Hinder the speed of the animal if it is stormy:
     if (field.environment.getWeather() == Weather.STORM) {
-      Vector differenceVector = position.subtract(lastPosition);
+      Vector differenceVector = getPosition().subtract(lastPosition);
       double speed = differenceVector.getMagnitude();
       // The speed is decreased by the storm movement speed factor and the size of the animal:
-      speed *= Data.getStormMovementSpeedFactor() / (getSize() / 4d);
+      speed *= genetics.getContext().getStormMovementSpeedFactor() / (getSize() / 4d);
       setPosition(lastPosition.add(differenceVector.multiply(speed)));
     }
   }
 
   /**
    * Used to generate an offspring of the animal after breeding.
-   * @return A new Animal with the specified genetics and spawn position.
+   * @return A new Animal with the specified genetics, spawn position and random stream.
    */
-  protected abstract Animal createOffspring(AnimalGenetics genetics, Vector position);
+  protected abstract Animal createOffspring(AnimalGenetics genetics, Vector position, SimulationRandom random);
 
   /**
    * Used for a rather specific use case in prey detecting predators that can eat them,
@@ -2,7 +2,7 @@ package entities.generic;
 
 import simulation.Field;
 
-import java.util.List;
+import java.nio.ByteBuffer;
 
 /**
  * Handles animal behaviour. All animal behaviour, predator or prey, is identical.
@@ -28,10 +28,9 @@ public class AnimalBehaviourController {
   /**
    * Updates the behaviour of the animal, specifically for movement.
    * @param field The field the animal is in.
-   * @param nearbyEntities The entities in the sight radius of the animal.
    * @param deltaTime The delta time.
    */
-  public void updateBehaviour(Field field, List<Entity> nearbyEntities, double deltaTime) {
+  public void updateBehaviour(Field field, double deltaTime) {
     animal.isAsleep = false;
 
     boolean isHungry = animal.hungerController.isHungry();
@@ -39,12 +38,12 @@ public class AnimalBehaviourController {
     // Extreme case for prey to prioritise food over fleeing from predators:
     boolean isDyingOfHunger = animal.hungerController.isDyingOfHunger();
 
-    if (isHungry) animal.hungerController.eat(nearbyEntities);
+    if (isHungry) animal.hungerController.eat(field);
 
     // If not dying of hunger and not moving to mate, attempt to flee from predators.
     if (!isDyingOfHunger && !isMovingToMate) {
        // If fleeing, stop other behaviour:
-      if (animal.movementController.fleeFromPredators(nearbyEntities, deltaTime)) return;
+      if (animal.movementController.fleeFromPredators(field, deltaTime)) return;
     }
 
     // If not hungry, its nighttime, isn't moving to mate and no predator is nearby, sleep (do nothing):
@@ -56,15 +55,36 @@ public class AnimalBehaviourController {
     boolean movingToFood = false;
     // If is hungry and not currently attempting to mate, move to food:
     if (isHungry && !isMovingToMate) {
-      movingToFood = animal.movementController.moveToNearestFood(nearbyEntities, deltaTime);
+      movingToFood = animal.movementController.moveToNearestFood(field, deltaTime);
     }
 
     // If not moving to food and not hungry, look for mate:
     if (!movingToFood) {
-      isMovingToMate = animal.movementController.moveToNearestMate(nearbyEntities, deltaTime);
+      isMovingToMate = animal.movementController.moveToNearestMate(field, deltaTime);
       if (!isMovingToMate) { // If can't find mate, just wander.
         animal.movementController.wander(field, deltaTime);
       }
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Writes whether the animal is moving to a mate, for snapshots.
+   */
+  void writeState(ByteBuffer buffer) {
+    buffer.put((byte) (isMovingToMate ? 1 : 0));
+  }
+
+  /**
+   * @return The number of bytes writeState writes.
+   */
+  int getStateSize() {
+    return 1;
+  }
+
+  /**
+   * Reads the state written by writeState.
+   */
+  void readState(ByteBuffer buffer) {
+    isMovingToMate = buffer.get() != 0;
+  }
+}
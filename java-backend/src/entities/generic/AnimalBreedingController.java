@@ -1,7 +1,7 @@
 package entities.generic;
 
 import genetics.AnimalGenetics;
-import simulation.simulationData.Data;
+import simulation.Field;
 import util.Vector;
 
 import java.util.ArrayList;
@@ -17,6 +17,7 @@ import java.util.List;
  */
 public class AnimalBreedingController {
   private final Animal animal; // The animal this controller controls.
+  private boolean snapshotCanBreed; // Whether the animal could breed at the start of the step.
 
   /**
    * Constructor -- Create a new object.
@@ -31,25 +32,26 @@ public class AnimalBreedingController {
    * @param nearbyEntities The list of entities in sight of this animal.
    * @return A list of offspring from the breeding, empty if no breeding occures.
    */
-  public List<Animal> breed(List<Entity> nearbyEntities) {
-    if (!canBreed() || Math.random() > animal.genetics.getMultiplyingRate()) {
+  public List<Animal> breed(Field field) {
+    if (!canBreed() || animal.random.nextDouble() > animal.genetics.getMultiplyingRate()) {
       return Collections.emptyList();
     }
 
-    Animal mateEntity = getRandomMate(nearbyEntities);
+    // Mates are looked for as far as the animal can see, but only once it tries to breed:
+    Animal mateEntity = getRandomMate(animal.searchNearbyEntities(field, animal.getSearchRadius()));
     if (mateEntity == null) return Collections.emptyList(); // If there is no valid mate entity, finish.
 
     double mateLitterSize = mateEntity.genetics.getMaxLitterSize();
     double animalLitterSize = animal.genetics.getMaxLitterSize();
     // Randomly select a litter size, capped by one of the parents' litter size.
-    int litterSize = (int) (Math.random() * Math.min(animalLitterSize, mateLitterSize)) + 1;
+    int litterSize = (int) (animal.random.nextDouble() * Math.min(animalLitterSize, mateLitterSize)) + 1;
 
     List<Animal> offsprings = new ArrayList<>();
     for (int i = 0; i < litterSize; i++) {
-      AnimalGenetics childGenetics = animal.genetics.breed(mateEntity.genetics);
+      AnimalGenetics childGenetics = animal.genetics.breed(mateEntity.genetics, animal.random);
       // Get a random position in a radius around the parent animal:
-      Vector newPos = animal.position.getRandomPointInRadius(animal.genetics.getMaxOffspringSpawnDistance());
-      offsprings.add(animal.createOffspring(childGenetics, newPos));
+      Vector newPos = animal.getPosition().getRandomPointInRadius(animal.genetics.getMaxOffspringSpawnDistance(), animal.random);
+      offsprings.add(animal.createOffspring(childGenetics, newPos, animal.random.split()));
     }
     return offsprings;
   }
@@ -59,13 +61,19 @@ public class AnimalBreedingController {
    * @return A random mate from the list of entities, null if no mate found.
    */
   private Animal getRandomMate(List<Entity> nearbyEntities) {
-    List<Entity> potentialMates = nearbyEntities.stream()
-      .filter(this::canMateWith) // Filter out entities that can't mate with this animal.
-      .toList();
+    // Count the potential mates first, so that no list of them has to be built:
+    int potentialMates = 0;
+    for (Entity entity : nearbyEntities) {
+      if (canMateWith(entity)) potentialMates++;
+    }
 
-    if (potentialMates.isEmpty()) return null;
-    // Return a random mate from the list of potential mates:
-    return (Animal) potentialMates.get((int) (Math.random() * potentialMates.size()));
+    if (potentialMates == 0) return null;
+    // Return a random mate from the potential mates:
+    int mateIndex = (int) (animal.random.nextDouble() * potentialMates);
+    for (Entity entity : nearbyEntities) {
+      if (canMateWith(entity) && mateIndex-- == 0) return (Animal) entity;
+    }
+    return null;
   }
 
   /**
@@ -74,11 +82,11 @@ public class AnimalBreedingController {
    */
   protected boolean canMateWith(Entity entity) {
     if (entity instanceof Animal otherAnimal) {
-      boolean isSameSpecies = otherAnimal.getName().equals(animal.getName());
+      boolean isSameSpecies = otherAnimal.isSameSpecies(animal);
       boolean isOppositeGender = otherAnimal.genetics.getGender() != animal.genetics.getGender();
       return isOppositeGender
         && isSameSpecies
-        && otherAnimal.breedingController.canBreed()
+        && otherAnimal.breedingController.canBreedInSnapshot()
         && canBreed();
     }
     return false;
@@ -93,7 +101,22 @@ public class AnimalBreedingController {
   private boolean canBreed() {
     return animal.canMultiply()
       && animal.hungerController.hasEaten()
-      && animal.hungerController.getFoodLevel() >= Data.getAnimalBreedingCost()
+      && animal.hungerController.getFoodLevel() >= animal.genetics.getContext().getAnimalBreedingCost()
       && !animal.isAsleep;
   }
+
+  /**
+   * Freezes whether the animal can breed, so that mates can read it during the read phase.
+   */
+  protected void takeSnapshot() {
+    snapshotCanBreed = canBreed();
+  }
+
+  /**
+   * Used by other animals looking for a mate.
+   * @return Whether the animal could breed at the start of the step during the read phase, canBreed() otherwise.
+   */
+  protected boolean canBreedInSnapshot() {
+    return animal.isInSnapshot() ? snapshotCanBreed : canBreed();
+  }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package entities.generic;
 
-import simulation.simulationData.Data;
+import simulation.Field;
+import simulation.simulationData.SimulationContext;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,8 +19,8 @@ import java.util.List;
 public class AnimalHungerController {
   private final Animal animal; // The animal this controller is controlling.
 
-  protected double foodLevel; // The current food level of the animal (as a ratio between 0 and 1).
   private boolean hasEaten = false; // Stores if the animal has eaten at least once or not -- used for breeding.
+  private final List<Entity> pendingMeals = new ArrayList<>(); // Entities claimed during the read phase of a two-phase step.
 
   /**
    * Constructor.
@@ -26,26 +28,68 @@ public class AnimalHungerController {
    */
   public AnimalHungerController(Animal animal) {
     this.animal = animal;
-    foodLevel = 0.4; // Spawn with 40% food.
+    animal.getStore().setFoodLevel(animal.getSlot(), 0.4); // Spawn with 40% food.
+  }
+
+  /**
+   * Attempts to eat any colliding entities, searching only as far as an entity can be and
+   * still collide with this animal, and never further than the animal can see.
+   * @param field The field to search for food.
+   */
+  public void eat(Field field) {
+    // One more than the sum of the sizes, as collisions allow for a small error:
+    double radius = animal.getSize() + field.getMaxEntitySize() + 1;
+    eat(animal.searchNearbyEntities(field, Math.min(animal.getSearchRadius(), radius)));
   }
 
   /**
    * Attempts to eat any colliding entities.
-   * @param nearbyEntities The entities that will be searched through -- are in the sight radius of this animal.
+   * @param nearbyEntities The entities that will be searched through -- are near this animal.
    */
   public void eat(List<Entity> nearbyEntities) {
     for (Entity entity : nearbyEntities) {
       if (!this.canEat(entity) || !animal.isColliding(entity)) continue;
 
-      double entitySizeRatio = (double) entity.getSize() / animal.getSize();
-      double foodValue = (entity instanceof Animal ? Data.getFoodValueForAnimals() : Data.getFoodValueForPlants());
-      double foodQuantity = entitySizeRatio * foodValue;
-      foodLevel += foodQuantity;
-      this.hasEaten = true; // Mark this animal as having eaten at least once -- to control breeding.
-      entity.setDead();
+      if (animal.isInSnapshot()) {
+        pendingMeals.add(entity); // Other animals may claim the same entity, resolved on commit.
+      } else {
+        consume(entity);
+      }
     }
 
-    foodLevel = Math.min(foodLevel, 1); // Clamp food from exceeding max food of animal, which is 1.
+    setFoodLevel(Math.min(getFoodLevel(), 1)); // Clamp food from exceeding max food of animal, which is 1.
+  }
+
+  /**
+   * Eats the entities claimed during the read phase that are still alive. Animals are committed
+   * in field order, so the first animal to claim an entity gets to eat it. An animal that died
+   * in the step eats nothing.
+   */
+  public void commitMeals() {
+    if (pendingMeals.isEmpty()) return;
+    if (!animal.isAlive()) {
+      pendingMeals.clear();
+      return;
+    }
+    for (Entity entity : pendingMeals) {
+      if (entity.isAlive()) consume(entity);
+    }
+    pendingMeals.clear();
+    setFoodLevel(Math.min(getFoodLevel(), 1));
+  }
+
+  /**
+   * Eats the given entity, increasing the food level and killing the entity.
+   * @param entity The entity to eat.
+   */
+  private void consume(Entity entity) {
+    double entitySizeRatio = (double) entity.getSize() / animal.getSize();
+    SimulationContext context = animal.genetics.getContext();
+    double foodValue = (entity instanceof Animal ? context.getFoodValueForAnimals() : context.getFoodValueForPlants());
+    double foodQuantity = entitySizeRatio * foodValue;
+    setFoodLevel(getFoodLevel() + foodQuantity);
+    this.hasEaten = true; // Mark this animal as having eaten at least once -- to control breeding.
+    entity.setDead();
   }
 
 
@@ -57,11 +101,13 @@ public class AnimalHungerController {
   public void handleHunger(double deltaTime, int numberOfOffsprings) {
     // Decrease food level based on current distance travelled, which is proportional to speed.
     double distanceTraveled = animal.movementController.getDistanceTravelled();
-    double hungerDrainPerTick = Data.getAnimalHungerDrain() * distanceTraveled * deltaTime;
+    double hungerDrainPerTick = animal.genetics.getContext().getAnimalHungerDrain() * distanceTraveled * deltaTime;
 
     // If sleeping, consume 50% less food, if hasn't eaten yet, consume 125% more food to increase fragility of children.
+    double foodLevel = getFoodLevel();
     foodLevel -= hungerDrainPerTick * (animal.isAsleep ? 0.5 : 1) * (hasEaten ? 1 : 2.25);
-    foodLevel -= numberOfOffsprings / (numberOfOffsprings + 1 / Data.getAnimalBreedingCost()); // Food cost for breeding.
+    foodLevel -= numberOfOffsprings / (numberOfOffsprings + 1 / animal.genetics.getContext().getAnimalBreedingCost()); // Food cost for breeding.
+    setFoodLevel(foodLevel);
     if (foodLevel <= 0) animal.setDead();
   }
 
@@ -72,7 +118,7 @@ public class AnimalHungerController {
    * @return True if this animal can eat the entity, false otherwise.
    */
   public boolean canEat(Entity entity) {
-    return Arrays.asList(animal.genetics.getEats()).contains(entity.getName()) && entity.isAlive();
+    return animal.genetics.eatsSpecies(entity.getSpeciesId()) && entity.isSnapshotAlive();
   }
 
   /**
@@ -80,17 +126,48 @@ public class AnimalHungerController {
    * @return True if the animal is hungry, false otherwise.
    */
   public boolean isHungry() {
-    return foodLevel <= Data.getAnimalHungerThreshold() || !this.hasEaten;
+    return getFoodLevel() <= animal.genetics.getContext().getAnimalHungerThreshold() || !this.hasEaten;
   }
 
   /**
    * @return True if the animal is dying of hunger, false otherwise.
    */
   public boolean isDyingOfHunger() {
-    return foodLevel <= Data.getAnimalDyingOfHungerThreshold();
+    return getFoodLevel() <= animal.genetics.getContext().getAnimalDyingOfHungerThreshold();
+  }
+
+  /**
+   * Writes the food level and whether the animal has eaten, for snapshots.
+   */
+  void writeState(ByteBuffer buffer) {
+    buffer.putDouble(getFoodLevel());
+    buffer.put((byte) (hasEaten ? 1 : 0));
+  }
+
+  /**
+   * @return The number of bytes writeState writes.
+   */
+  int getStateSize() {
+    return Double.BYTES + 1;
+  }
+
+  /**
+   * Reads the state written by writeState.
+   */
+  void readState(ByteBuffer buffer) {
+    setFoodLevel(buffer.getDouble());
+    hasEaten = buffer.get() != 0;
+  }
+
+  /**
+   * Set the food level.
+   * @param foodLevel The new food level.
+   */
+  protected void setFoodLevel(double foodLevel) {
+    animal.getStore().setFoodLevel(animal.getSlot(), foodLevel);
   }
 
   // Getters:
   public boolean hasEaten() { return hasEaten; }
-  public double getFoodLevel() { return foodLevel; }
+  public double getFoodLevel() { return animal.getStore().getFoodLevel(animal.getSlot()); }
 }
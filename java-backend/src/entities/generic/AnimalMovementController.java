@@ -1,14 +1,14 @@
 package entities.generic;
 
 import simulation.Field;
+import simulation.simulationData.SpeciesRegistry;
 import util.Utility;
 import util.Vector;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Predicate;
 
-import entities.Predator;
-
 /**
  * Handles all movement for an animal. This includes wandering, moving to food, moving
  * to mates, and fleeing from entities that can eat the animal.
@@ -19,9 +19,13 @@ import entities.Predator;
 public class AnimalMovementController {
   private final Animal animal; // The animal this controller controls.
 
-  private double direction; // The direction the animal is moving in (in radians).
   private Vector lastPosition; // The last position of the animal -- used to calculate speed.
 
+  // Filters for the nearest entity searches, created once as they are used every step:
+  private final Predicate<Entity> isFood; // Entities the animal can eat.
+  private final Predicate<Entity> isMate; // Entities the animal can breed with.
+  private final Predicate<Entity> isPredator; // Predators that can eat the animal.
+
   /**
    * Constructor.
    * @param animal The animal to control movement for.
@@ -29,8 +33,13 @@ public class AnimalMovementController {
    */
   public AnimalMovementController(Animal animal, Vector position) {
     this.animal = animal;
-    this.direction = Math.random() * Math.PI * 2;
+    animal.getStore().setDirection(animal.getSlot(), animal.random.nextDouble() * Math.PI * 2);
     this.lastPosition = position;
+    // The other controllers are created after this one, so they are looked up when the filters are used:
+    isFood = e -> animal.hungerController.canEat(e);
+    isMate = e -> animal.breedingController.canMateWith(e);
+    SpeciesRegistry registry = animal.genetics.getContext().getSpeciesRegistry();
+    isPredator = e -> registry.isPredator(e.getSpeciesId()) && registry.eats(e.getSpeciesId(), animal.getSpeciesId());
   }
 
   /**
@@ -42,11 +51,12 @@ public class AnimalMovementController {
     Vector currentPos = animal.getPosition();
 
     // Randomly change direction:
-    direction += (Math.random() - 0.5) * Math.PI * 0.1;
+    double direction = getDirection() + (animal.random.nextDouble() - 0.5) * Math.PI * 0.1;
     if (field.isOutOfBounds(currentPos, animal.getSize())) {
       Vector centerOffset = field.getSize().multiply(0.5).subtract(currentPos);
-      direction = centerOffset.getAngle() + (Math.random() - 0.5) * Math.PI;
+      direction = centerOffset.getAngle() + (animal.random.nextDouble() - 0.5) * Math.PI;
     }
+    setDirection(direction);
 
     double speed = animal.genetics.getMaxSpeed() * 0.6 * deltaTime; // 60% move speed when wandering
     Vector movement = Vector.getVectorFromAngle(direction).multiply(speed);
@@ -61,8 +71,7 @@ public class AnimalMovementController {
    * @return True if the entity is moving successfully, false if it is not moving.
    */
   public boolean moveToNearestFood(List<Entity> entities, double deltaTime) {
-    Predicate<Entity> condition = animal.hungerController::canEat;
-    Entity nearestEntity = getNearestEntity(entities, condition);
+    Entity nearestEntity = getNearestEntity(entities, isFood);
     if (nearestEntity == null) return false;
 
     moveToEntity(nearestEntity, deltaTime);
@@ -76,8 +85,7 @@ public class AnimalMovementController {
    * @return True if the entity is moving successfully, false if it is not moving.
    */
   public boolean moveToNearestMate(List<Entity> entities, double deltaTime) {
-    Predicate<Entity> condition = animal.breedingController::canMateWith;
-    Entity nearestEntity = getNearestEntity(entities, condition);
+    Entity nearestEntity = getNearestEntity(entities, isMate);
     if (nearestEntity == null) return false;
 
     moveToEntity(nearestEntity, deltaTime);
@@ -93,8 +101,7 @@ public class AnimalMovementController {
    */
   public boolean fleeFromPredators(List<Entity> nearbyEntities, double deltaTime) {
     // Find the nearest predator using a predicate:
-    Predicate<Entity> condition = e -> e instanceof Predator p && p.canEat(animal);
-    Predator nearestPredator = (Predator) getNearestEntity(nearbyEntities, condition);
+    Entity nearestPredator = getNearestEntity(nearbyEntities, isPredator);
     if (nearestPredator == null) return false;
 
     // If a predator is found, flee!
@@ -102,6 +109,61 @@ public class AnimalMovementController {
     return true;
   }
 
+  /**
+   * Moves to the nearest entity in sight that this animal can eat, searching the spatial index
+   * of the field. Returns false if there are none.
+   * @param field The field to search for food in.
+   * @param deltaTime The delta time.
+   * @return True if the entity is moving successfully, false if it is not moving.
+   */
+  public boolean moveToNearestFood(Field field, double deltaTime) {
+    Entity nearestEntity = getNearestEntity(field, isFood);
+    if (nearestEntity == null) return false;
+
+    moveToEntity(nearestEntity, deltaTime);
+    return true;
+  }
+
+  /**
+   * Moves to the nearest entity in sight that this animal can breed with, searching the spatial
+   * index of the field. Returns false if there are none.
+   * @param field The field to search for mates in.
+   * @param deltaTime The delta time.
+   * @return True if the entity is moving successfully, false if it is not moving.
+   */
+  public boolean moveToNearestMate(Field field, double deltaTime) {
+    Entity nearestEntity = getNearestEntity(field, isMate);
+    if (nearestEntity == null) return false;
+
+    moveToEntity(nearestEntity, deltaTime);
+    return true;
+  }
+
+  /**
+   * Flees from the nearest predator in sight, searching the spatial index of the field.
+   * @param field The field to search for predators in.
+   * @param deltaTime The delta time.
+   * @return True if it flees, false otherwise.
+   */
+  public boolean fleeFromPredators(Field field, double deltaTime) {
+    Entity nearestPredator = getNearestEntity(field, isPredator);
+    if (nearestPredator == null) return false;
+
+    fleeFromEntity(nearestPredator, deltaTime);
+    return true;
+  }
+
+  /**
+   * Search the field for the nearest entity in sight satisfying the condition, or null. Stops
+   * early instead of collecting every entity in sight.
+   * @param field The field to search.
+   * @param condition The condition to determine what entities to move towards.
+   * @return The nearest entity satisfying the condition, null if none found.
+   */
+  private Entity getNearestEntity(Field field, Predicate<Entity> condition) {
+    return field.findNearest(animal.getX(), animal.getY(), animal.genetics.getSight(), condition);
+  }
+
   /**
    * Search a list of nearby entities and return the nearest entity satisfying the condition, or null.
    * @implNote If there are multiple entities at the same distance, the first one in the list is returned.
@@ -113,9 +175,13 @@ public class AnimalMovementController {
     Entity nearestEntity = null;
     double closestDistance = Double.MAX_VALUE;
 
+    double x = animal.getX();
+    double y = animal.getY();
     for (Entity entity : entities) {
       if (condition.test(entity)) {
-        double distance = entity.position.subtract(animal.getPosition()).getMagnitudeSquared();
+        double dx = entity.getSnapshotX() - x;
+        double dy = entity.getSnapshotY() - y;
+        double distance = dx * dx + dy * dy;
         if (distance < closestDistance) {
           nearestEntity = entity;
           closestDistance = distance;
@@ -138,9 +204,9 @@ public class AnimalMovementController {
 
     Vector difference;
     if (moveAwayFromEntity) {
-      difference = currentPos.subtract(entity.position);
+      difference = currentPos.subtract(entity.getSnapshotPosition());
     } else {
-      difference = entity.position.subtract(currentPos);
+      difference = entity.getSnapshotPosition().subtract(currentPos);
     }
 
     // Do nothing if the entity is at the same position (avoids division by zero):
@@ -177,6 +243,48 @@ public class AnimalMovementController {
     this.lastPosition = lastPosition;
   }
 
+  /**
+   * Writes the direction and the last position, for snapshots.
+   */
+  void writeState(ByteBuffer buffer) {
+    buffer.putDouble(getDirection());
+    buffer.put((byte) (lastPosition != null ? 1 : 0));
+    if (lastPosition != null) {
+      buffer.putDouble(lastPosition.x());
+      buffer.putDouble(lastPosition.y());
+    }
+  }
+
+  /**
+   * @return The number of bytes writeState writes now.
+   */
+  int getStateSize() {
+    return Double.BYTES + 1 + (lastPosition != null ? 2 * Double.BYTES : 0);
+  }
+
+  /**
+   * Reads the state written by writeState.
+   */
+  void readState(ByteBuffer buffer) {
+    setDirection(buffer.getDouble());
+    lastPosition = buffer.get() != 0 ? new Vector(buffer.getDouble(), buffer.getDouble()) : null;
+  }
+
+  /**
+   * Set the direction.
+   * @param direction The new direction in radians.
+   */
+  protected void setDirection(double direction) {
+    animal.getStore().setDirection(animal.getSlot(), direction);
+  }
+
+  /**
+   * @return The direction in radians.
+   */
+  public double getDirection() {
+    return animal.getStore().getDirection(animal.getSlot());
+  }
+
   /**
    * @implNote Uses current position and the last position to calculate.
    * @return The distance travelled in the current frame relative to the last.
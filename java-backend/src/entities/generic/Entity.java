@@ -1,32 +1,55 @@
 package entities.generic;
 
+import util.SimulationRandom;
 import util.Utility;
 import util.Vector;
 import genetics.Genetics;
 import graphics.Display;
+import simulation.EntityStore;
 import simulation.Field;
-import simulation.simulationData.Data;
+import simulation.simulationData.SpeciesRegistry;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * An abstract class that holds the properties of an entity.
+ * An abstract class that holds the properties of an entity. The position, age and alive flag
+ * are kept in a slot of the entity store of the simulation, so that the passes of a step over
+ * all the entities read them from arrays; the entity holds its slot until it leaves the
+ * simulation for good and gives it back with release.
  * 
  * @author Anas Ahmed and Mehmet Kutay Bozkurt
  * @version 1.0
  */
 public abstract class Entity {
-  protected Vector position; // Position of the entity
+  private static final ThreadLocal<List<Entity>> NEARBY_ENTITIES = ThreadLocal.withInitial(ArrayList::new); // Search buffer of each thread.
+
   protected Genetics genetics; // Genetics of the entity
-  private double age = 0; // Age of the entity
-  private boolean isAlive = true; // Whether the entity is alive or not
+  protected final SimulationRandom random; // The random stream of the entity, only used by this entity.
+  private final EntityStore store; // Holds the position, age and alive flag of the entity.
+  private int slot; // The slot of the entity in the store, -1 once given back.
+
+  // State published to other entities during the read phase of a two-phase step:
+  private boolean inSnapshot = false; // Whether other entities currently see the snapshot instead of the live state.
+  private final List<Entity> pendingOffspring = new ArrayList<>(); // Offspring born during the read phase.
 
   /**
-   * Constructor -- Create a new entity with the given genetics and position.
+   * Constructor -- Create a new entity with the given genetics and position, and an unseeded random stream.
    */
   public Entity(Genetics genetics, Vector position) {
+    this(genetics, position, new SimulationRandom(ThreadLocalRandom.current().nextLong()));
+  }
+
+  /**
+   * Constructor -- Create a new entity with the given genetics, position and random stream.
+   */
+  public Entity(Genetics genetics, Vector position, SimulationRandom random) {
     this.genetics = genetics;
-    this.position = position;
+    this.random = random;
+    store = genetics.getContext().getEntityStore();
+    slot = store.allocate(genetics.getSpeciesId(), position.x(), position.y());
   }
 
   /**
@@ -36,7 +59,9 @@ public abstract class Entity {
    */
   protected boolean isColliding(Entity entity) {
     if (entity == null || entity == this) return false;
-    double distanceSquared = this.position.subtract(entity.position).getMagnitudeSquared();
+    double dx = getX() - entity.getSnapshotX();
+    double dy = getY() - entity.getSnapshotY();
+    double distanceSquared = dx * dx + dy * dy;
 
     // This is mathematically the same as (distance <= (e.size + size)), but no sqrt call for optimisation.
     int sumOfSizes = this.getSize() + entity.getSize();
@@ -44,26 +69,48 @@ public abstract class Entity {
   }
 
   /**
-   * Search for entities in the search radius, using a quadtree for optimisation.
+   * @return The largest radius this entity searches for other entities in while it updates.
+   * The tiled spatial index copies this far across the border of every tile.
+   */
+  public double getSearchRadius() {
+    return genetics.getOvercrowdingRadius();
+  }
+
+  /**
+   * Search for entities in the search radius, using the spatial index of the field for optimisation.
+   * @implNote The returned list is a buffer of the calling thread, which is reused by the next
+   * search on the same thread, so the search does not allocate.
    * @param field The field that will be searched through.
    * @param searchRadius The radius to search for entities.
-   * @return Returns all entities in the field in the radius, except itself.
+   * @return Returns all entities in the field in the radius, including itself.
    */
   public List<Entity> searchNearbyEntities(Field field, double searchRadius) {
-    return field.queryQuadtree(position, searchRadius);
+    List<Entity> nearbyEntities = NEARBY_ENTITIES.get();
+    nearbyEntities.clear();
+    field.querySpatialIndex(getX(), getY(), searchRadius, nearbyEntities);
+    return nearbyEntities;
   }
 
   /**
    * Handles overcrowding of entities of the same species.
-   * Looks at the genetics of the species to determine overcrowding.
-   * @param nearbyEntities The entities that are nearby to search through.
+   * Looks at the genetics of the species to determine overcrowding. Only searches as far as
+   * the overcrowding radius, and never further than the search radius.
+   * @param field The field to search for entities of the same species.
    */
-  public void handleOvercrowding(List<Entity> nearbyEntities) {
-    List<Entity> entities = nearbyEntities.stream()
-      .filter(e -> position.subtract(e.getPosition()).getMagnitude() <= genetics.getOvercrowdingRadius())
-      .toList();
-    List<Entity> sameSpecies = getSameSpecies(entities);
-    if (sameSpecies.size() >= genetics.getOvercrowdingThreshold()) {
+  public void handleOvercrowding(Field field) {
+    double x = getX();
+    double y = getY();
+    double radius = genetics.getOvercrowdingRadius();
+    double radiusSquared = radius * radius;
+    // The query leaves out the points on the circle, which count as overcrowding:
+    List<Entity> nearbyEntities = searchNearbyEntities(field, Math.min(getSearchRadius(), Math.nextUp(radius)));
+    int sameSpecies = 0;
+    for (Entity e : nearbyEntities) {
+      double dx = e.getSnapshotX() - x;
+      double dy = e.getSnapshotY() - y;
+      if (dx * dx + dy * dy <= radiusSquared && isSameSpecies(e)) sameSpecies++;
+    }
+    if (sameSpecies >= genetics.getOvercrowdingThreshold()) {
       setDead();
     }
   }
@@ -75,10 +122,22 @@ public abstract class Entity {
    */
   protected List<Entity> getSameSpecies(List<Entity> entities) {
     return entities.stream()
-      .filter(e -> e.getName().equals(getName()))
+      .filter(this::isSameSpecies)
       .toList();
   }
 
+  /**
+   * Compares the species ids, falling back to the names for species that are not in the
+   * simulation data, as those all share the unknown id.
+   * @param entity The entity to compare with.
+   * @return Whether the entity is of the same species as this entity.
+   */
+  public boolean isSameSpecies(Entity entity) {
+    int speciesId = getSpeciesId();
+    if (speciesId != entity.getSpeciesId()) return false;
+    return speciesId != SpeciesRegistry.UNKNOWN || getName().equals(entity.getName());
+  }
+
   /**
    * Is 10% of the size at birth, grows to 100% size at mature age. Minimum size is two.
    * Purely used for visuals, not for simulation calculations (food values nor collision).
@@ -86,27 +145,57 @@ public abstract class Entity {
    */
   protected double getCurrentVisualSize() {
     double birthSize = 0.1 * getSize();
-    double size = Utility.lerp(birthSize, getSize(), Math.min(1.0, age / genetics.getMatureAge()));
+    double size = Utility.lerp(birthSize, getSize(), Math.min(1.0, getAge() / genetics.getMatureAge()));
     return Math.max(size, 2);
   }
 
   /**
-   * Increment the age of the entity.
-   * Age increase rate is proportional to delta time.
-   * @param deltaTime The time passed since the last update.
+   * @return Whether the entity can reproduce or not, according to the mature age.
+   */
+  protected boolean canMultiply() {
+    double age = getAge();
+    return isAlive() && age >= genetics.getMatureAge() && age < genetics.getMaxAge();
+  }
+
+  /**
+   * Adds an offspring of this entity to the field. During the read phase of a two-phase
+   * step the offspring is held back until this entity is committed.
+   * @param field The field to add the offspring to.
+   * @param offspring The offspring to add.
    */
-  public void incrementAge(double deltaTime) {
-    age += deltaTime * Data.getEntityAgeRate();
-    if (age >= genetics.getMaxAge()) {
-      setDead();
+  protected void addOffspring(Field field, Entity offspring) {
+    field.putInBounds(offspring, offspring.getSize());
+    if (inSnapshot) {
+      pendingOffspring.add(offspring);
+    } else {
+      field.addEntity(offspring);
     }
   }
 
   /**
-   * @return Whether the entity can reproduce or not, according to the mature age.
+   * Freezes the position and alive flag that other entities see, so that this entity
+   * can update its live state in parallel with the others. Starts the read phase.
    */
-  protected boolean canMultiply() {
-    return isAlive && age >= genetics.getMatureAge() && age < genetics.getMaxAge();
+  public void takeSnapshot() {
+    store.takeSnapshot(slot);
+    inSnapshot = true;
+  }
+
+  /**
+   * Ends the read phase: applies the interactions decided against the snapshot and
+   * publishes the live state to the other entities again. An entity that died in the step,
+   * such as by being eaten by an entity committed before it, has no offspring.
+   * @param field The field to add the offspring to, and to tell if the entity moved.
+   */
+  public void commit(Field field) {
+    if (isAlive()) {
+      for (Entity offspring : pendingOffspring) {
+        field.addEntity(offspring);
+      }
+    }
+    pendingOffspring.clear();
+    if (store.hasMoved(slot)) field.entityMoved(this);
+    inSnapshot = false;
   }
 
   /**
@@ -117,24 +206,37 @@ public abstract class Entity {
   public abstract void draw(Display display, double scaleFactor);
 
   /**
-   * Update the entity.
+   * Update the entity. The field has already aged it for this step.
+   * @see Field#ageEntities(double)
    */
   public void update(Field field, double deltaTime) {
-    incrementAge(deltaTime);
+    if (getAge() >= genetics.getMaxAge()) {
+      setDead();
+    }
   }
 
   /**
    * Set age of the entity.
    */
   public void setAge(double age) {
-    this.age = age;
+    store.setAge(slot, age);
   }
 
   /**
    * Set the entity as dead.
    */
   public void setDead() {
-    this.isAlive = false;
+    if (slot >= 0) store.setDead(slot);
+  }
+
+  /**
+   * Gives the slot of the entity back to the store, when the entity leaves the simulation for
+   * good, such as when it is removed dead. The entity counts as dead afterwards, and nothing
+   * else of it may be read.
+   */
+  public void release() {
+    store.release(slot);
+    slot = -1;
   }
 
   /**
@@ -142,19 +244,92 @@ public abstract class Entity {
    */
   @Override
   public String toString() {
-    return this.getName() + " at " + this.position.toString();
+    return this.getName() + " at " + getPosition().toString();
   }
 
   /**
    * Set position of the entity.
    */
   public void setPosition(Vector position) {
-    if (position != null) this.position = position;
+    if (position == null) return;
+    store.setPosition(slot, position.x(), position.y());
+  }
+
+  /**
+   * Set position of the entity, without creating a vector.
+   */
+  public void setPosition(double x, double y) {
+    store.setPosition(slot, x, y);
+  }
+
+  /**
+   * Other entities must sense this entity through this method, as the live position may be
+   * changing on another thread during a two-phase step.
+   * @return The position at the start of the step during the read phase, the live position otherwise.
+   */
+  public Vector getSnapshotPosition() {
+    return new Vector(getSnapshotX(), getSnapshotY());
+  }
+
+  /**
+   * @return The x coordinate of getSnapshotPosition, without creating a vector.
+   */
+  public double getSnapshotX() {
+    return inSnapshot ? store.getSnapshotX(slot) : getX();
+  }
+
+  /**
+   * @return The y coordinate of getSnapshotPosition, without creating a vector.
+   */
+  public double getSnapshotY() {
+    return inSnapshot ? store.getSnapshotY(slot) : getY();
+  }
+
+  /**
+   * @return Whether the entity was alive at the start of the step during the read phase, the live flag otherwise.
+   */
+  public boolean isSnapshotAlive() {
+    return inSnapshot ? store.isSnapshotAlive(slot) : isAlive();
+  }
+
+  /**
+   * Writes the state of the entity that is not in its genetics, position or random stream,
+   * for snapshots. Only called between steps.
+   * @param buffer The buffer to write to, with at least getStateSize bytes remaining.
+   */
+  public void writeState(ByteBuffer buffer) {
+    buffer.putDouble(getAge());
+    buffer.put((byte) (isAlive() ? 1 : 0));
+  }
+
+  /**
+   * @return The number of bytes writeState writes now.
+   */
+  public int getStateSize() {
+    return Double.BYTES + 1;
+  }
+
+  /**
+   * Reads the state written by writeState into a new, detached entity.
+   * @param buffer The buffer to read from.
+   */
+  public void readState(ByteBuffer buffer) {
+    setAge(buffer.getDouble());
+    if (buffer.get() == 0) setDead();
   }
 
   // Getters:
-  public Vector getPosition() { return position; }
+  public Vector getPosition() { return new Vector(getX(), getY()); } // Prefer getX and getY, which create no vector.
+  public double getX() { return store.getX(slot); }
+  public double getY() { return store.getY(slot); }
+  public double getAge() { return store.getAge(slot); }
+  public Genetics getGenetics() { return genetics; }
   public String getName() { return genetics.getName(); }
+  public int getSpeciesId() { return store.getSpeciesId(slot); }
   public int getSize() { return genetics.getSize(); } // This getter is for code simplicity.
-  public boolean isAlive() { return isAlive; }
+  public boolean isAlive() { return slot >= 0 && store.isAlive(slot); }
+  public int getSlot() { return slot; }
+  public SimulationRandom getRandom() { return random; }
+  EntityStore getStore() { return store; }
+  protected boolean isInSnapshot() { return inSnapshot; }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package genetics;
 
 import java.awt.*;
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
 
 import genetics.mutation.AnimalMutator;
+import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
+import simulation.simulationData.SpeciesRegistry;
 import util.Utility;
 
 /**
@@ -19,43 +24,63 @@ public class AnimalGenetics extends Genetics {
   private final double sight; // Range at which the entity can see other entities.
   private final Gender gender; // The gender of the animal.
   private final String[] eats; // The names of the entities the animal eats.
+  private final BitSet diet; // The species ids of the entities the animal eats, compiled from eats.
 
   /**
-   * Constructor -- Creates a new set of genetics for an animal.
+   * Constructor -- Creates a new set of genetics for an animal in the default simulation context.
    */
   public AnimalGenetics(double multiplyingRate, int maxLitterSize, int maxAge, int matureAge, double mutationRate, double maxSpeed, double sight, Gender gender, int size, String[] eats, String name, Color colour, int overcrowdingThreshold, double overcrowdingRadius, double maxOffspringSpawnDistance) {
-    super(maxAge, matureAge, multiplyingRate, size, name, colour, overcrowdingThreshold, overcrowdingRadius, maxOffspringSpawnDistance, mutationRate);
+    this(Data.getContext(), multiplyingRate, maxLitterSize, maxAge, matureAge, mutationRate, maxSpeed, sight, gender, size, eats, name, colour, overcrowdingThreshold, overcrowdingRadius, maxOffspringSpawnDistance);
+  }
+
+  /**
+   * Constructor -- Creates a new set of genetics for an animal.
+   * @param context The parameters of the simulation the animal lives in.
+   */
+  public AnimalGenetics(SimulationContext context, double multiplyingRate, int maxLitterSize, int maxAge, int matureAge, double mutationRate, double maxSpeed, double sight, Gender gender, int size, String[] eats, String name, Color colour, int overcrowdingThreshold, double overcrowdingRadius, double maxOffspringSpawnDistance) {
+    super(context, maxAge, matureAge, multiplyingRate, size, name, colour, overcrowdingThreshold, overcrowdingRadius, maxOffspringSpawnDistance, mutationRate);
     this.maxLitterSize = maxLitterSize;
     this.maxSpeed = maxSpeed;
     this.sight = sight;
     this.gender = gender;
     this.eats = eats;
+    this.diet = compileDiet(context, name, eats);
+  }
+
+  /**
+   * @return The species ids of the named foods, for an animal of the named species.
+   */
+  private static BitSet compileDiet(SimulationContext context, String name, String[] eats) {
+    SpeciesRegistry registry = context.getSpeciesRegistry();
+    return registry.compileDiet(registry.getId(name), eats);
   }
 
   /**
    * Breed with another animal to create a new animal with genetics in between the two parents.
    * @param mate The other animal to breed with.
+   * @param random The random stream to use.
    * @return The genetics of the new animal.
    */
-  public AnimalGenetics breed(AnimalGenetics mate) {
-    Gender gender = Math.random() < 0.5 ? this.getGender() : mate.getGender();
+  public AnimalGenetics breed(AnimalGenetics mate, RandomGenerator random) {
+    Gender gender = random.nextDouble() < 0.5 ? this.getGender() : mate.getGender();
     return AnimalMutator.mutateAnimalGenetics(new AnimalGenetics(
-      singleBreed(this.getMultiplyingRate(), mate.getMultiplyingRate()),
-      singleBreed(this.getMaxLitterSize(), mate.getMaxLitterSize()),
-      singleBreed(this.getMaxAge(), mate.getMaxAge()),
-      singleBreed(this.getMatureAge(), mate.getMatureAge()),
-      singleBreed(this.getMutationRate(), mate.getMutationRate()),
-      singleBreed(this.getMaxSpeed(), mate.getMaxSpeed()),
-      singleBreed(this.getSight(), mate.getSight()),
+      this.getContext(),
+      singleBreed(this.getMultiplyingRate(), mate.getMultiplyingRate(), random),
+      singleBreed(this.getMaxLitterSize(), mate.getMaxLitterSize(), random),
+      singleBreed(this.getMaxAge(), mate.getMaxAge(), random),
+      singleBreed(this.getMatureAge(), mate.getMatureAge(), random),
+      singleBreed(this.getMutationRate(), mate.getMutationRate(), random),
+      singleBreed(this.getMaxSpeed(), mate.getMaxSpeed(), random),
+      singleBreed(this.getSight(), mate.getSight(), random),
       gender,
-      singleBreed(this.getSize(), mate.getSize()),
+      singleBreed(this.getSize(), mate.getSize(), random),
       this.getEats(),
       this.getName(),
-      Utility.breedColor(this.getColour(), mate.getColour()),
-      singleBreed(this.getOvercrowdingThreshold(), mate.getOvercrowdingThreshold()),
-      singleBreed(this.getOvercrowdingRadius(), mate.getOvercrowdingRadius()),
-      singleBreed(this.getMaxOffspringSpawnDistance(), mate.getMaxOffspringSpawnDistance())
-    ));
+      Utility.breedColor(this.getColour(), mate.getColour(), random),
+      singleBreed(this.getOvercrowdingThreshold(), mate.getOvercrowdingThreshold(), random),
+      singleBreed(this.getOvercrowdingRadius(), mate.getOvercrowdingRadius(), random),
+      singleBreed(this.getMaxOffspringSpawnDistance(), mate.getMaxOffspringSpawnDistance(), random)
+    ), random);
   }
 
   /**
@@ -63,10 +88,11 @@ public class AnimalGenetics extends Genetics {
    * random interpolation (in double).
    * @param value The genetic trait value from the first parent.
    * @param mateValue The genetic trait value from the second parent.
+   * @param random The random stream to use.
    * @return A new genetic trait value that is a random weighted average of the parents' values.
    */
-  private double singleBreed(double value, double mateValue) {
-    double r = Math.random();
+  private double singleBreed(double value, double mateValue, RandomGenerator random) {
+    double r = random.nextDouble();
     return r * value + (1 - r) * mateValue;
   }
 
@@ -75,10 +101,11 @@ public class AnimalGenetics extends Genetics {
    * random interpolation (in int).
    * @param value The genetic trait value from the first parent.
    * @param mateValue The genetic trait value from the second parent.
+   * @param random The random stream to use.
    * @return A new genetic trait value that is a random weighted average of the parents' values.
    */
-  private int singleBreed(int value, int mateValue) {
-    double r = Math.random();
+  private int singleBreed(int value, int mateValue, RandomGenerator random) {
+    double r = random.nextDouble();
     return (int) Math.round(r * value + (1 - r) * mateValue);
   }
 
@@ -88,4 +115,5 @@ public class AnimalGenetics extends Genetics {
   public double getSight() { return sight; }
   public Gender getGender() { return gender; }
   public String[] getEats() { return eats; }
+  public boolean eatsSpecies(int speciesId) { return speciesId >= 0 && diet.get(speciesId); }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package genetics;
 
 import java.awt.Color;
 
+import simulation.simulationData.SimulationContext;
+
 /**
  * An abstract genetics class for entities.
  * Contains genetic values that are both common to animals and plants.
@@ -10,7 +12,9 @@ import java.awt.Color;
  * @version 1.0
  */
 public abstract class Genetics {
+  private final SimulationContext context; // The parameters of the simulation the entity lives in.
   private final String name; // Name of entity, acts as identifying key.
+  private final int speciesId; // Id of the species in the species registry, compiled from the name.
   private final int maxAge; // Maximum age of the entity.
   private final int matureAge; // Age at which the entity can start breeding.
   private final double multiplyingRate; // Rate at which the entity multiplies -- breads (animal) or spreads (plant).
@@ -23,13 +27,16 @@ public abstract class Genetics {
 
   /**
    * Constructor.
+   * @param context The parameters of the simulation, shared by all the genetics in it.
    */
-  public Genetics(int maxAge, int matureAge, double multiplyingRate, int size, String name, Color colour, int overcrowdingThreshold, double overcrowdingRadius, double maxOffspringSpawnDistance, double mutationRate) {
+  public Genetics(SimulationContext context, int maxAge, int matureAge, double multiplyingRate, int size, String name, Color colour, int overcrowdingThreshold, double overcrowdingRadius, double maxOffspringSpawnDistance, double mutationRate) {
+    this.context = context;
     this.maxAge = maxAge;
     this.matureAge = matureAge;
     this.multiplyingRate = multiplyingRate;
     this.size = size;
     this.name = name;
+    this.speciesId = context.getSpeciesRegistry().getId(name);
     this.colour = colour;
     this.overcrowdingThreshold = overcrowdingThreshold;
     this.overcrowdingRadius = overcrowdingRadius;
@@ -38,7 +45,9 @@ public abstract class Genetics {
   }
 
   // Getters:
+  public SimulationContext getContext() { return context; }
   public String getName() { return name; }
+  public int getSpeciesId() { return speciesId; }
   public int getMaxAge() { return maxAge; }
   public int getMatureAge() { return matureAge; }
   public double getMultiplyingRate() { return multiplyingRate; }
@@ -1,7 +1,11 @@
 package genetics;
 
 import genetics.mutation.PlantMutator;
+import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
+
 import java.awt.Color;
+import java.util.random.RandomGenerator;
 
 /**
  * PlantGenetics class. Contains the genetics of a plant entity.
@@ -14,10 +18,18 @@ public class PlantGenetics extends Genetics {
   private final double rainingGrowthFactor; // The factor by which the plant grows when it is raining.
 
   /**
-   * Constructor -- Creates a new set of genetics for a plant.
+   * Constructor -- Creates a new set of genetics for a plant in the default simulation context.
    */
   public PlantGenetics(int maxAge, int matureAge, double multiplyingRate, int size, String name, Color colour, int numberOfSeeds, double maxOffspringSpawnDistance, int overcrowdingThreshold, double overcrowdingRadius, double mutationRate, double rainingGrowthFactor) {
-    super(maxAge, matureAge, multiplyingRate, size, name, colour, overcrowdingThreshold, overcrowdingRadius, maxOffspringSpawnDistance, mutationRate);
+    this(Data.getContext(), maxAge, matureAge, multiplyingRate, size, name, colour, numberOfSeeds, maxOffspringSpawnDistance, overcrowdingThreshold, overcrowdingRadius, mutationRate, rainingGrowthFactor);
+  }
+
+  /**
+   * Constructor -- Creates a new set of genetics for a plant.
+   * @param context The parameters of the simulation the plant lives in.
+   */
+  public PlantGenetics(SimulationContext context, int maxAge, int matureAge, double multiplyingRate, int size, String name, Color colour, int numberOfSeeds, double maxOffspringSpawnDistance, int overcrowdingThreshold, double overcrowdingRadius, double mutationRate, double rainingGrowthFactor) {
+    super(context, maxAge, matureAge, multiplyingRate, size, name, colour, overcrowdingThreshold, overcrowdingRadius, maxOffspringSpawnDistance, mutationRate);
     this.numberOfSeeds = numberOfSeeds;
     this.rainingGrowthFactor = rainingGrowthFactor;
   }
@@ -25,10 +37,11 @@ public class PlantGenetics extends Genetics {
   /**
    * Get the genetics of the offspring, created from this genetics.
    * Can be mutated.
+   * @param random The random stream to use.
    * @return The genetics of the offspring.
    */
-  public PlantGenetics getOffspringGenetics() {
-    return PlantMutator.mutatePlantGenetics(this);
+  public PlantGenetics getOffspringGenetics(RandomGenerator random) {
+    return PlantMutator.mutatePlantGenetics(this, random);
   }
 
   // Getters:
@@ -2,12 +2,10 @@ package genetics.mutation;
 
 import genetics.AnimalGenetics;
 import simulation.simulationData.AnimalData;
-import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
 import util.Utility;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.random.RandomGenerator;
 
 /**
  * Responsible for mutating animal genetics.
@@ -20,40 +18,35 @@ public class AnimalMutator extends Mutator {
    * Mutate the given animal genetics.
    * @implNote Creates a new object, instead of mutating the given one.
    * @param genetics The genetics to mutate.
+   * @param random The random stream to use.
    * @return The mutated genetics.
    */
-  public static AnimalGenetics mutateAnimalGenetics(AnimalGenetics genetics) {
-    List<AnimalData> animalDatas = new ArrayList<>();
-    // Add all of the animal data to the list, without differentiating between predators and preys:
-    animalDatas.addAll(Arrays.asList(Data.getPredatorsData()));
-    animalDatas.addAll(Arrays.asList(Data.getPreysData()));
-
-    // Get the specific animal data for this species:
-    AnimalData animalData = animalDatas
-      .stream()
-      .filter(ad -> ad.name.equals(genetics.getName()))
-      .findFirst()
-      .orElse(null);
+  public static AnimalGenetics mutateAnimalGenetics(AnimalGenetics genetics, RandomGenerator random) {
+    SimulationContext context = genetics.getContext(); // Mutations are bounded by the data of the simulation of the parent.
+    // Get the specific animal data for this species, predator or prey:
+    AnimalData animalData = context.getSpeciesRegistry().getAnimalData(genetics.getSpeciesId());
 
     if (animalData == null) return null;
     double mutationRate = genetics.getMutationRate();
+    double mutationFactor = context.getMutationFactor();
 
     return new AnimalGenetics(
-      singleMutate(genetics.getMultiplyingRate(), animalData.multiplyingRate, mutationRate),
-      singleMutate(genetics.getMaxLitterSize(), animalData.maxLitterSize, mutationRate),
-      singleMutate(genetics.getMaxAge(), animalData.maxAge, mutationRate),
-      singleMutate(genetics.getMatureAge(), animalData.matureAge, mutationRate),
-      singleMutate(genetics.getMutationRate(), animalData.mutationRate, mutationRate),
-      singleMutate(genetics.getMaxSpeed(), animalData.maxSpeed, mutationRate),
-      singleMutate(genetics.getSight(), animalData.sight, mutationRate),
+      context,
+      singleMutate(genetics.getMultiplyingRate(), animalData.multiplyingRate, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMaxLitterSize(), animalData.maxLitterSize, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMaxAge(), animalData.maxAge, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMatureAge(), animalData.matureAge, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMutationRate(), animalData.mutationRate, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMaxSpeed(), animalData.maxSpeed, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getSight(), animalData.sight, mutationRate, mutationFactor, random),
       genetics.getGender(),
-      singleMutate(genetics.getSize(), animalData.size, mutationRate),
+      singleMutate(genetics.getSize(), animalData.size, mutationRate, mutationFactor, random),
       genetics.getEats(),
       genetics.getName(),
-      Utility.mutateColor(genetics.getColour(), mutationRate),
-      singleMutate(genetics.getOvercrowdingThreshold(), animalData.overcrowdingThreshold, mutationRate),
-      singleMutate(genetics.getOvercrowdingRadius(), animalData.overcrowdingRadius, mutationRate),
-      singleMutate(genetics.getMaxOffspringSpawnDistance(), animalData.maxOffspringSpawnDistance, mutationRate)
+      Utility.mutateColor(genetics.getColour(), mutationRate, mutationFactor, random),
+      singleMutate(genetics.getOvercrowdingThreshold(), animalData.overcrowdingThreshold, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getOvercrowdingRadius(), animalData.overcrowdingRadius, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMaxOffspringSpawnDistance(), animalData.maxOffspringSpawnDistance, mutationRate, mutationFactor, random)
     );
   }
 }
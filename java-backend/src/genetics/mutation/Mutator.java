@@ -1,6 +1,6 @@
 package genetics.mutation;
 
-import simulation.simulationData.Data;
+import java.util.random.RandomGenerator;
 
 /**
  * Responsible for mutating genetics. Contains methods for mutating a single value
@@ -15,12 +15,14 @@ public class Mutator {
    * @param value The value to mutate.
    * @param interval The interval of the value (0th index is the minimum, 1st index is the maximum).
    * @param mutationRate The probability of mutation happening.
+   * @param mutationFactor The ratio that the value mutates by.
+   * @param random The random stream to use.
    * @return The mutated value.
    */
-  protected static double singleMutate(double value, double[] interval, double mutationRate) {
-    if (Math.random() >= mutationRate) return value;
+  protected static double singleMutate(double value, double[] interval, double mutationRate, double mutationFactor, RandomGenerator random) {
+    if (random.nextDouble() >= mutationRate) return value;
     // Randomly increase or decrease the value:
-    double mutatedValue = value + value * Data.getMutationFactor() * (Math.random() > 0.5 ? 1 : -1);
+    double mutatedValue = value + value * mutationFactor * (random.nextDouble() > 0.5 ? 1 : -1);
     return Math.max(interval[0], Math.min(interval[1], mutatedValue));
   }
 
@@ -29,11 +31,13 @@ public class Mutator {
    * @param value The value to mutate.
    * @param interval The interval of the value (0th index is the minimum, 1st index is the maximum).
    * @param mutationRate The probability of mutation happening.
+   * @param mutationFactor The ratio that the value mutates by.
+   * @param random The random stream to use.
    * @return The mutated value.
    */
-  protected static int singleMutate(int value, int[] interval, double mutationRate) {
-    if (Math.random() >= mutationRate) return value;
-    int mutatedValue = (int) Math.round(value + value * Data.getMutationFactor() * (Math.random() > 0.5 ? 1 : -1));
+  protected static int singleMutate(int value, int[] interval, double mutationRate, double mutationFactor, RandomGenerator random) {
+    if (random.nextDouble() >= mutationRate) return value;
+    int mutatedValue = (int) Math.round(value + value * mutationFactor * (random.nextDouble() > 0.5 ? 1 : -1));
     return Math.max(interval[0], Math.min(interval[1], mutatedValue));
   }
 }
\ No newline at end of file
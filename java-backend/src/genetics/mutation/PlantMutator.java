@@ -1,11 +1,11 @@
 package genetics.mutation;
 
 import genetics.PlantGenetics;
-import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
 import simulation.simulationData.PlantData;
 import util.Utility;
 
-import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 /**
  * Mutator for plant genetics.
@@ -18,30 +18,31 @@ public class PlantMutator extends Mutator {
    * Mutate the given plant genetics.
    * @implNote Creates a new object, instead of mutating the given one.
    * @param genetics The genetics to mutate.
+   * @param random The random stream to use.
    * @return The mutated genetics.
    */
-  public static PlantGenetics mutatePlantGenetics(PlantGenetics genetics) {
+  public static PlantGenetics mutatePlantGenetics(PlantGenetics genetics, RandomGenerator random) {
+    SimulationContext context = genetics.getContext(); // Mutations are bounded by the data of the simulation of the parent.
     // Get the specific plant data for this species:
-    PlantData plantData = Arrays.stream(Data.getPlantsData())
-      .filter(pd -> pd.name.equals(genetics.getName()))
-      .findFirst()
-      .orElse(null);
+    PlantData plantData = context.getSpeciesRegistry().getPlantData(genetics.getSpeciesId());
 
     if (plantData == null) return null;
     double mutationRate = genetics.getMutationRate();
+    double mutationFactor = context.getMutationFactor();
 
     return new PlantGenetics(
-      singleMutate(genetics.getMaxAge(), plantData.maxAge, mutationRate),
-      singleMutate(genetics.getMatureAge(), plantData.matureAge, mutationRate),
-      singleMutate(genetics.getMultiplyingRate(), plantData.multiplyingRate, mutationRate),
-      singleMutate(genetics.getSize(), plantData.size, mutationRate),
+      context,
+      singleMutate(genetics.getMaxAge(), plantData.maxAge, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMatureAge(), plantData.matureAge, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMultiplyingRate(), plantData.multiplyingRate, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getSize(), plantData.size, mutationRate, mutationFactor, random),
       genetics.getName(),
-      Utility.mutateColor(genetics.getColour(), mutationRate),
-      singleMutate(genetics.getNumberOfSeeds(), plantData.numberOfSeeds, mutationRate),
-      singleMutate(genetics.getMaxOffspringSpawnDistance(), plantData.maxOffspringSpawnDistance, mutationRate),
-      singleMutate(genetics.getOvercrowdingThreshold(), plantData.overcrowdingThreshold, mutationRate),
-      singleMutate(genetics.getOvercrowdingRadius(), plantData.overcrowdingRadius, mutationRate),
-      singleMutate(genetics.getMutationRate(), plantData.mutationRate, mutationRate),
+      Utility.mutateColor(genetics.getColour(), mutationRate, mutationFactor, random),
+      singleMutate(genetics.getNumberOfSeeds(), plantData.numberOfSeeds, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMaxOffspringSpawnDistance(), plantData.maxOffspringSpawnDistance, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getOvercrowdingThreshold(), plantData.overcrowdingThreshold, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getOvercrowdingRadius(), plantData.overcrowdingRadius, mutationRate, mutationFactor, random),
+      singleMutate(genetics.getMutationRate(), plantData.mutationRate, mutationRate, mutationFactor, random),
       genetics.getRainingGrowthFactor()
     );
   }
@@ -1,5 +1,6 @@
 package graphics;
 
+import util.TickProfiler;
 import util.Vector;
 
 import java.awt.*;
@@ -35,6 +36,22 @@ public class Display {
     renderPanel.update();
   }
 
+  /**
+   * Send a message other than a frame to the viewer, such as the progress of a fast-forward.
+   * @param message The message, as JSON.
+   */
+  public void sendMessage(String message) {
+    renderPanel.sendMessage(message);
+  }
+
+  /**
+   * Time the serializing and sending of the frames from now on.
+   * @param profiler The profiler, null for none.
+   */
+  public void setProfiler(TickProfiler profiler) {
+    renderPanel.setProfiler(profiler);
+  }
+
   /**
    * Fill the entire screen with the specified color.
    */
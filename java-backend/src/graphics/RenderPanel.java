@@ -2,6 +2,8 @@ package graphics;
 
 import java.awt.Color;
 
+import util.TickProfiler;
+
 /**
  * Interface for rendering graphics to a panel. This panel can be 
  * a GUI panel or a web panel.
@@ -25,4 +27,8 @@ public interface RenderPanel {
 	public void drawTransparentRect(int x, int y, int width, int height, Color color, double alpha);
 
 	public void update();
+
+	public void sendMessage(String message); // Sends a message other than a frame to the viewer, if it can take one.
+
+	public void setProfiler(TickProfiler profiler); // Times the serializing and sending of the frames, if the panel does either.
 }
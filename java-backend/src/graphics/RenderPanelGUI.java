@@ -6,6 +6,8 @@ import java.awt.image.BufferedImage;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
+import util.TickProfiler;
+
 /**
  * A modified JPanel to allow easy graphics rendering. All graphics are drawn
  * onto the BufferedImage "surface" through the Graphics2D attribute.
@@ -146,6 +148,16 @@ public class RenderPanelGUI extends JPanel implements RenderPanel {
 		repaint();
 	}
 
+	/**
+	 * The GUI has nowhere to show messages, so they are dropped.
+	 */
+	public void sendMessage(String message) {}
+
+	/**
+	 * The GUI neither serializes nor sends its frames, so there is nothing to time.
+	 */
+	public void setProfiler(TickProfiler profiler) {}
+
 	/**
 	 * Called with every draw call, draws everything stored on the bufferedImage to the display.
 	 */
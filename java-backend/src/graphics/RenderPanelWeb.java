@@ -7,6 +7,8 @@ import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
 import api.Connector;
+import util.TickProfiler;
+import util.TickProfiler.Phase;
 
 import graphics.methods.*;
 
@@ -23,6 +25,7 @@ public class RenderPanelWeb implements RenderPanel {
 	private int index = 0; // The global index of the data.
 	private double lastTick = 0; // To calculate the delta time.
 	private final String id; // Unique ID for this render panel instance
+	private TickProfiler profiler = null; // Times the serializing and sending of the frames while it is enabled; may be null.
 
 	/**
 	 * Constructor -- Create a new RenderPanelWeb object.
@@ -79,20 +82,36 @@ public class RenderPanelWeb implements RenderPanel {
 		}
 		lastTick = nowTime;
 
+		TickProfiler profiler = this.profiler;
+		boolean profiling = profiler != null && profiler.isTiming();
+		long time = profiling ? System.nanoTime() : 0;
 		Gson g = new Gson();
-		String j = g.toJson(data);
+		String frame = g.toJson(data);
+		if (profiling) time = profiler.record(Phase.SERIALIZE, time, frame.length());
+		sendMessage(frame);
+		if (profiling) profiler.record(Phase.SEND, time);
+		data.d.clear();
+		index = 0;
+	}
+
+	public void setProfiler(TickProfiler profiler) {
+		this.profiler = profiler;
+	}
 
+	/**
+	 * Send a message to the WebSocket client of this panel.
+	 * @param message The message, as JSON.
+	 */
+	public void sendMessage(String message) {
 		Connector.getInstance().getWebSocketServer().getConnections().forEach(connection -> {
 			if (connection.getId().equals(id) && connection.isOpen()) {
 				try {
-					connection.sendText(j);
+					connection.sendText(message);
 				} catch (Exception e) {
 					logger.error("Failed to send data to WebSocket client: " + connection.getId(), e);
 				}
 			}
 		});
-		data.d.clear();
-		index = 0;
 	}
 
 	/**
@@ -0,0 +1,164 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Holds the state that every step reads and writes for every entity of a simulation, one
+ * primitive array per value instead of one object per entity: the position, the position and
+ * alive flag other entities see during the read phase of a two-phase step, the age, the alive
+ * flag, the species id, and the food level and direction of animals. An entity is a view of
+ * one slot of the store, so the passes of a step over all the entities, such as aging them or
+ * removing the dead ones, run through the arrays in the order of a list of slots.
+ *
+ * The arrays are allocated in chunks, so that slots handed out while other threads read the
+ * store never move the state of the others. Slots given back are reused before new ones are
+ * made. Every simulation context has its own store.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public final class EntityStore {
+  private static final int CHUNK_BITS = 10; // A chunk holds 2^CHUNK_BITS slots.
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // The number of slots in a chunk.
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1; // Gives the index of a slot in its chunk.
+
+  /**
+   * The state of CHUNK_SIZE consecutive slots.
+   */
+  private static final class Chunk {
+    private final double[] x = new double[CHUNK_SIZE]; // The x coordinate of the position.
+    private final double[] y = new double[CHUNK_SIZE]; // The y coordinate of the position.
+    private final double[] snapshotX = new double[CHUNK_SIZE]; // The x coordinate at the start of the step.
+    private final double[] snapshotY = new double[CHUNK_SIZE]; // The y coordinate at the start of the step.
+    private final double[] age = new double[CHUNK_SIZE]; // The age.
+    private final double[] foodLevel = new double[CHUNK_SIZE]; // The food level of an animal, between 0 and 1.
+    private final double[] direction = new double[CHUNK_SIZE]; // The direction an animal moves in, in radians.
+    private final int[] speciesId = new int[CHUNK_SIZE]; // The species id.
+    private final boolean[] alive = new boolean[CHUNK_SIZE]; // Whether the entity is alive.
+    private final boolean[] snapshotAlive = new boolean[CHUNK_SIZE]; // Whether the entity was alive at the start of the step.
+  }
+
+  private volatile Chunk[] chunks = new Chunk[0]; // Replaced by a longer copy to grow, so readers never see a chunk move.
+  private int slots = 0; // The number of slots ever handed out, the next new slot.
+  private int[] freeSlots = new int[64]; // Slots given back, reused last in first out.
+  private int freeCount = 0; // The number of slots in freeSlots.
+
+  /**
+   * Hands out a slot for a new, living entity, with the other values zero. May be called
+   * from the threads of the read phase, as offspring are made there.
+   * @param speciesId The species id of the entity.
+   * @param x The x coordinate of the entity.
+   * @param y The y coordinate of the entity.
+   * @return The slot.
+   */
+  public synchronized int allocate(int speciesId, double x, double y) {
+    int slot;
+    if (freeCount > 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      slot = slots++;
+      if ((slot >>> CHUNK_BITS) == chunks.length) {
+        Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = new Chunk();
+        chunks = grown;
+      }
+    }
+    Chunk chunk = chunks[slot >>> CHUNK_BITS];
+    int i = slot & CHUNK_MASK;
+    chunk.x[i] = x;
+    chunk.y[i] = y;
+    chunk.snapshotX[i] = x;
+    chunk.snapshotY[i] = y;
+    chunk.age[i] = 0;
+    chunk.foodLevel[i] = 0;
+    chunk.direction[i] = 0;
+    chunk.speciesId[i] = speciesId;
+    chunk.alive[i] = true;
+    chunk.snapshotAlive[i] = true;
+    return slot;
+  }
+
+  /**
+   * Gives a slot back to be reused. The entity of the slot must not be read afterwards.
+   * @param slot The slot, handed out by allocate and not given back yet.
+   */
+  public synchronized void release(int slot) {
+    if (slot < 0 || slot >= slots) {
+      throw new IllegalArgumentException("Slot " + slot + " was not handed out");
+    }
+    chunks[slot >>> CHUNK_BITS].alive[slot & CHUNK_MASK] = false;
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  /**
+   * Ages the entities of the given slots, in one pass over the age arrays.
+   * @param slotList The slots.
+   * @param count The number of slots at the start of the list to age.
+   * @param amount The amount to add to the age of every one.
+   */
+  public void age(int[] slotList, int count, double amount) {
+    Chunk[] chunks = this.chunks;
+    for (int n = 0; n < count; n++) {
+      int slot = slotList[n];
+      chunks[slot >>> CHUNK_BITS].age[slot & CHUNK_MASK] += amount;
+    }
+  }
+
+  /**
+   * Freezes the position and alive flag of a slot that other entities read during the read phase.
+   */
+  public void takeSnapshot(int slot) {
+    Chunk chunk = chunks[slot >>> CHUNK_BITS];
+    int i = slot & CHUNK_MASK;
+    chunk.snapshotX[i] = chunk.x[i];
+    chunk.snapshotY[i] = chunk.y[i];
+    chunk.snapshotAlive[i] = chunk.alive[i];
+  }
+
+  /**
+   * @return Whether the position of a slot differs from the one frozen by takeSnapshot.
+   */
+  public boolean hasMoved(int slot) {
+    Chunk chunk = chunks[slot >>> CHUNK_BITS];
+    int i = slot & CHUNK_MASK;
+    return chunk.x[i] != chunk.snapshotX[i] || chunk.y[i] != chunk.snapshotY[i];
+  }
+
+  /**
+   * Sets the position of a slot.
+   */
+  public void setPosition(int slot, double x, double y) {
+    Chunk chunk = chunks[slot >>> CHUNK_BITS];
+    int i = slot & CHUNK_MASK;
+    chunk.x[i] = x;
+    chunk.y[i] = y;
+  }
+
+  /**
+   * @return The number of slots in use.
+   */
+  public synchronized int size() {
+    return slots - freeCount;
+  }
+
+  // Setters:
+  public void setAge(int slot, double age) { chunks[slot >>> CHUNK_BITS].age[slot & CHUNK_MASK] = age; }
+  public void setFoodLevel(int slot, double foodLevel) { chunks[slot >>> CHUNK_BITS].foodLevel[slot & CHUNK_MASK] = foodLevel; }
+  public void setDirection(int slot, double direction) { chunks[slot >>> CHUNK_BITS].direction[slot & CHUNK_MASK] = direction; }
+  public void setDead(int slot) { chunks[slot >>> CHUNK_BITS].alive[slot & CHUNK_MASK] = false; }
+
+  // Getters:
+  public double getX(int slot) { return chunks[slot >>> CHUNK_BITS].x[slot & CHUNK_MASK]; }
+  public double getY(int slot) { return chunks[slot >>> CHUNK_BITS].y[slot & CHUNK_MASK]; }
+  public double getSnapshotX(int slot) { return chunks[slot >>> CHUNK_BITS].snapshotX[slot & CHUNK_MASK]; }
+  public double getSnapshotY(int slot) { return chunks[slot >>> CHUNK_BITS].snapshotY[slot & CHUNK_MASK]; }
+  public double getAge(int slot) { return chunks[slot >>> CHUNK_BITS].age[slot & CHUNK_MASK]; }
+  public double getFoodLevel(int slot) { return chunks[slot >>> CHUNK_BITS].foodLevel[slot & CHUNK_MASK]; }
+  public double getDirection(int slot) { return chunks[slot >>> CHUNK_BITS].direction[slot & CHUNK_MASK]; }
+  public int getSpeciesId(int slot) { return chunks[slot >>> CHUNK_BITS].speciesId[slot & CHUNK_MASK]; }
+  public boolean isAlive(int slot) { return chunks[slot >>> CHUNK_BITS].alive[slot & CHUNK_MASK]; }
+  public boolean isSnapshotAlive(int slot) { return chunks[slot >>> CHUNK_BITS].snapshotAlive[slot & CHUNK_MASK]; }
+}
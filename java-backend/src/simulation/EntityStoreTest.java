@@ -0,0 +1,116 @@
+package simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Plant;
+import entities.generic.Entity;
+import simulation.environment.Environment;
+import simulation.simulationData.*;
+import util.Parser;
+import util.SimulationRandom;
+import util.Vector;
+
+/**
+ * Tests for the EntityStore class. Checks that slots keep their state as the store grows,
+ * that given back slots are reused, and that the field gives back the slots of the entities
+ * that leave it.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class EntityStoreTest {
+  private SimulationContext context;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      context = new SimulationContext(Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json"));
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+  }
+
+  @Test
+  void testAllocate_KeepsTheStateOfEverySlotAsTheStoreGrows() {
+    EntityStore store = new EntityStore();
+    int count = 3000; // Several chunks.
+    int[] slots = new int[count];
+    for (int i = 0; i < count; i++) {
+      slots[i] = store.allocate(i % 5, i, -i);
+      store.setAge(slots[i], i * 0.5);
+    }
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, store.getX(slots[i]));
+      assertEquals(-i, store.getY(slots[i]));
+      assertEquals(i * 0.5, store.getAge(slots[i]));
+      assertEquals(i % 5, store.getSpeciesId(slots[i]));
+      assertTrue(store.isAlive(slots[i]));
+    }
+    assertEquals(count, store.size());
+  }
+
+  @Test
+  void testRelease_ReusesTheSlotWithFreshState() {
+    EntityStore store = new EntityStore();
+    int first = store.allocate(1, 10, 20);
+    int second = store.allocate(2, 30, 40);
+    store.setAge(first, 7);
+    store.setFoodLevel(first, 0.5);
+    store.setDead(first);
+    store.release(first);
+    assertEquals(1, store.size());
+
+    int reused = store.allocate(3, 50, 60);
+    assertEquals(first, reused);
+    assertEquals(0, store.getAge(reused));
+    assertEquals(0, store.getFoodLevel(reused));
+    assertEquals(3, store.getSpeciesId(reused));
+    assertTrue(store.isAlive(reused));
+    assertEquals(30, store.getX(second)); // The other slots are untouched.
+    assertThrows(IllegalArgumentException.class, () -> store.release(-1));
+  }
+
+  @Test
+  void testAge_OnlyAgesTheGivenSlots() {
+    EntityStore store = new EntityStore();
+    int[] slots = { store.allocate(0, 0, 0), store.allocate(0, 0, 0), store.allocate(0, 0, 0) };
+    store.age(slots, 2, 1.5);
+    assertEquals(1.5, store.getAge(slots[0]));
+    assertEquals(1.5, store.getAge(slots[1]));
+    assertEquals(0, store.getAge(slots[2]));
+  }
+
+  @Test
+  void testField_GivesBackTheSlotsOfTheDeadEntities() {
+    EntityStore store = context.getEntityStore();
+    SimulationRandom random = new SimulationRandom(42);
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      entities.add(new Plant(context.getPlantsData()[0].generateRandomGenetics(context, random), new Vector(10 * i + 5, 50), random.split()));
+    }
+    Field field = new Field(context, 100, 100, entities, new Environment(random.split(), context.getWeatherChangeProbability()));
+    assertEquals(10, store.size());
+
+    for (int i = 0; i < 10; i += 2) entities.get(i).setDead();
+    field.removeDeadEntities();
+    assertEquals(5, store.size());
+    assertEquals(5, field.getAllEntities().size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i % 2 == 1, entities.get(i).isAlive());
+      if (i % 2 == 1) assertEquals(10 * i + 5, entities.get(i).getX()); // The survivors keep their state.
+    }
+
+    field.ageEntities(1);
+    for (Entity e : field.getAllEntities()) {
+      assertEquals(context.getEntityAgeRate(), e.getAge());
+    }
+  }
+}
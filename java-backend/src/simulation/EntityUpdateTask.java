@@ -0,0 +1,50 @@
+package simulation;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import entities.generic.Entity;
+
+/**
+ * Fork/join task that applies an action to a range of entities, splitting the range
+ * in halves until it is small enough to run on a single worker.
+ * 
+ * @author Anas Ahmed and Mehmet Kutay Bozkurt
+ * @version 1.0
+ */
+class EntityUpdateTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L; // Tasks are never serialized, but RecursiveAction is Serializable.
+  private static final int THRESHOLD = 256; // Ranges at most this long are not split any further.
+
+  private final transient List<Entity> entities; // The entities to apply the action to.
+  private final int start; // First index of the range (inclusive).
+  private final int end; // Last index of the range (exclusive).
+  private final transient Consumer<Entity> action; // The action to apply to every entity in the range.
+
+  /**
+   * Constructor -- Create a task over the range [start, end) of the entities.
+   */
+  EntityUpdateTask(List<Entity> entities, int start, int end, Consumer<Entity> action) {
+    this.entities = entities;
+    this.start = start;
+    this.end = end;
+    this.action = action;
+  }
+
+  @Override
+  protected void compute() {
+    if (end - start <= THRESHOLD) {
+      for (int i = start; i < end; i++) {
+        action.accept(entities.get(i));
+      }
+      return;
+    }
+
+    int middle = (start + end) >>> 1;
+    invokeAll(
+      new EntityUpdateTask(entities, start, middle, action),
+      new EntityUpdateTask(entities, middle, end, action)
+    );
+  }
+}
@@ -1,41 +1,68 @@
 package simulation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 
 import simulation.environment.Environment;
 import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
+import simulation.simulationData.SpatialIndexType;
+import simulation.spatialIndex.SpatialIndex;
+import simulation.spatialIndex.TiledIndex;
+import simulation.spatialIndex.UniformGrid;
 import entities.generic.Entity;
 import simulation.quadTree.*;
+import util.SimulationRandom;
 import util.Vector;
 
 /**
  * The field class is used to store all entities in the simulation.
  * It is also used to spawn entities at the end of each simulation step.
  * 
+ * Next to the entities, the field keeps their slots in the entity store in the same order,
+ * so that aging the entities and finding the dead ones are passes over the arrays of the
+ * store rather than over the entity objects.
+ * 
  * @author Anas Ahmed and Mehmet Kutay Bozkurt
  * @version 1.0
  */
 public class Field {
   private final int width; // Width of the field
   private final int height; // Height of the field
-  private final List<Entity> entities; // List of all entities in the field
+  private final SimulationContext context; // The parameters of the simulation
+  private final EntityStore store; // Holds the position, age and alive flag of the entities
+  private final List<Entity> entities = new ArrayList<>(); // List of all entities in the field
+  private final List<Entity> entitiesView = Collections.unmodifiableList(entities); // Read-only view of the entities, handed out
+  private int[] slots = new int[64]; // The slots of the entities in the store, in the same order as the entities
   private final List<Entity> entitiesToSpawn = new ArrayList<>(); // Buffer list for entities to spawn
+  private List<Entity> haloEntities = List.of(); // Entities of other partitions near the border, searched but not stepped
+  private final PopulationCounter population; // Counts the entities of every species as they come and go
+  private final TraitStatistics traits; // Statistics of the genetic traits of every species, kept as entities come and go
+  private int maxEntitySize = 0; // The size of the largest entity that has been in the field, bounds the collision searches
 
-  private final QuadTree quadtree; // Quadtree for optimising entity search
+  private final SpatialIndex spatialIndex; // Spatial index for optimising entity search
   private final int quadtreeCapacity = 2; // How many entities each quadtree can store before dividing
+  private final int incrementalQuadtreeCapacity = 8; // How many entities each incremental quadtree leaf can store before dividing
 
   public final Environment environment; // The environment of the field
 
   /**
-   * Constructor that is used with the JUnit tests.
+   * Constructor that is used with the JUnit tests. The weather is not seeded, and the
+   * default simulation context is used.
    */
   public Field(int width, int height) {
     this.width = width;
     this.height = height;
-    environment = new Environment();
-    entities = new ArrayList<>();
-    quadtree = new QuadTree(new Rectangle(0, 0, width, height), quadtreeCapacity);
+    context = Data.getContext();
+    store = context.getEntityStore();
+    environment = new Environment(new SimulationRandom(ThreadLocalRandom.current().nextLong()), context.getWeatherChangeProbability());
+    population = new PopulationCounter(context.getSpeciesRegistry());
+    traits = new TraitStatistics(context.getSpeciesRegistry());
+    spatialIndex = createSpatialIndex();
   }
 
   /**
@@ -43,11 +70,76 @@ public class Field {
    * @param fieldBuilder The field builder to create the field.
    */
   public Field(FieldBuilder fieldBuilder) {
-    this.width = fieldBuilder.getWidth();
-    this.height = fieldBuilder.getHeight();
-    environment = new Environment();
-    entities = fieldBuilder.getEntities();
-    quadtree = new QuadTree(new Rectangle(0, 0, width, height), quadtreeCapacity);
+    this(
+      fieldBuilder.getContext(),
+      fieldBuilder.getWidth(),
+      fieldBuilder.getHeight(),
+      fieldBuilder.getEntities(),
+      new Environment(fieldBuilder.getRandom().split(), fieldBuilder.getContext().getWeatherChangeProbability())
+    );
+  }
+
+  /**
+   * Constructor with the entities and environment given, used when restoring a snapshot.
+   * @param context The parameters of the simulation.
+   * @param width The width of the field.
+   * @param height The height of the field.
+   * @param entities The entities of the field, in update order.
+   * @param environment The environment of the field.
+   */
+  public Field(SimulationContext context, int width, int height, List<Entity> entities, Environment environment) {
+    this.width = width;
+    this.height = height;
+    this.context = context;
+    this.environment = environment;
+    store = context.getEntityStore();
+    addSlots(entities);
+    population = new PopulationCounter(context.getSpeciesRegistry());
+    traits = new TraitStatistics(context.getSpeciesRegistry());
+    for (Entity e : entities) {
+      population.added(e);
+      traits.added(e);
+      maxEntitySize = Math.max(maxEntitySize, e.getSize());
+    }
+    spatialIndex = createSpatialIndex();
+    spatialIndex.update(this.entities);
+  }
+
+  /**
+   * @return A new, empty spatial index of the type given in the simulation data, split into
+   * tiles if a tile size is given.
+   */
+  private SpatialIndex createSpatialIndex() {
+    Rectangle bounds = new Rectangle(0, 0, width, height);
+    if (context.getTileSize() > 0) {
+      if (context.getSpatialIndex() == SpatialIndexType.INCREMENTAL_QUADTREE) {
+        throw new IllegalArgumentException("The incremental quadtree cannot be split into tiles");
+      }
+      return new TiledIndex(bounds, context.getTileSize(), this::createSpatialIndex);
+    }
+    return createSpatialIndex(bounds);
+  }
+
+  /**
+   * @param bounds The area of the index.
+   * @return A new, empty spatial index of the type given in the simulation data. Grids are
+   * aligned to the cells of a grid over the whole field, so that the grid of a tile has the
+   * same cells as the untiled grid.
+   */
+  private SpatialIndex createSpatialIndex(Rectangle bounds) {
+    return switch (context.getSpatialIndex()) {
+      case QUADTREE -> new QuadTree(bounds, quadtreeCapacity);
+      case INCREMENTAL_QUADTREE -> new IncrementalQuadTree(bounds, incrementalQuadtreeCapacity);
+      case GRID -> {
+        double cellSize = context.getGridCellSize();
+        double minX = Math.floor(bounds.x() / cellSize) * cellSize;
+        double minY = Math.floor(bounds.y() / cellSize) * cellSize;
+        double maxX = Math.ceil((bounds.x() + bounds.w()) / cellSize) * cellSize;
+        double maxY = Math.ceil((bounds.y() + bounds.h()) / cellSize) * cellSize;
+        yield new UniformGrid(new Rectangle(minX, minY, maxX - minX, maxY - minY), cellSize);
+      }
+      case BOUNDED_QUADTREE -> new BoundedQuadTree(bounds, context.getQuadtreeBucketSize(), context.getQuadtreeMaxDepth());
+    };
   }
 
   /**
@@ -56,13 +148,16 @@ public class Field {
   * @param padding Padding for the size of the entity.
   */
   public void putInBounds(Entity entity, double padding) {
-    Vector entityPos = entity.getPosition();
-    Vector newVector = null;
-    if (entityPos.x() < padding) newVector = new Vector(padding, entityPos.y());
-    if (entityPos.y() < padding) newVector = new Vector(entityPos.x(), padding);
-    if (entityPos.x() > (double) width - padding) newVector = new Vector((double) width - padding, entityPos.y());
-    if (entityPos.y() > (double) height - padding) newVector = new Vector(entityPos.x(), (double) height - padding);
-    entity.setPosition(newVector);
+    double x = entity.getX();
+    double y = entity.getY();
+    double newX = x;
+    double newY = y;
+    // Only the last of the checks that fail moves the entity:
+    if (x < padding) { newX = padding; newY = y; }
+    if (y < padding) { newX = x; newY = padding; }
+    if (x > (double) width - padding) { newX = (double) width - padding; newY = y; }
+    if (y > (double) height - padding) { newX = x; newY = (double) height - padding; }
+    if (newX != x || newY != y) entity.setPosition(newX, newY);
   }
 
   /**
@@ -78,45 +173,246 @@ public class Field {
   }
 
   /**
-   * Updates the quadtree with the current entities in the field.
+   * Tells the spatial index that an entity moved in this step, so that an index kept up to
+   * date between steps only looks at the entities that moved. Must not be called in parallel.
+   * @param entity The entity that moved.
    */
-  public void updateQuadtree() {
-    quadtree.clear(); // Reset the root quadtree.
-    for (Entity e : entities) {
-      quadtree.insert(e);
+  public void entityMoved(Entity entity) {
+    spatialIndex.entityMoved(entity);
+  }
+
+  /**
+   * Updates the spatial index with the current entities in the field and the halo entities.
+   */
+  public void updateSpatialIndex() {
+    if (haloEntities.isEmpty()) {
+      spatialIndex.update(entities);
+      return;
     }
+    List<Entity> indexedEntities = new ArrayList<>(entities.size() + haloEntities.size());
+    indexedEntities.addAll(entities);
+    indexedEntities.addAll(haloEntities);
+    spatialIndex.update(indexedEntities);
   }
 
   /**
-   * @return The quadtree of the field.
+   * Replaces the halo entities: copies of the entities that other partitions of a distributed
+   * field own near the border of this one. They are found by searches from the next update of
+   * the spatial index on, but are not stepped, and are not part of getAllEntities.
+   * @param haloEntities The new halo entities.
    */
-  public QuadTree getQuadtree() {
-    return quadtree;
+  public void setHaloEntities(List<Entity> haloEntities) {
+    for (Entity e : this.haloEntities) {
+      spatialIndex.entityRemoved(e);
+      e.release(); // The copies are made anew for every step.
+    }
+    this.haloEntities = haloEntities;
+    for (Entity e : haloEntities) {
+      spatialIndex.entitySpawned(e);
+      maxEntitySize = Math.max(maxEntitySize, e.getSize());
+    }
+  }
+
+  /**
+   * @return The halo entities, see setHaloEntities.
+   */
+  public List<Entity> getHaloEntities() {
+    return haloEntities;
   }
 
   /**
-   * Gets all the entities in a specified radius from a position in the field by querying the quadtree
+   * @return The spatial index of the field.
+   */
+  public SpatialIndex getSpatialIndex() {
+    return spatialIndex;
+  }
+
+  /**
+   * Gets all the entities in a specified radius from a position in the field by querying the spatial index.
    * @param position The center coordinates of the query range.
    * @param queryRadius The radius of the query range.
    * @return A list of entities in the field in the specified query range.
    */
-  public List<Entity> queryQuadtree(Vector position, double queryRadius) {
+  public List<Entity> querySpatialIndex(Vector position, double queryRadius) {
     Circle queryRange = new Circle(position, queryRadius);
-    return quadtree.query(queryRange);
+    return spatialIndex.query(queryRange);
+  }
+
+  /**
+   * Adds all the entities in a specified radius from a point to a list owned by the caller,
+   * so that searches done every step allocate nothing.
+   * @param x The x coordinate of the centre of the query range.
+   * @param y The y coordinate of the centre of the query range.
+   * @param queryRadius The radius of the query range.
+   * @param foundEntities The list to add the entities to. It is not cleared first.
+   * @return The number of entities added.
+   */
+  public int querySpatialIndex(double x, double y, double queryRadius, List<Entity> foundEntities) {
+    return spatialIndex.query(x, y, queryRadius, foundEntities);
+  }
+
+  /**
+   * @return The number of entities in a specified radius from a point.
+   */
+  public int countInRadius(double x, double y, double queryRadius) {
+    return spatialIndex.countInRadius(x, y, queryRadius);
+  }
+
+  /**
+   * Finds the nearest entity passing a filter, without collecting the entities in range.
+   * @param x The x coordinate of the query point.
+   * @param y The y coordinate of the query point.
+   * @param maxDistance Only entities closer than this are found.
+   * @param filter Only entities passing the filter are found.
+   * @return The nearest entity, or null if there is none.
+   */
+  public Entity findNearest(double x, double y, double maxDistance, Predicate<Entity> filter) {
+    return spatialIndex.nearest(x, y, maxDistance, filter);
   }
 
   /**
-  * Filter out the entities that are not alive.
+   * Finds the k nearest entities passing a filter.
+   * @param foundEntities The list to add the entities to, nearest first. It is not cleared first.
+   * @return The number of entities added.
+   */
+  public int findNearest(double x, double y, double maxDistance, int k, Predicate<Entity> filter, List<Entity> foundEntities) {
+    return spatialIndex.nearest(x, y, maxDistance, k, filter, foundEntities);
+  }
+
+  /**
+   * Ages every entity in the field, in one pass over the ages in the store. The entities
+   * that reach their maximum age die when they are next updated.
+   * @param deltaTime The time passed since the last step.
+   */
+  public void ageEntities(double deltaTime) {
+    store.age(slots, entities.size(), deltaTime * context.getEntityAgeRate());
+  }
+
+  /**
+  * Filter out the entities that are not alive, reading the alive flags from the store, and
+  * give their slots back to it.
   */
   public void removeDeadEntities() {
-    entities.removeIf(e -> !e.isAlive());
+    int count = entities.size();
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      int slot = slots[i];
+      Entity e = entities.get(i);
+      if (store.isAlive(slot)) {
+        slots[kept] = slot;
+        entities.set(kept++, e);
+        continue;
+      }
+      spatialIndex.entityRemoved(e);
+      population.died(e);
+      traits.removed(e);
+      e.release();
+    }
+    entities.subList(kept, count).clear();
+  }
+
+  /**
+   * Takes living entities out of the field, such as those handed to another partition. They
+   * keep their slots in the store until the caller releases them.
+   * @param filter Which entities to take out.
+   * @return The entities taken out, in field order.
+   */
+  public List<Entity> removeEntities(Predicate<Entity> filter) {
+    List<Entity> removed = new ArrayList<>();
+    int count = entities.size();
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      Entity e = entities.get(i);
+      if (!filter.test(e)) {
+        slots[kept] = slots[i];
+        entities.set(kept++, e);
+        continue;
+      }
+      spatialIndex.entityRemoved(e);
+      population.removed(e);
+      traits.removed(e);
+      removed.add(e);
+    }
+    entities.subList(kept, count).clear();
+    return removed;
+  }
+
+  /**
+   * Gives the slots of all the entities of the field back to the store, for a field that is
+   * thrown away while its simulation context is kept, such as by a replay seeking to a keyframe.
+   * The field must not be used afterwards.
+   */
+  public void releaseEntities() {
+    for (Entity e : entities) e.release();
+    for (Entity e : entitiesToSpawn) e.release();
+    for (Entity e : haloEntities) e.release();
+  }
+
+  /**
+   * Puts living entities into the field, such as those handed over by another partition.
+   * Unlike spawned entities, they are not counted as births.
+   * @param newEntities The entities to put in.
+   */
+  public void putEntities(List<Entity> newEntities) {
+    for (Entity e : newEntities) {
+      spatialIndex.entitySpawned(e);
+      population.added(e);
+      traits.added(e);
+      maxEntitySize = Math.max(maxEntitySize, e.getSize());
+    }
+    addSlots(newEntities);
   }
 
   /**
-   * @return All entities currently in the field.
+   * Appends entities to the field, with their slots.
+   */
+  private void addSlots(List<Entity> newEntities) {
+    int count = entities.size();
+    if (count + newEntities.size() > slots.length) {
+      slots = Arrays.copyOf(slots, Math.max(slots.length * 2, count + newEntities.size()));
+    }
+    for (Entity e : newEntities) {
+      slots[count++] = e.getSlot();
+    }
+    entities.addAll(newEntities);
+  }
+
+  /**
+   * @return All entities currently in the field, in update order, as a read-only view.
    */
   public List<Entity> getAllEntities() {
-    return entities;
+    return entitiesView;
+  }
+
+  /**
+   * @return The number of entities of every species in the field, kept up to date as they
+   * are spawned and removed.
+   */
+  public PopulationCounter getPopulation() {
+    return population;
+  }
+
+  /**
+   * @return The statistics of the genetic traits of every species in the field, kept up to
+   * date as entities are spawned and removed.
+   */
+  public TraitStatistics getTraitStatistics() {
+    return traits;
+  }
+
+  /**
+   * @return The size of the largest entity that has been in the field, so that a search for
+   * the entities colliding with another one can stop at the sum of their sizes.
+   */
+  public int getMaxEntitySize() {
+    return maxEntitySize;
+  }
+
+  /**
+   * @return The parameters of the simulation the field belongs to.
+   */
+  public SimulationContext getContext() {
+    return context;
   }
 
   /**
@@ -141,7 +437,13 @@ public class Field {
    * Used to safely add entities to the simulation.
    */
   public void spawnNewEntities() {
-    entities.addAll(entitiesToSpawn);
+    for (Entity e : entitiesToSpawn) {
+      spatialIndex.entitySpawned(e);
+      population.born(e);
+      traits.added(e);
+      maxEntitySize = Math.max(maxEntitySize, e.getSize());
+    }
+    addSlots(entitiesToSpawn);
     entitiesToSpawn.clear();
   }
 
@@ -149,11 +451,11 @@ public class Field {
    * Updates the environment of the field; that is, updates the time and weather.
    */
   public void updateEnvironment() {
-    if (Data.getDoDayNightCycle()) {
-      environment.updateTime(Data.getDayNightCycleSpeed() * 0.01);
+    if (context.getDoDayNightCycle()) {
+      environment.updateTime(context.getDayNightCycleSpeed() * 0.01);
     }
 
-    if (Data.getDoWeatherCycle()) {
+    if (context.getDoWeatherCycle()) {
       environment.updateWeather();
     }
   }
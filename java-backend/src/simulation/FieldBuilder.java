@@ -3,9 +3,12 @@ package simulation;
 import entities.*;
 import simulation.simulationData.*;
 import entities.generic.Entity;
+import genetics.*;
+import util.SimulationRandom;
 import util.Vector;
 
 import java.util.ArrayList;
+import java.util.function.DoublePredicate;
 
 /**
  * Creates a Field based off of the given simulation Data and field parameters.
@@ -17,16 +20,38 @@ import java.util.ArrayList;
 public class FieldBuilder {
   private final int width; // The width of the field.
   private final int height; // The height of the field.
+  private final SimulationRandom random; // The random stream the field and its entities are made from.
+  private final SimulationContext context; // The parameters of the simulation.
+  private final DoublePredicate keepX; // Whether an entity at an x coordinate is made; the others are skipped.
   private ArrayList<Entity> entities; // The list of entities.
 
   /**
    * Constructor -- Create a FieldBuilder with the given width and height and create all entities.
    * @param width The width of the field.
    * @param height The height of the field.
+   * @param random The random stream of the simulation. Every entity gets a stream split from it.
+   * @param context The parameters of the simulation.
    */
-  public FieldBuilder(int width, int height) {
+  public FieldBuilder(int width, int height, SimulationRandom random, SimulationContext context) {
+    this(width, height, random, context, x -> true);
+  }
+
+  /**
+   * Constructor -- Create a FieldBuilder that only makes the entities of a part of the field,
+   * such as the strip of a partition. The random stream is drawn from as for the whole
+   * field, so the entities made are exactly those the whole field has there.
+   * @param width The width of the field.
+   * @param height The height of the field.
+   * @param random The random stream of the simulation. Every entity gets a stream split from it.
+   * @param context The parameters of the simulation.
+   * @param keepX Whether an entity at an x coordinate is made.
+   */
+  public FieldBuilder(int width, int height, SimulationRandom random, SimulationContext context, DoublePredicate keepX) {
     this.width = width;
     this.height = height;
+    this.random = random;
+    this.context = context;
+    this.keepX = keepX;
     createEntities();
   }
 
@@ -34,7 +59,7 @@ public class FieldBuilder {
    * @return A random position within the field as a Vector.
    */
   private Vector getRandomPosition() {
-    return new Vector(Math.random() * width, Math.random() * height);
+    return new Vector(random.nextDouble() * width, random.nextDouble() * height);
   }
 
   /**
@@ -43,30 +68,46 @@ public class FieldBuilder {
   private void createEntities() {
     entities = new ArrayList<>();
 
-    AnimalData[] preysData = Data.getPreysData();
-    AnimalData[] predatorsData = Data.getPredatorsData();
-    PlantData[] plantsData = Data.getPlantsData();
+    AnimalData[] preysData = context.getPreysData();
+    AnimalData[] predatorsData = context.getPredatorsData();
+    PlantData[] plantsData = context.getPlantsData();
 
+    // Every entity takes its draws from the stream, even when it is skipped:
     for (AnimalData predatorData : predatorsData) {
       for (int i = 0; i < predatorData.numberOfEntitiesAtStart; i++) {
-        Predator predator = new Predator(predatorData.generateRandomGenetics(), getRandomPosition());
-        predator.setAge(Math.random() * predatorData.matureAge[1]);
+        AnimalGenetics genetics = predatorData.generateRandomGenetics(context, random);
+        Vector position = getRandomPosition();
+        SimulationRandom entityRandom = random.split();
+        double age = random.nextDouble() * predatorData.matureAge[1];
+        if (!keepX.test(position.x())) continue;
+        Predator predator = new Predator(genetics, position, entityRandom);
+        predator.setAge(age);
         entities.add(predator);
       }
     }
 
     for (AnimalData preyData : preysData) {
       for (int i = 0; i < preyData.numberOfEntitiesAtStart; i++) {
-        Prey prey = new Prey(preyData.generateRandomGenetics(), getRandomPosition());
-        prey.setAge(Math.random() * preyData.matureAge[1]);
+        AnimalGenetics genetics = preyData.generateRandomGenetics(context, random);
+        Vector position = getRandomPosition();
+        SimulationRandom entityRandom = random.split();
+        double age = random.nextDouble() * preyData.matureAge[1];
+        if (!keepX.test(position.x())) continue;
+        Prey prey = new Prey(genetics, position, entityRandom);
+        prey.setAge(age);
         entities.add(prey);
       }
     }
 
     for (PlantData plantData : plantsData) {
       for (int i = 0; i < plantData.numberOfEntitiesAtStart; i++) {
-        Plant plant = new Plant(plantData.generateRandomGenetics(), getRandomPosition());
-        plant.setAge(Math.random() * plantData.matureAge[1]);
+        PlantGenetics genetics = plantData.generateRandomGenetics(context, random);
+        Vector position = getRandomPosition();
+        SimulationRandom entityRandom = random.split();
+        double age = random.nextDouble() * plantData.matureAge[1];
+        if (!keepX.test(position.x())) continue;
+        Plant plant = new Plant(genetics, position, entityRandom);
+        plant.setAge(age);
         entities.add(plant);
       }
     }
@@ -77,4 +118,6 @@ public class FieldBuilder {
   public ArrayList<Entity> getEntities() { return entities; }
   public int getWidth() { return width; }
   public int getHeight() { return height; }
+  public SimulationRandom getRandom() { return random; }
+  public SimulationContext getContext() { return context; }
 }
\ No newline at end of file
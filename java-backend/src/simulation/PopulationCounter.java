@@ -0,0 +1,95 @@
+package simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entities.generic.Entity;
+import simulation.simulationData.SpeciesRegistry;
+
+/**
+ * Counts the entities of every species in a field, and the births and deaths of every
+ * species, as the field spawns and removes them. Reading the population then costs one
+ * array lookup per species, however many entities there are.
+ *
+ * Births and deaths are counted from when the field was made or restored. Entities of a
+ * species that is not in the simulation data are not counted.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class PopulationCounter {
+  private final SpeciesRegistry registry; // Gives the species ids and names.
+  private final int[] counts; // The number of entities of each species in the field, by species id.
+  private final long[] births; // The number of entities of each species spawned, by species id.
+  private final long[] deaths; // The number of entities of each species removed dead, by species id.
+  private int total = 0; // The number of counted entities in the field.
+
+  /**
+   * Constructor -- Create a counter with no entities.
+   * @param registry The species of the simulation.
+   */
+  PopulationCounter(SpeciesRegistry registry) {
+    this.registry = registry;
+    counts = new int[registry.getSpeciesCount()];
+    births = new long[registry.getSpeciesCount()];
+    deaths = new long[registry.getSpeciesCount()];
+  }
+
+  /**
+   * Counts an entity that entered the field without being born, such as at the start.
+   */
+  void added(Entity entity) {
+    int id = entity.getSpeciesId();
+    if (id == SpeciesRegistry.UNKNOWN) return;
+    counts[id]++;
+    total++;
+  }
+
+  /**
+   * Counts an entity that left the field without dying, such as to another partition.
+   */
+  void removed(Entity entity) {
+    int id = entity.getSpeciesId();
+    if (id == SpeciesRegistry.UNKNOWN) return;
+    counts[id]--;
+    total--;
+  }
+
+  /**
+   * Counts a spawned entity.
+   */
+  void born(Entity entity) {
+    added(entity);
+    int id = entity.getSpeciesId();
+    if (id != SpeciesRegistry.UNKNOWN) births[id]++;
+  }
+
+  /**
+   * Counts an entity removed dead.
+   */
+  void died(Entity entity) {
+    removed(entity);
+    int id = entity.getSpeciesId();
+    if (id != SpeciesRegistry.UNKNOWN) deaths[id]++;
+  }
+
+  /**
+   * @return The number of entities of every species that has any, by species name, in
+   * species id order.
+   */
+  public Map<String, Integer> toMap() {
+    Map<String, Integer> map = new LinkedHashMap<>();
+    for (int id = 0; id < counts.length; id++) {
+      if (counts[id] > 0) map.put(registry.getName(id), counts[id]);
+    }
+    return map;
+  }
+
+  // Getters:
+  public int getCount(int speciesId) { return counts[speciesId]; }
+  public long getBirths(int speciesId) { return births[speciesId]; }
+  public long getDeaths(int speciesId) { return deaths[speciesId]; }
+  public int getTotal() { return total; }
+  public int getSpeciesCount() { return counts.length; }
+  public String getName(int speciesId) { return registry.getName(speciesId); }
+}
@@ -1,14 +1,31 @@
 package simulation;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 import entities.generic.Entity;
+import simulation.simulationData.Data;
+import simulation.simulationData.SimulationContext;
+import simulation.spatialIndex.TiledIndex;
+import util.SimulationRandom;
+import util.TickProfiler;
+import util.TickProfiler.Phase;
 
 /**
  * Holds all the simulation information and is used to step through the simulation.
  * Used in Engine. Contains the field of the entities.
  * 
+ * Entities are either updated one after another in place, or in two phases: a read phase,
+ * where every entity senses and decides against a snapshot taken at the start of the step
+ * (run in parallel), and a commit phase, where eating and births are applied in field order.
+ * On a field split into tiles, the read phase hands out whole tiles to the workers. In both
+ * modes the field ages all the entities in one pass over the entity store before they update.
+ * 
  * @author Anas Ahmed and Mehmet Kutay Bozkurt
  * @version 1.0
  */
@@ -22,31 +39,200 @@ public class Simulator {
   */
   private final static double FIXED_DELTA_TIME = 0.2;
 
+  private final long seed; // The seed of the random streams of this simulation.
+  private final int stepThreads; // Threads for the two-phase step, 0 for the sequential in-place step.
+  private final ForkJoinPool pool; // Runs the read phase, null if it runs on the calling thread.
+  private long tick; // The number of steps taken since the field was made.
+  private final List<StepListener> stepListeners = new ArrayList<>(); // Told about every step, such as a recorder.
+  private TickProfiler profiler = null; // Times the phases of every step while it is enabled; may be null.
+
+  /**
+   * Constructor for the simulator. The step mode and the seed are taken from the context.
+   * @param context The parameters of the simulation.
+   * @param width The width of the field.
+   * @param height The height of the field.
+   */
+  public Simulator(SimulationContext context, int width, int height) {
+    this(context, width, height, context.getStepThreads(), context.getSeed() != null ? context.getSeed() : ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Constructor for the simulator, in the default simulation context.
+   * @param width The width of the field.
+   * @param height The height of the field.
+   * @param stepThreads Threads for the two-phase step; 0 for the sequential in-place step.
+   * @param seed The seed of the random streams.
+   */
+  public Simulator(int width, int height, int stepThreads, long seed) {
+    this(Data.getContext(), width, height, stepThreads, seed);
+  }
+
   /**
    * Constructor for the simulator.
+   * @param context The parameters of the simulation.
    * @param width The width of the field.
    * @param height The height of the field.
+   * @param stepThreads Threads for the two-phase step; 0 for the sequential in-place step. The
+   * two-phase step gives the same result for any number of threads.
+   * @param seed The seed of the random streams. The same seed gives the same simulation.
    */
-  public Simulator(int width, int height) {
-    field = new FieldBuilder(width, height).build();
+  public Simulator(SimulationContext context, int width, int height, int stepThreads, long seed) {
+    this(new FieldBuilder(width, height, new SimulationRandom(seed), context).build(), stepThreads, seed, 0);
+  }
+
+  /**
+   * Constructor for the simulator of an existing field, used when restoring a snapshot.
+   * @param field The field to simulate.
+   * @param stepThreads Threads for the two-phase step; 0 for the sequential in-place step.
+   * @param seed The seed the field was made from.
+   * @param tick The number of steps the field has been stepped already.
+   */
+  public Simulator(Field field, int stepThreads, long seed, long tick) {
+    if (stepThreads < 0) {
+      throw new IllegalArgumentException("stepThreads must not be negative");
+    }
+    this.seed = seed;
+    this.tick = tick;
+    this.field = field;
+    this.stepThreads = stepThreads;
+    pool = stepThreads > 1 ? new ForkJoinPool(stepThreads) : null;
+    if (field.getSpatialIndex() instanceof TiledIndex tiledIndex) {
+      tiledIndex.setPool(pool); // The tiles are rebuilt on the threads of the step.
+    }
   }
 
   /**
    * Simulate a single step.
    */
   public void step() {
+    TickProfiler profiler = this.profiler;
+    boolean profiling = profiler != null && profiler.isTiming(); // Read once, so a step is timed whole or not at all.
+    long start = profiling ? System.nanoTime() : 0;
+    long time = start;
+
+    if (stepThreads == 0) {
+      updateInPlace();
+    } else {
+      updateInTwoPhases();
+    }
+    if (profiling) time = profiler.record(Phase.UPDATE, time);
+
+    int population = field.getAllEntities().size();
+    field.spawnNewEntities();
+    int births = field.getAllEntities().size() - population;
+    if (profiling) time = profiler.record(Phase.SPAWN, time);
+    field.removeDeadEntities();
+    int deaths = population + births - field.getAllEntities().size();
+    if (profiling) time = profiler.record(Phase.REMOVE_DEAD, time);
+    field.updateSpatialIndex();
+    if (profiling) time = profiler.record(Phase.SPATIAL_INDEX, time);
+
+    field.updateEnvironment();
+    tick++;
+    if (profiling) {
+      profiler.record(Phase.ENVIRONMENT, time);
+      profiler.record(Phase.STEP, start);
+    }
+
+    for (StepListener stepListener : stepListeners) {
+      stepListener.onStep(this, births, deaths);
+    }
+  }
+
+  /**
+   * Adds a listener told about every step from now on, after the listeners added before it.
+   * @param stepListener The listener.
+   */
+  public void addStepListener(StepListener stepListener) {
+    stepListeners.add(stepListener);
+  }
+
+  /**
+   * Sets the profiler timing the phases of the steps from now on.
+   * @param profiler The profiler, null for none.
+   */
+  public void setProfiler(TickProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  /**
+   * Stops telling a listener about the steps.
+   * @param stepListener The listener, added before.
+   */
+  public void removeStepListener(StepListener stepListener) {
+    stepListeners.remove(stepListener);
+  }
+
+  /**
+   * Updates the entities one after another, so every entity already sees the changes
+   * made by the entities before it.
+   */
+  private void updateInPlace() {
     List<Entity> entities = field.getAllEntities();
-    
+    field.ageEntities(FIXED_DELTA_TIME);
+
     for (Entity e : entities) {
+      double x = e.getX();
+      double y = e.getY();
       e.update(field, FIXED_DELTA_TIME);
       field.putInBounds(e, e.getSize());
+      if (e.getX() != x || e.getY() != y) field.entityMoved(e);
     }
+  }
 
-    field.spawnNewEntities();
-    field.removeDeadEntities();
-    field.updateQuadtree();
+  /**
+   * Updates the entities against a snapshot of the field in parallel (read phase), then
+   * applies the interactions between them in field order (commit phase).
+   */
+  private void updateInTwoPhases() {
+    List<Entity> entities = field.getAllEntities();
 
-    field.updateEnvironment();
+    for (Entity e : entities) {
+      e.takeSnapshot();
+    }
+    for (Entity e : field.getHaloEntities()) {
+      e.takeSnapshot(); // Not stepped here, but read like the others.
+    }
+    field.ageEntities(FIXED_DELTA_TIME); // After the snapshot, which mates read the age of.
+
+    Consumer<Entity> update = e -> {
+      e.update(field, FIXED_DELTA_TIME);
+      field.putInBounds(e, e.getSize());
+    };
+    if (pool != null && field.getSpatialIndex() instanceof TiledIndex tiledIndex && field.getHaloEntities().isEmpty()) {
+      // Each tile is updated by one worker, which only searches the index of its tile:
+      pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(
+        tiledIndex.getTiles().stream()
+          .map(tile -> new EntityUpdateTask(tile, 0, tile.size(), update))
+          .toList()
+      )));
+    } else {
+      forEachEntity(entities, update);
+    }
+
+    for (Entity e : entities) {
+      e.commit(field);
+    }
+  }
+
+  /**
+   * Applies an action to all entities, on the pool if there is one.
+   * @param entities The entities to apply the action to.
+   * @param action The action to apply. Must only change the state of the given entity.
+   */
+  private void forEachEntity(List<Entity> entities, Consumer<Entity> action) {
+    if (pool == null) {
+      entities.forEach(action);
+    } else {
+      pool.invoke(new EntityUpdateTask(entities, 0, entities.size(), action));
+    }
+  }
+
+  /**
+   * Releases the threads used for stepping. The simulator should not be stepped afterwards.
+   */
+  public void shutdown() {
+    if (pool != null) pool.shutdown();
   }
 
   /**
@@ -57,13 +243,32 @@ public class Simulator {
   }
 
   /**
-   * @return A hash map of entity names to the number of existing entities in the field.
+   * @return The seed of the random streams of this simulation.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * @return The number of steps taken since the field was made.
+   */
+  public long getTick() {
+    return tick;
+  }
+
+  /**
+   * @return Threads for the two-phase step, 0 for the sequential in-place step.
+   */
+  public int getStepThreads() {
+    return stepThreads;
+  }
+
+  /**
+   * @return A hash map of entity names to the number of existing entities in the field. Read
+   * from the population counter of the field, without visiting the entities.
    */
   public HashMap<String, Integer> getFieldData() {
-    HashMap<String, Integer> fieldData = new HashMap<>();
-    for (Entity e : field.getAllEntities()) { // Count all the entities in the field.
-      fieldData.put(e.getName(), fieldData.getOrDefault(e.getName(), 0) + 1);
-    }
-    return fieldData;
+    return new HashMap<>(field.getPopulation().toMap());
   }
+
 }
@@ -0,0 +1,248 @@
+package simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import entities.Plant;
+import entities.Predator;
+import entities.Prey;
+import entities.generic.Entity;
+import genetics.AnimalGenetics;
+import simulation.environment.Environment;
+import simulation.simulationData.*;
+import util.Parser;
+import util.SimulationRandom;
+import util.TickProfiler;
+import util.Vector;
+
+/**
+ * Tests for the Simulator class. Checks that seeded simulations are reproducible
+ * in both step modes.
+ * 
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class SimulatorTest {
+  private static final int STEPS = 200;
+  private static final long SEED = 42;
+
+  private SimulationData simulationData;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      simulationData = Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+    Data.setSimulationData(simulationData);
+  }
+
+  /**
+   * Runs a simulation and describes every entity left in the field.
+   */
+  private List<String> run(int stepThreads, long seed) {
+    return run(Data.getContext(), stepThreads, seed);
+  }
+
+  private List<String> run(SimulationContext context, int stepThreads, long seed) {
+    Simulator simulator = new Simulator(context, 300, 300, stepThreads, seed);
+    for (int i = 0; i < STEPS; i++) {
+      simulator.step();
+    }
+    simulator.shutdown();
+
+    List<String> entities = new ArrayList<>();
+    for (Entity e : simulator.getField().getAllEntities()) {
+      entities.add(e.toString());
+    }
+    return entities;
+  }
+
+  @Test
+  void testStep_SameSeedIsReproducible() {
+    assertEquals(run(0, SEED), run(0, SEED));
+  }
+
+  @Test
+  void testStep_DifferentSeedsDiffer() {
+    assertNotEquals(run(0, SEED), run(0, SEED + 1));
+  }
+
+  @Test
+  void testStep_TwoPhaseIndependentOfThreadCount() {
+    assertEquals(run(1, SEED), run(3, SEED));
+  }
+
+  @Test
+  void testStep_TiledGridMatchesUntiledGrid() {
+    simulationData.spatialIndex = SpatialIndexType.GRID;
+    SimulationContext untiled = new SimulationContext(simulationData);
+    simulationData.tileSize = 70; // Tiles that do not line up with the border of the field.
+    SimulationContext tiled = new SimulationContext(simulationData);
+
+    assertEquals(run(untiled, 0, SEED), run(tiled, 0, SEED));
+    assertEquals(run(untiled, 2, SEED), run(tiled, 3, SEED));
+  }
+
+  @Test
+  void testCommit_DeadEntitiesNeitherEatNorBreed() {
+    SimulationContext context = Data.getContext();
+    for (boolean killed : new boolean[] { false, true }) {
+      SimulationRandom random = new SimulationRandom(SEED);
+      List<Entity> entities = new ArrayList<>();
+      Predator fox = new Predator(context.getPredatorsData()[0].generateRandomGenetics(context, random), new Vector(150, 150), random.split());
+      Prey rabbit = new Prey(context.getPreysData()[0].generateRandomGenetics(context, random), new Vector(150, 150), random.split());
+      entities.add(fox);
+      entities.add(rabbit);
+      for (int i = 0; i < 100; i++) {
+        Plant plant = new Plant(context.getPlantsData()[0].generateRandomGenetics(context, random), new Vector(random.nextDouble() * 300, random.nextDouble() * 300), random.split());
+        plant.setAge(plant.getGenetics().getMatureAge()); // Old enough to seed.
+        entities.add(plant);
+      }
+      int count = entities.size();
+      Field field = new Field(context, 300, 300, entities, new Environment(random.split(), context.getWeatherChangeProbability()));
+
+      // A two-phase step, where everything but the rabbit is eaten by an entity committed earlier:
+      for (Entity e : entities) e.takeSnapshot();
+      for (Entity e : entities) e.update(field, 0.2);
+      if (killed) {
+        for (Entity e : entities) {
+          if (e != rabbit) e.setDead();
+        }
+      }
+      for (Entity e : entities) e.commit(field);
+      field.spawnNewEntities();
+
+      if (killed) {
+        assertTrue(rabbit.isAlive()); // The dead fox does not eat.
+        assertEquals(count, field.getAllEntities().size()); // The dead plants do not seed.
+      } else {
+        assertFalse(rabbit.isAlive());
+        assertTrue(field.getAllEntities().size() > count);
+      }
+    }
+  }
+
+  @Test
+  void testPopulation_MatchesEntities() {
+    for (int stepThreads : new int[] { 0, 2 }) {
+      Simulator simulator = new Simulator(Data.getContext(), 300, 300, stepThreads, SEED);
+      PopulationCounter population = simulator.getField().getPopulation();
+      int start = population.getTotal();
+      for (int i = 0; i < STEPS; i++) {
+        simulator.step();
+      }
+      simulator.shutdown();
+
+      Map<String, Integer> counted = new HashMap<>();
+      for (Entity e : simulator.getField().getAllEntities()) {
+        counted.merge(e.getName(), 1, Integer::sum);
+      }
+      assertEquals(counted, simulator.getFieldData());
+
+      long births = 0;
+      long deaths = 0;
+      for (int id = 0; id < population.getSpeciesCount(); id++) {
+        births += population.getBirths(id);
+        deaths += population.getDeaths(id);
+      }
+      assertTrue(births > 0 && deaths > 0);
+      assertEquals(population.getTotal(), start + births - deaths);
+    }
+  }
+
+  @Test
+  void testStep_ProfilerDoesNotChangeSimulation() {
+    List<String> expected = run(2, SEED);
+
+    Simulator simulator = new Simulator(Data.getContext(), 300, 300, 2, SEED);
+    TickProfiler profiler = new TickProfiler(true);
+    simulator.setProfiler(profiler);
+    for (int i = 0; i < STEPS; i++) {
+      if (i == STEPS / 2) profiler.setEnabled(false);
+      simulator.step();
+    }
+    simulator.shutdown();
+    List<String> entities = new ArrayList<>();
+    for (Entity e : simulator.getField().getAllEntities()) {
+      entities.add(e.toString());
+    }
+    assertEquals(expected, entities);
+
+    for (TickProfiler.Phase phase : new TickProfiler.Phase[] { TickProfiler.Phase.UPDATE, TickProfiler.Phase.SPAWN, TickProfiler.Phase.REMOVE_DEAD, TickProfiler.Phase.SPATIAL_INDEX, TickProfiler.Phase.ENVIRONMENT, TickProfiler.Phase.STEP }) {
+      TickProfiler.Summary summary = profiler.getSummary(phase);
+      assertEquals(STEPS / 2, summary.count()); // Not timed once switched off.
+      assertTrue(summary.p50() <= summary.p99() && summary.p99() <= summary.max());
+    }
+    assertTrue(profiler.getSummary(TickProfiler.Phase.STEP).max() >= profiler.getSummary(TickProfiler.Phase.UPDATE).max());
+    assertEquals(0, profiler.getSummary(TickProfiler.Phase.RENDER).count());
+  }
+
+  @Test
+  void testTraitStatistics_MatchScan() {
+    Simulator simulator = new Simulator(Data.getContext(), 300, 300, 0, SEED);
+    for (int i = 0; i < STEPS; i++) {
+      simulator.step();
+    }
+    Field field = simulator.getField();
+    TraitStatistics statistics = field.getTraitStatistics();
+
+    for (int id = 0; id < statistics.getSpeciesCount(); id++) {
+      for (TraitStatistics.Trait trait : new TraitStatistics.Trait[] { TraitStatistics.Trait.SIZE, TraitStatistics.Trait.MULTIPLYING_RATE, TraitStatistics.Trait.MAX_SPEED }) {
+        TraitStatistics.Statistic statistic = statistics.get(id, trait);
+        if (statistic == null) {
+          assertTrue(trait == TraitStatistics.Trait.MAX_SPEED && field.getContext().getSpeciesRegistry().getPlantData(id) != null);
+          continue;
+        }
+        List<Double> values = new ArrayList<>();
+        for (Entity e : field.getAllEntities()) {
+          if (e.getSpeciesId() != id) continue;
+          values.add(switch (trait) {
+            case SIZE -> (double) e.getGenetics().getSize();
+            case MULTIPLYING_RATE -> e.getGenetics().getMultiplyingRate();
+            default -> ((AnimalGenetics) e.getGenetics()).getMaxSpeed();
+          });
+        }
+        assertEquals(values.size(), statistic.getCount());
+        assertEquals(values.size(), Arrays.stream(statistic.getHistogram()).sum());
+        if (values.isEmpty()) continue;
+
+        double mean = values.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+        double variance = values.stream().mapToDouble(v -> (v - mean) * (v - mean)).average().orElseThrow();
+        double min = values.stream().mapToDouble(Double::doubleValue).min().orElseThrow();
+        double max = values.stream().mapToDouble(Double::doubleValue).max().orElseThrow();
+        double bucketWidth = (statistic.getHigh() - statistic.getLow()) / TraitStatistics.BUCKETS;
+        assertEquals(mean, statistic.getMean(), 1e-6 * Math.max(1, Math.abs(mean)));
+        assertEquals(variance, statistic.getVariance(), 1e-6 * Math.max(1, variance));
+        assertTrue(statistic.getMin() <= min && statistic.getMin() >= min - bucketWidth);
+        assertTrue(statistic.getMax() >= max && statistic.getMax() <= max + bucketWidth);
+      }
+    }
+  }
+
+  @Test
+  void testStep_ContextIsNotAffectedByOtherSimulations() {
+    SimulationContext context = new SimulationContext(simulationData);
+    List<String> expected = run(context, 0, SEED);
+
+    // Another simulation replacing the default data must not change this one:
+    SimulationData otherData = new SimulationData();
+    otherData.preysData = simulationData.preysData;
+    otherData.predatorsData = simulationData.predatorsData;
+    otherData.plantsData = simulationData.plantsData;
+    otherData.entityAgeRate = simulationData.entityAgeRate * 10;
+    Data.setSimulationData(otherData);
+    assertEquals(expected, run(context, 0, SEED));
+  }
+}
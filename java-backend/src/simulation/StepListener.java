@@ -0,0 +1,18 @@
+package simulation;
+
+/**
+ * Is told about every step of a simulator, right after the step, on the thread that steps
+ * the simulation. Used to record simulations and to check replays against their recording.
+ * 
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public interface StepListener {
+  /**
+   * Called at the end of every step.
+   * @param simulator The simulator that stepped; its tick is the tick just taken.
+   * @param births The number of entities spawned in the step.
+   * @param deaths The number of entities removed in the step.
+   */
+  void onStep(Simulator simulator, int births, int deaths);
+}
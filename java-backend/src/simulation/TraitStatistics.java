@@ -0,0 +1,225 @@
+package simulation;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import entities.generic.Entity;
+import genetics.AnimalGenetics;
+import genetics.Genetics;
+import genetics.PlantGenetics;
+import simulation.simulationData.AnimalData;
+import simulation.simulationData.EntityData;
+import simulation.simulationData.PlantData;
+import simulation.simulationData.SpeciesRegistry;
+
+/**
+ * Keeps statistics of the genetic traits of every species in a field -- the mean, variance,
+ * minimum, maximum and a histogram -- updated as the field spawns and removes entities.
+ * Reading them costs the same however many entities there are, so the evolution of the
+ * traits can be watched every step without scanning the genetics of every entity.
+ *
+ * The histogram of a trait has a fixed number of buckets spanning the interval of the
+ * trait in the data of the species, which mutations never leave. The minimum and maximum
+ * are the smallest and largest values put in the lowest and highest non-empty bucket since
+ * that bucket was last empty: exact while the entity holding the extreme lives, and off by
+ * at most the width of a bucket after it dies.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class TraitStatistics {
+  public static final int BUCKETS = 16; // The number of buckets in the histogram of every trait.
+
+  /**
+   * A genetic trait, with how to read it from the genetics and its interval from the data.
+   */
+  public enum Trait {
+    MAX_AGE("maxAge", Genetics::getMaxAge, d -> toDoubles(d.maxAge)),
+    MATURE_AGE("matureAge", Genetics::getMatureAge, d -> toDoubles(d.matureAge)),
+    MULTIPLYING_RATE("multiplyingRate", Genetics::getMultiplyingRate, d -> d.multiplyingRate),
+    SIZE("size", Genetics::getSize, d -> toDoubles(d.size)),
+    OVERCROWDING_THRESHOLD("overcrowdingThreshold", Genetics::getOvercrowdingThreshold, d -> toDoubles(d.overcrowdingThreshold)),
+    OVERCROWDING_RADIUS("overcrowdingRadius", Genetics::getOvercrowdingRadius, d -> d.overcrowdingRadius),
+    MAX_OFFSPRING_SPAWN_DISTANCE("maxOffspringSpawnDistance", Genetics::getMaxOffspringSpawnDistance, d -> d.maxOffspringSpawnDistance),
+    MUTATION_RATE("mutationRate", Genetics::getMutationRate, d -> d.mutationRate),
+    MAX_LITTER_SIZE("maxLitterSize", g -> ((AnimalGenetics) g).getMaxLitterSize(), d -> d instanceof AnimalData a ? toDoubles(a.maxLitterSize) : null),
+    MAX_SPEED("maxSpeed", g -> ((AnimalGenetics) g).getMaxSpeed(), d -> d instanceof AnimalData a ? a.maxSpeed : null),
+    SIGHT("sight", g -> ((AnimalGenetics) g).getSight(), d -> d instanceof AnimalData a ? a.sight : null),
+    NUMBER_OF_SEEDS("numberOfSeeds", g -> ((PlantGenetics) g).getNumberOfSeeds(), d -> d instanceof PlantData p ? toDoubles(p.numberOfSeeds) : null);
+
+    private final String key; // The name of the trait in the simulation data.
+    private final ToDoubleFunction<Genetics> value; // Reads the trait.
+    private final Function<EntityData, double[]> interval; // The interval of the trait, null if the species does not have it.
+
+    Trait(String key, ToDoubleFunction<Genetics> value, Function<EntityData, double[]> interval) {
+      this.key = key;
+      this.value = value;
+      this.interval = interval;
+    }
+
+    private static double[] toDoubles(int[] interval) {
+      return interval == null ? null : new double[] { interval[0], interval[1] };
+    }
+
+    // Getters:
+    public String getKey() { return key; }
+  }
+
+  /**
+   * The statistics of one trait of one species.
+   */
+  public static class Statistic {
+    private final double low; // The lower end of the histogram.
+    private final double high; // The upper end of the histogram.
+    private final int[] histogram = new int[BUCKETS]; // The number of living entities in each bucket.
+    private final double[] bucketMin = new double[BUCKETS]; // The smallest value put in each bucket since it was last empty.
+    private final double[] bucketMax = new double[BUCKETS]; // The largest value put in each bucket since it was last empty.
+    private int count = 0; // The number of living entities.
+    private double mean = 0; // The running mean.
+    private double m2 = 0; // The running sum of squared differences from the mean.
+
+    private Statistic(double low, double high) {
+      this.low = low;
+      this.high = high;
+    }
+
+    /**
+     * Counts a value, updating the mean and variance with Welford's method.
+     */
+    private void add(double value) {
+      count++;
+      double delta = value - mean;
+      mean += delta / count;
+      m2 += delta * (value - mean);
+
+      int bucket = bucketOf(value);
+      if (histogram[bucket]++ == 0) {
+        bucketMin[bucket] = value;
+        bucketMax[bucket] = value;
+      } else {
+        bucketMin[bucket] = Math.min(bucketMin[bucket], value);
+        bucketMax[bucket] = Math.max(bucketMax[bucket], value);
+      }
+    }
+
+    /**
+     * Uncounts a value counted before, undoing its update of the mean and variance.
+     */
+    private void remove(double value) {
+      histogram[bucketOf(value)]--;
+      if (--count == 0) {
+        mean = 0;
+        m2 = 0;
+        return;
+      }
+      double delta = value - mean;
+      mean -= delta / count;
+      m2 = Math.max(0, m2 - delta * (value - mean)); // Rounding must not make the variance negative.
+    }
+
+    private int bucketOf(double value) {
+      if (high <= low) return 0;
+      int bucket = (int) ((value - low) / (high - low) * BUCKETS);
+      return Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+
+    /**
+     * @return The population variance, 0 if there are no entities.
+     */
+    public double getVariance() {
+      return count == 0 ? 0 : m2 / count;
+    }
+
+    /**
+     * @return The smallest value of the living entities, NaN if there are none.
+     */
+    public double getMin() {
+      for (int i = 0; i < BUCKETS; i++) {
+        if (histogram[i] > 0) return bucketMin[i];
+      }
+      return Double.NaN;
+    }
+
+    /**
+     * @return The largest value of the living entities, NaN if there are none.
+     */
+    public double getMax() {
+      for (int i = BUCKETS - 1; i >= 0; i--) {
+        if (histogram[i] > 0) return bucketMax[i];
+      }
+      return Double.NaN;
+    }
+
+    /**
+     * @return The number of living entities in each bucket, lowest first.
+     */
+    public int[] getHistogram() {
+      return histogram.clone();
+    }
+
+    // Getters:
+    public int getCount() { return count; }
+    public double getMean() { return count == 0 ? Double.NaN : mean; }
+    public double getStandardDeviation() { return Math.sqrt(getVariance()); }
+    public double getLow() { return low; }
+    public double getHigh() { return high; }
+  }
+
+  private final SpeciesRegistry registry; // Gives the species ids and names.
+  private final Statistic[][] statistics; // The statistics by species id and trait, null for traits the species does not have.
+
+  /**
+   * Constructor -- Create statistics with no entities.
+   * @param registry The species of the simulation.
+   */
+  TraitStatistics(SpeciesRegistry registry) {
+    this.registry = registry;
+    statistics = new Statistic[registry.getSpeciesCount()][];
+    for (int id = 0; id < statistics.length; id++) {
+      statistics[id] = new Statistic[Trait.values().length];
+      for (Trait trait : Trait.values()) {
+        double[] interval = trait.interval.apply(registry.getData(id));
+        if (interval != null) statistics[id][trait.ordinal()] = new Statistic(interval[0], interval[1]);
+      }
+    }
+  }
+
+  /**
+   * Counts the traits of an entity that entered the field.
+   */
+  void added(Entity entity) {
+    int id = entity.getSpeciesId();
+    if (id == SpeciesRegistry.UNKNOWN) return;
+    Genetics genetics = entity.getGenetics();
+    for (Trait trait : Trait.values()) {
+      Statistic statistic = statistics[id][trait.ordinal()];
+      if (statistic != null) statistic.add(trait.value.applyAsDouble(genetics));
+    }
+  }
+
+  /**
+   * Uncounts the traits of an entity that left the field.
+   */
+  void removed(Entity entity) {
+    int id = entity.getSpeciesId();
+    if (id == SpeciesRegistry.UNKNOWN) return;
+    Genetics genetics = entity.getGenetics();
+    for (Trait trait : Trait.values()) {
+      Statistic statistic = statistics[id][trait.ordinal()];
+      if (statistic != null) statistic.remove(trait.value.applyAsDouble(genetics));
+    }
+  }
+
+  /**
+   * @param speciesId The id of the species.
+   * @param trait The trait.
+   * @return The statistics of the trait in the species, null if the species does not have it.
+   */
+  public Statistic get(int speciesId, Trait trait) {
+    return statistics[speciesId][trait.ordinal()];
+  }
+
+  // Getters:
+  public int getSpeciesCount() { return statistics.length; }
+  public String getName(int speciesId) { return registry.getName(speciesId); }
+}
@@ -0,0 +1,282 @@
+package simulation.distributed;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import simulation.snapshot.EntityBatch;
+
+/**
+ * Steps a field split into vertical strips, each owned by a PartitionWorker, usually in a
+ * process of its own, so that the field is not limited by the memory of one process. The
+ * partitions are stepped in lockstep; between two steps the coordinator passes the entities
+ * that crossed a border, the halos and the kills between neighbours. It only ever holds the
+ * entities near the borders, and never decodes them.
+ *
+ * The simulation is the same for the same seed and number of partitions. With one partition
+ * it is the same as in a single process. Entities near a border see and eat across it, but
+ * a prey eaten across a border dies one step later in its own partition, and a mate across
+ * a border does not pay for breeding.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class Coordinator implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(Coordinator.class);
+
+  private final ServerSocketChannel server; // Accepts the connections of the partitions.
+  private final SocketAddress address; // The address the partitions connect to.
+  private final int partitionCount; // The number of partitions.
+  private final List<PartitionConnection> partitions = new ArrayList<>(); // The partitions, from the left.
+  private final List<Process> processes = new ArrayList<>(); // The processes of the partitions, if launched here.
+  private Path directory = null; // The temporary directory of the socket, if launched here.
+
+  private ByteBuffer[] halosFromLeft; // The halo each partition gets from its left neighbour.
+  private ByteBuffer[] halosFromRight; // The halo each partition gets from its right neighbour.
+  private double haloWidth = 0; // The largest search radius of any entity.
+  private long tick = 0; // The number of steps taken.
+  private int births; // Births in the last step.
+  private int deaths; // Deaths in the last step, including those killed across a border.
+  private int day; // The day of the simulation.
+  private int[] populations; // The population of each partition.
+  private Map<String, Integer> entityCounts = new TreeMap<>(); // The number of entities of each species.
+
+  /**
+   * Constructor -- Listen for partitions.
+   * @param address The address to listen on: a Unix domain socket, or a TCP address.
+   * @param partitionCount The number of partitions to split the field into.
+   * @throws IOException If the address cannot be bound.
+   */
+  public Coordinator(SocketAddress address, int partitionCount) throws IOException {
+    if (partitionCount <= 0) {
+      throw new IllegalArgumentException("partitionCount must be positive");
+    }
+    this.partitionCount = partitionCount;
+    server = address instanceof UnixDomainSocketAddress
+      ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+      : ServerSocketChannel.open();
+    server.bind(address);
+    this.address = server.getLocalAddress();
+  }
+
+  /**
+   * Starts a partition process for every partition, on this host, connecting to the
+   * coordinator over a Unix domain socket.
+   * @param partitionCount The number of partitions.
+   * @return The coordinator, with the processes starting; call start next.
+   * @throws IOException If the socket cannot be bound or a process cannot be started.
+   */
+  public static Coordinator launch(int partitionCount) throws IOException {
+    Path directory = Files.createTempDirectory("simulation-");
+    Coordinator coordinator;
+    try {
+      coordinator = new Coordinator(UnixDomainSocketAddress.of(directory.resolve("coordinator.sock")), partitionCount);
+    } catch (IOException e) {
+      Files.deleteIfExists(directory);
+      throw e;
+    }
+    coordinator.directory = directory;
+    String java = ProcessHandle.current().info().command().orElse("java");
+    for (int i = 0; i < partitionCount; i++) {
+      coordinator.processes.add(new ProcessBuilder(
+        java, "-cp", System.getProperty("java.class.path"),
+        PartitionWorker.class.getName(), PartitionConnection.formatAddress(coordinator.address)
+      ).inheritIO().start());
+    }
+    return coordinator;
+  }
+
+  /**
+   * Waits for every partition to connect and makes the field. The first partition to
+   * connect owns the left strip.
+   * @param parameters The simulation data, as JSON.
+   * @param width The width of the field.
+   * @param height The height of the field.
+   * @param seed The seed of the simulation.
+   * @param stepThreads Threads for the two-phase step of each partition; 0 for the sequential in-place step.
+   * @throws IOException If a partition fails or its connection breaks.
+   */
+  public void start(String parameters, int width, int height, long seed, int stepThreads) throws IOException {
+    while (partitions.size() < partitionCount) {
+      partitions.add(new PartitionConnection(server.accept()));
+    }
+    logger.info("{} partitions connected on {}", partitionCount, PartitionConnection.formatAddress(address));
+
+    for (int i = 0; i < partitionCount; i++) {
+      ByteBuffer init = ByteBuffer.allocate(4 * 5 + 8 + PartitionConnection.stringBytes(parameters));
+      init.putInt(i);
+      init.putInt(partitionCount);
+      init.putInt(width);
+      init.putInt(height);
+      init.putLong(seed);
+      init.putInt(stepThreads);
+      PartitionConnection.putString(init, parameters);
+      partitions.get(i).send(PartitionConnection.INIT, init.flip());
+    }
+    for (int i = 0; i < partitionCount; i++) {
+      haloWidth = Math.max(haloWidth, receive(i, PartitionConnection.READY).getDouble());
+    }
+
+    // Nothing has moved or died yet, only the halos are handed out:
+    ByteBuffer[] noEntities = new ByteBuffer[partitionCount];
+    Arrays.fill(noEntities, EntityBatch.encode(List.of()));
+    int[][] noKills = new int[partitionCount][0];
+    exchange(noKills, noKills, noEntities, noEntities);
+  }
+
+  /**
+   * Steps every partition once, then exchanges the entities between neighbours.
+   * @throws IOException If a partition fails or its connection breaks.
+   */
+  public void step() throws IOException {
+    for (int i = 0; i < partitionCount; i++) {
+      ByteBuffer step = ByteBuffer.allocate(4 * 2 + halosFromLeft[i].remaining() + halosFromRight[i].remaining());
+      PartitionConnection.putBatch(step, halosFromLeft[i]);
+      PartitionConnection.putBatch(step, halosFromRight[i]);
+      partitions.get(i).send(PartitionConnection.STEP, step.flip());
+    }
+
+    births = 0;
+    deaths = 0;
+    haloWidth = 0;
+    int[][] killsOfLeft = new int[partitionCount][]; // Halo entities of the left neighbour each partition killed.
+    int[][] killsOfRight = new int[partitionCount][];
+    ByteBuffer[] leavingLeft = new ByteBuffer[partitionCount];
+    ByteBuffer[] leavingRight = new ByteBuffer[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      ByteBuffer stepped = receive(i, PartitionConnection.STEPPED);
+      births += stepped.getInt();
+      deaths += stepped.getInt();
+      haloWidth = Math.max(haloWidth, stepped.getDouble());
+      killsOfLeft[i] = PartitionConnection.getIndices(stepped);
+      killsOfRight[i] = PartitionConnection.getIndices(stepped);
+      leavingLeft[i] = PartitionConnection.getBatch(stepped);
+      leavingRight[i] = PartitionConnection.getBatch(stepped);
+    }
+    exchange(killsOfLeft, killsOfRight, leavingLeft, leavingRight);
+    tick++;
+  }
+
+  /**
+   * Hands every partition the kills and the entities of its neighbours, and collects the
+   * halos for the next step.
+   */
+  private void exchange(int[][] killsOfLeft, int[][] killsOfRight, ByteBuffer[] leavingLeft, ByteBuffer[] leavingRight) throws IOException {
+    ByteBuffer none = EntityBatch.encode(List.of());
+    for (int i = 0; i < partitionCount; i++) {
+      boolean hasLeft = i > 0;
+      boolean hasRight = i < partitionCount - 1;
+      int[] killedByLeft = hasLeft ? killsOfRight[i - 1] : new int[0];
+      int[] killedByRight = hasRight ? killsOfLeft[i + 1] : new int[0];
+      ByteBuffer fromLeft = hasLeft ? leavingRight[i - 1] : none;
+      ByteBuffer fromRight = hasRight ? leavingLeft[i + 1] : none;
+
+      ByteBuffer exchange = ByteBuffer.allocate(8 + 4 * (2 + killedByLeft.length + killedByRight.length) + 4 * 2 + fromLeft.remaining() + fromRight.remaining());
+      exchange.putDouble(haloWidth);
+      PartitionConnection.putIndices(exchange, killedByLeft);
+      PartitionConnection.putIndices(exchange, killedByRight);
+      PartitionConnection.putBatch(exchange, fromLeft);
+      PartitionConnection.putBatch(exchange, fromRight);
+      partitions.get(i).send(PartitionConnection.EXCHANGE, exchange.flip());
+    }
+
+    halosFromLeft = new ByteBuffer[partitionCount];
+    halosFromRight = new ByteBuffer[partitionCount];
+    populations = new int[partitionCount];
+    entityCounts = new TreeMap<>();
+    for (int i = 0; i < partitionCount; i++) {
+      ByteBuffer exchanged = receive(i, PartitionConnection.EXCHANGED);
+      populations[i] = exchanged.getInt();
+      deaths += exchanged.getInt();
+      day = exchanged.getInt();
+      int species = exchanged.getInt();
+      for (int j = 0; j < species; j++) {
+        entityCounts.merge(PartitionConnection.getString(exchanged), exchanged.getInt(), Integer::sum);
+      }
+      ByteBuffer haloLeft = PartitionConnection.getBatch(exchanged);
+      ByteBuffer haloRight = PartitionConnection.getBatch(exchanged);
+      if (i > 0) halosFromRight[i - 1] = haloLeft;
+      if (i < partitionCount - 1) halosFromLeft[i + 1] = haloRight;
+    }
+    halosFromLeft[0] = none;
+    halosFromRight[partitionCount - 1] = none;
+  }
+
+  /**
+   * Waits for the next message of a partition.
+   * @return The payload of the message.
+   * @throws IOException If the partition failed or sent another message.
+   */
+  private ByteBuffer receive(int partition, byte type) throws IOException {
+    PartitionConnection.Message message = partitions.get(partition).receive();
+    if (message.type() == PartitionConnection.ERROR) {
+      throw new IOException("Partition " + partition + " failed: " + PartitionConnection.getString(message.payload()));
+    }
+    if (message.type() != type) {
+      throw new IOException("Partition " + partition + " sent message type " + message.type() + ", expected " + type);
+    }
+    return message.payload();
+  }
+
+  /**
+   * Shuts the partitions down and stops listening. Launched processes are given a few
+   * seconds to exit before they are killed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      for (PartitionConnection partition : partitions) {
+        try {
+          partition.send(PartitionConnection.SHUTDOWN, ByteBuffer.allocate(0));
+          partition.close();
+        } catch (IOException e) {
+          logger.warn("Failed to shut a partition down", e);
+        }
+      }
+      for (Process process : processes) {
+        if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroyForcibly();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      processes.forEach(Process::destroyForcibly);
+    } finally {
+      server.close();
+      if (address instanceof UnixDomainSocketAddress unix) {
+        Files.deleteIfExists(unix.getPath());
+      }
+      if (directory != null) Files.deleteIfExists(directory);
+    }
+  }
+
+  /**
+   * @return The total number of entities in the field.
+   */
+  public int getPopulation() {
+    int population = 0;
+    for (int count : populations) population += count;
+    return population;
+  }
+
+  // Getters:
+  public SocketAddress getAddress() { return address; }
+  public long getTick() { return tick; }
+  public int getBirths() { return births; }
+  public int getDeaths() { return deaths; }
+  public int getDay() { return day; }
+  public int[] getPopulations() { return populations.clone(); }
+  public Map<String, Integer> getEntityCounts() { return entityCounts; }
+}
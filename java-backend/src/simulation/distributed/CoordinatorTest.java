@@ -0,0 +1,106 @@
+package simulation.distributed;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import simulation.Simulator;
+import simulation.simulationData.*;
+import util.Parser;
+
+/**
+ * Tests for the Coordinator and PartitionWorker classes. The partitions run on threads of
+ * the test and talk to the coordinator over a Unix domain socket.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class CoordinatorTest {
+  private static final int STEPS = 100;
+  private static final int SIZE = 300;
+  private static final long SEED = 42;
+
+  private String parameters;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      parameters = Parser.getContentsOfFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+  }
+
+  /**
+   * A distributed run and what it ended with.
+   */
+  private record Run(Map<String, Integer> entityCounts, int[] populations, int population) {}
+
+  /**
+   * Runs a distributed simulation with partitions on threads of this process.
+   */
+  private Run run(int partitionCount) throws Exception {
+    Coordinator coordinator = new Coordinator(UnixDomainSocketAddress.of(directory.resolve("c" + partitionCount + ".sock")), partitionCount);
+    List<Thread> workers = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      PartitionWorker worker = new PartitionWorker(coordinator.getAddress());
+      Thread thread = new Thread(() -> {
+        try {
+          worker.run();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      thread.start();
+      workers.add(thread);
+    }
+
+    Run run;
+    try (coordinator) {
+      coordinator.start(parameters, SIZE, SIZE, SEED, 0);
+      for (int i = 0; i < STEPS; i++) {
+        coordinator.step();
+      }
+      assertEquals(STEPS, coordinator.getTick());
+      run = new Run(coordinator.getEntityCounts(), coordinator.getPopulations(), coordinator.getPopulation());
+    }
+    for (Thread thread : workers) {
+      thread.join();
+    }
+    return run;
+  }
+
+  @Test
+  void testOnePartition_MatchesSingleProcess() throws Exception {
+    Simulator simulator = new Simulator(new SimulationContext(Parser.parseSimulationData(parameters)), SIZE, SIZE, 0, SEED);
+    for (int i = 0; i < STEPS; i++) {
+      simulator.step();
+    }
+    assertEquals(new TreeMap<>(simulator.getFieldData()), run(1).entityCounts());
+  }
+
+  @Test
+  void testPartitions_AreReproducible() throws Exception {
+    Run first = run(3);
+    Run second = run(3);
+    assertEquals(first.entityCounts(), second.entityCounts());
+    assertArrayEquals(first.populations(), second.populations());
+    assertTrue(first.population() > 0);
+    assertEquals(first.population(), first.entityCounts().values().stream().mapToInt(Integer::intValue).sum());
+  }
+}
@@ -0,0 +1,206 @@
+package simulation.distributed;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A connection between the coordinator and a partition of a distributed field, over a
+ * Unix domain socket or a TCP socket. Messages are framed as their length (of the type and
+ * the payload, big-endian), their type and their payload. The coordinator and the
+ * partitions take turns, so the channel is used blocking.
+ *
+ * Messages, coordinator to partition:
+ * INIT: partition, partitions, width, height, seed, step threads, parameters as JSON.
+ * STEP: the halo entities of the left and of the right neighbour.
+ * EXCHANGE: the halo width, the indices of the halo entities the left and the right
+ * neighbour killed, and the entities that moved in from the left and from the right.
+ * SHUTDOWN: nothing.
+ *
+ * Partition to coordinator:
+ * READY: the largest search radius of its entities.
+ * STEPPED: births, deaths, the largest search radius, the indices of the killed halo
+ * entities of the left and of the right neighbour, and the entities that moved out to the
+ * left and to the right.
+ * EXCHANGED: the population, the entities killed by the neighbours, the day, the count of
+ * every species, and the entities the left and the right neighbour need as their halo.
+ * ERROR: the reason the partition failed.
+ *
+ * Entities are sent as entity batches, each behind its length.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class PartitionConnection implements AutoCloseable {
+  static final byte INIT = 1;
+  static final byte READY = 2;
+  static final byte STEP = 3;
+  static final byte STEPPED = 4;
+  static final byte EXCHANGE = 5;
+  static final byte EXCHANGED = 6;
+  static final byte SHUTDOWN = 7;
+  static final byte ERROR = 8;
+
+  private static final int MAX_MESSAGE_BYTES = 1 << 30; // Larger lengths mean a corrupted stream.
+
+  private final SocketChannel channel; // The connected socket.
+  private final ByteBuffer header = ByteBuffer.allocate(5); // The length and type of a message.
+
+  /**
+   * A received message.
+   * @param type The type of the message.
+   * @param payload The payload, positioned at its start.
+   */
+  record Message(byte type, ByteBuffer payload) {}
+
+  PartitionConnection(SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Connects to a coordinator.
+   * @param address The address the coordinator listens on.
+   * @return The connection.
+   * @throws IOException If the coordinator cannot be reached.
+   */
+  static PartitionConnection connect(SocketAddress address) throws IOException {
+    SocketChannel channel = address instanceof UnixDomainSocketAddress
+      ? SocketChannel.open(StandardProtocolFamily.UNIX)
+      : SocketChannel.open();
+    channel.connect(address);
+    if (!(address instanceof UnixDomainSocketAddress)) {
+      channel.socket().setTcpNoDelay(true); // Small messages in lockstep; do not wait to fill a packet.
+    }
+    return new PartitionConnection(channel);
+  }
+
+  /**
+   * Sends a message.
+   * @param type The type of the message.
+   * @param payload The payload, from its position to its limit.
+   * @throws IOException If the connection is broken.
+   */
+  void send(byte type, ByteBuffer payload) throws IOException {
+    header.clear();
+    header.putInt(1 + payload.remaining());
+    header.put(type);
+    header.flip();
+    ByteBuffer[] buffers = { header, payload };
+    while (header.hasRemaining() || payload.hasRemaining()) {
+      channel.write(buffers);
+    }
+  }
+
+  /**
+   * Waits for the next message.
+   * @return The message.
+   * @throws IOException If the connection is broken or closed.
+   */
+  Message receive() throws IOException {
+    header.clear();
+    readFully(header);
+    int length = header.flip().getInt();
+    byte type = header.get();
+    if (length < 1 || length > MAX_MESSAGE_BYTES) {
+      throw new IOException("Invalid message length " + length);
+    }
+    ByteBuffer payload = ByteBuffer.allocate(length - 1);
+    readFully(payload);
+    return new Message(type, payload.flip());
+  }
+
+  private void readFully(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) throw new EOFException("Connection closed");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Parses an address: {@code unix:<path>} for a Unix domain socket, or {@code <host>:<port>}.
+   * @param address The address.
+   * @return The socket address.
+   */
+  static SocketAddress parseAddress(String address) {
+    if (address.startsWith("unix:")) {
+      return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+    }
+    int colon = address.lastIndexOf(':');
+    if (colon < 0) {
+      throw new IllegalArgumentException("Expected unix:<path> or <host>:<port>, got " + address);
+    }
+    return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+  }
+
+  /**
+   * @return The address in the form parseAddress reads.
+   */
+  static String formatAddress(SocketAddress address) {
+    if (address instanceof UnixDomainSocketAddress unix) {
+      return "unix:" + unix.getPath();
+    }
+    InetSocketAddress inet = (InetSocketAddress) address;
+    return inet.getHostString() + ":" + inet.getPort();
+  }
+
+  // Helpers for the payloads:
+
+  /**
+   * Writes an entity batch behind its length.
+   */
+  static void putBatch(ByteBuffer buffer, ByteBuffer batch) {
+    buffer.putInt(batch.remaining());
+    buffer.put(batch.duplicate());
+  }
+
+  /**
+   * Reads an entity batch written by putBatch.
+   * @return The batch, without copying it.
+   */
+  static ByteBuffer getBatch(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    ByteBuffer batch = buffer.slice(buffer.position(), length);
+    buffer.position(buffer.position() + length);
+    return batch;
+  }
+
+  static void putIndices(ByteBuffer buffer, int[] indices) {
+    buffer.putInt(indices.length);
+    for (int index : indices) buffer.putInt(index);
+  }
+
+  static int[] getIndices(ByteBuffer buffer) {
+    int[] indices = new int[buffer.getInt()];
+    for (int i = 0; i < indices.length; i++) indices[i] = buffer.getInt();
+    return indices;
+  }
+
+  static void putString(ByteBuffer buffer, String string) {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return The bytes putString writes for the string.
+   */
+  static int stringBytes(String string) {
+    return 4 + string.getBytes(StandardCharsets.UTF_8).length;
+  }
+}
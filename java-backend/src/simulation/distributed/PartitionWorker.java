@@ -0,0 +1,259 @@
+package simulation.distributed;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import entities.generic.Entity;
+import simulation.Field;
+import simulation.FieldBuilder;
+import simulation.Simulator;
+import simulation.environment.Environment;
+import simulation.simulationData.SimulationContext;
+import simulation.snapshot.EntityBatch;
+import util.Parser;
+import util.SimulationRandom;
+
+/**
+ * One partition of a distributed field: owns a vertical strip of the field and steps the
+ * entities in it, in lockstep with the other partitions as the Coordinator says.
+ *
+ * Before every step the partition gets copies of the entities its neighbours own near its
+ * borders (the halo), so its entities see across the border. After every step it hands the
+ * entities that left its strip to the neighbour they moved to, and tells the owners of the
+ * halo entities its entities killed, which then die in their own partition. Every partition
+ * sees the same weather, as they all start from the same seed and step the same number of
+ * times.
+ *
+ * Usage: {@code PartitionWorker <coordinator address>}, with the address as
+ * {@code unix:<path>} or {@code <host>:<port>}.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class PartitionWorker {
+  private static final Logger logger = LoggerFactory.getLogger(PartitionWorker.class);
+
+  private static final int LEFT = 0;
+  private static final int RIGHT = 1;
+
+  private final PartitionConnection connection; // The connection to the coordinator.
+
+  private SimulationContext context; // The parameters of the simulation.
+  private Simulator simulator; // Steps the entities of the strip.
+  private int partition; // The index of this partition, from the left.
+  private int partitions; // The number of partitions.
+  private double minX; // The left border of the strip.
+  private double maxX; // The right border of the strip.
+  private final List<List<Entity>> halos = List.of(new ArrayList<>(), new ArrayList<>()); // The halo entities from the left and right neighbour.
+  private final List<List<Entity>> sentHalos = List.of(new ArrayList<>(), new ArrayList<>()); // The entities last sent as halo to the left and right neighbour.
+  private final List<Entity> handedOut = new ArrayList<>(); // The entities handed to the neighbours in the last step, released after the kills.
+  private int births; // Births in the last step.
+  private int deaths; // Deaths in the last step.
+
+  /**
+   * Constructor -- Connect to a coordinator.
+   * @param coordinator The address the coordinator listens on.
+   * @throws IOException If the coordinator cannot be reached.
+   */
+  public PartitionWorker(SocketAddress coordinator) throws IOException {
+    connection = PartitionConnection.connect(coordinator);
+  }
+
+  /**
+   * Serves the coordinator until it shuts the partition down. A failure is reported to the
+   * coordinator before it is thrown.
+   * @throws IOException If the connection to the coordinator breaks.
+   */
+  public void run() throws IOException {
+    try (connection) {
+      while (true) {
+        PartitionConnection.Message message = connection.receive();
+        try {
+          switch (message.type()) {
+            case PartitionConnection.INIT -> init(message.payload());
+            case PartitionConnection.STEP -> step(message.payload());
+            case PartitionConnection.EXCHANGE -> exchange(message.payload());
+            case PartitionConnection.SHUTDOWN -> {
+              if (simulator != null) simulator.shutdown();
+              return;
+            }
+            default -> throw new IOException("Unexpected message type " + message.type());
+          }
+        } catch (IOException | RuntimeException e) {
+          String reason = e.getClass().getSimpleName() + ": " + e.getMessage();
+          ByteBuffer payload = ByteBuffer.allocate(PartitionConnection.stringBytes(reason));
+          PartitionConnection.putString(payload, reason);
+          connection.send(PartitionConnection.ERROR, payload.flip());
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Makes the field of the strip. Every partition draws the entities of the whole field
+   * from the seed, the same way a single process does, but only makes the ones in its strip.
+   */
+  private void init(ByteBuffer payload) throws IOException {
+    partition = payload.getInt();
+    partitions = payload.getInt();
+    int width = payload.getInt();
+    int height = payload.getInt();
+    long seed = payload.getLong();
+    int stepThreads = payload.getInt();
+    context = new SimulationContext(Parser.parseSimulationData(PartitionConnection.getString(payload)));
+    minX = (double) width * partition / partitions;
+    maxX = (double) width * (partition + 1) / partitions;
+
+    FieldBuilder builder = new FieldBuilder(width, height, new SimulationRandom(seed), context, this::owns);
+    Environment environment = new Environment(builder.getRandom().split(), context.getWeatherChangeProbability());
+    List<Entity> entities = builder.getEntities();
+    simulator = new Simulator(new Field(context, width, height, entities, environment), stepThreads, seed, 0);
+    simulator.addStepListener((stepped, births, deaths) -> {
+      this.births = births;
+      this.deaths = deaths;
+    });
+    logger.info("Partition {} of {} owns x in [{}, {}) with {} entities", partition, partitions, minX, maxX, entities.size());
+
+    ByteBuffer ready = ByteBuffer.allocate(8);
+    ready.putDouble(maxSearchRadius());
+    connection.send(PartitionConnection.READY, ready.flip());
+  }
+
+  /**
+   * Takes in the halos, steps the strip, and hands out the entities that left it.
+   */
+  private void step(ByteBuffer payload) throws IOException {
+    Field field = simulator.getField();
+    for (int side : new int[] { LEFT, RIGHT }) {
+      halos.get(side).clear();
+      halos.get(side).addAll(EntityBatch.decode(PartitionConnection.getBatch(payload), context));
+    }
+    List<Entity> haloEntities = new ArrayList<>(halos.get(LEFT));
+    haloEntities.addAll(halos.get(RIGHT));
+    field.setHaloEntities(haloEntities);
+    field.updateSpatialIndex();
+
+    simulator.step();
+
+    int[][] kills = { killedIndices(halos.get(LEFT)), killedIndices(halos.get(RIGHT)) };
+    field.setHaloEntities(List.of());
+    List<Entity> left = field.removeEntities(e -> partition > 0 && e.getX() < minX);
+    List<Entity> right = field.removeEntities(e -> partition < partitions - 1 && e.getX() >= maxX);
+    ByteBuffer leavingLeft = EntityBatch.encode(left);
+    ByteBuffer leavingRight = EntityBatch.encode(right);
+    handedOut.addAll(left); // The neighbours may still report kills of them, which are counted.
+    handedOut.addAll(right);
+
+    ByteBuffer stepped = ByteBuffer.allocate(4 * 2 + 8 + 4 * (2 + kills[LEFT].length + kills[RIGHT].length) + 4 * 2 + leavingLeft.remaining() + leavingRight.remaining());
+    stepped.putInt(births);
+    stepped.putInt(deaths);
+    stepped.putDouble(maxSearchRadius());
+    PartitionConnection.putIndices(stepped, kills[LEFT]);
+    PartitionConnection.putIndices(stepped, kills[RIGHT]);
+    PartitionConnection.putBatch(stepped, leavingLeft);
+    PartitionConnection.putBatch(stepped, leavingRight);
+    connection.send(PartitionConnection.STEPPED, stepped.flip());
+  }
+
+  /**
+   * Applies the kills of the neighbours, takes in the entities that moved into the strip,
+   * and hands out the entities the neighbours need as their halo.
+   */
+  private void exchange(ByteBuffer payload) throws IOException {
+    Field field = simulator.getField();
+    double haloWidth = payload.getDouble();
+    int killed = 0;
+    for (int side : new int[] { LEFT, RIGHT }) {
+      for (int index : PartitionConnection.getIndices(payload)) {
+        Entity e = sentHalos.get(side).get(index);
+        if (e.isAlive()) {
+          e.setDead();
+          killed++;
+        }
+      }
+    }
+    for (Entity e : handedOut) e.release();
+    handedOut.clear();
+    field.removeDeadEntities();
+    for (int side : new int[] { LEFT, RIGHT }) {
+      field.putEntities(EntityBatch.decode(PartitionConnection.getBatch(payload), context));
+    }
+    field.updateSpatialIndex();
+
+    sentHalos.get(LEFT).clear();
+    sentHalos.get(RIGHT).clear();
+    for (Entity e : field.getAllEntities()) {
+      if (partition > 0 && e.getX() < minX + haloWidth) sentHalos.get(LEFT).add(e);
+      if (partition < partitions - 1 && e.getX() >= maxX - haloWidth) sentHalos.get(RIGHT).add(e);
+    }
+    ByteBuffer haloLeft = EntityBatch.encode(sentHalos.get(LEFT));
+    ByteBuffer haloRight = EntityBatch.encode(sentHalos.get(RIGHT));
+
+    Map<String, Integer> counts = simulator.getFieldData();
+    int countBytes = 4;
+    for (String name : counts.keySet()) countBytes += PartitionConnection.stringBytes(name) + 4;
+    ByteBuffer exchanged = ByteBuffer.allocate(4 * 3 + countBytes + 4 * 2 + haloLeft.remaining() + haloRight.remaining());
+    exchanged.putInt(field.getAllEntities().size());
+    exchanged.putInt(killed);
+    exchanged.putInt(field.environment.getDay());
+    exchanged.putInt(counts.size());
+    for (Map.Entry<String, Integer> count : counts.entrySet()) {
+      PartitionConnection.putString(exchanged, count.getKey());
+      exchanged.putInt(count.getValue());
+    }
+    PartitionConnection.putBatch(exchanged, haloLeft);
+    PartitionConnection.putBatch(exchanged, haloRight);
+    connection.send(PartitionConnection.EXCHANGED, exchanged.flip());
+  }
+
+  /**
+   * @return Whether a position on the x axis is in the strip. The outer strips also own
+   * everything beyond the border of the field.
+   */
+  private boolean owns(double x) {
+    return (partition == 0 || x >= minX) && (partition == partitions - 1 || x < maxX);
+  }
+
+  /**
+   * @return The indices of the halo entities that died in the last step.
+   */
+  private static int[] killedIndices(List<Entity> halo) {
+    int[] killed = new int[halo.size()];
+    int count = 0;
+    for (int i = 0; i < halo.size(); i++) {
+      if (!halo.get(i).isAlive()) killed[count++] = i;
+    }
+    return Arrays.copyOf(killed, count);
+  }
+
+  /**
+   * @return The largest search radius of the entities of the strip.
+   */
+  private double maxSearchRadius() {
+    double radius = 0;
+    for (Entity e : simulator.getField().getAllEntities()) {
+      radius = Math.max(radius, e.getSearchRadius());
+    }
+    return radius;
+  }
+
+  /**
+   * Runs a partition until the coordinator shuts it down.
+   * @param args The address of the coordinator.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      throw new IllegalArgumentException("Usage: PartitionWorker <coordinator address>");
+    }
+    new PartitionWorker(PartitionConnection.parseAddress(args[0])).run();
+  }
+}
@@ -1,6 +1,7 @@
 package simulation.environment;
 
 import graphics.Display;
+import util.SimulationRandom;
 import util.Vector;
 
 /**
@@ -16,9 +17,11 @@ public class Environment {
 
   /**
    * Constructor -- Creates a new environment with weather and time controllers.
+   * @param random The random stream for the weather.
+   * @param weatherChangeProbability The probability of the weather changing at the start of a day.
    */
-  public Environment() {
-    weatherController = new WeatherController();
+  public Environment(SimulationRandom random, double weatherChangeProbability) {
+    weatherController = new WeatherController(random, weatherChangeProbability);
     timeController = new TimeController();
   }
 
@@ -79,9 +82,24 @@ public class Environment {
     return timeController.getTimeFormatted();
   }
 
+  /**
+   * Sets the time and the weather, when restoring a snapshot.
+   * @param day The day, starting from 1.
+   * @param timeOfDay The time of day, from 0 to 1.
+   * @param weather The weather.
+   * @param windDirection The direction of the wind in radians.
+   */
+  public void restore(int day, double timeOfDay, Weather weather, double windDirection) {
+    timeController.restore(day, timeOfDay);
+    weatherController.restore(weather, windDirection);
+  }
+
   // Getters:
   public Weather getWeather() { return weatherController.getWeather(); }
   public double getWindDirection() { return weatherController.getWindDirection(); }
   public Vector getWindVector() { return weatherController.getWindVector(); }
   public boolean isDay() { return timeController.isDay(); }
+  public int getDay() { return timeController.getDay(); }
+  public double getTimeOfDay() { return timeController.getTimeOfDay(); }
+  public SimulationRandom getWeatherRandom() { return weatherController.getRandom(); }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import util.Utility;
 import util.Vector;
 
 import java.awt.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Lightning effect that spawns during storms. This effect is purely 
@@ -30,9 +31,9 @@ public class Lightning {
    * Constructor -- Spawn a new lightning bolt.
    */
   public Lightning(Display display) {
-    numSegments = (int) Utility.lerp(MIN_SEGMENTS, MAX_SEGMENTS, Math.random());
+    numSegments = (int) Utility.lerp(MIN_SEGMENTS, MAX_SEGMENTS, random());
     generateSegmentPositions(display.getWidth(), display.getHeight());
-    maxAge = (int) Utility.lerp(MIN_AGE, MAX_AGE, Math.random());
+    maxAge = (int) Utility.lerp(MIN_AGE, MAX_AGE, random());
   }
 
   /**
@@ -42,19 +43,27 @@ public class Lightning {
    * @param height The height of the display.
    */
   private void generateSegmentPositions(double width, double height) {
-    double spawnX = (0.1 + 0.9 * Math.random()) * width;
+    double spawnX = (0.1 + 0.9 * random()) * width;
     positions = new Vector[numSegments + 1];
     positions[0] = new Vector(spawnX, 0);
 
-    double totalHeight = (0.4 + 0.6 * Math.random()) * height;
+    double totalHeight = (0.4 + 0.6 * random()) * height;
 
     for (int i = 0; i < numSegments; i++) {
-      double segmentX = positions[i].x() + (Math.random() - 0.5) * width * 0.45;
-      double segmentY = positions[i].y() + totalHeight/ numSegments * (0.9 + 0.1 * Math.random());
+      double segmentX = positions[i].x() + (random() - 0.5) * width * 0.45;
+      double segmentY = positions[i].y() + totalHeight/ numSegments * (0.9 + 0.1 * random());
       positions[i + 1] = new Vector(segmentX, segmentY);
     }
   }
 
+  /**
+   * Lightning is purely visual, so it uses a thread-local random instead of a simulation stream.
+   * @return A random number between 0 and 1.
+   */
+  private static double random() {
+    return ThreadLocalRandom.current().nextDouble();
+  }
+
   /**
    * Draw the entire lightning bolt on the display.
    * @param display The display to draw the lightning on.
@@ -5,6 +5,7 @@ import util.Utility;
 import util.Vector;
 
 import java.awt.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Creates a falling rain particle purely for some visual effect. The rain particle 
@@ -29,7 +30,7 @@ public class RainParticle {
     this.position = position;
     this.lastPosition = position;
     // The colour of the rain particle is some shade of blue:
-    color = Utility.mutateColor(new Color(51, 210, 242), 1, 0.25);
+    color = Utility.mutateColor(new Color(51, 210, 242), 1, 0.25, ThreadLocalRandom.current());
   }
 
   /**
@@ -82,4 +82,28 @@ public class TimeController {
     double alpha = 0.6 * (1 - lightLevel);
     display.drawTransparentRectangle(0, 0, display.getWidth(), display.getHeight(), alpha, Color.BLACK);
   }
+
+  /**
+   * Sets the day and the time of day, when restoring a snapshot.
+   * @param day The day, starting from 1.
+   * @param timeOfDay The time of day, from 0 to 1.
+   */
+  public void restore(int day, double timeOfDay) {
+    this.day = day;
+    this.timeOfDay = timeOfDay;
+  }
+
+  /**
+   * @return The current day, starting from 1.
+   */
+  public int getDay() {
+    return day;
+  }
+
+  /**
+   * @return The time of day, from 0 to 1.
+   */
+  public double getTimeOfDay() {
+    return timeOfDay;
+  }
 }
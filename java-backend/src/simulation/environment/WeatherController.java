@@ -4,9 +4,10 @@ import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import graphics.Display;
-import simulation.simulationData.Data;
+import util.SimulationRandom;
 import util.Vector;
 
 /**
@@ -23,6 +24,8 @@ import util.Vector;
 public class WeatherController {
   private double windDirection; // The direction of the wind in radians.
   private Weather weather; // The current weather.
+  private final SimulationRandom random; // The random stream for the weather. Visual effects don't use it.
+  private final double changeProbability; // The probability of the weather changing when asked to.
 
   private final static int PARTICLE_SPAWN_RATE = 4; // The number of rain particles to spawn per update.
   private final List<RainParticle> rainParticles; // The rain particles on the screen.
@@ -32,10 +35,14 @@ public class WeatherController {
   
   /**
    * Constructor -- Creates a new weather controller with a random weather and wind direction.
+   * @param random The random stream for the weather.
+   * @param changeProbability The probability of the weather changing when asked to.
    */
-  public WeatherController() {
+  public WeatherController(SimulationRandom random, double changeProbability) {
+    this.random = random;
+    this.changeProbability = changeProbability;
     setRandomWeather();
-    windDirection = Math.random() * Math.PI * 2;
+    windDirection = random.nextDouble() * Math.PI * 2;
     rainParticles = new ArrayList<>();
     lightnings = new ArrayList<>();
   }
@@ -47,7 +54,7 @@ public class WeatherController {
   private void setRandomWeather() {
     List<Weather> weathers = new ArrayList<>(Arrays.asList(Weather.values()));
     weathers.remove(weather); // Ensure that the new weather won't be the same one.
-    int randomIndex = (int) (Math.random() * weathers.size());
+    int randomIndex = (int) (random.nextDouble() * weathers.size());
     weather = weathers.get(randomIndex);
   }
 
@@ -56,14 +63,31 @@ public class WeatherController {
    */
   public void updateWeather() {
     double turbulence = weather == Weather.STORM ? 0.1 : 0.05;
-    windDirection += (Math.random() - 0.5) * Math.PI * turbulence;
+    windDirection += (random.nextDouble() - 0.5) * Math.PI * turbulence;
+  }
+
+  /**
+   * Sets the weather and the wind direction, when restoring a snapshot.
+   * @param weather The weather.
+   * @param windDirection The direction of the wind in radians.
+   */
+  public void restore(Weather weather, double windDirection) {
+    this.weather = weather;
+    this.windDirection = windDirection;
+  }
+
+  /**
+   * @return The random stream for the weather.
+   */
+  public SimulationRandom getRandom() {
+    return random;
   }
 
   /**
    * Changes the weather randomly.
    */
   public void changeWeather() {
-    if (Math.random() < Data.getWeatherChangeProbability()) {
+    if (random.nextDouble() < changeProbability) {
       setRandomWeather();
     }
   }
@@ -104,6 +128,7 @@ public class WeatherController {
   /**
    * Spawns rain particles on the top section of the screen. Some particles spawn out of
    * bounds on the left and right side of the screen, so they will "seem" as coming from the sides.
+   * @implNote Visual effects use a thread-local random, so drawing doesn't change the simulation.
    * @param display The display to spawn the rain particles onto.
    */
   private void spawnRain(Display display) {
@@ -111,7 +136,7 @@ public class WeatherController {
 
     for (int i = 0; i < PARTICLE_SPAWN_RATE; i++) {
       // Spawn the particles on the top section of the screen.
-      Vector spawnPosition = new Vector((Math.random() - 0.5) * display.getWidth() * 4, 1);
+      Vector spawnPosition = new Vector((ThreadLocalRandom.current().nextDouble() - 0.5) * display.getWidth() * 4, 1);
       rainParticles.add(new RainParticle(spawnPosition));
     }
   }
@@ -124,7 +149,7 @@ public class WeatherController {
   private void spawnLightning(Display display) {
     if (weather != Weather.STORM) return;
 
-    if (Math.random() < LIGHTNING_SPAWN_PROBABILITY) {
+    if (ThreadLocalRandom.current().nextDouble() < LIGHTNING_SPAWN_PROBABILITY) {
       lightnings.add(new Lightning(display));
     }
   }
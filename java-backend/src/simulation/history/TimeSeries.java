@@ -0,0 +1,254 @@
+package simulation.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import simulation.Field;
+import simulation.PopulationCounter;
+import simulation.Simulator;
+import simulation.StepListener;
+import simulation.TraitStatistics;
+
+/**
+ * Records the history of a simulation, every tick, in memory: the day, the weather, the
+ * population, and for every species its count, births, deaths and the mean of each of its
+ * genetic traits. The history is kept at three resolutions, each in a ring buffer of up to
+ * CAPACITY rows of primitive floats: every tick for the last CAPACITY ticks, one row for
+ * every 10 ticks before that, and one for every 100 before that. The rings grow as rows are
+ * recorded, and never past CAPACITY rows however long the simulation runs; rows older than
+ * the coarsest ring are dropped. The mean traits, most of the columns, are only kept every
+ * 10 and 100 ticks, so the history of a trait starts from the coarser rings.
+ *
+ * A row of a coarser resolution has the values of the last tick it covers, except for the
+ * births and deaths, which are summed over all of its ticks.
+ *
+ * Recorded on the thread that steps the simulation; the history may be read from any thread.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class TimeSeries implements StepListener {
+  public static final int CAPACITY = 10_000; // The number of rows kept at each resolution.
+  private static final int[] STRIDES = { 1, 10, 100 }; // The ticks covered by a row, finest first.
+  private static final int INITIAL_ROWS = 256; // The rows a ring has room for at first, doubled whenever it is full.
+
+  private final List<String> columns = new ArrayList<>(); // The names of the columns, the traits last.
+  private final int traitColumnsFrom; // The index of the first trait column; the finest ring keeps the columns before it.
+  private final boolean[] summed; // Whether each column is summed over the ticks of a row, instead of taking the last.
+  private final Resolution[] resolutions = new Resolution[STRIDES.length]; // The rings, finest first.
+  private final float[] row; // The values of the tick being recorded.
+  private final long[] lastBirths; // The births of each species up to the last recorded tick.
+  private final long[] lastDeaths; // The deaths of each species up to the last recorded tick.
+
+  /**
+   * The history of some columns, oldest first.
+   * @param ticks The tick of each row.
+   * @param columns The names of the columns.
+   * @param values The values of each column, by row; NaN where there was no value, such as
+   * the mean trait of an extinct species.
+   */
+  public record History(long[] ticks, List<String> columns, float[][] values) {}
+
+  /**
+   * The rows of one resolution.
+   */
+  private static class Resolution {
+    private final int stride; // The ticks covered by a row.
+    private final int capacity; // The most rows kept.
+    private long[] ticks; // The last tick covered by each row.
+    private float[] values; // The rows, one after another.
+    private final float[] pending; // The row being collected: the first columns of the rows of the history.
+    private int pendingTicks = 0; // The ticks collected in the pending row.
+    private int start = 0; // The slot of the oldest row.
+    private int size = 0; // The number of rows.
+
+    private Resolution(int stride, int capacity, int columnCount) {
+      this.stride = stride;
+      this.capacity = capacity;
+      int rows = Math.min(capacity, INITIAL_ROWS);
+      ticks = new long[rows];
+      values = new float[rows * columnCount];
+      pending = new float[columnCount];
+    }
+
+    /**
+     * Collects a tick, and stores the pending row once it covers the stride.
+     */
+    private void add(long tick, float[] row, boolean[] summed) {
+      for (int c = 0; c < pending.length; c++) {
+        pending[c] = summed[c] && pendingTicks > 0 ? pending[c] + row[c] : row[c];
+      }
+      if (++pendingTicks < stride) return;
+      pendingTicks = 0;
+
+      if (size == ticks.length && size < capacity) {
+        // The ring has not wrapped around yet, so its rows are in order from slot 0:
+        int rows = Math.min(capacity, 2 * ticks.length);
+        ticks = Arrays.copyOf(ticks, rows);
+        values = Arrays.copyOf(values, rows * pending.length);
+      }
+      int slot = (start + size) % ticks.length;
+      if (size == ticks.length) {
+        start = (start + 1) % ticks.length; // Overwrites the oldest row.
+      } else {
+        size++;
+      }
+      ticks[slot] = tick;
+      System.arraycopy(pending, 0, values, slot * pending.length, pending.length);
+    }
+
+    private long oldestTick() {
+      return ticks[start];
+    }
+
+    private int slot(int row) {
+      return (start + row) % ticks.length;
+    }
+  }
+
+  /**
+   * Constructor -- Create an empty history of a field. Births and deaths are counted from now.
+   * @param field The field to record.
+   */
+  public TimeSeries(Field field) {
+    this(field, CAPACITY);
+  }
+
+  /**
+   * Constructor -- Create an empty history of a field, keeping the given number of rows at
+   * each resolution.
+   * @param field The field to record.
+   * @param capacity The number of rows kept at each resolution.
+   */
+  TimeSeries(Field field, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    PopulationCounter population = field.getPopulation();
+    TraitStatistics traits = field.getTraitStatistics();
+    List<Boolean> sums = new ArrayList<>();
+    addColumn("day", false, sums);
+    addColumn("weather", false, sums);
+    addColumn("population", false, sums);
+    for (int id = 0; id < population.getSpeciesCount(); id++) {
+      String name = population.getName(id);
+      addColumn(name + ".count", false, sums);
+      addColumn(name + ".births", true, sums);
+      addColumn(name + ".deaths", true, sums);
+    }
+    traitColumnsFrom = columns.size();
+    for (int id = 0; id < population.getSpeciesCount(); id++) {
+      for (TraitStatistics.Trait trait : TraitStatistics.Trait.values()) {
+        if (traits.get(id, trait) != null) addColumn(population.getName(id) + "." + trait.getKey(), false, sums);
+      }
+    }
+    summed = new boolean[sums.size()];
+    for (int c = 0; c < summed.length; c++) summed[c] = sums.get(c);
+
+    row = new float[columns.size()];
+    for (int r = 0; r < STRIDES.length; r++) {
+      resolutions[r] = new Resolution(STRIDES[r], capacity, r == 0 ? traitColumnsFrom : columns.size());
+    }
+    lastBirths = new long[population.getSpeciesCount()];
+    lastDeaths = new long[population.getSpeciesCount()];
+    for (int id = 0; id < lastBirths.length; id++) {
+      lastBirths[id] = population.getBirths(id);
+      lastDeaths[id] = population.getDeaths(id);
+    }
+  }
+
+  private void addColumn(String name, boolean sum, List<Boolean> sums) {
+    columns.add(name);
+    sums.add(sum);
+  }
+
+  /**
+   * Records the tick just stepped, reading the counters the field keeps.
+   */
+  @Override
+  public synchronized void onStep(Simulator simulator, int births, int deaths) {
+    Field field = simulator.getField();
+    PopulationCounter population = field.getPopulation();
+    TraitStatistics traits = field.getTraitStatistics();
+    int c = 0;
+    row[c++] = field.environment.getDay();
+    row[c++] = field.environment.getWeather().ordinal();
+    row[c++] = population.getTotal();
+    for (int id = 0; id < population.getSpeciesCount(); id++) {
+      row[c++] = population.getCount(id);
+      row[c++] = population.getBirths(id) - lastBirths[id];
+      row[c++] = population.getDeaths(id) - lastDeaths[id];
+      lastBirths[id] = population.getBirths(id);
+      lastDeaths[id] = population.getDeaths(id);
+    }
+    for (int id = 0; id < population.getSpeciesCount(); id++) {
+      for (TraitStatistics.Trait trait : TraitStatistics.Trait.values()) {
+        TraitStatistics.Statistic statistic = traits.get(id, trait);
+        if (statistic != null) row[c++] = (float) statistic.getMean();
+      }
+    }
+
+    for (Resolution resolution : resolutions) {
+      resolution.add(simulator.getTick(), row, summed);
+    }
+  }
+
+  /**
+   * @param names The columns to get; unknown names are ignored.
+   * @return The history of the columns, at the finest resolution kept for every tick: every
+   * 10 ticks at the finest if a trait is asked for.
+   */
+  public synchronized History getHistory(Collection<String> names) {
+    List<String> selected = new ArrayList<>();
+    List<Integer> indices = new ArrayList<>();
+    int finest = 0; // The finest resolution that keeps all the columns asked for.
+    for (String name : names) {
+      int index = columns.indexOf(name);
+      if (index >= 0) {
+        selected.add(name);
+        indices.add(index);
+        if (index >= traitColumnsFrom) finest = 1;
+      }
+    }
+
+    // Each resolution gives the rows older than the oldest row of the next finer one:
+    int[] from = new int[resolutions.length];
+    int rowCount = 0;
+    for (int r = finest; r < resolutions.length; r++) {
+      Resolution resolution = resolutions[r];
+      int count = resolution.size;
+      if (r > finest && resolutions[r - 1].size > 0) {
+        long until = resolutions[r - 1].oldestTick();
+        count = 0;
+        while (count < resolution.size && resolution.ticks[resolution.slot(count)] < until) count++;
+      }
+      from[r] = count;
+      rowCount += count;
+    }
+
+    long[] ticks = new long[rowCount];
+    float[][] values = new float[selected.size()][rowCount];
+    int i = 0;
+    for (int r = resolutions.length - 1; r >= finest; r--) {
+      Resolution resolution = resolutions[r];
+      for (int k = 0; k < from[r]; k++, i++) {
+        int slot = resolution.slot(k);
+        ticks[i] = resolution.ticks[slot];
+        for (int s = 0; s < selected.size(); s++) {
+          values[s][i] = resolution.values[slot * resolution.pending.length + indices.get(s)];
+        }
+      }
+    }
+    return new History(ticks, selected, values);
+  }
+
+  /**
+   * @return The names of all the columns.
+   */
+  public List<String> getColumns() {
+    return Collections.unmodifiableList(columns);
+  }
+}
@@ -0,0 +1,111 @@
+package simulation.history;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import simulation.Simulator;
+import simulation.simulationData.*;
+import util.Parser;
+
+/**
+ * Tests for the TimeSeries class. Checks the rows kept at every resolution against the
+ * population of every tick, with rings small enough to wrap around, and with rings that
+ * grow without wrapping around.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class TimeSeriesTest {
+  private static final int CAPACITY = 5;
+  private static final int STEPS = 600; // Wraps the rows of every resolution around.
+  private static final long SEED = 42;
+
+  private SimulationContext context;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      context = new SimulationContext(Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json"));
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+  }
+
+  @Test
+  void testHistory_MatchesEveryTick() {
+    Simulator simulator = new Simulator(context, 200, 200, 0, SEED);
+    TimeSeries history = new TimeSeries(simulator.getField(), CAPACITY);
+    simulator.addStepListener(history);
+    TimeSeries growing = new TimeSeries(simulator.getField()); // Grows its rings past their first size.
+    simulator.addStepListener(growing);
+    List<Integer> populations = new ArrayList<>(); // By tick, from tick 1.
+    List<Integer> births = new ArrayList<>();
+    simulator.addStepListener((stepped, born, died) -> {
+      populations.add(stepped.getField().getAllEntities().size());
+      births.add(born);
+    });
+    for (int i = 0; i < STEPS; i++) {
+      simulator.step();
+    }
+
+    TimeSeries.History rows = history.getHistory(List.of("population", "missing"));
+    assertEquals(List.of("population"), rows.columns());
+    long[] ticks = rows.ticks();
+    assertTrue(ticks.length <= 3 * CAPACITY);
+    assertEquals(STEPS, ticks[ticks.length - 1]);
+    assertTrue(rows.values()[0][ticks.length - 1] > 0);
+    for (int i = 1; i < ticks.length; i++) {
+      assertTrue(ticks[i] > ticks[i - 1]);
+    }
+    // The last rows are every tick, then every 10 ticks, then every 100:
+    assertEquals(STEPS - CAPACITY + 1, ticks[ticks.length - CAPACITY]);
+    assertEquals((STEPS - CAPACITY) / 10 * 10, ticks[ticks.length - CAPACITY - 1]);
+    assertEquals((STEPS - CAPACITY) / 10 * 10 - 10, ticks[ticks.length - CAPACITY - 2]);
+    assertEquals(STEPS - 100 * (CAPACITY - 1), ticks[0]); // The rows of every 100 ticks wrapped around too.
+    assertEquals(ticks[0] + 100, ticks[1]);
+    for (int i = 0; i < ticks.length; i++) {
+      assertEquals(populations.get((int) ticks[i] - 1).floatValue(), rows.values()[0][i]);
+    }
+
+    // Births are summed over the ticks of a row:
+    List<String> birthColumns = new ArrayList<>();
+    for (String column : history.getColumns()) {
+      if (column.endsWith(".births")) birthColumns.add(column);
+    }
+    TimeSeries.History birthRows = history.getHistory(birthColumns);
+    for (int i = 1; i < ticks.length; i++) {
+      long gap = ticks[i] - ticks[i - 1];
+      int stride = gap >= 100 ? 100 : gap >= 10 ? 10 : 1; // A row follows the rows of coarser resolutions by less than their stride.
+      int expected = 0;
+      for (long tick = ticks[i] - stride + 1; tick <= ticks[i]; tick++) {
+        expected += births.get((int) tick - 1);
+      }
+      float recorded = 0;
+      for (float[] column : birthRows.values()) recorded += column[i];
+      assertEquals(expected, recorded);
+    }
+
+    // The traits are only kept every 10 and 100 ticks:
+    String trait = history.getColumns().get(history.getColumns().size() - 1);
+    long[] traitTicks = history.getHistory(List.of(trait)).ticks();
+    assertEquals(STEPS, traitTicks[traitTicks.length - 1]);
+    for (long tick : traitTicks) {
+      assertEquals(0, tick % 10);
+    }
+
+    // Rings that have not wrapped around keep every tick:
+    TimeSeries.History all = growing.getHistory(List.of("population"));
+    assertEquals(STEPS, all.ticks().length);
+    for (int i = 0; i < STEPS; i++) {
+      assertEquals(i + 1, all.ticks()[i]);
+      assertEquals(populations.get(i).floatValue(), all.values()[0][i]);
+    }
+  }
+}
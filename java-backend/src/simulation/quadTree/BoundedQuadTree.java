@@ -0,0 +1,280 @@
+package simulation.quadTree;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.generic.Entity;
+import graphics.Display;
+import simulation.spatialIndex.NearestSearch;
+import simulation.spatialIndex.SpatialIndex;
+
+/**
+ * Quadtree with a maximum depth, rebuilt on every update. Each entity is owned by exactly one
+ * leaf, as cells are half-open (a point on the border of two cells belongs to the right or
+ * lower one). Leaves at the maximum depth keep every entity that falls in them in an overflow
+ * bucket instead of splitting, so co-located entities cannot make the tree arbitrarily deep.
+ *
+ * @author Anas Ahmed and Mehmet Kutay Bozkurt
+ * @version 1.0
+ */
+public class BoundedQuadTree implements SpatialIndex {
+  private final Rectangle rect; // The area of the whole tree.
+  private final int bucketSize; // The number of entities a leaf holds before it is split.
+  private final int maxDepth; // The depth of the deepest leaves, which never split.
+  private Node root; // The node covering the whole area.
+
+  /**
+   * A node of the tree. Leaves hold a bucket of entities, inner nodes hold four children.
+   */
+  private static final class Node {
+    private final double x, y, w, h; // The area of the node.
+    private final int depth; // The depth of the node, 0 for the root.
+    private Node[] children; // Top left, top right, bottom left, bottom right; null for leaves.
+    private List<Entity> bucket = new ArrayList<>(); // The entities of a leaf; null for inner nodes.
+
+    private Node(double x, double y, double w, double h, int depth) {
+      this.x = x;
+      this.y = y;
+      this.w = w;
+      this.h = h;
+      this.depth = depth;
+    }
+
+    /**
+     * @return The child owning the given point, which must be in this node.
+     */
+    private Node childFor(double px, double py) {
+      int index = (px < x + w / 2 ? 0 : 1) + (py < y + h / 2 ? 0 : 2);
+      return children[index];
+    }
+  }
+
+  /**
+   * Constructor -- Create an empty tree over the given area.
+   * @param rect The area of the tree, should be the area of the field.
+   * @param bucketSize The number of entities a leaf holds before it is split.
+   * @param maxDepth The maximum depth of the tree; leaves at this depth never split.
+   */
+  public BoundedQuadTree(Rectangle rect, int bucketSize, int maxDepth) {
+    if (bucketSize < 1 || maxDepth < 0) {
+      throw new IllegalArgumentException("bucketSize must be positive and maxDepth must not be negative");
+    }
+    this.rect = rect;
+    this.bucketSize = bucketSize;
+    this.maxDepth = maxDepth;
+    clear();
+  }
+
+  /**
+   * Removes all entities from the tree.
+   */
+  public final void clear() {
+    root = new Node(rect.x(), rect.y(), rect.w(), rect.h(), 0);
+  }
+
+  /**
+   * Rebuilds the tree with the given entities.
+   * @param entities All entities in the field.
+   */
+  @Override
+  public void update(List<Entity> entities) {
+    clear();
+    for (Entity e : entities) {
+      insert(e);
+    }
+  }
+
+  /**
+   * Add an entity to the leaf owning its position. Positions outside the tree belong to
+   * the nearest border cell.
+   * @param entity The entity to add.
+   */
+  @Override
+  public void insert(Entity entity) {
+    double px = clampX(entity.getX());
+    double py = clampY(entity.getY());
+
+    Node node = root;
+    while (node.children != null) {
+      node = node.childFor(px, py);
+    }
+    node.bucket.add(entity);
+
+    // Split until no leaf on the path is over capacity, or the maximum depth is reached:
+    while (node.bucket.size() > bucketSize && node.depth < maxDepth) {
+      split(node);
+      node = node.childFor(px, py);
+    }
+  }
+
+  /**
+   * Remove an entity from the tree. Visits every leaf, as the entity may have moved since
+   * it was inserted, so prefer rebuilding with update.
+   * @param entity The entity to remove.
+   */
+  @Override
+  public void remove(Entity entity) {
+    remove(root, entity);
+  }
+
+  private void remove(Node node, Entity entity) {
+    if (node.children == null) {
+      node.bucket.removeIf(e -> e == entity);
+      return;
+    }
+    for (Node child : node.children) {
+      remove(child, entity);
+    }
+  }
+
+  /**
+   * Adds the entities in a circle to a list owned by the caller.
+   * @return The number of entities added.
+   */
+  @Override
+  public int query(double x, double y, double radius, List<Entity> foundEntities) {
+    return queryInternal(root, x, y, radius, foundEntities);
+  }
+
+  /**
+   * @return The number of entities in the circle.
+   */
+  @Override
+  public int countInRadius(double x, double y, double radius) {
+    return queryInternal(root, x, y, radius, null);
+  }
+
+  /**
+   * Tests the coordinates directly, so that no vectors are created.
+   * @param foundEntities The list to add the entities to, null to only count them.
+   * @return The number of entities found.
+   */
+  private int queryInternal(Node node, double x, double y, double radius, List<Entity> foundEntities) {
+    if (!Rectangle.intersects(node.x, node.y, node.w, node.h, x, y, radius)) return 0;
+
+    int found = 0;
+    if (node.children == null) {
+      for (Entity entity : node.bucket) {
+        if (Circle.hasPoint(x, y, radius, entity.getSnapshotX(), entity.getSnapshotY())) {
+          if (foundEntities != null) foundEntities.add(entity);
+          found++;
+        }
+      }
+      return found;
+    }
+    for (Node child : node.children) {
+      found += queryInternal(child, x, y, radius, foundEntities);
+    }
+    return found;
+  }
+
+  /**
+   * Visits the nodes best first, from the one nearest to the query point.
+   * @param search The search to offer the entities and queue the nodes to.
+   */
+  @Override
+  public void searchNearest(NearestSearch search) {
+    search.push(root, search.distanceSquaredTo(root.x, root.y, root.w, root.h));
+    Object next;
+    while ((next = search.pop()) != null) {
+      Node node = (Node) next;
+      if (node.children == null) {
+        for (Entity entity : node.bucket) {
+          search.offer(entity, entity.getSnapshotX(), entity.getSnapshotY());
+        }
+        continue;
+      }
+      for (Node child : node.children) {
+        search.push(child, search.distanceSquaredTo(child.x, child.y, child.w, child.h));
+      }
+    }
+  }
+
+  /**
+   * @param queryRange The rectangle to search in.
+   * @return A list of the entities in the rectangle.
+   */
+  @Override
+  public List<Entity> query(Rectangle queryRange) {
+    List<Entity> foundEntities = new ArrayList<>();
+    queryInternal(root, queryRange, foundEntities);
+    return foundEntities;
+  }
+
+  private void queryInternal(Node node, Rectangle queryRange, List<Entity> foundEntities) {
+    if (!new Rectangle(node.x, node.y, node.w, node.h).intersects(queryRange)) return;
+
+    if (node.children == null) {
+      for (Entity entity : node.bucket) {
+        if (queryRange.hasPoint(entity.getSnapshotX(), entity.getSnapshotY())) foundEntities.add(entity);
+      }
+      return;
+    }
+    for (Node child : node.children) {
+      queryInternal(child, queryRange, foundEntities);
+    }
+  }
+
+  /**
+   * Splits a leaf into four children, and moves its bucket to them.
+   */
+  private void split(Node leaf) {
+    double halfW = leaf.w / 2;
+    double halfH = leaf.h / 2;
+    int depth = leaf.depth + 1;
+    leaf.children = new Node[] {
+      new Node(leaf.x, leaf.y, halfW, halfH, depth),
+      new Node(leaf.x + halfW, leaf.y, halfW, halfH, depth),
+      new Node(leaf.x, leaf.y + halfH, halfW, halfH, depth),
+      new Node(leaf.x + halfW, leaf.y + halfH, halfW, halfH, depth)
+    };
+
+    for (Entity entity : leaf.bucket) {
+      leaf.childFor(clampX(entity.getX()), clampY(entity.getY())).bucket.add(entity);
+    }
+    leaf.bucket = null;
+  }
+
+  /**
+   * Entities on or outside the far border of the tree belong to the last cell.
+   */
+  private double clampX(double px) {
+    return Math.max(rect.x(), Math.min(px, Math.nextDown(rect.x() + rect.w())));
+  }
+
+  private double clampY(double py) {
+    return Math.max(rect.y(), Math.min(py, Math.nextDown(rect.y() + rect.h())));
+  }
+
+  @Override
+  public int getDepth() {
+    return getDepth(root);
+  }
+
+  private static int getDepth(Node node) {
+    if (node.children == null) return node.depth;
+    int depth = 0;
+    for (Node child : node.children) {
+      depth = Math.max(depth, getDepth(child));
+    }
+    return depth;
+  }
+
+  /**
+   * Draws the tree.
+   * Used only for debug purposes.
+   */
+  @Override
+  public void draw(Display display, double scale) {
+    draw(root, display, scale);
+  }
+
+  private void draw(Node node, Display display, double scale) {
+    display.drawRectangle((int) (node.x / scale), (int) (node.y / scale), (int) (node.w / scale), (int) (node.h / scale), Color.GRAY, false);
+    if (node.children == null) return;
+    for (Node child : node.children) {
+      draw(child, display, scale);
+    }
+  }
+}
@@ -16,7 +16,27 @@ public record Circle(Vector centre, double r) {
    * @return True if the point is in the circle, false otherwise.
    */
   public boolean hasPoint(Vector point) {
-    Vector delta = point.subtract(centre);
-    return delta.getMagnitudeSquared() < r * r;
+    return hasPoint(point.x(), point.y());
+  }
+
+  /**
+   * Determines if a point is within the circle or not, without creating any vectors.
+   * @param px The x coordinate of the point.
+   * @param py The y coordinate of the point.
+   * @return True if the point is in the circle, false otherwise.
+   */
+  public boolean hasPoint(double px, double py) {
+    return hasPoint(centre.x(), centre.y(), r, px, py);
+  }
+
+  /**
+   * Determines if a point is within a circle given by its coordinates. Used by the
+   * queries that do not create a circle.
+   * @return True if the point is in the circle, false otherwise.
+   */
+  public static boolean hasPoint(double cx, double cy, double r, double px, double py) {
+    double dx = px - cx;
+    double dy = py - cy;
+    return dx * dx + dy * dy < r * r;
   }
 }
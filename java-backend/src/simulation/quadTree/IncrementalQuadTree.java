@@ -0,0 +1,457 @@
+package simulation.quadTree;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import entities.generic.Entity;
+import graphics.Display;
+import simulation.spatialIndex.NearestSearch;
+import simulation.spatialIndex.SpatialIndex;
+
+/**
+ * Quadtree that is kept up to date between steps instead of being rebuilt. Every entity is
+ * owned by exactly one leaf, which the tree looks up by entity; after a step only the
+ * entities the field reported moved are looked at, and only those that left their leaf are
+ * moved. Spawned entities are inserted and dead entities are removed. Nodes that no longer
+ * hold more than capacity entities are merged lazily, at the end of the next update.
+ *
+ * After every update the tree is the same as a tree built by inserting the same entities
+ * in field order: a node is split exactly when it holds more than capacity entities, and
+ * every leaf keeps its entities in the order they were first inserted, which is their order
+ * in the field. A simulation restored from a snapshot, whose tree is built anew, therefore
+ * finds the entities in the same order and continues exactly as the original.
+ *
+ * @author Anas Ahmed and Mehmet Kutay Bozkurt
+ * @version 1.0
+ */
+public class IncrementalQuadTree implements SpatialIndex {
+  private static final int MAX_DEPTH = 16; // Leaves at this depth are never split, however full they get.
+  private static final Comparator<Slot> BY_ORDER = Comparator.comparingLong(slot -> slot.order);
+
+  private final Node root; // The node covering the whole field.
+  private final int capacity; // The number of entities a leaf holds before it is split.
+  private final List<Node> mergeCandidates = new ArrayList<>(); // Nodes that may have become underfull.
+  private final Map<Entity, Slot> slots = new IdentityHashMap<>(); // The slot of each entity of the tree.
+  private final List<Entity> movedEntities = new ArrayList<>(); // The entities reported moved since the last update.
+  private long nextOrder = 0; // The order of the next entity inserted.
+
+  /**
+   * An entity of the tree, with the leaf holding it.
+   */
+  private static final class Slot {
+    private final Entity entity;
+    private final long order; // When the entity was first inserted; the slots of a leaf are kept in this order.
+    private Node leaf; // The leaf holding the entity.
+
+    private Slot(Entity entity, long order) {
+      this.entity = entity;
+      this.order = order;
+    }
+  }
+
+  /**
+   * A node of the tree. Leaves hold entities, inner nodes hold four children.
+   */
+  private static final class Node {
+    private final double x, y, w, h; // The area of the node.
+    private final Node parent; // The parent node, null for the root.
+    private final int depth; // The depth of the node, 0 for the root.
+    private Node[] children; // Top left, top right, bottom left, bottom right; null for leaves.
+    private List<Slot> entities = new ArrayList<>(); // The entities of a leaf in insertion order; null for inner nodes.
+    private int count = 0; // The number of entities in the subtree of this node.
+    private boolean isMergeCandidate = false; // Whether the node is in the merge candidates list.
+
+    private Node(double x, double y, double w, double h, Node parent) {
+      this.x = x;
+      this.y = y;
+      this.w = w;
+      this.h = h;
+      this.parent = parent;
+      this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+
+    /**
+     * Ownership is half-open, so that a point on the border of two nodes belongs to only one.
+     */
+    private boolean owns(double px, double py) {
+      return px >= x && px < x + w && py >= y && py < y + h;
+    }
+
+    /**
+     * @return The child owning the given point, which must be in this node.
+     */
+    private Node childFor(double px, double py) {
+      int index = (px < x + w / 2 ? 0 : 1) + (py < y + h / 2 ? 0 : 2);
+      return children[index];
+    }
+  }
+
+  /**
+   * Constructor -- Create an empty tree over the given area.
+   * @param rect The area of the tree, should be the area of the field.
+   * @param capacity The number of entities a leaf holds before it is split.
+   */
+  public IncrementalQuadTree(Rectangle rect, int capacity) {
+    root = new Node(rect.x(), rect.y(), rect.w(), rect.h(), null);
+    this.capacity = capacity;
+  }
+
+  /**
+   * Add an entity to the tree. Does nothing if the entity is already in the tree.
+   * @param entity The entity to add.
+   */
+  @Override
+  public void insert(Entity entity) {
+    if (slots.containsKey(entity)) return;
+    Slot slot = new Slot(entity, nextOrder++);
+    slots.put(entity, slot);
+    place(slot);
+  }
+
+  /**
+   * Remove an entity from the tree. Does nothing if the entity is not in the tree.
+   * @param entity The entity to remove.
+   */
+  @Override
+  public void remove(Entity entity) {
+    Slot slot = slots.remove(entity);
+    if (slot != null) detach(slot);
+  }
+
+  /**
+   * Moves the entities reported moved that left their leaf since the last update, then
+   * merges the nodes that became underfull. The given entities are only walked, to insert
+   * those not in the tree yet, if the tree does not hold as many entities as given, such
+   * as on the first update.
+   * @param entities The entities in the tree.
+   */
+  @Override
+  public void update(List<Entity> entities) {
+    for (Entity entity : movedEntities) {
+      Slot slot = slots.get(entity);
+      if (slot != null && !slot.leaf.owns(clampX(entity.getX()), clampY(entity.getY()))) {
+        detach(slot);
+        place(slot);
+      }
+    }
+    movedEntities.clear();
+    if (slots.size() != entities.size()) {
+      for (Entity entity : entities) {
+        insert(entity);
+      }
+    }
+    mergeUnderfullNodes();
+  }
+
+  /**
+   * Removes all entities from the tree.
+   */
+  public void clear() {
+    root.children = null;
+    root.entities = new ArrayList<>();
+    root.count = 0;
+    mergeCandidates.clear();
+    slots.clear();
+    movedEntities.clear();
+  }
+
+  /**
+   * Adds the entities in a circle to a list owned by the caller.
+   * @return The number of entities added.
+   */
+  @Override
+  public int query(double x, double y, double radius, List<Entity> foundEntities) {
+    return queryInternal(root, x, y, radius, foundEntities);
+  }
+
+  /**
+   * @return The number of entities in the circle.
+   */
+  @Override
+  public int countInRadius(double x, double y, double radius) {
+    return queryInternal(root, x, y, radius, null);
+  }
+
+  /**
+   * Visits the nodes best first, from the one nearest to the query point.
+   * @param search The search to offer the entities and queue the nodes to.
+   */
+  @Override
+  public void searchNearest(NearestSearch search) {
+    search.push(root, search.distanceSquaredTo(root.x, root.y, root.w, root.h));
+    Object next;
+    while ((next = search.pop()) != null) {
+      Node node = (Node) next;
+      if (node.children == null) {
+        for (Slot slot : node.entities) {
+          search.offer(slot.entity, slot.entity.getSnapshotX(), slot.entity.getSnapshotY());
+        }
+        continue;
+      }
+      for (Node child : node.children) {
+        if (child.count > 0) search.push(child, search.distanceSquaredTo(child.x, child.y, child.w, child.h));
+      }
+    }
+  }
+
+  /**
+   * Queries the tree for the entities in a rectangle.
+   * @param queryRange The range to query the tree.
+   * @return A list of entities found in the given range.
+   */
+  @Override
+  public List<Entity> query(Rectangle queryRange) {
+    List<Entity> foundEntities = new ArrayList<>();
+    queryInternal(root, queryRange, foundEntities);
+    return foundEntities;
+  }
+
+  /**
+   * The tree is kept up to date by the field, so it is told about spawned entities.
+   */
+  @Override
+  public void entitySpawned(Entity entity) {
+    insert(entity);
+  }
+
+  /**
+   * The tree is kept up to date by the field, so it is told about removed entities.
+   */
+  @Override
+  public void entityRemoved(Entity entity) {
+    remove(entity);
+  }
+
+  /**
+   * Only the entities reported here are looked at by the next update.
+   */
+  @Override
+  public void entityMoved(Entity entity) {
+    movedEntities.add(entity);
+  }
+
+  /**
+   * Adds the entities of a subtree that are in the circle to a list, testing the
+   * coordinates directly so that no vectors are created.
+   * @param foundEntities The list to add the entities to, null to only count them.
+   * @return The number of entities found.
+   */
+  private int queryInternal(Node node, double x, double y, double radius, List<Entity> foundEntities) {
+    if (node.count == 0 || !Rectangle.intersects(node.x, node.y, node.w, node.h, x, y, radius)) return 0;
+
+    int found = 0;
+    if (node.children == null) {
+      for (Slot slot : node.entities) {
+        Entity entity = slot.entity;
+        if (Circle.hasPoint(x, y, radius, entity.getSnapshotX(), entity.getSnapshotY())) {
+          if (foundEntities != null) foundEntities.add(entity);
+          found++;
+        }
+      }
+      return found;
+    }
+
+    for (Node child : node.children) {
+      found += queryInternal(child, x, y, radius, foundEntities);
+    }
+    return found;
+  }
+
+  /**
+   * Adds the entities of a subtree that are in the rectangle to a list.
+   */
+  private void queryInternal(Node node, Rectangle queryRange, List<Entity> foundEntities) {
+    if (node.count == 0 || !toRectangle(node).intersects(queryRange)) return;
+
+    if (node.children == null) {
+      for (Slot slot : node.entities) {
+        if (queryRange.hasPoint(slot.entity.getSnapshotX(), slot.entity.getSnapshotY())) {
+          foundEntities.add(slot.entity);
+        }
+      }
+      return;
+    }
+
+    for (Node child : node.children) {
+      queryInternal(child, queryRange, foundEntities);
+    }
+  }
+
+  /**
+   * Adds a slot to the leaf owning the position of its entity, after the slots inserted
+   * before it, and splits the leaf if it is overfull.
+   */
+  private void place(Slot slot) {
+    double px = clampX(slot.entity.getX());
+    double py = clampY(slot.entity.getY());
+
+    Node node = root;
+    while (node.children != null) {
+      node.count++;
+      node = node.childFor(px, py);
+    }
+    node.count++;
+    int index = node.entities.size();
+    while (index > 0 && node.entities.get(index - 1).order > slot.order) index--; // New entities go last.
+    node.entities.add(index, slot);
+    slot.leaf = node;
+
+    if (node.entities.size() > capacity && node.depth < MAX_DEPTH) {
+      split(node);
+    }
+  }
+
+  /**
+   * Takes a slot out of its leaf. The parent of the leaf is merged at the next update if it
+   * is no longer overfull.
+   */
+  private void detach(Slot slot) {
+    Node leaf = slot.leaf;
+    leaf.entities.remove(slot);
+    for (Node node = leaf; node != null; node = node.parent) {
+      node.count--;
+    }
+
+    Node parent = leaf.parent;
+    if (parent != null && !parent.isMergeCandidate && parent.count <= capacity) {
+      parent.isMergeCandidate = true;
+      mergeCandidates.add(parent);
+    }
+  }
+
+  /**
+   * Splits a leaf into four children, and moves its entities to them in order.
+   */
+  private void split(Node leaf) {
+    double halfW = leaf.w / 2;
+    double halfH = leaf.h / 2;
+    leaf.children = new Node[] {
+      new Node(leaf.x, leaf.y, halfW, halfH, leaf),
+      new Node(leaf.x + halfW, leaf.y, halfW, halfH, leaf),
+      new Node(leaf.x, leaf.y + halfH, halfW, halfH, leaf),
+      new Node(leaf.x + halfW, leaf.y + halfH, halfW, halfH, leaf)
+    };
+
+    List<Slot> entities = leaf.entities;
+    leaf.entities = null;
+    for (Slot slot : entities) {
+      Node child = leaf.childFor(clampX(slot.entity.getX()), clampY(slot.entity.getY()));
+      child.entities.add(slot);
+      child.count++;
+      slot.leaf = child;
+    }
+
+    // All entities may have landed in the same child:
+    for (Node child : leaf.children) {
+      if (child.entities.size() > capacity && child.depth < MAX_DEPTH) split(child);
+    }
+  }
+
+  /**
+   * Collapses the subtrees of the merge candidates that are no longer overfull into single
+   * leaves, so that no node is split that a tree built anew would not split.
+   */
+  private void mergeUnderfullNodes() {
+    for (int i = 0; i < mergeCandidates.size(); i++) {
+      Node node = mergeCandidates.get(i);
+      node.isMergeCandidate = false;
+      if (node.children == null || node.count > capacity || !isAttached(node)) continue;
+
+      List<Slot> entities = new ArrayList<>(node.count);
+      collect(node, entities);
+      entities.sort(BY_ORDER);
+      node.children = null;
+      node.entities = entities;
+      for (Slot slot : entities) {
+        slot.leaf = node;
+      }
+
+      Node parent = node.parent;
+      if (parent != null && !parent.isMergeCandidate && parent.count <= capacity) {
+        parent.isMergeCandidate = true;
+        mergeCandidates.add(parent); // Visited later in this loop.
+      }
+    }
+    mergeCandidates.clear();
+  }
+
+  /**
+   * @return False if the node was in a subtree that has been merged into a single leaf.
+   */
+  private boolean isAttached(Node node) {
+    for (Node parent = node.parent; parent != null; parent = parent.parent) {
+      if (parent.children == null) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Adds all entities in a subtree to a list.
+   */
+  private void collect(Node node, List<Slot> entities) {
+    if (node.children == null) {
+      entities.addAll(node.entities);
+      return;
+    }
+    for (Node child : node.children) {
+      collect(child, entities);
+    }
+  }
+
+  /**
+   * Entities on or outside the far border of the field belong to the last cell.
+   */
+  private double clampX(double px) {
+    return Math.max(root.x, Math.min(px, Math.nextDown(root.x + root.w)));
+  }
+
+  private double clampY(double py) {
+    return Math.max(root.y, Math.min(py, Math.nextDown(root.y + root.h)));
+  }
+
+  private static Rectangle toRectangle(Node node) {
+    return new Rectangle(node.x, node.y, node.w, node.h);
+  }
+
+  @Override
+  public int getDepth() {
+    return getDepth(root);
+  }
+
+  private static int getDepth(Node node) {
+    if (node.children == null) return node.depth;
+    int depth = 0;
+    for (Node child : node.children) {
+      depth = Math.max(depth, getDepth(child));
+    }
+    return depth;
+  }
+
+  /**
+   * Draws the tree.
+   * Used only for debug purposes.
+   */
+  @Override
+  public void draw(Display display, double scale) {
+    draw(root, display, scale);
+  }
+
+  private void draw(Node node, Display display, double scale) {
+    display.drawRectangle((int) (node.x / scale), (int) (node.y / scale), (int) (node.w / scale), (int) (node.h / scale), Color.GRAY, false);
+    if (node.children == null) return;
+    for (Node child : node.children) {
+      draw(child, display, scale);
+    }
+  }
+
+  /**
+   * @return The number of entities in the tree.
+   */
+  public int size() {
+    return root.count;
+  }
+}
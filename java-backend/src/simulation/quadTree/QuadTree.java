@@ -6,14 +6,17 @@ import java.util.List;
 
 import entities.generic.Entity;
 import graphics.Display;
+import simulation.spatialIndex.NearestSearch;
+import simulation.spatialIndex.SpatialIndex;
 
 /**
  * Quadtree implementation for performance optimisation of entity searching.
+ * Cleared and rebuilt with all entities on every update.
  * 
  * @author Anas Ahmed and Mehmet Kutay Bozkurt
  * @version 1.0
  */
-public class QuadTree {
+public class QuadTree implements SpatialIndex {
   public Rectangle rect; // The rectangle defining the area this quadtree occupies.
 
   private int currentCapacity = 0; // How many entities this quadtree is currently storing.
@@ -71,12 +74,25 @@ public class QuadTree {
     hasSubdivided = true;
   }
 
+  /**
+   * Rebuilds the quadtree with the given entities.
+   * @param entities All entities in the field.
+   */
+  @Override
+  public void update(List<Entity> entities) {
+    clear();
+    for (Entity e : entities) {
+      insert(e);
+    }
+  }
+
   /**
    * Add an entity to this quadtree, or a child quadtree if there exists any.
    * @param entity The entity to add to the quadtree or the child quadtree.
    */
+  @Override
   public void insert(Entity entity) {
-    if (rect.hasPoint(entity.getPosition())) {
+    if (rect.hasPoint(entity.getX(), entity.getY())) {
       if (currentCapacity < capacity) {
         entities[currentCapacity] = entity;
         currentCapacity++;
@@ -91,45 +107,147 @@ public class QuadTree {
   }
 
   /**
-   * The main query function - Queries the quadtree and adds all entities found in the queryRange.
-   * Wraps a list to use queryInternal on, makes for a simpler interface to query.
+   * Remove an entity from this quadtree and its children. Visits the whole tree, as the
+   * entity may have moved since it was inserted, so prefer rebuilding with update.
+   * @param entity The entity to remove.
+   */
+  @Override
+  public void remove(Entity entity) {
+    for (int i = 0; i < currentCapacity; i++) {
+      if (entities[i] != entity) continue;
+      // Shift the rest down to keep the stored entities at the front:
+      System.arraycopy(entities, i + 1, entities, i, currentCapacity - i - 1);
+      currentCapacity--;
+      entities[currentCapacity] = null;
+      i--;
+    }
+
+    if (!hasSubdivided) return;
+    topLeftTree.remove(entity);
+    topRightTree.remove(entity);
+    bottomLeftTree.remove(entity);
+    bottomRightTree.remove(entity);
+  }
+
+  /**
+   * The main query function - Queries the quadtree and adds all entities found in the circle
+   * to a list owned by the caller.
+   * @return The number of entities added.
+   */
+  @Override
+  public int query(double x, double y, double radius, List<Entity> foundEntities) {
+    return queryInternal(x, y, radius, foundEntities);
+  }
+
+  /**
+   * @return The number of entities in the circle.
+   */
+  @Override
+  public int countInRadius(double x, double y, double radius) {
+    return queryInternal(x, y, radius, null);
+  }
+
+  /**
+   * Queries the quadtree and adds all entities found in the circle to a list foundEntities.
+   * We require an input list to modify as an optimisation to prevent redundant list deep copies.
+   * Distances are tested on the coordinates directly, so no vectors are created.
+   * @param foundEntities The list to add the found entities to, null to only count them.
+   * @return The number of entities found.
+   */
+  private int queryInternal(double x, double y, double radius, List<Entity> foundEntities) {
+    if (!Rectangle.intersects(rect.x(), rect.y(), rect.w(), rect.h(), x, y, radius)) return 0;
+
+    // Check entities stored in this node
+    int found = 0;
+    for (int i = 0; i < currentCapacity; i++) {
+      Entity entity = entities[i];
+      if (Circle.hasPoint(x, y, radius, entity.getSnapshotX(), entity.getSnapshotY())) {
+        if (foundEntities != null) foundEntities.add(entity);
+        found++;
+      }
+    }
+
+    if (!hasSubdivided) return found;
+    // Recursively query children:
+    found += topLeftTree.queryInternal(x, y, radius, foundEntities);
+    found += topRightTree.queryInternal(x, y, radius, foundEntities);
+    found += bottomLeftTree.queryInternal(x, y, radius, foundEntities);
+    found += bottomRightTree.queryInternal(x, y, radius, foundEntities);
+    return found;
+  }
+
+  /**
+   * Visits the quadtrees best first, from the one nearest to the query point.
+   * @param search The search to offer the entities and queue the quadtrees to.
+   */
+  @Override
+  public void searchNearest(NearestSearch search) {
+    push(search);
+    Object next;
+    while ((next = search.pop()) != null) {
+      QuadTree tree = (QuadTree) next;
+      for (int i = 0; i < tree.currentCapacity; i++) {
+        Entity entity = tree.entities[i];
+        search.offer(entity, entity.getSnapshotX(), entity.getSnapshotY());
+      }
+      if (!tree.hasSubdivided) continue;
+      tree.topLeftTree.push(search);
+      tree.topRightTree.push(search);
+      tree.bottomLeftTree.push(search);
+      tree.bottomRightTree.push(search);
+    }
+  }
+
+  /**
+   * Queues this quadtree to be visited by a nearest neighbour search.
+   */
+  private void push(NearestSearch search) {
+    search.push(this, search.distanceSquaredTo(rect.x(), rect.y(), rect.w(), rect.h()));
+  }
+
+  /**
+   * Queries the quadtree for the entities in a rectangle.
    * @param queryRange The range to query the quad tree.
    * @return A list of entities found in the given range.
    */
-  public List<Entity> query(Circle queryRange) {
+  @Override
+  public List<Entity> query(Rectangle queryRange) {
     List<Entity> foundEntities = new ArrayList<>();
     queryInternal(queryRange, foundEntities);
     return foundEntities;
   }
 
   /**
-   * Queries the quadtree and adds all entities found in the queryRange to a list foundEntities.
-   * We require an input list to modify as an optimisation to prevent redundant list deep copies.
-   * @param queryRange The range to query the quad tree.
-   * @param foundEntities The list to add the found entities to.
+   * Queries the quadtree and adds all entities found in the rectangle to a list foundEntities.
    */
-  private void queryInternal(Circle queryRange, List<Entity> foundEntities) {
+  private void queryInternal(Rectangle queryRange, List<Entity> foundEntities) {
     if (!rect.intersects(queryRange)) return;
 
-    // Check entities stored in this node
     for (Entity entity : entities) {
-      if (entity != null && queryRange.hasPoint(entity.getPosition())) {
+      if (entity != null && queryRange.hasPoint(entity.getSnapshotX(), entity.getSnapshotY())) {
         foundEntities.add(entity);
       }
     }
 
     if (!hasSubdivided) return;
-    // Recursively query children:
     topLeftTree.queryInternal(queryRange, foundEntities);
     topRightTree.queryInternal(queryRange, foundEntities);
     bottomLeftTree.queryInternal(queryRange, foundEntities);
     bottomRightTree.queryInternal(queryRange, foundEntities);
   }
 
+  @Override
+  public int getDepth() {
+    if (!hasSubdivided) return 0;
+    int depth = Math.max(Math.max(topLeftTree.getDepth(), topRightTree.getDepth()), Math.max(bottomLeftTree.getDepth(), bottomRightTree.getDepth()));
+    return depth + 1;
+  }
+
   /**
    * Draws the quadtree.
    * Used only for debug purposes, but it also just looks really cool.
    */
+  @Override
   public void draw(Display display, double scale){
     display.drawRectangle((int) (rect.x() / scale), (int) (rect.y() / scale), (int) (rect.w() / scale), (int) (rect.h() / scale), Color.GRAY, false);
     if (!hasSubdivided) return;
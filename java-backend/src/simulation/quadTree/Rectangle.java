@@ -14,8 +14,13 @@ public record Rectangle(double x, double y, double w, double h) {
    * @return True if the point is in the rectangle, false otherwise.
    */
   public boolean hasPoint(Vector point) {
-    double px = point.x();
-    double py = point.y();
+    return hasPoint(point.x(), point.y());
+  }
+
+  /**
+   * @return True if the point with the given coordinates is in the rectangle, false otherwise.
+   */
+  public boolean hasPoint(double px, double py) {
     return (px >= x && px <= x + w && py >= y && py <= y + h);
   }
 
@@ -25,14 +30,32 @@ public record Rectangle(double x, double y, double w, double h) {
    * @return True if colliding, false otherwise.
    */
   public boolean intersects(Circle c) {
+    return intersects(x, y, w, h, c.centre().x(), c.centre().y(), c.r());
+  }
+
+  /**
+   * Detects if a rectangle and a circle given by their coordinates are intersecting. Used by
+   * the queries that do not create rectangles or circles.
+   * @return True if colliding, false otherwise.
+   */
+  public static boolean intersects(double x, double y, double w, double h, double cx, double cy, double r) {
     // Calculate closest X, Y from circle to rectangle.
-    double closestX = Math.max(x, Math.min(c.centre().x(), x + w));
-    double closestY = Math.max(y, Math.min(c.centre().y(), y + h));
-    double dx = closestX - c.centre().x();
-    double dy = closestY - c.centre().y();
+    double closestX = Math.max(x, Math.min(cx, x + w));
+    double closestY = Math.max(y, Math.min(cy, y + h));
+    double dx = closestX - cx;
+    double dy = closestY - cy;
 
     double distanceSquared = dx * dx + dy * dy;
     // Determine if closest point is within the circle or not (i.e. colliding or not):
-    return distanceSquared <= c.r() * c.r();
+    return distanceSquared <= r * r;
+  }
+
+  /**
+   * Detects if a given rectangle is overlapping with this rectangle, edges included.
+   * @param r The rectangle to detect overlap with.
+   * @return True if overlapping, false otherwise.
+   */
+  public boolean intersects(Rectangle r) {
+    return r.x() <= x + w && r.x() + r.w() >= x && r.y() <= y + h && r.y() + r.h() >= y;
   }
-}
\ No newline at end of file
+}
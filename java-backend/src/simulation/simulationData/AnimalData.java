@@ -1,6 +1,8 @@
 package simulation.simulationData;
 
 import java.awt.Color;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 import genetics.AnimalGenetics;
 import genetics.Gender;
@@ -19,28 +21,46 @@ public class AnimalData extends EntityData{
   public double[] sight; // Range at which the entity can see other entities.
   public String[] eats; // List of entities that this entity can eat.
   /**
-   * @return A random set of genetics for an animal based on the data provided.
+   * @return A random set of genetics for an animal based on the data provided, not drawn from a seeded stream.
    */
   public AnimalGenetics generateRandomGenetics() {
+    return generateRandomGenetics(ThreadLocalRandom.current());
+  }
+
+  /**
+   * @param random The random stream to use.
+   * @return A random set of genetics for an animal based on the data provided, in the default simulation context.
+   */
+  public AnimalGenetics generateRandomGenetics(RandomGenerator random) {
+    return generateRandomGenetics(Data.getContext(), random);
+  }
+
+  /**
+   * @param context The parameters of the simulation the animal will live in.
+   * @param random The random stream to use.
+   * @return A random set of genetics for an animal based on the data provided.
+   */
+  public AnimalGenetics generateRandomGenetics(SimulationContext context, RandomGenerator random) {
     Color convertedColour = new Color(this.colour[0], this.colour[1], this.colour[2]); // Convert RGB data to java.awt.Color.
-    Color mutatedColour = Utility.mutateColor(convertedColour, 1); // Change the colour slightly.
+    Color mutatedColour = Utility.mutateColor(convertedColour, 1, context.getMutationFactor(), random); // Change the colour slightly.
     
     return new AnimalGenetics(
-      generateRandomNumberBetween(multiplyingRate[0], multiplyingRate[1]),
-      generateRandomNumberBetween(maxLitterSize[0], maxLitterSize[1]),
-      generateRandomNumberBetween(maxAge[0], maxAge[1]),
-      generateRandomNumberBetween(matureAge[0], matureAge[1]),
-      generateRandomNumberBetween(mutationRate[0], mutationRate[1]),
-      generateRandomNumberBetween(maxSpeed[0], maxSpeed[1]),
-      generateRandomNumberBetween(sight[0], sight[1]),
-      Math.random() <= 0.5 ? Gender.MALE : Gender.FEMALE, // Get a random gender
-      generateRandomNumberBetween(size[0], size[1]),
+      context,
+      generateRandomNumberBetween(multiplyingRate[0], multiplyingRate[1], random),
+      generateRandomNumberBetween(maxLitterSize[0], maxLitterSize[1], random),
+      generateRandomNumberBetween(maxAge[0], maxAge[1], random),
+      generateRandomNumberBetween(matureAge[0], matureAge[1], random),
+      generateRandomNumberBetween(mutationRate[0], mutationRate[1], random),
+      generateRandomNumberBetween(maxSpeed[0], maxSpeed[1], random),
+      generateRandomNumberBetween(sight[0], sight[1], random),
+      random.nextDouble() <= 0.5 ? Gender.MALE : Gender.FEMALE, // Get a random gender
+      generateRandomNumberBetween(size[0], size[1], random),
       eats,
       name,
       mutatedColour,
-      generateRandomNumberBetween(overcrowdingThreshold[0], overcrowdingThreshold[1]),
-      generateRandomNumberBetween(overcrowdingRadius[0], overcrowdingRadius[1]),
-      generateRandomNumberBetween(maxOffspringSpawnDistance[0], maxOffspringSpawnDistance[1])
+      generateRandomNumberBetween(overcrowdingThreshold[0], overcrowdingThreshold[1], random),
+      generateRandomNumberBetween(overcrowdingRadius[0], overcrowdingRadius[1], random),
+      generateRandomNumberBetween(maxOffspringSpawnDistance[0], maxOffspringSpawnDistance[1], random)
     );
   }
 }
\ No newline at end of file
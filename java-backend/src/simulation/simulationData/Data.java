@@ -3,38 +3,60 @@ package simulation.simulationData;
 /**
  * A class to store all and only the data of the simulation.
  * 
+ * Holds the default simulation context, for code that runs a single simulation (the tests
+ * and the headless runner). Each engine has its own SimulationContext, which the simulation
+ * uses instead of this class.
+ * 
  * @author Mehmet Kutay Bozkurt and Anas Ahmed
  * @version 1.0
  */
 public class Data {
-  private static SimulationData simulationData = null; // The data of the simulation.
+  private static SimulationContext context = null; // The default simulation context.
 
   /**
    * Setter to be used to parse and set the simulation data.
    * @param data The data of the simulation to store.
    */
   public static void setSimulationData(SimulationData data) {
-    simulationData = data;
+    context = data != null ? new SimulationContext(data) : null;
+  }
+
+  /**
+   * @return The default simulation context, null if no data is set.
+   */
+  public static SimulationContext getContext() {
+    return context;
   }
 
   // Getters:
-  public static AnimalData[] getPreysData() { return simulationData.preysData; }
-  public static AnimalData[] getPredatorsData() { return simulationData.predatorsData; }
-  public static PlantData[] getPlantsData() { return simulationData.plantsData; }
-  public static double getFoodValueForAnimals() { return simulationData.foodValueForAnimals; }
-  public static double getFoodValueForPlants() { return simulationData.foodValueForPlants; }
-  public static double getAnimalHungerDrain() { return simulationData.animalHungerDrain; }
-  public static double getAnimalBreedingCost() { return simulationData.animalBreedingCost; }
-  public static double getMutationFactor() { return simulationData.mutationFactor; }
-  public static double getEntityAgeRate() { return simulationData.entityAgeRate; }
-  public static double getFieldScaleFactor() { return simulationData.fieldScaleFactor; }
-  public static boolean getDoDayNightCycle() { return simulationData.doDayNightCycle; }
-  public static boolean getDoWeatherCycle() { return simulationData.doWeatherCycle; }
-  public static double getWeatherChangeProbability() { return simulationData.weatherChangeProbability; }
-  public static double getWindStrength() { return simulationData.windStrength; }
-  public static double getStormMovementSpeedFactor() { return simulationData.stormMovementSpeedFactor; }
-  public static boolean getShowQuadTrees() { return simulationData.showQuadTrees; }
-  public static double getDayNightCycleSpeed() { return simulationData.dayNightCycleSpeed; }
-  public static double getAnimalDyingOfHungerThreshold() { return simulationData.animalDyingOfHungerThreshold; }
-  public static double getAnimalHungerThreshold() { return simulationData.animalHungerThreshold; }
+  public static AnimalData[] getPreysData() { return context.getPreysData(); }
+  public static AnimalData[] getPredatorsData() { return context.getPredatorsData(); }
+  public static PlantData[] getPlantsData() { return context.getPlantsData(); }
+  public static double getFoodValueForAnimals() { return context.getFoodValueForAnimals(); }
+  public static double getFoodValueForPlants() { return context.getFoodValueForPlants(); }
+  public static double getAnimalHungerDrain() { return context.getAnimalHungerDrain(); }
+  public static double getAnimalBreedingCost() { return context.getAnimalBreedingCost(); }
+  public static double getMutationFactor() { return context.getMutationFactor(); }
+  public static double getEntityAgeRate() { return context.getEntityAgeRate(); }
+  public static double getFieldScaleFactor() { return context.getFieldScaleFactor(); }
+  public static boolean getDoDayNightCycle() { return context.getDoDayNightCycle(); }
+  public static boolean getDoWeatherCycle() { return context.getDoWeatherCycle(); }
+  public static double getWeatherChangeProbability() { return context.getWeatherChangeProbability(); }
+  public static double getWindStrength() { return context.getWindStrength(); }
+  public static double getStormMovementSpeedFactor() { return context.getStormMovementSpeedFactor(); }
+  public static boolean getShowQuadTrees() { return context.getShowQuadTrees(); }
+  public static double getDayNightCycleSpeed() { return context.getDayNightCycleSpeed(); }
+  public static double getAnimalDyingOfHungerThreshold() { return context.getAnimalDyingOfHungerThreshold(); }
+  public static double getAnimalHungerThreshold() { return context.getAnimalHungerThreshold(); }
+  public static int getStepThreads() { return context.getStepThreads(); }
+  public static SpatialIndexType getSpatialIndex() { return context.getSpatialIndex(); }
+  public static double getGridCellSize() { return context.getGridCellSize(); }
+  public static double getTileSize() { return context.getTileSize(); }
+  public static int getQuadtreeBucketSize() { return context.getQuadtreeBucketSize(); }
+  public static int getQuadtreeMaxDepth() { return context.getQuadtreeMaxDepth(); }
+  public static Long getSeed() { return context.getSeed(); }
+  public static int getFramesPerSecond() { return context.getFramesPerSecond(); }
+  public static double getSimulationStepsPerSecond() { return context.getSimulationStepsPerSecond(); }
+  public static int getMaxCatchUpSteps() { return context.getMaxCatchUpSteps(); }
+  public static SpeciesRegistry getSpeciesRegistry() { return context.getSpeciesRegistry(); }
 }
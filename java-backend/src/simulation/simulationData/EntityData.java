@@ -1,5 +1,7 @@
 package simulation.simulationData;
 
+import java.util.random.RandomGenerator;
+
 /**
  * Represents a set of genetic intervals for an entity.
  * This contains all the data that are both in animals and plants.
@@ -23,14 +25,14 @@ public abstract class EntityData {
   /**
    * @return A random number between the given double min and max values.
    */
-  protected double generateRandomNumberBetween(double min, double max) {
-    return min + Math.random() * (max - min);
+  protected double generateRandomNumberBetween(double min, double max, RandomGenerator random) {
+    return min + random.nextDouble() * (max - min);
   }
 
   /**
    * @return A random number between the given int min and max values.
    */
-  protected int generateRandomNumberBetween(int min, int max) {
-    return (int) (min + Math.random() * (max - min));
+  protected int generateRandomNumberBetween(int min, int max, RandomGenerator random) {
+    return (int) (min + random.nextDouble() * (max - min));
   }
 }
@@ -1,6 +1,8 @@
 package simulation.simulationData;
 
 import java.awt.Color;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 import genetics.PlantGenetics;
 import util.Utility;
@@ -17,24 +19,42 @@ public class PlantData extends EntityData {
   public double rainingGrowthFactor; // Growth factor when raining (affects number of seeds and range of growth).
 
   /**
-   * @return A random set of genetics for a plant based on the data provided.
+   * @return A random set of genetics for a plant based on the data provided, not drawn from a seeded stream.
    */
   public PlantGenetics generateRandomGenetics() {
+    return generateRandomGenetics(ThreadLocalRandom.current());
+  }
+
+  /**
+   * @param random The random stream to use.
+   * @return A random set of genetics for a plant based on the data provided, in the default simulation context.
+   */
+  public PlantGenetics generateRandomGenetics(RandomGenerator random) {
+    return generateRandomGenetics(Data.getContext(), random);
+  }
+
+  /**
+   * @param context The parameters of the simulation the plant will live in.
+   * @param random The random stream to use.
+   * @return A random set of genetics for a plant based on the data provided.
+   */
+  public PlantGenetics generateRandomGenetics(SimulationContext context, RandomGenerator random) {
     Color convertedColour = new Color(this.colour[0], this.colour[1], this.colour[2]); // Convert array RGB data to java.awt.Color.
-    Color mutatedColour = Utility.mutateColor(convertedColour, 1); // Change the colour slightly.
+    Color mutatedColour = Utility.mutateColor(convertedColour, 1, context.getMutationFactor(), random); // Change the colour slightly.
     
     return new PlantGenetics(
-      generateRandomNumberBetween(maxAge[0], maxAge[1]),
-      generateRandomNumberBetween(matureAge[0], matureAge[1]),
-      generateRandomNumberBetween(multiplyingRate[0], multiplyingRate[1]),
-      generateRandomNumberBetween(size[0], size[1]),
+      context,
+      generateRandomNumberBetween(maxAge[0], maxAge[1], random),
+      generateRandomNumberBetween(matureAge[0], matureAge[1], random),
+      generateRandomNumberBetween(multiplyingRate[0], multiplyingRate[1], random),
+      generateRandomNumberBetween(size[0], size[1], random),
       name,
       mutatedColour,
-      generateRandomNumberBetween(numberOfSeeds[0], numberOfSeeds[1]),
-      generateRandomNumberBetween(maxOffspringSpawnDistance[0], maxOffspringSpawnDistance[1]),
-      generateRandomNumberBetween(overcrowdingThreshold[0], overcrowdingThreshold[1]),
-      generateRandomNumberBetween(overcrowdingRadius[0], overcrowdingRadius[1]),
-      generateRandomNumberBetween(mutationRate[0], mutationRate[1]),
+      generateRandomNumberBetween(numberOfSeeds[0], numberOfSeeds[1], random),
+      generateRandomNumberBetween(maxOffspringSpawnDistance[0], maxOffspringSpawnDistance[1], random),
+      generateRandomNumberBetween(overcrowdingThreshold[0], overcrowdingThreshold[1], random),
+      generateRandomNumberBetween(overcrowdingRadius[0], overcrowdingRadius[1], random),
+      generateRandomNumberBetween(mutationRate[0], mutationRate[1], random),
       rainingGrowthFactor
     );
   }
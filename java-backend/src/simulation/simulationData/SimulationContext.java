@@ -0,0 +1,124 @@
+package simulation.simulationData;
+
+import simulation.EntityStore;
+
+/**
+ * The parameters of a single simulation, read once from the simulation data into final
+ * fields. Every engine has its own context, which is handed down by reference to the
+ * field, the genetics of the entities (and through them to the entities, their controllers
+ * and the mutators), so that simulations running in the same JVM do not share parameters.
+ *
+ * The defaults of the optional parameters are applied here. The context also holds the
+ * store of the state of the entities of the simulation, which is the only part of it that changes.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public final class SimulationContext {
+  private final AnimalData[] preysData; // An array of prey species data.
+  private final AnimalData[] predatorsData; // An array of predator species data.
+  private final PlantData[] plantsData; // An array of plant types data.
+  private final SpeciesRegistry speciesRegistry; // The species of the simulation data, compiled.
+  private final EntityStore entityStore = new EntityStore(); // The state of the entities of the simulation.
+
+  private final double foodValueForAnimals; // Scales the food value of animals.
+  private final double foodValueForPlants; // Scales the food value of plants.
+  private final double animalHungerDrain; // Controls rate of foodLevel depletion over time.
+  private final double animalBreedingCost; // Scales how much food is consumed on breeding.
+  private final double mutationFactor; // The ratio that the genetics will mutate by.
+  private final double entityAgeRate; // Controls how fast the entities age.
+  private final double fieldScaleFactor; // The size of the field, smaller value means more zoomed in.
+  private final double weatherChangeProbability; // The probability of the weather changing.
+  private final double windStrength; // The strength of the wind in windy conditions.
+  private final double stormMovementSpeedFactor; // The factor that hinders the entities' speed in a storm.
+  private final double dayNightCycleSpeed; // How fast the time passes.
+  private final boolean doDayNightCycle; // Whether the day-night cycle is enabled.
+  private final boolean doWeatherCycle; // Whether the weather cycle is enabled.
+  private final boolean showQuadTrees; // Whether the cells of the spatial index are shown.
+  private final double animalHungerThreshold; // Animals will look for food at this threshold.
+  private final double animalDyingOfHungerThreshold; // Animals will prioritise looking for food at this threshold.
+
+  private final int stepThreads; // Threads for the two-phase parallel step; 0 for the sequential in-place step.
+  private final SpatialIndexType spatialIndex; // The structure used to search for nearby entities.
+  private final double gridCellSize; // The cell size of the grid spatial index.
+  private final double tileSize; // The width and height of the tiles the field is split into; 0 for no tiles.
+  private final int quadtreeBucketSize; // Entities a bounded quadtree leaf holds before splitting.
+  private final int quadtreeMaxDepth; // Depth at which bounded quadtree leaves stop splitting.
+  private final Long seed; // Seed of the random streams, null for a random seed.
+  private final int framesPerSecond; // Rate at which frames are rendered and broadcast.
+  private final double simulationStepsPerSecond; // Fixed simulation rate; 0 steps once per frame.
+  private final int maxCatchUpSteps; // Most steps run in one frame to catch up.
+
+  /**
+   * Constructor -- Read the parameters of a simulation. Later changes to the simulation
+   * data do not affect the context, except for the species data arrays, which are shared.
+   * @param data The simulation data.
+   */
+  public SimulationContext(SimulationData data) {
+    preysData = data.preysData != null ? data.preysData : new AnimalData[0];
+    predatorsData = data.predatorsData != null ? data.predatorsData : new AnimalData[0];
+    plantsData = data.plantsData != null ? data.plantsData : new PlantData[0];
+    speciesRegistry = new SpeciesRegistry(data);
+
+    foodValueForAnimals = data.foodValueForAnimals;
+    foodValueForPlants = data.foodValueForPlants;
+    animalHungerDrain = data.animalHungerDrain;
+    animalBreedingCost = data.animalBreedingCost;
+    mutationFactor = data.mutationFactor;
+    entityAgeRate = data.entityAgeRate;
+    fieldScaleFactor = data.fieldScaleFactor;
+    weatherChangeProbability = data.weatherChangeProbability;
+    windStrength = data.windStrength;
+    stormMovementSpeedFactor = data.stormMovementSpeedFactor;
+    dayNightCycleSpeed = data.dayNightCycleSpeed;
+    doDayNightCycle = data.doDayNightCycle;
+    doWeatherCycle = data.doWeatherCycle;
+    showQuadTrees = data.showQuadTrees;
+    animalHungerThreshold = data.animalHungerThreshold;
+    animalDyingOfHungerThreshold = data.animalDyingOfHungerThreshold;
+
+    stepThreads = data.stepThreads;
+    spatialIndex = data.spatialIndex != null ? data.spatialIndex : SpatialIndexType.QUADTREE;
+    gridCellSize = data.gridCellSize > 0 ? data.gridCellSize : 32;
+    tileSize = data.tileSize;
+    quadtreeBucketSize = data.quadtreeBucketSize > 0 ? data.quadtreeBucketSize : 8;
+    quadtreeMaxDepth = data.quadtreeMaxDepth > 0 ? data.quadtreeMaxDepth : 10;
+    seed = data.seed;
+    framesPerSecond = data.framesPerSecond > 0 ? data.framesPerSecond : 60;
+    simulationStepsPerSecond = data.simulationStepsPerSecond;
+    maxCatchUpSteps = data.maxCatchUpSteps > 0 ? data.maxCatchUpSteps : 5;
+  }
+
+  // Getters:
+  public AnimalData[] getPreysData() { return preysData; }
+  public AnimalData[] getPredatorsData() { return predatorsData; }
+  public PlantData[] getPlantsData() { return plantsData; }
+  public SpeciesRegistry getSpeciesRegistry() { return speciesRegistry; }
+  public EntityStore getEntityStore() { return entityStore; }
+  public double getFoodValueForAnimals() { return foodValueForAnimals; }
+  public double getFoodValueForPlants() { return foodValueForPlants; }
+  public double getAnimalHungerDrain() { return animalHungerDrain; }
+  public double getAnimalBreedingCost() { return animalBreedingCost; }
+  public double getMutationFactor() { return mutationFactor; }
+  public double getEntityAgeRate() { return entityAgeRate; }
+  public double getFieldScaleFactor() { return fieldScaleFactor; }
+  public boolean getDoDayNightCycle() { return doDayNightCycle; }
+  public boolean getDoWeatherCycle() { return doWeatherCycle; }
+  public double getWeatherChangeProbability() { return weatherChangeProbability; }
+  public double getWindStrength() { return windStrength; }
+  public double getStormMovementSpeedFactor() { return stormMovementSpeedFactor; }
+  public boolean getShowQuadTrees() { return showQuadTrees; }
+  public double getDayNightCycleSpeed() { return dayNightCycleSpeed; }
+  public double getAnimalDyingOfHungerThreshold() { return animalDyingOfHungerThreshold; }
+  public double getAnimalHungerThreshold() { return animalHungerThreshold; }
+  public int getStepThreads() { return stepThreads; }
+  public SpatialIndexType getSpatialIndex() { return spatialIndex; }
+  public double getGridCellSize() { return gridCellSize; }
+  public double getTileSize() { return tileSize; }
+  public int getQuadtreeBucketSize() { return quadtreeBucketSize; }
+  public int getQuadtreeMaxDepth() { return quadtreeMaxDepth; }
+  public Long getSeed() { return seed; }
+  public int getFramesPerSecond() { return framesPerSecond; }
+  public double getSimulationStepsPerSecond() { return simulationStepsPerSecond; }
+  public int getMaxCatchUpSteps() { return maxCatchUpSteps; }
+}
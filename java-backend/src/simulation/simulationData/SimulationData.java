@@ -23,4 +23,16 @@ public class SimulationData {
 
   public double animalHungerThreshold; // Animals will look for food at this threshold.
   public double animalDyingOfHungerThreshold; // Animals will prioritise looking for food at this threshold.
+
+  public int stepThreads; // Threads for the two-phase parallel step; 0 keeps the sequential in-place step.
+  public SpatialIndexType spatialIndex; // The structure used to search for nearby entities; the quadtree if not given.
+  public double gridCellSize; // The cell size of the grid spatial index; about the typical sight radius works best.
+  public double tileSize; // The width and height of the tiles the field is split into, each indexed and updated on its own; 0 for no tiles.
+  public int quadtreeBucketSize; // Entities a bounded quadtree leaf holds before splitting; 8 if not given.
+  public int quadtreeMaxDepth; // Depth at which bounded quadtree leaves stop splitting; 10 if not given.
+  public Long seed; // Seed of the random streams; a random seed is used if not given.
+
+  public int framesPerSecond; // Rate at which frames are rendered and broadcast; 60 if not given.
+  public double simulationStepsPerSecond; // Fixed simulation rate, independent of the frame rate; 0 steps once per frame.
+  public int maxCatchUpSteps; // Most steps run in one frame to catch up after falling behind; 5 if not given.
 }
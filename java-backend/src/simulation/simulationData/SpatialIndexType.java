@@ -0,0 +1,16 @@
+package simulation.simulationData;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Enum for the spatial structures the field can use to search for nearby entities.
+ * 
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public enum SpatialIndexType {
+  @SerializedName("quadtree") QUADTREE, // Rebuilt from scratch every step.
+  @SerializedName("incrementalQuadtree") INCREMENTAL_QUADTREE, // Only the entities that moved out of their cell are moved.
+  @SerializedName("grid") GRID, // Uniform grid of gridCellSize cells, rebuilt every step.
+  @SerializedName("boundedQuadtree") BOUNDED_QUADTREE; // Quadtree limited to quadtreeMaxDepth, rebuilt every step.
+}
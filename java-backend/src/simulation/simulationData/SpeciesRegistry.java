@@ -0,0 +1,134 @@
+package simulation.simulationData;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The species of the simulation data, compiled once when the data is loaded. Each species gets
+ * a dense integer id (preys first, then predators, then plants), so that the checks done every
+ * step are array lookups instead of string comparisons: who eats whom, whether a species is a
+ * predator, prey or plant, and the data (the genetic intervals used to bound mutations) of a
+ * species.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public final class SpeciesRegistry {
+  public static final int UNKNOWN = -1; // The id of a name that is not in the simulation data.
+
+  private final Map<String, Integer> ids = new HashMap<>(); // Species name to id.
+  private final String[] names; // Species id to name.
+  private final EntityData[] data; // Species id to the data of the species.
+  private final boolean[] isPredator; // Whether each species is a predator.
+  private final boolean[] isPrey; // Whether each species is a prey.
+  private final BitSet[] eats; // For each species, the ids of the species it eats.
+
+  /**
+   * Constructor -- Compile the species of the simulation data.
+   * @param simulationData The simulation data.
+   */
+  public SpeciesRegistry(SimulationData simulationData) {
+    AnimalData[] preys = orEmpty(simulationData.preysData);
+    AnimalData[] predators = orEmpty(simulationData.predatorsData);
+    PlantData[] plants = simulationData.plantsData != null ? simulationData.plantsData : new PlantData[0];
+
+    int count = preys.length + predators.length + plants.length;
+    names = new String[count];
+    data = new EntityData[count];
+    isPredator = new boolean[count];
+    isPrey = new boolean[count];
+    eats = new BitSet[count];
+
+    int id = 0;
+    for (AnimalData prey : preys) isPrey[register(id++, prey)] = true;
+    for (AnimalData predator : predators) isPredator[register(id++, predator)] = true;
+    for (PlantData plant : plants) register(id++, plant);
+
+    // Build the diet matrix, ignoring the names that are not species:
+    for (int eater = 0; eater < count; eater++) {
+      String[] foodNames = data[eater] instanceof AnimalData animalData ? animalData.eats : null;
+      eats[eater] = compile(foodNames);
+    }
+  }
+
+  /**
+   * Gives a species its id. If two species share a name, the first one keeps it.
+   * @return The id.
+   */
+  private int register(int id, EntityData entityData) {
+    names[id] = entityData.name;
+    data[id] = entityData;
+    ids.putIfAbsent(entityData.name, id);
+    return id;
+  }
+
+  private static AnimalData[] orEmpty(AnimalData[] animalData) {
+    return animalData != null ? animalData : new AnimalData[0];
+  }
+
+  /**
+   * @param name The name of a species.
+   * @return The id of the species, UNKNOWN if the name is not in the simulation data.
+   */
+  public int getId(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : UNKNOWN;
+  }
+
+  /**
+   * @return Whether the eater species eats the food species; false if either is UNKNOWN.
+   */
+  public boolean eats(int eater, int food) {
+    return eater != UNKNOWN && food != UNKNOWN && eats[eater].get(food);
+  }
+
+  /**
+   * Compiles a list of food names into the ids of the foods. When the names are those of the
+   * species' data, as for every animal bred in the simulation, the compiled row of the species
+   * is returned, so that no set is made.
+   * @param eaterId The id of the species of the eater.
+   * @param foodNames The names of the foods.
+   * @return The ids of the foods, names that are not species are ignored. Must not be modified.
+   */
+  public BitSet compileDiet(int eaterId, String[] foodNames) {
+    AnimalData eaterData = getAnimalData(eaterId);
+    if (eaterData != null && Arrays.equals(eaterData.eats, foodNames)) return eats[eaterId];
+    return compile(foodNames);
+  }
+
+  /**
+   * @return The ids of the named species, names that are not species are ignored.
+   */
+  private BitSet compile(String[] foodNames) {
+    BitSet diet = new BitSet(names.length);
+    if (foodNames == null) return diet;
+    for (String foodName : foodNames) {
+      int food = getId(foodName);
+      if (food != UNKNOWN) diet.set(food);
+    }
+    return diet;
+  }
+
+  /**
+   * @return The data of an animal species, null if the species is a plant or UNKNOWN.
+   */
+  public AnimalData getAnimalData(int id) {
+    return id != UNKNOWN && data[id] instanceof AnimalData animalData ? animalData : null;
+  }
+
+  /**
+   * @return The data of a plant species, null if the species is an animal or UNKNOWN.
+   */
+  public PlantData getPlantData(int id) {
+    return id != UNKNOWN && data[id] instanceof PlantData plantData ? plantData : null;
+  }
+
+  // Getters:
+  public String getName(int id) { return names[id]; }
+  public EntityData getData(int id) { return data[id]; }
+  public boolean isPredator(int id) { return id != UNKNOWN && isPredator[id]; }
+  public boolean isPrey(int id) { return id != UNKNOWN && isPrey[id]; }
+  public int getSpeciesCount() { return names.length; }
+}
@@ -0,0 +1,133 @@
+package simulation.simulationData;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.BitSet;
+
+import entities.Plant;
+import genetics.PlantGenetics;
+import util.Parser;
+import util.Vector;
+
+/**
+ * Tests for the SpeciesRegistry class. Checks the ids, the diet matrix and the flags compiled
+ * from the simulation data, and the fallback to names for species that are not in it.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class SpeciesRegistryTest {
+  private SimulationData simulationData;
+  private SimulationContext context;
+  private SpeciesRegistry registry;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      simulationData = Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+    context = new SimulationContext(simulationData);
+    registry = context.getSpeciesRegistry();
+  }
+
+  @Test
+  void testIds_DenseInDataOrder() {
+    int id = 0;
+    for (EntityData[] section : new EntityData[][] { simulationData.preysData, simulationData.predatorsData, simulationData.plantsData }) {
+      for (EntityData entityData : section) {
+        assertEquals(id, registry.getId(entityData.name));
+        assertEquals(entityData.name, registry.getName(id));
+        assertSame(entityData, registry.getData(id));
+        id++;
+      }
+    }
+    assertEquals(id, registry.getSpeciesCount());
+    assertEquals(SpeciesRegistry.UNKNOWN, registry.getId("Unicorn"));
+  }
+
+  @Test
+  void testFlags_MatchTheSectionOfTheData() {
+    for (AnimalData prey : simulationData.preysData) {
+      int id = registry.getId(prey.name);
+      assertTrue(registry.isPrey(id));
+      assertFalse(registry.isPredator(id));
+      assertSame(prey, registry.getAnimalData(id));
+    }
+    for (AnimalData predator : simulationData.predatorsData) {
+      int id = registry.getId(predator.name);
+      assertTrue(registry.isPredator(id));
+      assertFalse(registry.isPrey(id));
+    }
+    for (PlantData plant : simulationData.plantsData) {
+      int id = registry.getId(plant.name);
+      assertFalse(registry.isPredator(id) || registry.isPrey(id));
+      assertSame(plant, registry.getPlantData(id));
+      assertNull(registry.getAnimalData(id));
+    }
+    assertFalse(registry.isPredator(SpeciesRegistry.UNKNOWN));
+    assertFalse(registry.isPrey(SpeciesRegistry.UNKNOWN));
+    assertNull(registry.getAnimalData(SpeciesRegistry.UNKNOWN));
+  }
+
+  @Test
+  void testEats_MatchesTheNamesInTheData() {
+    for (int eater = 0; eater < registry.getSpeciesCount(); eater++) {
+      AnimalData eaterData = registry.getAnimalData(eater);
+      for (int food = 0; food < registry.getSpeciesCount(); food++) {
+        boolean expected = false;
+        if (eaterData != null) {
+          for (String foodName : eaterData.eats) expected |= foodName.equals(registry.getName(food));
+        }
+        assertEquals(expected, registry.eats(eater, food), registry.getName(eater) + " eats " + registry.getName(food));
+      }
+      assertFalse(registry.eats(eater, SpeciesRegistry.UNKNOWN));
+      assertFalse(registry.eats(SpeciesRegistry.UNKNOWN, eater));
+    }
+  }
+
+  @Test
+  void testCompileDiet_SharesTheRowOfEqualNames() {
+    AnimalData predator = simulationData.predatorsData[0];
+    int id = registry.getId(predator.name);
+    BitSet row = registry.compileDiet(id, predator.eats);
+    assertSame(row, registry.compileDiet(id, predator.eats.clone()));
+
+    // Other names get their own set, without the names that are not species:
+    String[] other = { simulationData.plantsData[0].name, "Unicorn" };
+    BitSet diet = registry.compileDiet(id, other);
+    assertNotSame(row, diet);
+    assertEquals(1, diet.cardinality());
+    assertTrue(diet.get(registry.getId(simulationData.plantsData[0].name)));
+    assertTrue(registry.compileDiet(id, null).isEmpty());
+  }
+
+  @Test
+  void testIsSameSpecies_FallsBackToNamesForUnknownSpecies() {
+    Plant grass = plant(simulationData.plantsData[0].name);
+    Plant moss = plant("Moss");
+    Plant otherMoss = plant("Moss");
+    Plant fern = plant("Fern");
+
+    assertTrue(grass.isSameSpecies(plant(simulationData.plantsData[0].name)));
+    assertEquals(SpeciesRegistry.UNKNOWN, moss.getSpeciesId());
+    assertTrue(moss.isSameSpecies(otherMoss));
+    assertFalse(moss.isSameSpecies(fern)); // Both have the unknown id.
+    assertFalse(moss.isSameSpecies(grass));
+  }
+
+  /**
+   * @return A plant of the named species, which need not be in the simulation data.
+   */
+  private Plant plant(String name) {
+    PlantGenetics genetics = new PlantGenetics(context, 100, 10, 0.1, 3, name, Color.GREEN, 2, 5, 10, 5, 0.1, 1);
+    return new Plant(genetics, new Vector(0, 0));
+  }
+}
@@ -0,0 +1,45 @@
+package simulation.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.util.List;
+
+import entities.generic.Entity;
+import simulation.simulationData.SimulationContext;
+
+/**
+ * Encodes entities into bytes and back, with the same layout as the entities of a
+ * snapshot: an entity decoded from a batch continues exactly as the encoded one would
+ * have. Used to hand entities between the partitions of a distributed field.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class EntityBatch {
+  private EntityBatch() {}
+
+  /**
+   * Encodes entities. Must be called between steps.
+   * @param entities The entities to encode.
+   * @return The encoded entities, flipped for reading. Little-endian.
+   */
+  public static ByteBuffer encode(List<Entity> entities) {
+    return SnapshotCodec.encodeEntities(entities);
+  }
+
+  /**
+   * Decodes entities.
+   * @param buffer The encoded entities; read up to the end of the batch.
+   * @param context The parameters of the simulation; must know every species of the entities.
+   * @return The decoded entities, not in a field.
+   * @throws IOException If the bytes are not a batch, or of another set of species.
+   */
+  public static List<Entity> decode(ByteBuffer buffer, SimulationContext context) throws IOException {
+    try {
+      return SnapshotCodec.decodeEntities(buffer, context);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("Corrupted entity batch", e);
+    }
+  }
+}
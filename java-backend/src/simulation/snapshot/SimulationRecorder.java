@@ -0,0 +1,240 @@
+package simulation.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import simulation.Simulator;
+import simulation.StepListener;
+
+/**
+ * Records a simulation into an append-only log, from which SimulationReplay can re-run it
+ * exactly. A simulation is fully determined by its parameters, its seed and the way it is
+ * stepped, so the log holds those once, a keyframe (a snapshot) every so many ticks, and
+ * for every tick only a few bytes: the number of births and deaths, the population and the
+ * weather, which the replay checks itself against. Control messages are logged before the
+ * tick they were applied at.
+ *
+ * The records are collected in memory on the stepping thread and written by the background
+ * writer thread, at least every FLUSH_INTERVAL, so recording costs a few bytes per tick plus
+ * a snapshot per keyframe, and a crash loses at most about the last second of the log.
+ *
+ * Layout: the header (magic, version, seed, width, height, step threads, keyframe interval,
+ * parameters as JSON), then a keyframe of the tick recording started at, then the records,
+ * each starting with its type:
+ * TICK: births, deaths and population as variable-length integers, then the weather.
+ * CONTROL: the length of the message and the message in UTF-8.
+ * KEYFRAME: the tick, the length of the snapshot and the snapshot.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class SimulationRecorder implements StepListener, AutoCloseable {
+  static final int MAGIC = 0x45434F4C; // "ECOL", marks a recording.
+  static final short VERSION = 1; // Bumped on every change to the layout.
+
+  static final byte TICK = 1;
+  static final byte CONTROL = 2;
+  static final byte KEYFRAME = 3;
+
+  private static final int BUFFER_BYTES = 64 * 1024; // Records collected before handing them to the writer.
+  private static final long FLUSH_INTERVAL = 1_000_000_000L; // Most nanoseconds records are held before handing them to the writer.
+
+  private final FileChannel channel; // The log, only written by the writer thread.
+  private final int keyframeInterval; // Ticks between two keyframes.
+  private final Queue<String> controlMessages = new ConcurrentLinkedQueue<>(); // Control messages to log before the next tick.
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES); // Records not yet handed to the writer.
+  private Future<?> lastWrite = null; // The last write handed to the writer.
+  private long lastFlush = System.nanoTime(); // When the records were last handed to the writer.
+  private volatile IOException error = null; // The first failed write.
+  private boolean closed = false; // Whether the log has been closed.
+
+  /**
+   * Starts recording a simulation. The simulation is recorded from its current tick on; the
+   * recorder attaches itself to the simulator, which must not be stepped at the same time.
+   * @param path The file to record to; replaced if it exists.
+   * @param parameters The simulation data the simulation was made from, as JSON.
+   * @param simulator The simulation to record.
+   * @param keyframeInterval Ticks between two keyframes; more keyframes make seeking faster and the log larger.
+   * @return The recorder, attached to the simulator.
+   * @throws IOException If the file cannot be opened.
+   */
+  public static SimulationRecorder start(Path path, String parameters, Simulator simulator, int keyframeInterval) throws IOException {
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("keyframeInterval must be positive");
+    }
+    SimulationRecorder recorder = new SimulationRecorder(path, parameters, simulator, keyframeInterval);
+    simulator.addStepListener(recorder);
+    return recorder;
+  }
+
+  /**
+   * Constructor -- Open the log and write its header and first keyframe.
+   */
+  private SimulationRecorder(Path path, String parameters, Simulator simulator, int keyframeInterval) throws IOException {
+    this.keyframeInterval = keyframeInterval;
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    byte[] parameterBytes = parameters.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer header = ByteBuffer.allocate(34 + parameterBytes.length);
+    header.putInt(MAGIC);
+    header.putShort(VERSION);
+    header.putLong(simulator.getSeed());
+    header.putInt((int) simulator.getField().getSize().x());
+    header.putInt((int) simulator.getField().getSize().y());
+    header.putInt(simulator.getStepThreads());
+    header.putInt(keyframeInterval);
+    header.putInt(parameterBytes.length);
+    header.put(parameterBytes);
+    write(header.flip());
+
+    writeKeyframe(simulator);
+  }
+
+  /**
+   * Logs a control message, before the next tick. May be called from any thread.
+   * @param message The control message, as received.
+   */
+  public void recordControl(String message) {
+    controlMessages.add(message);
+  }
+
+  /**
+   * Logs the tick that has just been stepped, and a keyframe if one is due.
+   */
+  @Override
+  public void onStep(Simulator simulator, int births, int deaths) {
+    if (closed) return;
+    for (String message; (message = controlMessages.poll()) != null; ) {
+      byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+      reserve(1 + 5 + bytes.length);
+      buffer.put(CONTROL);
+      putVarInt(buffer, bytes.length);
+      buffer.put(bytes);
+    }
+
+    reserve(1 + 5 * 3 + 1);
+    buffer.put(TICK);
+    putVarInt(buffer, births);
+    putVarInt(buffer, deaths);
+    putVarInt(buffer, simulator.getField().getAllEntities().size());
+    buffer.put((byte) simulator.getField().environment.getWeather().ordinal());
+
+    if (simulator.getTick() % keyframeInterval == 0) {
+      writeKeyframe(simulator);
+    } else if (System.nanoTime() - lastFlush > FLUSH_INTERVAL) {
+      flush();
+    }
+  }
+
+  /**
+   * Captures a keyframe and hands it to the writer, after the records before it.
+   */
+  private void writeKeyframe(Simulator simulator) {
+    ByteBuffer snapshot = SimulationSnapshot.capture(simulator).getBytes();
+    reserve(1 + 8 + 4);
+    buffer.put(KEYFRAME);
+    buffer.putLong(simulator.getTick());
+    buffer.putInt(snapshot.remaining());
+    flush();
+    write(snapshot);
+  }
+
+  /**
+   * Makes sure the buffer has room for a record, handing the full buffer to the writer.
+   */
+  private void reserve(int bytes) {
+    if (buffer.remaining() < bytes) flush();
+    if (buffer.remaining() < bytes) buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, bytes));
+  }
+
+  /**
+   * Hands the collected records to the writer.
+   */
+  private void flush() {
+    lastFlush = System.nanoTime();
+    if (buffer.position() == 0) return;
+    write(buffer.flip());
+    buffer = ByteBuffer.allocate(BUFFER_BYTES);
+  }
+
+  /**
+   * Writes bytes to the end of the log, on the writer thread.
+   */
+  private void write(ByteBuffer bytes) {
+    lastWrite = SimulationSnapshot.writer.submit(() -> {
+      if (error != null) return;
+      try {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      } catch (IOException e) {
+        error = e;
+      }
+    });
+  }
+
+  /**
+   * Writes the records collected so far and waits until they are on disk.
+   * @throws IOException If a write to the log failed.
+   */
+  public void sync() throws IOException {
+    flush();
+    try {
+      if (lastWrite != null) lastWrite.get();
+      if (error == null) channel.force(false);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing the recording", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to write the recording", e.getCause());
+    }
+    if (error != null) throw error;
+  }
+
+  /**
+   * Stops recording: writes the records collected so far and closes the log. Steps taken
+   * afterwards are not recorded.
+   * @throws IOException If a write to the log failed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    try {
+      sync();
+    } finally {
+      closed = true;
+      channel.close();
+    }
+  }
+
+  /**
+   * Writes a non-negative integer in as few bytes as it needs, 7 bits per byte.
+   */
+  static void putVarInt(ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  /**
+   * Reads an integer written by putVarInt.
+   */
+  static int getVarInt(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) return value;
+    }
+  }
+}
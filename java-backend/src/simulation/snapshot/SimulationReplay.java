@@ -0,0 +1,252 @@
+package simulation.snapshot;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import simulation.Simulator;
+import simulation.environment.Weather;
+import simulation.simulationData.SimulationContext;
+import util.Parser;
+
+/**
+ * Re-runs a simulation recorded by SimulationRecorder. Any recorded tick can be jumped to:
+ * the simulation is restored from the last keyframe before it and stepped from there. Every
+ * replayed tick is checked against the births, deaths, population and weather of its
+ * record, and every keyframe passed against the replayed state byte for byte, so a replay
+ * that does not match its recording fails at the first tick that differs.
+ *
+ * A recording cut short, such as by a crash, can be replayed up to its last whole record.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class SimulationReplay {
+  private final ByteBuffer log; // The recording, read only.
+  private final SimulationContext context; // The parameters of the recorded simulation.
+  private final String parameters; // The parameters of the recorded simulation, as JSON.
+  private final int stepThreads; // How the recorded simulation was stepped.
+  private final TreeMap<Long, Integer> keyframes = new TreeMap<>(); // The position of every keyframe record by tick.
+  private final long firstTick; // The tick the recording starts at.
+  private final long lastTick; // The last recorded tick.
+
+  private Simulator simulator = null; // The replayed simulation, null before the first seek.
+  private int position; // The position of the next record to replay.
+  private final List<String> controlMessages = new ArrayList<>(); // Control messages logged before the last replayed tick.
+  private int births; // Births in the last replayed step.
+  private int deaths; // Deaths in the last replayed step.
+
+  /**
+   * Constructor -- Read the header of a recording and index its keyframes.
+   * @param log The recording.
+   * @throws IOException If the bytes are not a recording this version can read.
+   */
+  private SimulationReplay(ByteBuffer log) throws IOException {
+    this.log = log;
+    try {
+      if (log.getInt() != SimulationRecorder.MAGIC) {
+        throw new IOException("Not a simulation recording");
+      }
+      short version = log.getShort();
+      if (version != SimulationRecorder.VERSION) {
+        throw new IOException("Unsupported recording version " + version + ", expected " + SimulationRecorder.VERSION);
+      }
+      log.getLong(); // The seed, also in every keyframe.
+      log.getInt(); // The width and height, also in every keyframe.
+      log.getInt();
+      stepThreads = log.getInt();
+      log.getInt(); // The keyframe interval.
+      byte[] parameterBytes = new byte[log.getInt()];
+      log.get(parameterBytes);
+      parameters = new String(parameterBytes, StandardCharsets.UTF_8);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated recording header", e);
+    }
+    context = new SimulationContext(Parser.parseSimulationData(parameters));
+
+    // Index the keyframes and count the ticks, up to the last whole record:
+    long tick = -1;
+    int start = log.position();
+    try {
+      while (log.hasRemaining()) {
+        int recordStart = log.position();
+        byte type = log.get();
+        switch (type) {
+          case SimulationRecorder.TICK -> {
+            readTick(log);
+            tick++;
+          }
+          case SimulationRecorder.CONTROL -> skip(log, SimulationRecorder.getVarInt(log));
+          case SimulationRecorder.KEYFRAME -> {
+            tick = log.getLong();
+            skip(log, log.getInt());
+            keyframes.put(tick, recordStart);
+          }
+          default -> throw new IOException("Corrupted recording at byte " + recordStart);
+        }
+      }
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      // The last record was cut short; replay up to the one before.
+    }
+    if (keyframes.isEmpty()) {
+      throw new IOException("Recording has no keyframe");
+    }
+    firstTick = keyframes.firstKey();
+    lastTick = tick;
+    position = start;
+  }
+
+  /**
+   * Opens a recording.
+   * @param path The recording file.
+   * @return The replay, positioned before its first tick; seek to start replaying.
+   * @throws IOException If the file cannot be read or is not a recording this version can read.
+   */
+  public static SimulationReplay open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new SimulationReplay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Moves the replay to a tick: continues from the current tick if it is on the way,
+   * otherwise restores the last keyframe before the tick, then replays up to the tick.
+   * @param tick The tick to move to, between the first and last tick of the recording.
+   * @return The simulation at the tick.
+   * @throws IOException If a keyframe cannot be read.
+   * @throws IllegalStateException If the replay does not match the recording.
+   */
+  public Simulator seek(long tick) throws IOException {
+    if (tick < firstTick || tick > lastTick) {
+      throw new IllegalArgumentException("Tick " + tick + " is not recorded, the recording has ticks " + firstTick + " to " + lastTick);
+    }
+    Map.Entry<Long, Integer> keyframe = keyframes.floorEntry(tick);
+    if (simulator == null || simulator.getTick() > tick || simulator.getTick() < keyframe.getKey()) {
+      restoreKeyframe(keyframe.getValue());
+    }
+    while (simulator.getTick() < tick) {
+      step();
+    }
+    return simulator;
+  }
+
+  /**
+   * Replays the next tick.
+   * @return Whether there was a tick left to replay.
+   * @throws IllegalStateException If the replay does not match the recording, or nothing was sought yet.
+   */
+  public boolean step() {
+    if (simulator == null) {
+      throw new IllegalStateException("Seek to a tick before stepping");
+    }
+    if (simulator.getTick() >= lastTick) return false;
+    controlMessages.clear();
+    while (true) {
+      byte type = log.get(position++);
+      ByteBuffer record = log.duplicate().position(position);
+      switch (type) {
+        case SimulationRecorder.CONTROL -> {
+          byte[] bytes = new byte[SimulationRecorder.getVarInt(record)];
+          record.get(bytes);
+          controlMessages.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        case SimulationRecorder.KEYFRAME -> verifyKeyframe(record);
+        case SimulationRecorder.TICK -> {
+          int[] expected = readTick(record);
+          simulator.step();
+          position = record.position();
+          verifyTick(expected);
+          return true;
+        }
+        default -> throw new IllegalStateException("Corrupted recording at byte " + (position - 1));
+      }
+      position = record.position();
+    }
+  }
+
+  /**
+   * Checks the replayed state against a keyframe, if the keyframe is of the current tick.
+   */
+  private void verifyKeyframe(ByteBuffer record) {
+    long tick = record.getLong();
+    int length = record.getInt();
+    ByteBuffer recorded = record.slice(record.position(), length);
+    record.position(record.position() + length);
+    if (tick != simulator.getTick()) return; // The keyframe the replay started from.
+    if (!SimulationSnapshot.capture(simulator).getBytes().equals(recorded)) {
+      throw new IllegalStateException("Replay does not match the keyframe of tick " + tick);
+    }
+  }
+
+  /**
+   * Checks the step just replayed against its record.
+   */
+  private void verifyTick(int[] expected) {
+    int population = simulator.getField().getAllEntities().size();
+    int weather = simulator.getField().environment.getWeather().ordinal();
+    if (births != expected[0] || deaths != expected[1] || population != expected[2] || weather != expected[3]) {
+      throw new IllegalStateException(String.format(
+        "Replay does not match the recording at tick %d: births %d/%d, deaths %d/%d, population %d/%d, weather %s/%s (replayed/recorded)",
+        simulator.getTick(), births, expected[0], deaths, expected[1], population, expected[2],
+        Weather.values()[weather], Weather.values()[expected[3]]
+      ));
+    }
+  }
+
+  /**
+   * Replaces the replayed simulation with the one of a keyframe.
+   */
+  private void restoreKeyframe(int keyframePosition) throws IOException {
+    if (simulator != null) {
+      simulator.shutdown();
+      simulator.getField().releaseEntities(); // The context, and its entity store, are kept.
+    }
+    ByteBuffer record = log.duplicate().position(keyframePosition + 1);
+    record.getLong();
+    int length = record.getInt();
+    simulator = SimulationSnapshot.restore(record.slice(record.position(), length), context, stepThreads);
+    simulator.addStepListener((replayed, births, deaths) -> {
+      this.births = births;
+      this.deaths = deaths;
+    });
+    position = record.position() + length;
+    controlMessages.clear();
+  }
+
+  /**
+   * Releases the threads of the replayed simulation. The replay should not be used afterwards.
+   */
+  public void shutdown() {
+    if (simulator != null) simulator.shutdown();
+  }
+
+  /**
+   * @return The births, deaths, population and weather of a tick record.
+   */
+  private static int[] readTick(ByteBuffer buffer) {
+    int births = SimulationRecorder.getVarInt(buffer);
+    int deaths = SimulationRecorder.getVarInt(buffer);
+    int population = SimulationRecorder.getVarInt(buffer);
+    return new int[] { births, deaths, population, buffer.get() };
+  }
+
+  private static void skip(ByteBuffer buffer, int bytes) {
+    buffer.position(buffer.position() + bytes);
+  }
+
+  // Getters:
+  public Simulator getSimulator() { return simulator; }
+  public SimulationContext getContext() { return context; }
+  public String getParameters() { return parameters; }
+  public long getFirstTick() { return firstTick; }
+  public long getLastTick() { return lastTick; }
+  public List<String> getControlMessages() { return controlMessages; }
+}
@@ -0,0 +1,107 @@
+package simulation.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.generic.Entity;
+import simulation.Simulator;
+import simulation.simulationData.*;
+import util.Parser;
+
+/**
+ * Tests for the SimulationRecorder and SimulationReplay classes. Checks that a recording
+ * replays to the same state as the recorded simulation, at any tick, whatever its spatial
+ * index.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class SimulationReplayTest {
+  private static final int STEPS = 120;
+  private static final int KEYFRAME_INTERVAL = 50;
+  private static final long SEED = 42;
+
+  private String parameters;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      parameters = Parser.getContentsOfFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+  }
+
+  /**
+   * Describes every entity in the field.
+   */
+  private List<String> describe(Simulator simulator) {
+    List<String> description = new ArrayList<>();
+    for (Entity e : simulator.getField().getAllEntities()) {
+      description.add(e + " aged " + e.getAge());
+    }
+    return description;
+  }
+
+  @Test
+  void testReplay_MatchesTheRecordingAtAnyTick() throws IOException {
+    SimulationContext context = new SimulationContext(Parser.parseSimulationData(parameters));
+    Simulator simulator = new Simulator(context, 300, 300, 0, SEED);
+    Path path = directory.resolve("simulation.ecol");
+
+    List<String> middle = null;
+    try (SimulationRecorder recorder = SimulationRecorder.start(path, parameters, simulator, KEYFRAME_INTERVAL)) {
+      recorder.recordControl("{\"type\":\"test\"}");
+      for (int i = 1; i <= STEPS; i++) {
+        simulator.step();
+        if (i == 75) middle = describe(simulator);
+      }
+    }
+
+    SimulationReplay replay = SimulationReplay.open(path);
+    assertEquals(0, replay.getFirstTick());
+    assertEquals(STEPS, replay.getLastTick());
+    assertEquals(describe(simulator), describe(replay.seek(STEPS)));
+    assertEquals(middle, describe(replay.seek(75))); // Back to the keyframe of tick 50 and forward.
+
+    replay.seek(0);
+    assertTrue(replay.step());
+    assertEquals(List.of("{\"type\":\"test\"}"), replay.getControlMessages());
+    replay.shutdown();
+  }
+
+  @Test
+  void testReplay_IncrementalQuadtreeMatchesTheRecordingPastAKeyframe() throws IOException {
+    SimulationData data = Parser.parseSimulationData(parameters);
+    data.spatialIndex = SpatialIndexType.INCREMENTAL_QUADTREE;
+    Simulator simulator = new Simulator(new SimulationContext(data), 300, 300, 0, SEED);
+    Path path = directory.resolve("incremental.ecol");
+
+    List<String> middle = null;
+    SimulationRecorder recorder = SimulationRecorder.start(path, parameters, simulator, KEYFRAME_INTERVAL);
+    for (int i = 1; i <= STEPS; i++) {
+      simulator.step();
+      if (i == 75) middle = describe(simulator);
+    }
+    recorder.close();
+
+    // Seeking restores the keyframe of tick 100 or 50, with its tree built anew, and steps on:
+    SimulationReplay replay = SimulationReplay.open(path);
+    assertEquals(describe(simulator), describe(replay.seek(STEPS)));
+    assertEquals(middle, describe(replay.seek(75)));
+    replay.shutdown();
+  }
+}
@@ -0,0 +1,146 @@
+package simulation.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import simulation.Simulator;
+import simulation.simulationData.SimulationContext;
+
+/**
+ * A binary snapshot of a running simulation: every entity with its genetics, age and
+ * controller state, the time, the weather and the state of every random stream. A
+ * simulation restored from a snapshot continues exactly as the original would have.
+ *
+ * Capturing only encodes the field into memory, so it is cheap enough to do between two
+ * steps; writing the bytes to disk can then happen on the background writer thread while
+ * the simulation keeps stepping. Snapshots are read by mapping the file into memory.
+ *
+ * The parameters of the simulation are not part of the snapshot: it is restored into a
+ * given context, which must know every species of the snapshot. The spatial index is built
+ * anew rather than restored; every index, including the incremental quadtree, is then the
+ * same as the index of the original, so the continuation is exact.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class SimulationSnapshot {
+  static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "snapshot-writer");
+    thread.setDaemon(true);
+    return thread;
+  }); // Writes snapshots and recordings to disk one after another, off the stepping threads.
+
+  private final ByteBuffer bytes; // The encoded simulation, read only.
+
+  SimulationSnapshot(ByteBuffer bytes) {
+    this.bytes = bytes.asReadOnlyBuffer();
+  }
+
+  /**
+   * Captures the state of a simulation. Must be called between steps, on the thread that
+   * steps the simulation.
+   * @param simulator The simulation to capture.
+   * @return The snapshot.
+   */
+  public static SimulationSnapshot capture(Simulator simulator) {
+    return new SimulationSnapshot(SnapshotCodec.encode(simulator.getField(), simulator.getSeed(), simulator.getTick()));
+  }
+
+  /**
+   * Writes the snapshot to a file. The snapshot is written next to it first and then moved
+   * in place, so the file never holds a partly written snapshot.
+   * @param path The file to write to.
+   * @throws IOException If the file cannot be written.
+   */
+  public void writeTo(Path path) throws IOException {
+    Path absolute = path.toAbsolutePath();
+    Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = bytes.duplicate();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+    Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Writes the snapshot to a file on the background writer thread.
+   * @param path The file to write to.
+   * @return Completes with the path once the file is written, or with the error.
+   */
+  public CompletableFuture<Path> writeAsync(Path path) {
+    CompletableFuture<Path> future = new CompletableFuture<>();
+    writer.execute(() -> {
+      try {
+        writeTo(path);
+        future.complete(path);
+      } catch (IOException | RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Restores a simulation from a snapshot file.
+   * @param path The snapshot file.
+   * @param context The parameters of the restored simulation; must know every species of the snapshot.
+   * @return The restored simulation, stepped as the context says.
+   * @throws IOException If the file cannot be read or is not a snapshot this version can read.
+   */
+  public static Simulator restore(Path path, SimulationContext context) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return restore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), context);
+    }
+  }
+
+  /**
+   * Restores a simulation from this snapshot, without going through a file.
+   * @param context The parameters of the restored simulation; must know every species of the snapshot.
+   * @return The restored simulation, stepped as the context says.
+   * @throws IOException If the snapshot has species the context does not know.
+   */
+  public Simulator restore(SimulationContext context) throws IOException {
+    return restore(bytes.duplicate(), context);
+  }
+
+  private static Simulator restore(ByteBuffer buffer, SimulationContext context) throws IOException {
+    return restore(buffer, context, context.getStepThreads());
+  }
+
+  /**
+   * Restores a simulation from encoded bytes.
+   * @param stepThreads Threads for the two-phase step of the restored simulation.
+   */
+  static Simulator restore(ByteBuffer buffer, SimulationContext context, int stepThreads) throws IOException {
+    try {
+      SnapshotCodec.Decoded decoded = SnapshotCodec.decode(buffer, context);
+      return new Simulator(decoded.field(), stepThreads, decoded.seed(), decoded.tick());
+    } catch (RuntimeException e) { // Truncated or corrupted bytes.
+      throw new IOException("Corrupted snapshot", e);
+    }
+  }
+
+  /**
+   * @return The encoded snapshot, read only.
+   */
+  ByteBuffer getBytes() {
+    return bytes.duplicate();
+  }
+
+  /**
+   * @return The size of the snapshot in bytes.
+   */
+  public int getSize() {
+    return bytes.limit();
+  }
+}
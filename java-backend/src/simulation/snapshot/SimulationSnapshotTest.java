@@ -0,0 +1,107 @@
+package simulation.snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.generic.Entity;
+import simulation.Simulator;
+import simulation.simulationData.*;
+import util.Parser;
+
+/**
+ * Tests for the SimulationSnapshot class. Checks that a restored simulation continues
+ * exactly as the original one does.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class SimulationSnapshotTest {
+  private static final int STEPS = 150;
+  private static final long SEED = 42;
+
+  private SimulationData simulationData;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      simulationData = Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+    Data.setSimulationData(simulationData);
+  }
+
+  /**
+   * Describes every entity in the field and the environment.
+   */
+  private List<String> describe(Simulator simulator) {
+    List<String> description = new ArrayList<>();
+    description.add(simulator.getField().environment.getTimeFormatted() + " " + simulator.getField().environment.getWeather());
+    for (Entity e : simulator.getField().getAllEntities()) {
+      description.add(e + " aged " + e.getAge());
+    }
+    return description;
+  }
+
+  private void step(Simulator simulator, int steps) {
+    for (int i = 0; i < steps; i++) {
+      simulator.step();
+    }
+  }
+
+  @Test
+  void testRestore_ContinuesLikeTheOriginal() throws IOException {
+    assertRestoreContinues(Data.getContext());
+  }
+
+  @Test
+  void testRestore_IncrementalQuadtreeContinuesLikeTheOriginal() throws IOException {
+    // The tree of the original was kept up to date for many steps, the restored one is built anew:
+    simulationData.spatialIndex = SpatialIndexType.INCREMENTAL_QUADTREE;
+    simulationData.stepThreads = 0;
+    assertRestoreContinues(new SimulationContext(simulationData));
+    simulationData.stepThreads = 2;
+    assertRestoreContinues(new SimulationContext(simulationData));
+  }
+
+  /**
+   * Steps a simulation, restores a snapshot of it, and checks both continue the same way.
+   * Both are stepped with the threads of the context.
+   */
+  private void assertRestoreContinues(SimulationContext context) throws IOException {
+    Simulator original = new Simulator(context, 300, 300, context.getStepThreads(), SEED);
+    step(original, STEPS);
+
+    Path path = directory.resolve("simulation.snapshot");
+    SimulationSnapshot.capture(original).writeTo(path);
+    Simulator restored = SimulationSnapshot.restore(path, context);
+    assertEquals(describe(original), describe(restored));
+
+    step(original, STEPS);
+    step(restored, STEPS);
+    assertEquals(describe(original), describe(restored));
+    original.shutdown();
+    restored.shutdown();
+  }
+
+  @Test
+  void testRestore_RejectsOtherFiles() throws IOException {
+    Path path = directory.resolve("other.snapshot");
+    Files.writeString(path, "not a snapshot");
+    assertThrows(IOException.class, () -> SimulationSnapshot.restore(path, Data.getContext()));
+  }
+}
@@ -0,0 +1,375 @@
+package simulation.snapshot;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import entities.Plant;
+import entities.Predator;
+import entities.Prey;
+import entities.generic.Animal;
+import entities.generic.Entity;
+import genetics.AnimalGenetics;
+import genetics.Gender;
+import genetics.Genetics;
+import genetics.PlantGenetics;
+import simulation.Field;
+import simulation.environment.Environment;
+import simulation.environment.Weather;
+import simulation.simulationData.SimulationContext;
+import simulation.simulationData.SpeciesRegistry;
+import util.SimulationRandom;
+import util.Vector;
+
+/**
+ * Encodes the state of a field into bytes and decodes it back. The layout, in order:
+ *
+ * Header: magic, version, width, height, seed, tick.
+ * Environment: day, time of day, weather, wind direction, weather random stream.
+ * Strings: the names of the species and of the food of the animals.
+ * Diets: the distinct eats arrays of the animals, as string indices.
+ * Entities: count, then per entity its kind, name, position, random stream, genetics and
+ * the state it writes itself (age, and for animals their controllers).
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class SnapshotCodec {
+  static final int MAGIC = 0x45434F53; // "ECOS", marks a snapshot file.
+  static final short VERSION = 2; // Bumped on every change to the layout.
+
+  private static final byte PREY = 0;
+  private static final byte PREDATOR = 1;
+  private static final byte PLANT = 2;
+
+  private static final int HEADER_BYTES = 30 + 37; // The header, then the environment.
+  private static final int ENTITY_BYTES = 35; // The kind, name, position and random stream of an entity.
+  private static final int GENETICS_BYTES = 52; // The genetics every entity has.
+  private static final int ANIMAL_GENETICS_BYTES = 23; // The genetics only animals have.
+  private static final int PLANT_GENETICS_BYTES = 12; // The genetics only plants have.
+
+  /**
+   * The names and the eats arrays of some entities, interned so that every entity only
+   * refers to them.
+   */
+  private static class Tables {
+    private final Map<String, Integer> strings = new HashMap<>(); // The index of every string.
+    private final List<String> stringList = new ArrayList<>(); // The strings, in index order.
+    private final Map<String[], Integer> diets = new IdentityHashMap<>(); // The index of every eats array.
+    private final List<String[]> dietList = new ArrayList<>(); // The eats arrays, in index order.
+
+    private Tables(List<Entity> entities) {
+      for (Entity e : entities) {
+        intern(e.getName());
+        if (e instanceof Animal animal) {
+          String[] eats = ((AnimalGenetics) animal.getGenetics()).getEats();
+          if (diets.putIfAbsent(eats, dietList.size()) == null) {
+            dietList.add(eats);
+            for (String food : eats) intern(food);
+          }
+        }
+      }
+    }
+
+    private void intern(String string) {
+      if (strings.putIfAbsent(string, stringList.size()) == null) stringList.add(string);
+    }
+
+    /**
+     * @return The number of bytes the tables and the given entities are encoded into.
+     */
+    private int getSize(List<Entity> entities) {
+      int size = Short.BYTES;
+      for (String string : stringList) {
+        size += Short.BYTES + string.getBytes(StandardCharsets.UTF_8).length;
+      }
+      size += Short.BYTES;
+      for (String[] eats : dietList) {
+        size += Short.BYTES + eats.length * Short.BYTES;
+      }
+      size += Integer.BYTES;
+      for (Entity e : entities) {
+        size += ENTITY_BYTES + GENETICS_BYTES + (e instanceof Animal ? ANIMAL_GENETICS_BYTES : PLANT_GENETICS_BYTES) + e.getStateSize();
+      }
+      return size;
+    }
+  }
+
+  /**
+   * Encodes the field of a simulation. Must be called between steps.
+   * @param field The field to encode.
+   * @param seed The seed the field was made from.
+   * @param tick The number of steps the field has been stepped.
+   * @return The encoded field, flipped for reading.
+   */
+  static ByteBuffer encode(Field field, long seed, long tick) {
+    List<Entity> entities = field.getAllEntities();
+    Tables tables = new Tables(entities);
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + tables.getSize(entities)).order(ByteOrder.LITTLE_ENDIAN);
+    encode(field, seed, tick, entities, tables, buffer);
+    return checkFull(buffer).flip();
+  }
+
+  private static void encode(Field field, long seed, long tick, List<Entity> entities, Tables tables, ByteBuffer buffer) {
+    buffer.putInt(MAGIC);
+    buffer.putShort(VERSION);
+    buffer.putInt((int) field.getSize().x());
+    buffer.putInt((int) field.getSize().y());
+    buffer.putLong(seed);
+    buffer.putLong(tick);
+
+    Environment environment = field.environment;
+    buffer.putInt(environment.getDay());
+    buffer.putDouble(environment.getTimeOfDay());
+    buffer.put((byte) environment.getWeather().ordinal());
+    buffer.putDouble(environment.getWindDirection());
+    putRandom(buffer, environment.getWeatherRandom());
+
+    encodeEntities(entities, tables, buffer);
+  }
+
+  /**
+   * Encodes entities on their own, such as to hand them to another process.
+   * @param entities The entities to encode.
+   * @return The encoded entities, flipped for reading.
+   */
+  static ByteBuffer encodeEntities(List<Entity> entities) {
+    Tables tables = new Tables(entities);
+    ByteBuffer buffer = ByteBuffer.allocate(tables.getSize(entities)).order(ByteOrder.LITTLE_ENDIAN);
+    encodeEntities(entities, tables, buffer);
+    return checkFull(buffer).flip();
+  }
+
+  /**
+   * Checks that an encoding filled the buffer sized for it exactly.
+   */
+  private static ByteBuffer checkFull(ByteBuffer buffer) {
+    if (buffer.hasRemaining()) {
+      throw new IllegalStateException("Encoded " + buffer.position() + " bytes, sized for " + buffer.capacity());
+    }
+    return buffer;
+  }
+
+  /**
+   * Writes the strings, the diets and the entities.
+   */
+  private static void encodeEntities(List<Entity> entities, Tables tables, ByteBuffer buffer) {
+    Map<String, Integer> strings = tables.strings;
+    Map<String[], Integer> diets = tables.diets;
+    List<String> stringList = tables.stringList;
+    List<String[]> dietList = tables.dietList;
+
+    buffer.putShort((short) stringList.size());
+    for (String string : stringList) {
+      byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) bytes.length);
+      buffer.put(bytes);
+    }
+    buffer.putShort((short) dietList.size());
+    for (String[] eats : dietList) {
+      buffer.putShort((short) eats.length);
+      for (String food : eats) buffer.putShort(strings.get(food).shortValue());
+    }
+
+    buffer.putInt(entities.size());
+    for (Entity e : entities) {
+      buffer.put(kindOf(e));
+      buffer.putShort(strings.get(e.getName()).shortValue());
+      buffer.putDouble(e.getX());
+      buffer.putDouble(e.getY());
+      putRandom(buffer, e.getRandom());
+      putGenetics(buffer, e.getGenetics());
+      if (e.getGenetics() instanceof AnimalGenetics genetics) {
+        putAnimalGenetics(buffer, genetics, diets.get(genetics.getEats()));
+      } else {
+        putPlantGenetics(buffer, (PlantGenetics) e.getGenetics());
+      }
+      e.writeState(buffer);
+    }
+  }
+
+  /**
+   * Decodes a field.
+   * @param buffer The encoded field.
+   * @param context The parameters of the simulation; must know every species of the snapshot.
+   * @return The decoded field, the seed it was made from and its tick.
+   * @throws IOException If the bytes are not a snapshot of this version, or of another set of species.
+   */
+  static Decoded decode(ByteBuffer buffer, SimulationContext context) throws IOException {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+      throw new IOException("Not a simulation snapshot");
+    }
+    short version = buffer.getShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+    }
+    int width = buffer.getInt();
+    int height = buffer.getInt();
+    long seed = buffer.getLong();
+    long tick = buffer.getLong();
+
+    int day = buffer.getInt();
+    double timeOfDay = buffer.getDouble();
+    Weather weather = Weather.values()[buffer.get()];
+    double windDirection = buffer.getDouble();
+    SimulationRandom weatherRandom = getRandom(buffer);
+    long weatherSeed = weatherRandom.getSeed();
+    Environment environment = new Environment(weatherRandom, context.getWeatherChangeProbability());
+    environment.getWeatherRandom().setSeed(weatherSeed); // The constructor draws from the stream.
+    environment.restore(day, timeOfDay, weather, windDirection);
+
+    List<Entity> entities = decodeEntities(buffer, context);
+    return new Decoded(new Field(context, width, height, entities, environment), seed, tick);
+  }
+
+  /**
+   * Decodes entities written by encodeEntities, or the entities of a snapshot.
+   * @param buffer The encoded entities.
+   * @param context The parameters of the simulation; must know every species of the entities.
+   * @return The decoded entities.
+   * @throws IOException If the entities are of species the context does not know.
+   */
+  static List<Entity> decodeEntities(ByteBuffer buffer, SimulationContext context) throws IOException {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    SpeciesRegistry registry = context.getSpeciesRegistry();
+    String[] strings = new String[buffer.getShort()];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[buffer.getShort()];
+      buffer.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    String[][] diets = new String[buffer.getShort()][];
+    for (int i = 0; i < diets.length; i++) {
+      diets[i] = new String[buffer.getShort()];
+      for (int j = 0; j < diets[i].length; j++) diets[i][j] = strings[buffer.getShort()];
+    }
+
+    int count = buffer.getInt();
+    List<Entity> entities = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte kind = buffer.get();
+      String name = strings[buffer.getShort()];
+      int speciesId = registry.getId(name);
+      if (speciesId == SpeciesRegistry.UNKNOWN) {
+        throw new IOException("Unknown species: " + name);
+      }
+      Vector position = new Vector(buffer.getDouble(), buffer.getDouble());
+      SimulationRandom random = getRandom(buffer);
+      long randomSeed = random.getSeed();
+
+      Entity entity = switch (kind) {
+        case PREY, PREDATOR -> {
+          AnimalGenetics genetics = getAnimalGenetics(buffer, context, name, diets, speciesId);
+          yield kind == PREY ? new Prey(genetics, position, random) : new Predator(genetics, position, random);
+        }
+        case PLANT -> new Plant(getPlantGenetics(buffer, context, name), position, random);
+        default -> throw new IOException("Unknown entity kind: " + kind);
+      };
+      random.setSeed(randomSeed); // Animals draw their initial direction from the stream.
+      entity.readState(buffer);
+      entities.add(entity);
+    }
+    return entities;
+  }
+
+  /**
+   * @return The kind of an entity, from the flags of its species in the registry.
+   * @throws IllegalArgumentException If the species is not in the registry, as it could not be decoded.
+   */
+  private static byte kindOf(Entity e) {
+    SpeciesRegistry registry = e.getGenetics().getContext().getSpeciesRegistry();
+    int id = e.getSpeciesId();
+    if (id == SpeciesRegistry.UNKNOWN) {
+      throw new IllegalArgumentException("Unknown species: " + e.getName());
+    }
+    return registry.isPredator(id) ? PREDATOR : registry.isPrey(id) ? PREY : PLANT;
+  }
+
+  /**
+   * A decoded field with the seed it was made from and the number of steps it was stepped.
+   */
+  record Decoded(Field field, long seed, long tick) {}
+
+  private static void putRandom(ByteBuffer buffer, SimulationRandom random) {
+    buffer.putLong(random.getSeed());
+    buffer.putLong(random.getGamma());
+  }
+
+  private static SimulationRandom getRandom(ByteBuffer buffer) {
+    long seed = buffer.getLong();
+    return new SimulationRandom(seed, buffer.getLong());
+  }
+
+  private static void putGenetics(ByteBuffer buffer, Genetics genetics) {
+    buffer.putInt(genetics.getMaxAge());
+    buffer.putInt(genetics.getMatureAge());
+    buffer.putDouble(genetics.getMultiplyingRate());
+    buffer.putInt(genetics.getSize());
+    buffer.putInt(genetics.getColour().getRGB());
+    buffer.putInt(genetics.getOvercrowdingThreshold());
+    buffer.putDouble(genetics.getOvercrowdingRadius());
+    buffer.putDouble(genetics.getMaxOffspringSpawnDistance());
+    buffer.putDouble(genetics.getMutationRate());
+  }
+
+  private static void putAnimalGenetics(ByteBuffer buffer, AnimalGenetics genetics, int diet) {
+    buffer.putInt(genetics.getMaxLitterSize());
+    buffer.putDouble(genetics.getMaxSpeed());
+    buffer.putDouble(genetics.getSight());
+    buffer.put((byte) genetics.getGender().ordinal());
+    buffer.putShort((short) diet);
+  }
+
+  private static void putPlantGenetics(ByteBuffer buffer, PlantGenetics genetics) {
+    buffer.putInt(genetics.getNumberOfSeeds());
+    buffer.putDouble(genetics.getRainingGrowthFactor());
+  }
+
+  /**
+   * Reads animal genetics. An eats array equal to the one of the species data is replaced
+   * by it, so the animal shares the compiled diet of its species.
+   */
+  private static AnimalGenetics getAnimalGenetics(ByteBuffer buffer, SimulationContext context, String name, String[][] diets, int speciesId) {
+    int maxAge = buffer.getInt();
+    int matureAge = buffer.getInt();
+    double multiplyingRate = buffer.getDouble();
+    int size = buffer.getInt();
+    Color colour = new Color(buffer.getInt(), true);
+    int overcrowdingThreshold = buffer.getInt();
+    double overcrowdingRadius = buffer.getDouble();
+    double maxOffspringSpawnDistance = buffer.getDouble();
+    double mutationRate = buffer.getDouble();
+    int maxLitterSize = buffer.getInt();
+    double maxSpeed = buffer.getDouble();
+    double sight = buffer.getDouble();
+    Gender gender = Gender.values()[buffer.get()];
+    String[] eats = diets[buffer.getShort()];
+    String[] speciesEats = context.getSpeciesRegistry().getAnimalData(speciesId).eats;
+    if (Arrays.equals(eats, speciesEats)) eats = speciesEats;
+    return new AnimalGenetics(context, multiplyingRate, maxLitterSize, maxAge, matureAge, mutationRate, maxSpeed, sight, gender, size, eats, name, colour, overcrowdingThreshold, overcrowdingRadius, maxOffspringSpawnDistance);
+  }
+
+  private static PlantGenetics getPlantGenetics(ByteBuffer buffer, SimulationContext context, String name) {
+    int maxAge = buffer.getInt();
+    int matureAge = buffer.getInt();
+    double multiplyingRate = buffer.getDouble();
+    int size = buffer.getInt();
+    Color colour = new Color(buffer.getInt(), true);
+    int overcrowdingThreshold = buffer.getInt();
+    double overcrowdingRadius = buffer.getDouble();
+    double maxOffspringSpawnDistance = buffer.getDouble();
+    double mutationRate = buffer.getDouble();
+    int numberOfSeeds = buffer.getInt();
+    double rainingGrowthFactor = buffer.getDouble();
+    return new PlantGenetics(context, maxAge, matureAge, multiplyingRate, size, name, colour, numberOfSeeds, maxOffspringSpawnDistance, overcrowdingThreshold, overcrowdingRadius, mutationRate, rainingGrowthFactor);
+  }
+}
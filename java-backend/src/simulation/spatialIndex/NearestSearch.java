@@ -0,0 +1,192 @@
+package simulation.spatialIndex;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import entities.generic.Entity;
+
+/**
+ * The state of a single nearest neighbour search, shared by the spatial indexes. Keeps the k
+ * nearest entities found so far, and a queue of the cells still to visit ordered by their
+ * distance to the query point, so that the search visits cells best first and stops as soon
+ * as the nearest unvisited cell is further away than the k-th nearest entity. Every thread
+ * reuses one search, see forCurrentThread, so that searches do not allocate.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class NearestSearch {
+  private static final ThreadLocal<NearestSearch> SEARCHES = ThreadLocal.withInitial(NearestSearch::new); // The search of each thread.
+
+  private double x; // The x coordinate of the query point.
+  private double y; // The y coordinate of the query point.
+  private double maxDistanceSquared; // Entities at or beyond this distance are never found.
+  private Predicate<Entity> filter; // Only entities passing the filter are found.
+  private int k; // The number of entities to find.
+
+  private Entity[] nearest = new Entity[1]; // The nearest entities found so far, nearest first; grown to k.
+  private double[] nearestDistances = new double[1]; // The squared distances of the nearest entities.
+  private int found = 0; // Number of entities in nearest.
+
+  private Object[] cells = new Object[16]; // Binary min-heap of the cells to visit.
+  private double[] cellDistances = new double[16]; // The squared distance to each cell in the heap.
+  private int cellCount = 0; // Number of cells in the heap.
+
+  /**
+   * @return The search of the calling thread, to be started with reset. Searches do not
+   * nest, so a thread never needs two at once.
+   */
+  public static NearestSearch forCurrentThread() {
+    return SEARCHES.get();
+  }
+
+  /**
+   * Starts a new search, forgetting the previous one. The arrays are only grown, never shrunk.
+   * @param x The x coordinate of the query point.
+   * @param y The y coordinate of the query point.
+   * @param maxDistance Only entities closer than this are found.
+   * @param k The number of entities to find.
+   * @param filter Only entities passing the filter are found.
+   * @return This search.
+   */
+  public NearestSearch reset(double x, double y, double maxDistance, int k, Predicate<Entity> filter) {
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    this.x = x;
+    this.y = y;
+    this.maxDistanceSquared = maxDistance * maxDistance;
+    this.filter = filter;
+    this.k = k;
+    if (nearest.length < k) {
+      nearest = new Entity[k];
+      nearestDistances = new double[k];
+    }
+    Arrays.fill(nearest, 0, found, null); // Do not keep the entities of the last search alive.
+    found = 0;
+    Arrays.fill(cells, 0, cellCount, null);
+    cellCount = 0;
+    return this;
+  }
+
+  /**
+   * Considers an entity at the given position. The filter is only tested if the entity
+   * would be one of the k nearest.
+   * @param entity The entity to consider.
+   * @param px The x coordinate of the entity.
+   * @param py The y coordinate of the entity.
+   */
+  public void offer(Entity entity, double px, double py) {
+    double dx = px - x;
+    double dy = py - y;
+    double distanceSquared = dx * dx + dy * dy;
+    if (distanceSquared >= bound() || !filter.test(entity)) return;
+    for (int i = 0; i < found; i++) {
+      if (nearest[i] == entity) return; // Indexes that store an entity in several cells may offer it again.
+    }
+
+    // Insertion sort; k is small. Entities at the same distance keep the order they were found in.
+    int i = Math.min(found, k - 1);
+    while (i > 0 && nearestDistances[i - 1] > distanceSquared) {
+      nearest[i] = nearest[i - 1];
+      nearestDistances[i] = nearestDistances[i - 1];
+      i--;
+    }
+    nearest[i] = entity;
+    nearestDistances[i] = distanceSquared;
+    if (found < k) found++;
+  }
+
+  /**
+   * @return The squared distance an entity must be closer than to be one of the k nearest.
+   */
+  public double bound() {
+    return found < k ? maxDistanceSquared : nearestDistances[found - 1];
+  }
+
+  /**
+   * @return The squared distance from the query point to a rectangle, 0 if the point is in it.
+   */
+  public double distanceSquaredTo(double rx, double ry, double rw, double rh) {
+    double dx = Math.max(0, Math.max(rx - x, x - (rx + rw)));
+    double dy = Math.max(0, Math.max(ry - y, y - (ry + rh)));
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * Queues a cell to visit, unless it is too far away to hold one of the k nearest.
+   * @param cell The cell, of the type used by the index.
+   * @param distanceSquared The squared distance from the query point to the cell.
+   */
+  public void push(Object cell, double distanceSquared) {
+    if (distanceSquared >= bound()) return;
+    if (cellCount == cells.length) {
+      cells = Arrays.copyOf(cells, cellCount * 2);
+      cellDistances = Arrays.copyOf(cellDistances, cellCount * 2);
+    }
+
+    // Sift up:
+    int i = cellCount++;
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (cellDistances[parent] <= distanceSquared) break;
+      cells[i] = cells[parent];
+      cellDistances[i] = cellDistances[parent];
+      i = parent;
+    }
+    cells[i] = cell;
+    cellDistances[i] = distanceSquared;
+  }
+
+  /**
+   * @return The nearest queued cell, or null if no queued cell can hold one of the k nearest.
+   */
+  public Object pop() {
+    if (cellCount == 0 || cellDistances[0] >= bound()) return null;
+    Object top = cells[0];
+
+    // Sift the last cell down from the root:
+    Object last = cells[--cellCount];
+    double lastDistance = cellDistances[cellCount];
+    cells[cellCount] = null;
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= cellCount) break;
+      if (child + 1 < cellCount && cellDistances[child + 1] < cellDistances[child]) child++;
+      if (cellDistances[child] >= lastDistance) break;
+      cells[i] = cells[child];
+      cellDistances[i] = cellDistances[child];
+      i = child;
+    }
+    if (cellCount > 0) {
+      cells[i] = last;
+      cellDistances[i] = lastDistance;
+    }
+    return top;
+  }
+
+  /**
+   * Adds the entities found to a list, nearest first.
+   * @param foundEntities The list to add to.
+   * @return The number of entities added.
+   */
+  public int addTo(List<Entity> foundEntities) {
+    for (int i = 0; i < found; i++) {
+      foundEntities.add(nearest[i]);
+    }
+    return found;
+  }
+
+  /**
+   * @return The nearest entity found, or null if none was found.
+   */
+  public Entity getNearest() {
+    return found > 0 ? nearest[0] : null;
+  }
+
+  // Getters:
+  public double getX() { return x; }
+  public double getY() { return y; }
+}
@@ -0,0 +1,145 @@
+package simulation.spatialIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import entities.generic.Entity;
+import graphics.Display;
+import simulation.quadTree.Circle;
+import simulation.quadTree.Rectangle;
+
+/**
+ * A structure for finding the entities near a point of the field quickly. The field keeps
+ * its index up to date by telling it about spawned and removed entities, and by updating
+ * it with all entities at the end of every step.
+ * 
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public interface SpatialIndex {
+  /**
+   * Add an entity to the index.
+   * @param entity The entity to add.
+   */
+  void insert(Entity entity);
+
+  /**
+   * Remove an entity from the index.
+   * @param entity The entity to remove.
+   */
+  void remove(Entity entity);
+
+  /**
+   * @param queryRange The circle to search in.
+   * @return A list of the entities in the circle.
+   */
+  default List<Entity> query(Circle queryRange) {
+    List<Entity> foundEntities = new ArrayList<>();
+    query(queryRange.centre().x(), queryRange.centre().y(), queryRange.r(), foundEntities);
+    return foundEntities;
+  }
+
+  /**
+   * Adds the entities in a circle to a list owned by the caller, so that a search done on
+   * every step can reuse the same list and allocate nothing.
+   * @param x The x coordinate of the centre of the circle.
+   * @param y The y coordinate of the centre of the circle.
+   * @param radius The radius of the circle.
+   * @param foundEntities The list to add the entities to. It is not cleared first.
+   * @return The number of entities added.
+   */
+  int query(double x, double y, double radius, List<Entity> foundEntities);
+
+  /**
+   * @param x The x coordinate of the centre of the circle.
+   * @param y The y coordinate of the centre of the circle.
+   * @param radius The radius of the circle.
+   * @return The number of entities in the circle.
+   */
+  int countInRadius(double x, double y, double radius);
+
+  /**
+   * Finds the nearest entity passing a filter, visiting the cells nearest first and
+   * stopping once no unvisited cell can hold a nearer entity.
+   * @param x The x coordinate of the query point.
+   * @param y The y coordinate of the query point.
+   * @param maxDistance Only entities closer than this are found.
+   * @param filter Only entities passing the filter are found.
+   * @return The nearest entity, or null if there is none.
+   */
+  default Entity nearest(double x, double y, double maxDistance, Predicate<Entity> filter) {
+    NearestSearch search = NearestSearch.forCurrentThread().reset(x, y, maxDistance, 1, filter);
+    searchNearest(search);
+    return search.getNearest();
+  }
+
+  /**
+   * Finds the k nearest entities passing a filter.
+   * @param x The x coordinate of the query point.
+   * @param y The y coordinate of the query point.
+   * @param maxDistance Only entities closer than this are found.
+   * @param k The maximum number of entities to find.
+   * @param filter Only entities passing the filter are found.
+   * @param foundEntities The list to add the entities to, nearest first. It is not cleared first.
+   * @return The number of entities added.
+   */
+  default int nearest(double x, double y, double maxDistance, int k, Predicate<Entity> filter, List<Entity> foundEntities) {
+    NearestSearch search = NearestSearch.forCurrentThread().reset(x, y, maxDistance, k, filter);
+    searchNearest(search);
+    return search.addTo(foundEntities);
+  }
+
+  /**
+   * Runs a nearest neighbour search over the index.
+   * @param search The search to offer the entities and queue the cells to.
+   */
+  void searchNearest(NearestSearch search);
+
+  /**
+   * @param queryRange The rectangle to search in.
+   * @return A list of the entities in the rectangle.
+   */
+  List<Entity> query(Rectangle queryRange);
+
+  /**
+   * Brings the index up to date with the positions of the entities at the end of a step.
+   * @param entities All entities in the field.
+   */
+  void update(List<Entity> entities);
+
+  /**
+   * Walks the index, so it is meant for diagnostics rather than every step.
+   * @return The depth of the deepest cell of the index, 0 for an index that is not a tree.
+   */
+  default int getDepth() {
+    return 0;
+  }
+
+  /**
+   * Draws the cells of the index.
+   * Used only for debug purposes.
+   */
+  void draw(Display display, double scale);
+
+  /**
+   * Called by the field when an entity is spawned. Indexes that are rebuilt on every
+   * update ignore it, as the entity is added by the next update.
+   * @param entity The spawned entity.
+   */
+  default void entitySpawned(Entity entity) {}
+
+  /**
+   * Called by the field when a dead entity is removed. Indexes that are rebuilt on every
+   * update ignore it.
+   * @param entity The removed entity.
+   */
+  default void entityRemoved(Entity entity) {}
+
+  /**
+   * Called by the field when an entity moved in a step, before the next update. Indexes
+   * that are rebuilt on every update ignore it.
+   * @param entity The entity that moved.
+   */
+  default void entityMoved(Entity entity) {}
+}
@@ -0,0 +1,256 @@
+package simulation.spatialIndex;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import entities.Plant;
+import entities.generic.Entity;
+import simulation.quadTree.*;
+import simulation.simulationData.*;
+import util.Parser;
+import util.Vector;
+
+/**
+ * Tests for the spatial indexes. Checks that every index finds the same entities as
+ * testing every entity, after entities are inserted, moved and removed.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class SpatialIndexTest {
+  private static final double SIZE = 200;
+
+  private final Random random = new Random(7);
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    SimulationData simulationData = null;
+    try {
+      simulationData = Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+    Data.setSimulationData(simulationData);
+  }
+
+  /**
+   * @return A list of the indexes to test, all over the same area.
+   */
+  private List<SpatialIndex> createIndexes() {
+    Rectangle bounds = new Rectangle(0, 0, SIZE, SIZE);
+    return List.of(
+      new QuadTree(bounds, 2),
+      new IncrementalQuadTree(bounds, 4),
+      new UniformGrid(bounds, 16),
+      new BoundedQuadTree(bounds, 4, 6)
+    );
+  }
+
+  /**
+   * @return A plant at a random point, sometimes on the centre lines or the border of the field.
+   */
+  private Plant randomPlant() {
+    double x = random.nextInt(4) == 0 ? SIZE / 2 : random.nextDouble() * SIZE;
+    double y = random.nextInt(4) == 0 ? SIZE : random.nextDouble() * SIZE;
+    return new Plant(Data.getPlantsData()[0].generateRandomGenetics(), new Vector(x, y));
+  }
+
+  /**
+   * Checks the index returns exactly the entities in the range, ignoring duplicates.
+   * Expects at least one entity.
+   */
+  private void assertQueriesMatch(SpatialIndex index, List<Entity> entities) {
+    for (int i = 0; i < 30; i++) {
+      Circle circle = new Circle(new Vector(random.nextDouble() * SIZE, random.nextDouble() * SIZE), random.nextDouble() * 50);
+      Rectangle rect = new Rectangle(random.nextDouble() * SIZE, random.nextDouble() * SIZE, random.nextDouble() * 60, random.nextDouble() * 60);
+
+      Set<Entity> inCircle = Collections.newSetFromMap(new IdentityHashMap<>());
+      Set<Entity> inRect = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (Entity e : entities) {
+        if (circle.hasPoint(e.getPosition())) inCircle.add(e);
+        if (rect.hasPoint(e.getPosition())) inRect.add(e);
+      }
+
+      Set<Entity> foundInCircle = Collections.newSetFromMap(new IdentityHashMap<>());
+      foundInCircle.addAll(index.query(circle));
+      Set<Entity> foundInRect = Collections.newSetFromMap(new IdentityHashMap<>());
+      foundInRect.addAll(index.query(rect));
+
+      assertEquals(inCircle, foundInCircle, index.getClass().getSimpleName());
+
+      // The buffer and count variants must agree with the list query:
+      List<Entity> buffer = new ArrayList<>(List.of(entities.get(0)));
+      int added = index.query(circle.centre().x(), circle.centre().y(), circle.r(), buffer);
+      assertEquals(buffer.size() - 1, added);
+      assertEquals(added, index.countInRadius(circle.centre().x(), circle.centre().y(), circle.r()));
+      assertEquals(inRect, foundInRect, index.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  void testQuery_MatchesBruteForceAfterUpdates() {
+    for (SpatialIndex index : createIndexes()) {
+      List<Entity> entities = new ArrayList<>();
+
+      for (int step = 0; step < 20; step++) {
+        // Spawn, move and remove entities the way the field does:
+        for (int i = 0; i < 40; i++) {
+          Plant plant = randomPlant();
+          entities.add(plant);
+          index.entitySpawned(plant);
+        }
+        for (Entity e : entities) {
+          if (random.nextBoolean()) continue;
+          Vector p = e.getPosition();
+          e.setPosition(new Vector(
+            Math.max(0, Math.min(SIZE, p.x() + random.nextGaussian() * 10)),
+            Math.max(0, Math.min(SIZE, p.y() + random.nextGaussian() * 10))
+          ));
+          index.entityMoved(e);
+        }
+        entities.removeIf(e -> {
+          if (random.nextInt(4) != 0) return false;
+          index.entityRemoved(e);
+          return true;
+        });
+        index.update(entities);
+
+        assertQueriesMatch(index, entities);
+      }
+    }
+  }
+
+  @Test
+  void testIncrementalQuadTree_MatchesATreeBuiltAnew() {
+    IncrementalQuadTree tree = new IncrementalQuadTree(new Rectangle(0, 0, SIZE, SIZE), 4);
+    List<Entity> entities = new ArrayList<>();
+
+    for (int step = 0; step < 30; step++) {
+      // Grow the population, then shrink it, so that nodes are split and merged again:
+      int spawned = step < 15 ? 40 : 5;
+      for (int i = 0; i < spawned; i++) {
+        Plant plant = randomPlant();
+        entities.add(plant);
+        tree.entitySpawned(plant);
+      }
+      for (Entity e : entities) {
+        if (random.nextBoolean()) continue;
+        Vector p = e.getPosition();
+        e.setPosition(new Vector(
+          Math.max(0, Math.min(SIZE, p.x() + random.nextGaussian() * 10)),
+          Math.max(0, Math.min(SIZE, p.y() + random.nextGaussian() * 10))
+        ));
+        tree.entityMoved(e);
+      }
+      int removeOneIn = step < 15 ? 4 : 2;
+      entities.removeIf(e -> {
+        if (random.nextInt(removeOneIn) != 0) return false;
+        tree.entityRemoved(e);
+        return true;
+      });
+      tree.update(entities);
+
+      // A tree built from the same entities in field order, as when a snapshot is restored:
+      IncrementalQuadTree built = new IncrementalQuadTree(new Rectangle(0, 0, SIZE, SIZE), 4);
+      built.update(entities);
+      assertEquals(built.getDepth(), tree.getDepth());
+      assertEquals(built.query(new Rectangle(0, 0, SIZE, SIZE)), tree.query(new Rectangle(0, 0, SIZE, SIZE)));
+    }
+  }
+
+  @Test
+  void testRemove_EntityIsNotFoundAnymore() {
+    for (SpatialIndex index : createIndexes()) {
+      List<Entity> entities = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        entities.add(randomPlant());
+      }
+      index.update(entities);
+
+      for (int i = 0; i < 50; i++) {
+        index.remove(entities.remove(entities.size() - 1));
+      }
+
+      assertQueriesMatch(index, entities);
+    }
+  }
+
+  @Test
+  void testTiledIndex_FindsEachEntityOnceBeyondTheHalo() {
+    // Plants see at most 25 units, so the larger circles reach beyond the halo into other tiles:
+    TiledIndex index = new TiledIndex(new Rectangle(0, 0, SIZE, SIZE), 50, tile -> new UniformGrid(tile, 16));
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      entities.add(randomPlant());
+    }
+    index.update(entities);
+    assertQueriesMatch(index, entities);
+
+    for (int i = 0; i < 150; i++) {
+      index.remove(entities.remove(random.nextInt(entities.size())));
+    }
+    assertQueriesMatch(index, entities);
+  }
+
+  @Test
+  void testInsert_CoLocatedEntitiesStayInOneBucket() {
+    BoundedQuadTree tree = new BoundedQuadTree(new Rectangle(0, 0, SIZE, SIZE), 2, 8);
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      entities.add(new Plant(Data.getPlantsData()[0].generateRandomGenetics(), new Vector(SIZE / 2, SIZE / 2)));
+    }
+    tree.update(entities);
+
+    assertEquals(entities.size(), tree.query(new Circle(new Vector(SIZE / 2, SIZE / 2), 1)).size());
+    assertEquals(entities.size(), tree.query(new Rectangle(0, 0, SIZE, SIZE)).size());
+  }
+
+  @Test
+  void testNearest_MatchesBruteForce() {
+    for (SpatialIndex index : createIndexes()) {
+      List<Entity> entities = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+        entities.add(randomPlant());
+      }
+      index.update(entities);
+
+      // Only every third entity passes the filter:
+      Set<Entity> accepted = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (int i = 0; i < entities.size(); i += 3) {
+        accepted.add(entities.get(i));
+      }
+      Predicate<Entity> filter = accepted::contains;
+
+      for (int i = 0; i < 30; i++) {
+        double x = random.nextDouble() * SIZE;
+        double y = random.nextDouble() * SIZE;
+        double maxDistance = 10 + random.nextDouble() * 60;
+        Comparator<Entity> byDistance = Comparator.comparingDouble(e -> e.getPosition().subtract(new Vector(x, y)).getMagnitudeSquared());
+        List<Entity> expected = entities.stream()
+          .filter(filter)
+          .filter(e -> new Circle(new Vector(x, y), maxDistance).hasPoint(e.getPosition()))
+          .sorted(byDistance)
+          .limit(5)
+          .toList();
+
+        List<Entity> found = new ArrayList<>();
+        assertEquals(expected.size(), index.nearest(x, y, maxDistance, 5, filter, found), index.getClass().getSimpleName());
+        assertEquals(expected, found, index.getClass().getSimpleName());
+        assertEquals(expected.isEmpty() ? null : expected.get(0), index.nearest(x, y, maxDistance, filter));
+      }
+    }
+  }
+}
@@ -0,0 +1,328 @@
+package simulation.spatialIndex;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import entities.generic.Entity;
+import graphics.Display;
+import simulation.quadTree.Rectangle;
+
+/**
+ * Splits the field into square tiles, each with its own spatial index, so that the indexes
+ * can be rebuilt in parallel and the entities of a tile can be updated together by one worker.
+ *
+ * The index of a tile holds the entities in the tile and, as a halo, the entities at most
+ * as far outside it as the largest search radius of any entity. A search around a point
+ * in a tile then only needs the index of that tile. On every update the entities are handed
+ * to the tile they have moved into, and the halos are copied again.
+ *
+ * The entities of a tile index are inserted in field order. With grid tiles aligned to the
+ * cells of the untiled grid, every search finds the same entities in the same order as the
+ * untiled grid does, so tiling does not change the simulation. Tiles of other indexes give
+ * the same entities, but their order may differ from the untiled index.
+ *
+ * A search reaching beyond the halo visits several tiles, which share the entities near
+ * their borders. Each tile then only gives the entities it owns, those whose position is in
+ * the tile, so that every entity is found once without keeping a set of the entities found.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class TiledIndex implements SpatialIndex {
+  private static final double HALO_SLACK = 1.25; // The halo is grown by this much more than needed, so it is rarely regrown.
+  private static final ThreadLocal<List<Entity>> COUNTED = ThreadLocal.withInitial(ArrayList::new); // Buffer of each thread for counts beyond the halo.
+
+  private final Rectangle bounds; // The area of the field.
+  private final double tileSize; // The width and height of a tile.
+  private final int columns; // The number of tiles along the x axis.
+  private final int rows; // The number of tiles along the y axis.
+  private final Function<Rectangle, SpatialIndex> indexFactory; // Makes the empty index of a tile and its halo.
+
+  private final SpatialIndex[] indexes; // The index of each tile, covering the tile and its halo.
+  private final List<List<Entity>> tileEntities = new ArrayList<>(); // The entities of each tile and its halo, in field order; only used by update.
+  private final List<List<Entity>> ownedEntities = new ArrayList<>(); // The entities in each tile, in field order.
+  private double halo = 0; // How far outside its tile the index of a tile reaches.
+  private ForkJoinPool pool = null; // Rebuilds the indexes of the tiles in parallel, null to rebuild them on the calling thread.
+
+  /**
+   * Constructor -- Create an empty tiled index over the given area.
+   * @param bounds The area of the field.
+   * @param tileSize The width and height of a tile; should be well above the largest search radius.
+   * @param indexFactory Makes the empty index of a tile, given the area of the tile and its halo.
+   */
+  public TiledIndex(Rectangle bounds, double tileSize, Function<Rectangle, SpatialIndex> indexFactory) {
+    if (tileSize <= 0) {
+      throw new IllegalArgumentException("tileSize must be positive");
+    }
+    this.bounds = bounds;
+    this.tileSize = tileSize;
+    this.indexFactory = indexFactory;
+    columns = Math.max(1, (int) Math.ceil(bounds.w() / tileSize));
+    rows = Math.max(1, (int) Math.ceil(bounds.h() / tileSize));
+    indexes = new SpatialIndex[columns * rows];
+    for (int tile = 0; tile < indexes.length; tile++) {
+      tileEntities.add(new ArrayList<>());
+      ownedEntities.add(new ArrayList<>());
+    }
+    createIndexes();
+  }
+
+  /**
+   * Makes an empty index for every tile, reaching as far as the current halo.
+   */
+  private void createIndexes() {
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        Rectangle area = new Rectangle(
+          bounds.x() + column * tileSize - halo,
+          bounds.y() + row * tileSize - halo,
+          tileSize + 2 * halo,
+          tileSize + 2 * halo
+        );
+        indexes[row * columns + column] = indexFactory.apply(area);
+      }
+    }
+  }
+
+  /**
+   * Hands every entity to the tile it is in and to the halos it is in, then rebuilds the
+   * index of every tile, in parallel on the pool if there is one.
+   * @param entities All entities in the field.
+   */
+  @Override
+  public void update(List<Entity> entities) {
+    double searchRadius = 0;
+    for (Entity entity : entities) {
+      searchRadius = Math.max(searchRadius, entity.getSearchRadius());
+    }
+    if (searchRadius > halo) { // Offspring may see further than any entity before them.
+      halo = searchRadius * HALO_SLACK;
+      createIndexes();
+    }
+
+    for (int tile = 0; tile < indexes.length; tile++) {
+      tileEntities.get(tile).clear();
+      ownedEntities.get(tile).clear();
+    }
+    for (Entity entity : entities) {
+      double x = entity.getX();
+      double y = entity.getY();
+      ownedEntities.get(tileOf(x, y)).add(entity);
+      for (int row = rowOf(y - halo); row <= rowOf(y + halo); row++) {
+        for (int column = columnOf(x - halo); column <= columnOf(x + halo); column++) {
+          tileEntities.get(row * columns + column).add(entity);
+        }
+      }
+    }
+
+    if (pool == null) {
+      for (int tile = 0; tile < indexes.length; tile++) {
+        indexes[tile].update(tileEntities.get(tile));
+      }
+      return;
+    }
+    List<ForkJoinTask<?>> rebuilds = new ArrayList<>(indexes.length);
+    for (int tile = 0; tile < indexes.length; tile++) {
+      SpatialIndex index = indexes[tile];
+      List<Entity> indexed = tileEntities.get(tile);
+      rebuilds.add(ForkJoinTask.adapt(() -> index.update(indexed)));
+    }
+    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(rebuilds)));
+  }
+
+  /**
+   * Sets the pool the indexes of the tiles are rebuilt on, such as the pool the simulation
+   * is stepped on, so that the rebuild uses the same threads.
+   * @param pool The pool, null to rebuild the indexes on the calling thread.
+   */
+  public void setPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Add an entity to the tile it is in and to the halos it is in.
+   * @param entity The entity to add.
+   */
+  @Override
+  public void insert(Entity entity) {
+    double x = entity.getX();
+    double y = entity.getY();
+    ownedEntities.get(tileOf(x, y)).add(entity);
+    for (int row = rowOf(y - halo); row <= rowOf(y + halo); row++) {
+      for (int column = columnOf(x - halo); column <= columnOf(x + halo); column++) {
+        indexes[row * columns + column].insert(entity);
+      }
+    }
+  }
+
+  /**
+   * Remove an entity from every tile that holds it. The tile of its current position is
+   * tried first: if the entity is still owned by it, only the tiles whose halo reaches that
+   * tile can hold it. Otherwise, as the entity has moved to another tile, every tile is tried.
+   * @param entity The entity to remove.
+   */
+  @Override
+  public void remove(Entity entity) {
+    int tile = tileOf(entity.getX(), entity.getY());
+    if (!ownedEntities.get(tile).remove(entity)) {
+      for (int other = 0; other < indexes.length; other++) {
+        ownedEntities.get(other).remove(entity);
+        indexes[other].remove(entity);
+      }
+      return;
+    }
+    double tileX = bounds.x() + (tile % columns) * tileSize;
+    double tileY = bounds.y() + (tile / columns) * tileSize;
+    for (int row = rowOf(tileY - halo); row <= rowOf(tileY + tileSize + halo); row++) {
+      for (int column = columnOf(tileX - halo); column <= columnOf(tileX + tileSize + halo); column++) {
+        indexes[row * columns + column].remove(entity);
+      }
+    }
+  }
+
+  /**
+   * Adds the entities in a circle to a list owned by the caller. A circle within the halo
+   * is searched in the index of its tile only; a larger circle in the tiles it reaches, each
+   * giving only the entities it owns.
+   * @return The number of entities added.
+   */
+  @Override
+  public int query(double x, double y, double radius, List<Entity> foundEntities) {
+    if (radius <= halo) {
+      return indexes[tileOf(x, y)].query(x, y, radius, foundEntities);
+    }
+    int start = foundEntities.size();
+    for (int row = rowOf(y - radius); row <= rowOf(y + radius); row++) {
+      for (int column = columnOf(x - radius); column <= columnOf(x + radius); column++) {
+        int tile = row * columns + column;
+        int kept = foundEntities.size();
+        int end = kept + indexes[tile].query(x, y, radius, foundEntities);
+        for (int i = kept; i < end; i++) {
+          Entity entity = foundEntities.get(i);
+          if (tileOf(entity.getSnapshotX(), entity.getSnapshotY()) == tile) foundEntities.set(kept++, entity);
+        }
+        while (foundEntities.size() > kept) foundEntities.remove(foundEntities.size() - 1);
+      }
+    }
+    return foundEntities.size() - start;
+  }
+
+  /**
+   * @return The number of entities in the circle.
+   */
+  @Override
+  public int countInRadius(double x, double y, double radius) {
+    if (radius <= halo) {
+      return indexes[tileOf(x, y)].countInRadius(x, y, radius);
+    }
+    List<Entity> counted = COUNTED.get();
+    counted.clear();
+    int count = query(x, y, radius, counted);
+    counted.clear(); // Do not keep the entities alive.
+    return count;
+  }
+
+  /**
+   * Searches the index of the tile of the query point, and the indexes of the tiles around
+   * it if the search reaches beyond the halo.
+   * @param search The search to offer the entities to.
+   */
+  @Override
+  public void searchNearest(NearestSearch search) {
+    double x = search.getX();
+    double y = search.getY();
+    int tile = tileOf(x, y);
+    indexes[tile].searchNearest(search);
+    double reach = Math.sqrt(search.bound());
+    if (reach <= halo) return;
+
+    // Entities offered again by the other tiles are skipped by the search:
+    for (int row = rowOf(y - reach); row <= rowOf(y + reach); row++) {
+      for (int column = columnOf(x - reach); column <= columnOf(x + reach); column++) {
+        if (row * columns + column != tile) indexes[row * columns + column].searchNearest(search);
+      }
+    }
+  }
+
+  /**
+   * @param queryRange The rectangle to search in.
+   * @return A list of the entities in the rectangle.
+   */
+  @Override
+  public List<Entity> query(Rectangle queryRange) {
+    List<Entity> foundEntities = new ArrayList<>();
+    for (int row = rowOf(queryRange.y()); row <= rowOf(queryRange.y() + queryRange.h()); row++) {
+      for (int column = columnOf(queryRange.x()); column <= columnOf(queryRange.x() + queryRange.w()); column++) {
+        int tile = row * columns + column;
+        for (Entity entity : indexes[tile].query(queryRange)) {
+          if (tileOf(entity.getSnapshotX(), entity.getSnapshotY()) == tile) foundEntities.add(entity);
+        }
+      }
+    }
+    return foundEntities;
+  }
+
+  /**
+   * @return The depth of the deepest tile index.
+   */
+  @Override
+  public int getDepth() {
+    int depth = 0;
+    for (SpatialIndex index : indexes) {
+      depth = Math.max(depth, index.getDepth());
+    }
+    return depth;
+  }
+
+  /**
+   * Draws the borders of the tiles and the cells of their indexes.
+   * Used only for debug purposes.
+   */
+  @Override
+  public void draw(Display display, double scale) {
+    for (SpatialIndex index : indexes) {
+      index.draw(display, scale);
+    }
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        double x = bounds.x() + column * tileSize;
+        double y = bounds.y() + row * tileSize;
+        display.drawRectangle((int) (x / scale), (int) (y / scale), (int) (tileSize / scale), (int) (tileSize / scale), Color.RED, false);
+      }
+    }
+  }
+
+  /**
+   * Points outside the field belong to the nearest border tile.
+   */
+  private int columnOf(double x) {
+    return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - bounds.x()) / tileSize)));
+  }
+
+  private int rowOf(double y) {
+    return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - bounds.y()) / tileSize)));
+  }
+
+  private int tileOf(double x, double y) {
+    return rowOf(y) * columns + columnOf(x);
+  }
+
+  /**
+   * @return The entities in each tile at the last update, in field order. Every entity of
+   * the field is in exactly one tile.
+   */
+  public List<List<Entity>> getTiles() {
+    return ownedEntities;
+  }
+
+  /**
+   * @return How far outside its tile the index of a tile reaches.
+   */
+  public double getHalo() {
+    return halo;
+  }
+}
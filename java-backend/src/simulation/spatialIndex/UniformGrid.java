@@ -0,0 +1,309 @@
+package simulation.spatialIndex;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import entities.generic.Entity;
+import graphics.Display;
+import simulation.quadTree.Rectangle;
+
+/**
+ * A uniform grid of square cells over the field, rebuilt on every update. Each cell is a
+ * linked list threaded through flat int arrays, and the positions are copied into flat
+ * double arrays, so a query only touches the entity objects that it returns. Suits the
+ * small and similar query radii of the simulation; the cell size should be about the
+ * typical query radius.
+ *
+ * Queries test the positions the entities had at the last update (or insert), which are the
+ * snapshot positions during a two-phase step.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class UniformGrid implements SpatialIndex {
+  private static final int NONE = -1; // Marks the end of a cell list.
+
+  private final double originX; // The x coordinate of the top left corner of the grid.
+  private final double originY; // The y coordinate of the top left corner of the grid.
+  private final double cellSize; // The width and height of a cell.
+  private final int columns; // The number of cells along the x axis.
+  private final int rows; // The number of cells along the y axis.
+
+  private final int[] head; // The first slot of each cell, or NONE if the cell is empty.
+  private int[] next; // The next slot in the same cell, or NONE.
+  private double[] px; // The x coordinate of the entity in each slot.
+  private double[] py; // The y coordinate of the entity in each slot.
+  private Entity[] items; // The entity in each slot.
+  private int size = 0; // Number of slots in use, slots are always packed at the front.
+
+  /**
+   * Constructor -- Create an empty grid over the given area.
+   * @param bounds The area of the grid, should be the area of the field.
+   * @param cellSize The width and height of a cell.
+   */
+  public UniformGrid(Rectangle bounds, double cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("cellSize must be positive");
+    }
+    originX = bounds.x();
+    originY = bounds.y();
+    this.cellSize = cellSize;
+    columns = Math.max(1, (int) Math.ceil(bounds.w() / cellSize));
+    rows = Math.max(1, (int) Math.ceil(bounds.h() / cellSize));
+    head = new int[columns * rows];
+    Arrays.fill(head, NONE);
+
+    int capacity = 256;
+    next = new int[capacity];
+    px = new double[capacity];
+    py = new double[capacity];
+    items = new Entity[capacity];
+  }
+
+  /**
+   * Rebuilds the grid with the given entities.
+   * @param entities All entities in the field.
+   */
+  @Override
+  public void update(List<Entity> entities) {
+    Arrays.fill(head, NONE);
+    Arrays.fill(items, 0, size, null); // Let go of the removed entities.
+    size = 0;
+    ensureCapacity(entities.size());
+    for (Entity entity : entities) {
+      insert(entity);
+    }
+  }
+
+  /**
+   * Add an entity to the grid, at its current position.
+   * @param entity The entity to add.
+   */
+  @Override
+  public void insert(Entity entity) {
+    ensureCapacity(size + 1);
+    int slot = size++;
+    px[slot] = entity.getX();
+    py[slot] = entity.getY();
+    items[slot] = entity;
+
+    int cell = cellOf(px[slot], py[slot]);
+    next[slot] = head[cell];
+    head[cell] = slot;
+  }
+
+  /**
+   * Remove an entity from the grid. The last slot is moved into the freed slot to keep
+   * the slots packed.
+   * @param entity The entity to remove.
+   */
+  @Override
+  public void remove(Entity entity) {
+    int slot = findSlot(entity);
+    if (slot == NONE) return;
+    unlink(slot);
+
+    int last = --size;
+    if (slot != last) {
+      // Point the cell list of the last slot at its new place:
+      int cell = cellOf(px[last], py[last]);
+      if (head[cell] == last) {
+        head[cell] = slot;
+      } else {
+        int previous = head[cell];
+        while (next[previous] != last) previous = next[previous];
+        next[previous] = slot;
+      }
+      next[slot] = next[last];
+      px[slot] = px[last];
+      py[slot] = py[last];
+      items[slot] = items[last];
+    }
+    items[last] = null;
+  }
+
+  /**
+   * Adds the entities in a circle to a list owned by the caller.
+   * @return The number of entities added.
+   */
+  @Override
+  public int query(double x, double y, double radius, List<Entity> foundEntities) {
+    return queryInternal(x, y, radius, foundEntities);
+  }
+
+  /**
+   * @return The number of entities in the circle.
+   */
+  @Override
+  public int countInRadius(double x, double y, double radius) {
+    return queryInternal(x, y, radius, null);
+  }
+
+  /**
+   * Visits the cells overlapping the bounding box of the circle.
+   * @param foundEntities The list to add the entities to, null to only count them.
+   * @return The number of entities found.
+   */
+  private int queryInternal(double x, double y, double radius, List<Entity> foundEntities) {
+    double radiusSquared = radius * radius;
+    int minColumn = columnOf(x - radius);
+    int maxColumn = columnOf(x + radius);
+    int minRow = rowOf(y - radius);
+    int maxRow = rowOf(y + radius);
+
+    int found = 0;
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        for (int slot = head[row * columns + column]; slot != NONE; slot = next[slot]) {
+          double dx = px[slot] - x;
+          double dy = py[slot] - y;
+          if (dx * dx + dy * dy < radiusSquared) {
+            if (foundEntities != null) foundEntities.add(items[slot]);
+            found++;
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Visits the cells in rings around the cell of the query point, stopping once the next
+   * ring is too far away to hold one of the nearest entities. Cells are small and close
+   * to each other, so no queue is needed.
+   * @param search The search to offer the entities to.
+   */
+  @Override
+  public void searchNearest(NearestSearch search) {
+    int centreColumn = columnOf(search.getX());
+    int centreRow = rowOf(search.getY());
+    int maxRing = Math.max(columns, rows);
+
+    for (int ring = 0; ring <= maxRing; ring++) {
+      // Every cell of the ring is at least ring - 1 whole cells away from the query point:
+      double ringDistance = Math.max(0, ring - 1) * cellSize;
+      if (ringDistance * ringDistance >= search.bound()) return;
+
+      for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+        if (row < 0 || row >= rows) continue;
+        // Only the first and last rows of the ring are full, the others only have their ends:
+        int step = (row == centreRow - ring || row == centreRow + ring) ? 1 : Math.max(1, 2 * ring);
+        for (int column = centreColumn - ring; column <= centreColumn + ring; column += step) {
+          if (column < 0 || column >= columns) continue;
+          double cellX = originX + column * cellSize;
+          double cellY = originY + row * cellSize;
+          if (search.distanceSquaredTo(cellX, cellY, cellSize, cellSize) >= search.bound()) continue;
+          for (int slot = head[row * columns + column]; slot != NONE; slot = next[slot]) {
+            search.offer(items[slot], px[slot], py[slot]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @param queryRange The rectangle to search in.
+   * @return A list of the entities in the rectangle.
+   */
+  @Override
+  public List<Entity> query(Rectangle queryRange) {
+    List<Entity> foundEntities = new ArrayList<>();
+    double maxX = queryRange.x() + queryRange.w();
+    double maxY = queryRange.y() + queryRange.h();
+
+    int minColumn = columnOf(queryRange.x());
+    int maxColumn = columnOf(maxX);
+    int minRow = rowOf(queryRange.y());
+    int maxRow = rowOf(maxY);
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        for (int slot = head[row * columns + column]; slot != NONE; slot = next[slot]) {
+          if (px[slot] >= queryRange.x() && px[slot] <= maxX && py[slot] >= queryRange.y() && py[slot] <= maxY) {
+            foundEntities.add(items[slot]);
+          }
+        }
+      }
+    }
+    return foundEntities;
+  }
+
+  /**
+   * Draws the cells that hold entities.
+   * Used only for debug purposes.
+   */
+  @Override
+  public void draw(Display display, double scale) {
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        if (head[row * columns + column] == NONE) continue;
+        double x = originX + column * cellSize;
+        double y = originY + row * cellSize;
+        display.drawRectangle((int) (x / scale), (int) (y / scale), (int) (cellSize / scale), (int) (cellSize / scale), Color.GRAY, false);
+      }
+    }
+  }
+
+  /**
+   * @return The slot of the entity, or NONE if it is not in the grid.
+   */
+  private int findSlot(Entity entity) {
+    // Try the cell of the current position first, as the entity has most likely not moved far.
+    for (int slot = head[cellOf(entity.getX(), entity.getY())]; slot != NONE; slot = next[slot]) {
+      if (items[slot] == entity) return slot;
+    }
+    for (int slot = 0; slot < size; slot++) {
+      if (items[slot] == entity) return slot;
+    }
+    return NONE;
+  }
+
+  /**
+   * Takes a slot out of its cell list.
+   */
+  private void unlink(int slot) {
+    int cell = cellOf(px[slot], py[slot]);
+    if (head[cell] == slot) {
+      head[cell] = next[slot];
+      return;
+    }
+    int previous = head[cell];
+    while (next[previous] != slot) previous = next[previous];
+    next[previous] = next[slot];
+  }
+
+  /**
+   * Grows the slot arrays to hold at least the given number of slots.
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity <= items.length) return;
+    int newCapacity = Math.max(capacity, items.length * 2);
+    next = Arrays.copyOf(next, newCapacity);
+    px = Arrays.copyOf(px, newCapacity);
+    py = Arrays.copyOf(py, newCapacity);
+    items = Arrays.copyOf(items, newCapacity);
+  }
+
+  /**
+   * Points outside the grid belong to the nearest border cell.
+   */
+  private int columnOf(double x) {
+    return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - originX) / cellSize)));
+  }
+
+  private int rowOf(double y) {
+    return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - originY) / cellSize)));
+  }
+
+  private int cellOf(double x, double y) {
+    return rowOf(y) * columns + columnOf(x);
+  }
+
+  /**
+   * @return The number of entities in the grid.
+   */
+  public int size() {
+    return size;
+  }
+}
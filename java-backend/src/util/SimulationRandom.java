@@ -0,0 +1,93 @@
+package util;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A seedable stream of pseudo-random numbers for the simulation. Uses the same SplitMix64
+ * algorithm as java.util.SplittableRandom, so splitting off independent streams is cheap.
+ * Each engine owns a root stream made from its seed, and every entity owns a stream split
+ * from it, which keeps runs reproducible and avoids the shared state behind Math.random().
+ * Unlike SplittableRandom, the state of the stream can be read and restored.
+ * 
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class SimulationRandom implements RandomGenerator {
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L; // The gamma of root streams.
+
+  private long seed; // The current state of the stream.
+  private final long gamma; // The increment of the state, always odd.
+
+  /**
+   * Constructor -- Create a root stream from a seed.
+   * @param seed The seed of the stream.
+   */
+  public SimulationRandom(long seed) {
+    this(seed, GOLDEN_GAMMA);
+  }
+
+  /**
+   * Constructor -- Create a stream with the given state.
+   * @param seed The state of the stream.
+   * @param gamma The increment of the state, must be odd.
+   */
+  public SimulationRandom(long seed, long gamma) {
+    if ((gamma & 1L) == 0) {
+      throw new IllegalArgumentException("gamma must be odd");
+    }
+    this.seed = seed;
+    this.gamma = gamma;
+  }
+
+  /**
+   * Splits off a new stream that is statistically independent of this one. Advances this stream.
+   * @return The new stream.
+   */
+  public SimulationRandom split() {
+    return new SimulationRandom(nextLong(), mixGamma(nextSeed()));
+  }
+
+  @Override
+  public long nextLong() {
+    return mix64(nextSeed());
+  }
+
+  /**
+   * Advances the state of the stream.
+   */
+  private long nextSeed() {
+    return seed += gamma;
+  }
+
+  /**
+   * Finaliser of the SplitMix64 algorithm.
+   */
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Makes a well-mixed odd gamma for a split stream.
+   */
+  private static long mixGamma(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    z = (z ^ (z >>> 33)) | 1L;
+    int n = Long.bitCount(z ^ (z >>> 1));
+    return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+  }
+
+  /**
+   * Restores the state of the stream, as read with getSeed. The gamma is fixed at construction.
+   * @param seed The state of the stream.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  // Getters:
+  public long getSeed() { return seed; }
+  public long getGamma() { return gamma; }
+}
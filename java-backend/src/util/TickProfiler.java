@@ -0,0 +1,161 @@
+package util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times the phases of the steps of a simulation and of the frames of an engine, keeping the
+ * latency of the last WINDOW runs of every phase so that the median, the 99th percentile
+ * and the maximum of the recent runs can be read at any time.
+ *
+ * The profiler can be switched on and off while the simulation runs. When it is off, the
+ * timed code only reads a flag; when it is on, a phase costs a System.nanoTime call and an
+ * array write. The phases are timed on the thread that runs the simulation, and may be read
+ * from any thread. Subclasses can observe every timed phase, such as to emit it as an event,
+ * and have the phases timed while the profiler itself is off.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class TickProfiler {
+  public static final int WINDOW = 1024; // The number of recent runs of each phase kept.
+
+  /**
+   * A timed phase. The phases of a step are timed by the simulator, the others by the engine
+   * and the display.
+   */
+  public enum Phase {
+    UPDATE, // Updating the entities.
+    SPAWN, // Adding the entities born in the step.
+    REMOVE_DEAD, // Removing the entities that died in the step.
+    SPATIAL_INDEX, // Updating the spatial index.
+    ENVIRONMENT, // Updating the time and weather.
+    STEP, // The whole step.
+    RENDER, // Drawing a frame.
+    SERIALIZE, // Turning a frame into JSON.
+    SEND, // Sending a frame to the viewer.
+    FRAME, // The whole frame, with its steps.
+  }
+
+  /**
+   * The latency of a phase over its recent runs, in milliseconds.
+   * @param count The number of runs timed since the profiler was made or reset.
+   */
+  public record Summary(long count, double p50, double p99, double max) {}
+
+  private final long[][] samples = new long[Phase.values().length][WINDOW]; // The recent latencies of each phase, in nanoseconds, as a ring.
+  private final long[] counts = new long[Phase.values().length]; // The number of runs of each phase timed.
+  private volatile boolean enabled; // Whether the phases are timed.
+
+  /**
+   * Constructor -- Create a profiler.
+   * @param enabled Whether to time the phases from the start.
+   */
+  public TickProfiler(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Times a phase that ran from a time until now. Called only while isTiming is true.
+   * @param phase The phase.
+   * @param start When the phase started, from System.nanoTime.
+   * @return Now, from System.nanoTime, the start of the next phase.
+   */
+  public long record(Phase phase, long start) {
+    return record(phase, start, -1);
+  }
+
+  /**
+   * Times a phase that ran from a time until now, and produced something of a size.
+   * @param phase The phase.
+   * @param start When the phase started, from System.nanoTime.
+   * @param size The size of what the phase produced, such as the length of a serialized frame.
+   * @return Now, from System.nanoTime, the start of the next phase.
+   */
+  public long record(Phase phase, long start, long size) {
+    long now = System.nanoTime();
+    if (enabled) {
+      synchronized (this) {
+        int p = phase.ordinal();
+        samples[p][(int) (counts[p]++ % WINDOW)] = now - start;
+      }
+    }
+    onPhase(phase, start, now, size);
+    return now;
+  }
+
+  /**
+   * Called after every timed phase, on the thread that ran it.
+   * @param phase The phase.
+   * @param start When the phase started, from System.nanoTime.
+   * @param end When the phase ended, from System.nanoTime.
+   * @param size The size of what the phase produced, -1 if not given.
+   */
+  protected void onPhase(Phase phase, long start, long end, long size) {}
+
+  /**
+   * @return Whether the phases should be timed even though the profiler is off.
+   */
+  protected boolean isObserved() {
+    return false;
+  }
+
+  /**
+   * @return Whether the phases are timed, read once at the start of a step or frame.
+   */
+  public boolean isTiming() {
+    return enabled || isObserved();
+  }
+
+  /**
+   * @return The latency of a phase over its recent runs, all zero if it never ran.
+   */
+  public synchronized Summary getSummary(Phase phase) {
+    int p = phase.ordinal();
+    int n = (int) Math.min(counts[p], WINDOW);
+    if (n == 0) return new Summary(0, 0, 0, 0);
+    long[] sorted = Arrays.copyOf(samples[p], n);
+    Arrays.sort(sorted);
+    return new Summary(
+      counts[p],
+      sorted[(n - 1) / 2] / 1e6,
+      sorted[(int) Math.ceil(n * 0.99) - 1] / 1e6,
+      sorted[n - 1] / 1e6
+    );
+  }
+
+  /**
+   * @return The latency of every phase that ran, by phase name, in phase order.
+   */
+  public Map<String, Summary> getSummaries() {
+    Map<String, Summary> summaries = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      Summary summary = getSummary(phase);
+      if (summary.count() > 0) summaries.put(phase.name().toLowerCase(), summary);
+    }
+    return summaries;
+  }
+
+  /**
+   * Forgets every run timed so far.
+   */
+  public synchronized void reset() {
+    Arrays.fill(counts, 0);
+  }
+
+  /**
+   * Switches the timing on or off, from the next step or frame on.
+   * @param enabled Whether to time the phases.
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return Whether the latencies of the phases are collected.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+}
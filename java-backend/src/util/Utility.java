@@ -1,8 +1,7 @@
 package util;
 
-import simulation.simulationData.Data;
-
 import java.awt.Color;
+import java.util.random.RandomGenerator;
 
 /**
  * Utility class for various mathematical operations, constants, and helpers.
@@ -20,30 +19,21 @@ public class Utility {
     return a + t * (b - a);
   }
 
-  /**
-   * Adds a random change in value to a colour.
-   * Uses pre-defined mutation factor from the simulation data.
-   * @param color The colour to mutate.
-   * @return The mutated colour.
-   */
-  public static Color mutateColor(Color color, double mutationRate) {
-    return Utility.mutateColor(color, mutationRate, Data.getMutationFactor());
-  }
-
   /**
    * Adds a random change in value to a colour.
    * @param color The colour to mutate.
    * @param mutationFactor How drastic the mutation is.
+   * @param random The random stream to use.
    * @return The mutated colour.
    */
-  public static Color mutateColor(Color color, double mutationRate, double mutationFactor) {
+  public static Color mutateColor(Color color, double mutationRate, double mutationFactor, RandomGenerator random) {
     if (mutationFactor < 0 || mutationFactor > 1) {
       throw new IllegalArgumentException("mutationFactor must be between 0 and 1");
     }
 
-    int r = mutateChannel(color.getRed(), mutationRate, mutationFactor);
-    int g = mutateChannel(color.getGreen(), mutationRate, mutationFactor);
-    int b = mutateChannel(color.getBlue(), mutationRate, mutationFactor);
+    int r = mutateChannel(color.getRed(), mutationRate, mutationFactor, random);
+    int g = mutateChannel(color.getGreen(), mutationRate, mutationFactor, random);
+    int b = mutateChannel(color.getBlue(), mutationRate, mutationFactor, random);
 
     return new Color(r, g, b);
   }
@@ -52,11 +42,12 @@ public class Utility {
    * Adjusts a single RGB value randomly.
    * @param value The RGB value to mutate.
    * @param mutationFactor How drastic the mutation is.
+   * @param random The random stream to use.
    * @return The mutated value.
    */
-  private static int mutateChannel(int value, double mutationRate, double mutationFactor) {
-    if (Math.random() >= mutationRate) return value; // No mutation.
-    int mutation = (int) (value * mutationFactor * (Math.random() > 0.5 ? 1 : -1));
+  private static int mutateChannel(int value, double mutationRate, double mutationFactor, RandomGenerator random) {
+    if (random.nextDouble() >= mutationRate) return value; // No mutation.
+    int mutation = (int) (value * mutationFactor * (random.nextDouble() > 0.5 ? 1 : -1));
     return Math.max(0, Math.min(255, value + mutation)); // Clamp between 0 and 255.
   }
 
@@ -66,14 +57,15 @@ public class Utility {
    * between the corresponding components of the parent colours.
    * @param animal The first parent colour.
    * @param mate The second parent colour.
+   * @param random The random stream to use.
    * @return A new Color object representing the offspring colour.
    */
-  public static Color breedColor(Color animal, Color mate) {
-    double r = Math.random();
+  public static Color breedColor(Color animal, Color mate, RandomGenerator random) {
+    double r = random.nextDouble();
     int red = (int) Math.round(r * animal.getRed() + (1 - r) * mate.getRed());
-    r = Math.random();
+    r = random.nextDouble();
     int green = (int) Math.round(r * animal.getGreen() + (1 - r) * mate.getGreen());
-    r = Math.random();
+    r = random.nextDouble();
     int blue = (int) Math.round(r * animal.getBlue() + (1 - r) * mate.getBlue());
     return new Color(red, green, blue);
   }
@@ -1,5 +1,8 @@
 package util;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 /**
  * A record that represents a 2D vector with two double values.
  * Also used for representing positions of entities in the field.
@@ -75,10 +78,11 @@ public record Vector(double x, double y) {
   
   /**
    * Get a random point in a radius around this vector.
+   * @param random The random stream to use.
    */
-  public Vector getRandomPointInRadius(double radius) {
-    double angle = Math.random() * Math.PI * 2;
-    double distance = Math.random() * radius;
+  public Vector getRandomPointInRadius(double radius, RandomGenerator random) {
+    double angle = random.nextDouble() * Math.PI * 2;
+    double distance = random.nextDouble() * radius;
     return new Vector(x + Math.cos(angle) * distance, y + Math.sin(angle) * distance);
   }
 
@@ -93,6 +97,7 @@ public record Vector(double x, double y) {
    * Get a random vector.
    */
   public static Vector getRandomVector() {
-    return new Vector(Math.random() * 2 - 1, Math.random() * 2 - 1);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1);
   }
 }
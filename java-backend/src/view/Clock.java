@@ -1,46 +1,105 @@
 package view;
 
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Handles delay between simulation steps at correct frames per second.
- * 
+ *
+ * Waits by parking the thread until shortly before the next frame is due, and only spins
+ * for the last fraction of a millisecond, where parking is too coarse. An engine that is
+ * waiting for its next frame therefore uses almost no CPU. Frames are scheduled against
+ * fixed deadlines, so the frame rate does not drift with the time a step takes.
+ *
  * @author Anas Ahmed and Mehmet Kutay Bozkurt
  * @version 1.0
  */
 public class Clock {
+  private static final long SPIN_NANOS = 500_000; // Spin instead of parking for the last half millisecond.
+  private static final double SMOOTHING = 0.1; // Weight of the newest frame in the averaged frame time and jitter.
+
   private final double fps; // Frames per second to run the simulation at.
-  private double lastTick; // To calculate the delta time.
-  private double deltaTime; // Time between simulation steps in nanoseconds.
+  private final long frameNanos; // The target time between two ticks, in nanoseconds.
+  private long nextTick; // The deadline of the next tick.
+  private long lastTick; // To calculate the delta time.
+  private long deltaTime; // Time between the last two ticks in nanoseconds.
+  private double averageFrameNanos; // Exponential moving average of the time between ticks.
+  private double jitterNanos; // Exponential moving average of how far a frame time was from the target.
 
   /**
    * Constructor for the Clock class to handle the delay between simulation steps.
    * @param fps The frames per second to run the simulation at.
    */
   public Clock(int fps) {
+    if (fps <= 0) {
+      throw new IllegalArgumentException("fps must be positive");
+    }
     this.fps = fps;
+    frameNanos = 1_000_000_000L / fps;
     lastTick = System.nanoTime();
+    nextTick = lastTick + frameNanos;
+    deltaTime = frameNanos;
+    averageFrameNanos = frameNanos;
   }
 
   /**
-   * Waits a clock cycle (1 / fps) by waiting in a while loop.
+   * Waits until the next frame is due: parks the thread until just before the deadline,
+   * then spins for the rest. Returns early if the thread is interrupted, leaving the
+   * interrupt flag set. A frame that overran by more than a whole frame moves the schedule
+   * forward instead of running the missed frames back to back.
    */
   public void tick() {
-    while (System.nanoTime() < lastTick + (double) 1_000_000_000 / fps);
-    deltaTime = System.nanoTime() - lastTick;
-    lastTick = System.nanoTime();
+    long remaining;
+    while ((remaining = nextTick - System.nanoTime()) > SPIN_NANOS) {
+      LockSupport.parkNanos(remaining - SPIN_NANOS);
+      if (Thread.currentThread().isInterrupted()) break;
+    }
+    while (System.nanoTime() < nextTick && !Thread.currentThread().isInterrupted()) {
+      Thread.onSpinWait();
+    }
+
+    long now = System.nanoTime();
+    deltaTime = now - lastTick;
+    lastTick = now;
+    nextTick += frameNanos;
+    if (now - nextTick > frameNanos) nextTick = now + frameNanos; // Fell behind, do not try to catch up.
+
+    averageFrameNanos += SMOOTHING * (deltaTime - averageFrameNanos);
+    jitterNanos += SMOOTHING * (Math.abs(deltaTime - frameNanos) - jitterNanos);
   }
 
   /**
    * Useful for debug or performance testing.
-   * @return The current FPS of the simulation.
+   * @return The measured FPS of the simulation, averaged over the last frames.
    */
   public double getCurrentFps() {
-    return fps / getDeltaTime();
+    return 1_000_000_000d / averageFrameNanos;
   }
 
   /**
-   * @return The delta time of the simulation.
+   * @return The delta time of the simulation, the last frame time relative to the target (1 = on time).
    */
   public double getDeltaTime() {
     return deltaTime * fps / 1_000_000_000;
   }
-}
\ No newline at end of file
+
+  /**
+   * @return The time between the last two ticks, in milliseconds.
+   */
+  public double getFrameTimeMillis() {
+    return deltaTime / 1e6;
+  }
+
+  /**
+   * @return The averaged time between ticks, in milliseconds.
+   */
+  public double getAverageFrameTimeMillis() {
+    return averageFrameNanos / 1e6;
+  }
+
+  /**
+   * @return The averaged difference between the frame times and the target frame time, in milliseconds.
+   */
+  public double getJitterMillis() {
+    return jitterNanos / 1e6;
+  }
+}
@@ -2,27 +2,153 @@ package view;
 
 import entities.generic.Entity;
 import graphics.Display;
+import simulation.PopulationCounter;
 import simulation.Simulator;
-import simulation.simulationData.Data;
+import simulation.TraitStatistics;
+import simulation.history.TimeSeries;
+import util.TickProfiler;
+import util.TickProfiler.Phase;
+import simulation.simulationData.SimulationContext;
+import simulation.snapshot.SimulationRecorder;
+import simulation.snapshot.SimulationSnapshot;
 
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
 
 /**
  * Combines the Simulator and Display to visualise the simulation.
- * This is the "engine" that runs the entire simulation. Holds the Clock
- * object to keep track of time.
+ * This is the "engine" that runs the entire simulation. Its frames are run by the shared
+ * EngineScheduler, or on a thread of its own that waits with the Clock.
+ * 
+ * By default the simulation is stepped once per rendered frame. With a fixed simulation
+ * rate, the elapsed time is accumulated every frame and spent in whole steps of a fixed
+ * length, so the speed of the ecology does not depend on the frame rate or on how long
+ * rendering takes. After falling behind, at most a bounded number of steps are run in a
+ * frame and the rest of the backlog is dropped.
+ * 
+ * A speed multiplier runs several steps for every step that would otherwise run. A
+ * fast-forward runs the simulation without rendering up to a step or a day, in slices of
+ * about a tenth of a second so that other engines on the scheduler still get their frames,
+ * and reports its progress to the viewer after every slice.
  * 
  * @author Anas Ahmed and Mehmet Kutay Bozkurt
  * @version 1.0
  */
 public class Engine {
+  private static final Logger logger = LoggerFactory.getLogger(Engine.class);
+  public static final int MAX_SPEED_MULTIPLIER = 64; // The fastest the simulation can be sped up to.
+  private static final long FAST_FORWARD_SLICE_NANOS = 100_000_000; // Time a fast-forward runs for between two progress reports.
+  private static final long TRAIT_STATISTICS_INTERVAL_NANOS = 1_000_000_000; // Time between two trait statistics sent to the viewer.
+
   private final Display display; // The GUI display.
   private final Simulator simulator; // The simulation.
+  private final TimeSeries history; // The history of the populations and traits, for viewers joining mid-run.
+  private final TickProfiler profiler; // Times the phases of the steps and frames, off until switched on or recorded by the flight recorder.
   private final Clock clock; // Clock to keep track of time.
   private final String id; // Unique ID for this engine instance.
-  private boolean running = false; // Whether the simulation is running.
+  private final SimulationContext context; // The parameters of the simulation of this engine.
+  private final int fps; // Frames per second to render the simulation at.
+  private final LongSupplier time; // The time the steps are due against in nanoseconds, System.nanoTime except in tests.
+  private volatile boolean running = false; // Whether the simulation is running.
+
+  private final long stepNanos; // The fixed time of a simulation step in nanoseconds, 0 to step once per frame.
+  private final int maxCatchUpSteps; // Most steps run in a single frame.
+  private long accumulator = 0; // Elapsed time not yet spent on steps, in nanoseconds.
+  private long lastFrameTime; // When the last frame started, to measure the elapsed time.
+  private long stepCount = 0; // Number of steps run.
+  private long droppedSteps = 0; // Number of steps skipped because the engine fell too far behind.
+  private volatile int speedMultiplier = 1; // Steps run for every step due.
+  private volatile FastForward fastForward = null; // The fast-forward being run, null if none.
+  private SimulationRecorder recorder = null; // Records every step, null if the simulation is not recorded.
+  private long lastTraitStatisticsTime = 0; // When the trait statistics were last sent.
+  private final Queue<SnapshotRequest> snapshotRequests = new ConcurrentLinkedQueue<>(); // Snapshots to capture at the next frame.
+
+  /**
+   * A snapshot asked for from another thread.
+   * @param path The file to write the snapshot to.
+   * @param future Completes once the snapshot is written.
+   */
+  private record SnapshotRequest(Path path, CompletableFuture<Path> future) {}
+
+  /**
+   * A fast-forward to a step or to a day, whichever comes first.
+   * @param targetStep The step to run to, Long.MAX_VALUE for none.
+   * @param targetDay The day to run to, Integer.MAX_VALUE for none.
+   * @param startStep The step the fast-forward started at.
+   * @param startTime When the fast-forward started, in nanoseconds.
+   * @param cancelled Whether the fast-forward was cancelled before reaching its target.
+   */
+  private record FastForward(long targetStep, int targetDay, long startStep, long startTime, boolean cancelled) {
+    /**
+     * @return The same fast-forward, cancelled.
+     */
+    FastForward cancel() {
+      return new FastForward(targetStep, targetDay, startStep, startTime, true);
+    }
+  }
+
+  /**
+   * The progress of a fast-forward, sent to the viewer.
+   * @param type Always "fast_forward", to tell it apart from frames.
+   * @param step The current step.
+   * @param day The current day.
+   * @param targetStep The step run to, -1 for none.
+   * @param targetDay The day run to, -1 for none.
+   * @param stepsPerSecond The steps run per second so far.
+   * @param done Whether the fast-forward is over and frames follow again.
+   */
+  private record FastForwardProgress(String type, long step, int day, long targetStep, int targetDay, double stepsPerSecond, boolean done) {}
+
+  /**
+   * The statistics of the genetic traits of every living species, sent to the viewer.
+   * @param type Always "trait_statistics", to tell it apart from frames.
+   * @param step The current step.
+   * @param species The statistics of each species with entities, in species id order.
+   */
+  private record TraitStatisticsMessage(String type, long step, List<SpeciesTraits> species) {}
+
+  /**
+   * @param name The name of the species.
+   * @param count The number of entities of the species.
+   * @param traits The statistics of each trait of the species, by trait name.
+   */
+  private record SpeciesTraits(String name, int count, Map<String, TraitSummary> traits) {}
+
+  /**
+   * @param histogram The number of entities in each bucket, evenly spanning low to high.
+   */
+  private record TraitSummary(double mean, double standardDeviation, double min, double max, double low, double high, int[] histogram) {}
+
+  /**
+   * The history of some columns, sent to the viewer when asked for.
+   * @param type Always "history", to tell it apart from frames.
+   * @param ticks The tick of each row, oldest first.
+   * @param columns The values of each column by row, null where there was no value.
+   */
+  private record HistoryMessage(String type, long[] ticks, Map<String, Float[]> columns) {}
+
+  /**
+   * The latency of the phases of the recent steps and frames, sent to the viewer every
+   * second while profiling.
+   * @param type Always "profile", to tell it apart from frames.
+   * @param step The current step.
+   * @param phases The latency of every phase that ran, by phase name.
+   */
+  private record ProfileMessage(String type, long step, Map<String, TickProfiler.Summary> phases) {}
 
   /**
    * 0 < scaleFactor < 1 => field is zoomed in.
@@ -35,64 +161,304 @@ public class Engine {
    * Constructor - Create an engine to run the simulation.
    * @param displayWidth The width of the GUI display.
    * @param displayHeight The height of the GUI display.
-   * @param fps FPS to run the simulation at.
+   * @param fps FPS to render (and broadcast) the simulation at.
+   * @param context The parameters of the simulation, not shared with other engines.
+   */
+  public Engine(int displayWidth, int displayHeight, int fps, String id, SimulationContext context) {
+    this(
+      new Simulator(context, (int) (displayWidth * context.getFieldScaleFactor()), (int) (displayHeight * context.getFieldScaleFactor())),
+      displayWidth, displayHeight, fps, id
+    );
+  }
+
+  /**
+   * Constructor - Create an engine to run an existing simulation, such as a restored snapshot.
+   * @param simulator The simulation to run; its context is the context of the engine.
+   * @param displayWidth The width of the GUI display.
+   * @param displayHeight The height of the GUI display.
+   * @param fps FPS to render (and broadcast) the simulation at.
+   */
+  public Engine(Simulator simulator, int displayWidth, int displayHeight, int fps, String id) {
+    this(simulator, displayWidth, displayHeight, fps, id, System::nanoTime);
+  }
+
+  /**
+   * Constructor - Create an engine whose steps are due against a given time, such as a
+   * time set by a test.
+   * @param time The current time in nanoseconds.
    */
-  public Engine(int displayWidth, int displayHeight, int fps, String id) {
-    fieldScaleFactor = Data.getFieldScaleFactor();
-    int fieldWidth = (int) (displayWidth * fieldScaleFactor);
-    int fieldHeight = (int) (displayHeight * fieldScaleFactor);
+  Engine(Simulator simulator, int displayWidth, int displayHeight, int fps, String id, LongSupplier time) {
+    this.simulator = simulator;
+    this.time = time;
+    context = simulator.getField().getContext();
+    fieldScaleFactor = context.getFieldScaleFactor();
     this.id = id;
+    this.fps = fps;
 
-    simulator = new Simulator(fieldWidth, fieldHeight);
     display = new Display(displayWidth, displayHeight, id);
     clock = new Clock(fps);
+
+    double stepsPerSecond = context.getSimulationStepsPerSecond();
+    stepNanos = stepsPerSecond > 0 ? (long) (1_000_000_000 / stepsPerSecond) : 0;
+    maxCatchUpSteps = context.getMaxCatchUpSteps();
+    lastFrameTime = time.getAsLong();
+
+    history = new TimeSeries(simulator.getField());
+    simulator.addStepListener(history);
+    profiler = new FlightRecorderProfiler(id, simulator);
+    display.setProfiler(profiler);
   }
 
   /**
-   * Main loop of the simulation.
+   * Main loop of the simulation, when it runs on its own thread.
    */
   private void run() {
     while (running) {
-      simulator.step();
-      display.fill(Color.BLACK);
+      runFrame();
+      clock.tick();
+    }
+    onStopped();
+  }
 
-      List<Entity> entities = simulator.getField().getAllEntities();
-      // We draw the entities in order of oldest to youngest to prevent annoying overlap.
-      for (int i = entities.size() - 1; i >= 0; i--) {
-        Entity entity = entities.get(i);
-        entity.draw(display, fieldScaleFactor);
+  /**
+   * Runs the steps due for this frame, then renders the field. Must not be called
+   * concurrently.
+   */
+  void runFrame() {
+    captureSnapshots();
+    FastForward fastForward = this.fastForward;
+    if (fastForward != null) {
+      runFastForward(fastForward);
+      return;
+    }
+    boolean profiling = profiler.isTiming();
+    long start = profiling ? System.nanoTime() : 0;
+    if (stepNanos == 0) {
+      int steps = speedMultiplier;
+      for (int i = 0; i < steps; i++) {
+        simulator.step();
       }
+      stepCount += steps;
+    } else {
+      advance();
+    }
+    render();
+    if (profiling) profiler.record(Phase.FRAME, start);
+  }
 
-      // Draw the weather effects.
-      if (Data.getDoWeatherCycle()) {
-        simulator.getField().environment.drawWeatherEffects(display);
-      }
+  /**
+   * Runs a slice of a fast-forward without rendering, and reports the progress. A stop
+   * takes effect after the slice, as after any other frame.
+   */
+  private void runFastForward(FastForward fastForward) {
+    long sliceEnd = time.getAsLong() + FAST_FORWARD_SLICE_NANOS;
+    boolean done;
+    while (!(done = hasReached(fastForward)) && time.getAsLong() < sliceEnd) {
+      simulator.step();
+      stepCount++;
+    }
 
-      // Draw the darkning screen effect before any text to not obscure them:
-      if (Data.getDoDayNightCycle()) {
-        simulator.getField().environment.drawDarknessEffect(display);
+    long now = time.getAsLong();
+    if (done) {
+      synchronized (this) {
+        if (this.fastForward == fastForward) this.fastForward = null;
       }
+      lastFrameTime = now; // Do not catch up on the time spent fast-forwarding.
+      accumulator = 0;
+    }
+    double seconds = (now - fastForward.startTime()) / 1e9;
+    display.sendMessage(new Gson().toJson(new FastForwardProgress(
+      "fast_forward",
+      simulator.getTick(),
+      simulator.getField().environment.getDay(),
+      fastForward.targetStep() == Long.MAX_VALUE ? -1 : fastForward.targetStep(),
+      fastForward.targetDay() == Integer.MAX_VALUE ? -1 : fastForward.targetDay(),
+      seconds > 0 ? (simulator.getTick() - fastForward.startStep()) / seconds : 0,
+      done
+    )));
+  }
 
-      // Debug tool to show the quadtree. It also looks really cool!
-      if (Data.getShowQuadTrees()) {
-        simulator.getField().getQuadtree().draw(display, fieldScaleFactor);
-      }
+  /**
+   * @return Whether a fast-forward was cancelled, or the simulation is at its target step or day.
+   */
+  private boolean hasReached(FastForward fastForward) {
+    return fastForward.cancelled() || simulator.getTick() >= fastForward.targetStep() || simulator.getField().environment.getDay() >= fastForward.targetDay();
+  }
 
-      // Draw the weather text.
-      if (Data.getDoWeatherCycle()) {
-        simulator.getField().environment.drawWeatherText(display);
-      }
+  /**
+   * Adds the time elapsed since the last frame to the accumulator and spends it in fixed
+   * steps, at most maxCatchUpSteps of them. Time left over after that is dropped, except
+   * for the part of a step that was not due yet.
+   */
+  private void advance() {
+    long now = time.getAsLong();
+    int speedMultiplier = this.speedMultiplier;
+    accumulator += (now - lastFrameTime) * speedMultiplier;
+    lastFrameTime = now;
 
-      // Draw the time text.
-      if (Data.getDoDayNightCycle()) {
-        simulator.getField().environment.drawTimeText(display);
-      }
+    int steps = 0;
+    while (accumulator >= stepNanos && steps < maxCatchUpSteps * speedMultiplier) {
+      simulator.step();
+      accumulator -= stepNanos;
+      steps++;
+    }
+    if (accumulator >= stepNanos) {
+      droppedSteps += accumulator / stepNanos;
+      accumulator %= stepNanos;
+    }
+    stepCount += steps;
+  }
 
-      drawFieldDataText();
+  /**
+   * Captures the snapshots asked for since the last frame and hands them to the writer
+   * thread, so the simulation is captured between two steps and not slowed down by the disk.
+   */
+  private void captureSnapshots() {
+    SnapshotRequest request = snapshotRequests.poll();
+    if (request == null) return;
+    SimulationSnapshot snapshot = SimulationSnapshot.capture(simulator);
+    for (; request != null; request = snapshotRequests.poll()) {
+      SnapshotRequest finalRequest = request;
+      snapshot.writeAsync(request.path()).whenComplete((path, error) -> {
+        if (error != null) finalRequest.future().completeExceptionally(error);
+        else finalRequest.future().complete(path);
+      });
+    }
+  }
 
-      display.update();
-      clock.tick();
+  /**
+   * Sets how many steps run for every step that is due; 1 for normal speed.
+   * @param speedMultiplier The speed multiplier, from 1 to MAX_SPEED_MULTIPLIER.
+   */
+  public void setSpeedMultiplier(int speedMultiplier) {
+    if (speedMultiplier < 1 || speedMultiplier > MAX_SPEED_MULTIPLIER) {
+      throw new IllegalArgumentException("The speed multiplier must be between 1 and " + MAX_SPEED_MULTIPLIER);
+    }
+    this.speedMultiplier = speedMultiplier;
+  }
+
+  /**
+   * Runs the simulation without rendering until a step, replacing any fast-forward running.
+   * @param step The step to run to; nothing is run if the simulation is past it.
+   */
+  public synchronized void fastForwardToStep(long step) {
+    fastForward = new FastForward(step, Integer.MAX_VALUE, simulator.getTick(), time.getAsLong(), false);
+  }
+
+  /**
+   * Runs the simulation without rendering until a day starts, replacing any fast-forward running.
+   * @param day The day to run to; nothing is run if the simulation is past it.
+   */
+  public synchronized void fastForwardToDay(int day) {
+    if (!context.getDoDayNightCycle() || context.getDayNightCycleSpeed() <= 0) {
+      throw new IllegalStateException("Fast-forwarding to a day needs the day-night cycle to be on");
+    }
+    fastForward = new FastForward(Long.MAX_VALUE, day, simulator.getTick(), time.getAsLong(), false);
+  }
+
+  /**
+   * Stops the fast-forward running, if any; the next frame reports it done, with its
+   * targets, and rendering resumes at the frame after.
+   */
+  public synchronized void cancelFastForward() {
+    if (fastForward == null) return;
+    fastForward = fastForward.cancel();
+  }
+
+  /**
+   * Saves a snapshot of the simulation, captured at the start of the next frame and written
+   * in the background while the simulation keeps running.
+   * @param path The file to write the snapshot to.
+   * @return Completes with the path once the snapshot is written. Never completes if the engine is not running.
+   */
+  public CompletableFuture<Path> saveSnapshot(Path path) {
+    CompletableFuture<Path> future = new CompletableFuture<>();
+    snapshotRequests.add(new SnapshotRequest(path, future));
+    return future;
+  }
+
+  /**
+   * Draws the field and everything on it to the display, and sends it.
+   */
+  private void render() {
+    boolean profiling = profiler.isTiming();
+    long start = profiling ? System.nanoTime() : 0;
+    display.fill(Color.BLACK);
+
+    List<Entity> entities = simulator.getField().getAllEntities();
+    // We draw the entities in order of oldest to youngest to prevent annoying overlap.
+    for (int i = entities.size() - 1; i >= 0; i--) {
+      Entity entity = entities.get(i);
+      entity.draw(display, fieldScaleFactor);
+    }
+
+    // Draw the weather effects.
+    if (context.getDoWeatherCycle()) {
+      simulator.getField().environment.drawWeatherEffects(display);
+    }
+
+    // Draw the darkning screen effect before any text to not obscure them:
+    if (context.getDoDayNightCycle()) {
+      simulator.getField().environment.drawDarknessEffect(display);
+    }
+
+    // Debug tool to show the cells of the spatial index. It also looks really cool!
+    if (context.getShowQuadTrees()) {
+      simulator.getField().getSpatialIndex().draw(display, fieldScaleFactor);
+    }
+
+    // Draw the weather text.
+    if (context.getDoWeatherCycle()) {
+      simulator.getField().environment.drawWeatherText(display);
+    }
+
+    // Draw the time text.
+    if (context.getDoDayNightCycle()) {
+      simulator.getField().environment.drawTimeText(display);
+    }
+
+    drawFieldDataText();
+    if (profiling) profiler.record(Phase.RENDER, start);
+
+    display.update();
+
+    long now = time.getAsLong();
+    if (now - lastTraitStatisticsTime >= TRAIT_STATISTICS_INTERVAL_NANOS) {
+      lastTraitStatisticsTime = now;
+      sendTraitStatistics();
+      if (profiler.isEnabled()) sendProfile();
+    }
+  }
+
+  /**
+   * Sends the latency of the phases of the recent steps and frames to the viewer.
+   */
+  private void sendProfile() {
+    display.sendMessage(new Gson().toJson(new ProfileMessage("profile", simulator.getTick(), profiler.getSummaries())));
+  }
+
+  /**
+   * Sends the statistics of the genetic traits to the viewer. They are kept up to date by
+   * the field, so this only reads them.
+   */
+  private void sendTraitStatistics() {
+    TraitStatistics statistics = simulator.getField().getTraitStatistics();
+    List<SpeciesTraits> species = new ArrayList<>();
+    for (int id = 0; id < statistics.getSpeciesCount(); id++) {
+      Map<String, TraitSummary> traits = new LinkedHashMap<>();
+      int count = 0;
+      for (TraitStatistics.Trait trait : TraitStatistics.Trait.values()) {
+        TraitStatistics.Statistic statistic = statistics.get(id, trait);
+        if (statistic == null || statistic.getCount() == 0) continue;
+        count = statistic.getCount();
+        traits.put(trait.getKey(), new TraitSummary(
+          statistic.getMean(), statistic.getStandardDeviation(), statistic.getMin(), statistic.getMax(),
+          statistic.getLow(), statistic.getHigh(), statistic.getHistogram()
+        ));
+      }
+      if (count > 0) species.add(new SpeciesTraits(statistics.getName(id), count, traits));
     }
+    display.sendMessage(new Gson().toJson(new TraitStatisticsMessage("trait_statistics", simulator.getTick(), species)));
   }
 
   /**
@@ -100,38 +466,133 @@ public class Engine {
    * in the bottom left corner.
    */
   private void drawFieldDataText() {
-    HashMap<String, Integer> fieldData = simulator.getFieldData();
+    PopulationCounter population = simulator.getField().getPopulation();
+    int species = 0;
+    for (int id = 0; id < population.getSpeciesCount(); id++) {
+      if (population.getCount(id) > 0) species++;
+    }
     int fontSize = 15;
-    int startY = (display.getHeight() - fieldData.size() * fontSize);
+    int startY = (display.getHeight() - species * fontSize);
     int i = 0;
-    for (String entityName : fieldData.keySet()) {
-      String data = entityName + ": " + fieldData.get(entityName);
+    for (int id = 0; id < population.getSpeciesCount(); id++) {
+      if (population.getCount(id) == 0) continue;
+      String data = population.getName(id) + ": " + population.getCount(id);
       display.drawText(data, fontSize, 5, startY + i * fontSize, Color.WHITE);
       i++;
     }
   }
 
   /**
-   * Start simulation asynchronously on a new thread so that it can be
+   * Switches the timing of the phases of the steps and frames on or off. May be called
+   * from any thread; the timings of an earlier run are forgotten.
+   * @param enabled Whether to time the phases.
+   */
+  public void setProfiling(boolean enabled) {
+    if (enabled && !profiler.isEnabled()) profiler.reset();
+    profiler.setEnabled(enabled);
+  }
+
+  /**
+   * Sends the history of the simulation to the viewer. May be called from any thread.
+   * @param columns The columns to send, null for the population and the count of every species.
+   */
+  public void sendHistory(List<String> columns) {
+    if (columns == null) {
+      columns = new ArrayList<>();
+      for (String column : history.getColumns()) {
+        if (column.equals("population") || column.endsWith(".count")) columns.add(column);
+      }
+    }
+    TimeSeries.History rows = history.getHistory(columns);
+    Map<String, Float[]> values = new LinkedHashMap<>();
+    for (int c = 0; c < rows.columns().size(); c++) {
+      Float[] column = new Float[rows.ticks().length];
+      for (int i = 0; i < column.length; i++) {
+        float value = rows.values()[c][i];
+        column[i] = Float.isNaN(value) ? null : value; // JSON has no NaN.
+      }
+      values.put(rows.columns().get(c), column);
+    }
+    display.sendMessage(new Gson().toJson(new HistoryMessage("history", rows.ticks(), values)));
+  }
+
+  /**
+   * Start simulation asynchronously on the shared engine scheduler, so that it can be
    * stopped in the main execution thread.
    */
   public void start() {
     running = true;
+    lastFrameTime = time.getAsLong();
+    EngineScheduler.getShared().schedule(this, fps);
+  }
+
+  /**
+   * Start simulation asynchronously on a new thread of its own.
+   */
+  public void startOnOwnThread() {
+    running = true;
+    lastFrameTime = time.getAsLong();
     Thread t = new Thread(this::run);
     t.start();
   }
 
   /**
-   * Stop the simulation.
+   * Stop the simulation. The frame being run, if any, is finished first.
    */
   public void stop() {
     running = false;
   }
 
+  /**
+   * Records the simulation from now on until the engine stops. Must be called before the
+   * engine is started.
+   * @param path The file to record to.
+   * @param parameters The simulation data the simulation was made from, as JSON.
+   * @param keyframeInterval Steps between two keyframes of the recording.
+   * @throws IOException If the recording cannot be opened.
+   */
+  public void startRecording(Path path, String parameters, int keyframeInterval) throws IOException {
+    if (running) {
+      throw new IllegalStateException("Recording must start before the engine does");
+    }
+    recorder = SimulationRecorder.start(path, parameters, simulator, keyframeInterval);
+  }
+
+  /**
+   * Called once the engine has run its last frame after being stopped.
+   */
+  void onStopped() {
+    if (recorder != null) {
+      try {
+        recorder.close();
+      } catch (IOException e) {
+        logger.error("Failed to finish the recording of engine {}.", id, e);
+      }
+    }
+    simulator.shutdown();
+  }
+
+  /**
+   * @return Whether the simulation is running.
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
   /**
    * @return ID of this engine instance.
    */
   public String getId() {
     return id;
   }
+
+  // Getters:
+  public long getStepCount() { return stepCount; }
+  public long getDroppedSteps() { return droppedSteps; }
+  public Clock getClock() { return clock; }
+  public SimulationRecorder getRecorder() { return recorder; }
+  public TimeSeries getHistory() { return history; }
+  public TickProfiler getProfiler() { return profiler; }
+  public int getSpeedMultiplier() { return speedMultiplier; }
+  public boolean isFastForwarding() { return fastForward != null; }
 }
@@ -0,0 +1,192 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the frames of many engines on a small pool of threads, instead of giving every
+ * engine a thread of its own. Each engine has a deadline for its next frame; a frame is a
+ * task that runs once the deadline has passed and then schedules the next frame one period
+ * after its own deadline. The pool runs the due frames earliest deadline first, so engines
+ * take turns fairly and an engine that falls behind does not starve the others. A frame of
+ * an engine never runs at the same time as another frame of the same engine.
+ *
+ * An engine that falls more than a whole frame behind skips the missed frames instead of
+ * running them back to back. Lag (how late a frame started), overruns (frames that took
+ * longer than the period) and skipped frames are recorded per engine.
+ *
+ * @author Anas Ahmed and Mehmet Kutay Bozkurt
+ * @version 1.0
+ */
+public class EngineScheduler {
+  private static final Logger logger = LoggerFactory.getLogger(EngineScheduler.class);
+  private static final double SMOOTHING = 0.1; // Weight of the newest frame in the averaged lag and frame time.
+  private static EngineScheduler shared = null; // The scheduler shared by the engines of this JVM.
+
+  private final ScheduledThreadPoolExecutor executor; // Runs the frames.
+  private final Map<String, ScheduledEngine> engines = new ConcurrentHashMap<>(); // The scheduled engines by id.
+
+  /**
+   * The timing statistics of a scheduled engine.
+   * @param id The id of the engine.
+   * @param frames The number of frames run.
+   * @param overruns The number of frames that took longer than the frame period.
+   * @param skippedFrames The number of frames skipped because the engine fell too far behind.
+   * @param averageLagMillis The averaged time between the deadline of a frame and its start.
+   * @param maxLagMillis The longest time between the deadline of a frame and its start.
+   * @param averageFrameMillis The averaged time a frame took to run.
+   */
+  public record EngineStats(String id, long frames, long overruns, long skippedFrames, double averageLagMillis, double maxLagMillis, double averageFrameMillis) {}
+
+  /**
+   * The scheduling state of an engine. Only touched by the frame task of the engine,
+   * which never runs concurrently with itself; the statistics are read racily.
+   */
+  private final class ScheduledEngine implements Runnable {
+    private final Engine engine; // The engine to run.
+    private final long periodNanos; // The time between two frames.
+    private long deadline; // When the next frame is due.
+    private volatile long frames = 0; // Number of frames run.
+    private volatile long overruns = 0; // Number of frames longer than the period.
+    private volatile long skippedFrames = 0; // Number of frames skipped.
+    private volatile double averageLagNanos = 0; // Exponential moving average of the lag.
+    private volatile long maxLagNanos = 0; // The largest lag.
+    private volatile double averageFrameNanos = 0; // Exponential moving average of the frame time.
+
+    private ScheduledEngine(Engine engine, long periodNanos) {
+      this.engine = engine;
+      this.periodNanos = periodNanos;
+      this.deadline = System.nanoTime();
+    }
+
+    /**
+     * Runs a frame of the engine, records its timing and schedules the next one.
+     */
+    @Override
+    public void run() {
+      if (!engine.isRunning()) {
+        finish();
+        return;
+      }
+
+      long start = System.nanoTime();
+      long lag = start - deadline;
+      try {
+        engine.runFrame();
+      } catch (RuntimeException e) {
+        logger.error("Engine {} failed to run a frame, stopping it.", engine.getId(), e);
+        engine.stop();
+        finish();
+        return;
+      }
+      long frameNanos = System.nanoTime() - start;
+
+      frames++;
+      if (frameNanos > periodNanos) overruns++;
+      maxLagNanos = Math.max(maxLagNanos, lag);
+      averageLagNanos += SMOOTHING * (lag - averageLagNanos);
+      averageFrameNanos += SMOOTHING * (frameNanos - averageFrameNanos);
+
+      deadline += periodNanos;
+      long now = System.nanoTime();
+      if (now - deadline > periodNanos) { // Fell behind, do not try to catch up.
+        long missed = (now - deadline) / periodNanos;
+        skippedFrames += missed;
+        deadline += missed * periodNanos;
+      }
+      executor.schedule(this, deadline - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void finish() {
+      engines.remove(engine.getId(), this);
+      engine.onStopped();
+    }
+
+    private EngineStats getStats() {
+      return new EngineStats(engine.getId(), frames, overruns, skippedFrames, averageLagNanos / 1e6, maxLagNanos / 1e6, averageFrameNanos / 1e6);
+    }
+  }
+
+  /**
+   * Constructor -- Create a scheduler with its own pool of threads.
+   * @param threads The number of threads running frames.
+   */
+  public EngineScheduler(int threads) {
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, "engine-scheduler-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    executor = new ScheduledThreadPoolExecutor(threads, threadFactory);
+    executor.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * @return The scheduler shared by all engines of this JVM, with a thread per core.
+   */
+  public static synchronized EngineScheduler getShared() {
+    if (shared == null) {
+      shared = new EngineScheduler(Runtime.getRuntime().availableProcessors());
+    }
+    return shared;
+  }
+
+  /**
+   * Starts running the frames of an engine, the first one right away. The engine is
+   * dropped from the scheduler at its first frame after it was stopped.
+   * @param engine The engine to run; must be running.
+   * @param fps The frames per second to run the engine at.
+   */
+  public void schedule(Engine engine, int fps) {
+    if (fps <= 0) {
+      throw new IllegalArgumentException("fps must be positive");
+    }
+    ScheduledEngine scheduledEngine = new ScheduledEngine(engine, 1_000_000_000L / fps);
+    engines.put(engine.getId(), scheduledEngine);
+    executor.execute(scheduledEngine);
+  }
+
+  /**
+   * @return The timing statistics of every scheduled engine.
+   */
+  public List<EngineStats> getStats() {
+    List<EngineStats> stats = new ArrayList<>();
+    for (ScheduledEngine scheduledEngine : engines.values()) {
+      stats.add(scheduledEngine.getStats());
+    }
+    return stats;
+  }
+
+  /**
+   * @param id The id of an engine.
+   * @return The timing statistics of the engine, null if it is not scheduled.
+   */
+  public EngineStats getStats(String id) {
+    ScheduledEngine scheduledEngine = engines.get(id);
+    return scheduledEngine != null ? scheduledEngine.getStats() : null;
+  }
+
+  /**
+   * @return The number of engines being run.
+   */
+  public int getEngineCount() {
+    return engines.size();
+  }
+
+  /**
+   * Stops running frames. Engines still running are not stopped, only no longer run.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,139 @@
+package view;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import simulation.Simulator;
+import simulation.simulationData.*;
+import util.Parser;
+
+/**
+ * Tests for the Engine class. Runs its frames directly against a time set by the test,
+ * and checks how many steps each frame runs.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class EngineTest {
+  private static final long SEED = 42;
+  private static final long MILLIS = 1_000_000; // A millisecond in nanoseconds.
+
+  private SimulationData simulationData;
+  private long now = 0; // The time the engine sees, in nanoseconds.
+  private long timeStep = 0; // How much the time moves on every time the engine reads it.
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final String PATH = System.getProperty("user.dir");
+    try {
+      simulationData = Parser.parseSimulationDataFromFile(PATH + "/simulation_data.json");
+    } catch (Exception e) {
+      System.out.println("Error reading simulation data.");
+      e.printStackTrace();
+      throw e;
+    }
+  }
+
+  /**
+   * @return An engine on a small field, stepping at a fixed rate or once per frame if 0.
+   */
+  private Engine createEngine(double stepsPerSecond) {
+    simulationData.simulationStepsPerSecond = stepsPerSecond;
+    simulationData.maxCatchUpSteps = 5;
+    SimulationContext context = new SimulationContext(simulationData);
+    Simulator simulator = new Simulator(context, 200, 200, 1, SEED);
+    return new Engine(simulator, 200, 200, 30, "test", () -> now += timeStep);
+  }
+
+  @Test
+  void testRunFrame_StepsOncePerFrameTimesTheSpeedMultiplier() {
+    Engine engine = createEngine(0);
+    engine.runFrame();
+    assertEquals(1, engine.getStepCount());
+
+    engine.setSpeedMultiplier(3);
+    engine.runFrame();
+    engine.runFrame();
+    assertEquals(7, engine.getStepCount());
+    assertThrows(IllegalArgumentException.class, () -> engine.setSpeedMultiplier(Engine.MAX_SPEED_MULTIPLIER + 1));
+  }
+
+  @Test
+  void testRunFrame_SpendsTheElapsedTimeInFixedSteps() {
+    Engine engine = createEngine(10); // A step every 100 ms.
+
+    now += 250 * MILLIS;
+    engine.runFrame();
+    assertEquals(2, engine.getStepCount());
+
+    // The 50 ms left over are spent with the next frame:
+    now += 50 * MILLIS;
+    engine.runFrame();
+    assertEquals(3, engine.getStepCount());
+
+    now += 10 * MILLIS;
+    engine.runFrame();
+    assertEquals(3, engine.getStepCount());
+
+    // The speed multiplier speeds up the time the steps are due against:
+    engine.setSpeedMultiplier(2);
+    now += 95 * MILLIS;
+    engine.runFrame();
+    assertEquals(5, engine.getStepCount());
+
+    // After falling behind, at most five steps are caught up on and the rest is dropped:
+    engine.setSpeedMultiplier(1);
+    now += 10_000 * MILLIS;
+    engine.runFrame();
+    assertEquals(10, engine.getStepCount());
+    assertEquals(95, engine.getDroppedSteps());
+  }
+
+  @Test
+  void testFastForward_RunsInSlicesUpToTheTargetStep() {
+    Engine engine = createEngine(0);
+    timeStep = 10 * MILLIS; // Each slice of 100 ms runs a few steps.
+    engine.fastForwardToStep(40);
+
+    engine.runFrame();
+    assertTrue(engine.isFastForwarding());
+    long firstSlice = engine.getStepCount();
+    assertTrue(firstSlice > 0 && firstSlice < 40, "steps in the first slice: " + firstSlice);
+
+    for (int frame = 0; frame < 40 && engine.isFastForwarding(); frame++) {
+      engine.runFrame();
+    }
+    assertFalse(engine.isFastForwarding());
+    assertEquals(40, engine.getStepCount());
+
+    // Frames step as usual again:
+    engine.runFrame();
+    assertEquals(41, engine.getStepCount());
+
+    // A target already passed runs nothing:
+    engine.fastForwardToStep(10);
+    engine.runFrame();
+    assertFalse(engine.isFastForwarding());
+    assertEquals(41, engine.getStepCount());
+  }
+
+  @Test
+  void testCancelFastForward_EndsAtTheNextFrameWithoutSteps() {
+    Engine engine = createEngine(0);
+    timeStep = 10 * MILLIS;
+    engine.fastForwardToStep(1_000_000);
+    engine.runFrame();
+    long stepped = engine.getStepCount();
+
+    engine.cancelFastForward();
+    assertTrue(engine.isFastForwarding()); // Until the next frame reports it done.
+    engine.runFrame();
+    assertFalse(engine.isFastForwarding());
+    assertEquals(stepped, engine.getStepCount());
+
+    engine.cancelFastForward(); // Nothing to cancel.
+    engine.runFrame();
+    assertEquals(stepped + 1, engine.getStepCount());
+  }
+}
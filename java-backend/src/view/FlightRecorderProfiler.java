@@ -0,0 +1,99 @@
+package view;
+
+import simulation.Field;
+import simulation.Simulator;
+import simulation.StepListener;
+import util.TickProfiler;
+
+/**
+ * The profiler of an engine, which also emits the phases it times as flight recorder events
+ * while a recording is on, such as one started with {@code jcmd <pid> JFR.start}: a
+ * StepEvent for every step, a SpatialIndexEvent for every update of the spatial index and a
+ * FrameEvent for every frame, each with the id of the engine. Without a recording the
+ * phases are only timed while the profiler itself is on.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+class FlightRecorderProfiler extends TickProfiler implements StepListener {
+  private final String id; // The id of the engine, put on every event.
+  private final Simulator simulator; // The simulation profiled.
+  private final long[] durations = new long[Phase.values().length]; // The last duration of each phase, in nanoseconds.
+  private long frameLength = 0; // The length of the last serialized frame.
+
+  /**
+   * Constructor -- Create a profiler, off, and attach it to a simulation.
+   * @param id The id of the engine, put on every event.
+   * @param simulator The simulation to profile.
+   */
+  FlightRecorderProfiler(String id, Simulator simulator) {
+    super(false);
+    this.id = id;
+    this.simulator = simulator;
+    simulator.setProfiler(this);
+    simulator.addStepListener(this);
+  }
+
+  /**
+   * The events are only enabled while a recording that wants them is on. Checking costs
+   * next to nothing, as the events that are made here are never used.
+   */
+  @Override
+  protected boolean isObserved() {
+    return new StepEvent().isEnabled() || new SpatialIndexEvent().isEnabled() || new FrameEvent().isEnabled();
+  }
+
+  @Override
+  protected void onPhase(Phase phase, long start, long end, long size) {
+    durations[phase.ordinal()] = end - start;
+    switch (phase) {
+      case SERIALIZE -> frameLength = size;
+      case SPATIAL_INDEX -> {
+        SpatialIndexEvent event = new SpatialIndexEvent();
+        if (!event.shouldCommit()) return;
+        Field field = simulator.getField();
+        event.engineId = id;
+        event.tick = simulator.getTick() + 1; // The step is not over yet.
+        event.index = field.getSpatialIndex().getClass().getSimpleName();
+        event.entities = field.getAllEntities().size() + field.getHaloEntities().size();
+        event.depth = field.getSpatialIndex().getDepth();
+        event.updateTime = end - start;
+        event.commit();
+      }
+      case FRAME -> {
+        FrameEvent event = new FrameEvent();
+        if (!event.shouldCommit()) return;
+        event.engineId = id;
+        event.tick = simulator.getTick();
+        event.render = durations[Phase.RENDER.ordinal()];
+        event.serialize = durations[Phase.SERIALIZE.ordinal()];
+        event.send = durations[Phase.SEND.ordinal()];
+        event.frame = end - start;
+        event.length = frameLength;
+        event.commit();
+      }
+      default -> {}
+    }
+  }
+
+  /**
+   * Emits the step just taken, with the phases timed in it.
+   */
+  @Override
+  public void onStep(Simulator simulator, int births, int deaths) {
+    StepEvent event = new StepEvent();
+    if (!event.shouldCommit()) return;
+    event.engineId = id;
+    event.tick = simulator.getTick();
+    event.population = simulator.getField().getAllEntities().size();
+    event.births = births;
+    event.deaths = deaths;
+    event.update = durations[Phase.UPDATE.ordinal()];
+    event.spawn = durations[Phase.SPAWN.ordinal()];
+    event.removeDead = durations[Phase.REMOVE_DEAD.ordinal()];
+    event.spatialIndex = durations[Phase.SPATIAL_INDEX.ordinal()];
+    event.environment = durations[Phase.ENVIRONMENT.ordinal()];
+    event.step = durations[Phase.STEP.ordinal()];
+    event.commit();
+  }
+}
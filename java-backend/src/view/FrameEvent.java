@@ -0,0 +1,49 @@
+package view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a frame of an engine, committed at the end of the frame with
+ * the time taken to draw, serialize and send it, and the length of the serialized frame.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@Name("simulation.Frame")
+@Label("Simulation Frame")
+@Category("Simulation")
+@Description("A frame of an engine: its steps, drawing, serializing and sending")
+@StackTrace(false)
+public class FrameEvent extends Event {
+  @Label("Engine")
+  String engineId; // The engine of the frame.
+
+  @Label("Tick")
+  long tick; // The tick drawn.
+
+  @Label("Render")
+  @Timespan(Timespan.NANOSECONDS)
+  long render; // Drawing the frame.
+
+  @Label("Serialize")
+  @Timespan(Timespan.NANOSECONDS)
+  long serialize; // Turning the frame into JSON.
+
+  @Label("Send")
+  @Timespan(Timespan.NANOSECONDS)
+  long send; // Sending the frame to the viewer.
+
+  @Label("Frame")
+  @Timespan(Timespan.NANOSECONDS)
+  long frame; // The whole frame, with its steps.
+
+  @Label("Frame Length")
+  @Description("The number of characters of the serialized frame")
+  long length; // The length of the JSON of the frame.
+}
@@ -0,0 +1,307 @@
+package view;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import simulation.Simulator;
+import simulation.distributed.Coordinator;
+import simulation.simulationData.SimulationContext;
+import simulation.snapshot.SimulationRecorder;
+import simulation.snapshot.SimulationReplay;
+import util.Parser;
+import util.TickProfiler;
+
+/**
+ * Runs the simulation without a display, as fast as the CPU allows, for a number of steps
+ * or simulated days, and reports the throughput and the final populations. Used for
+ * capacity planning and offline experiments. A run can be recorded, and a recording replayed
+ * up to any of its ticks. A field too large for one process can be split between several
+ * partition processes on this host. With --profile, the latency of every phase of the
+ * steps is printed after the report.
+ *
+ * Usage: {@code Main --headless [--data <file>] (--steps <n> | --days <n>) [--width <w>] [--height <h>] [--report-every <n>] [--profile] [--record <file> [--keyframe-every <n>]]}
+ * or: {@code Main --headless [--data <file>] (--steps <n> | --days <n>) [--width <w>] [--height <h>] [--report-every <n>] --partitions <n>}
+ * or: {@code Main --headless --replay <file> [--to-tick <n>]}
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+public class HeadlessRunner {
+  private final SimulationContext context; // The parameters of the simulation.
+  private final Simulator simulator; // The simulation, stepped without rendering.
+  private final long reportEvery; // Print a progress line every this many steps, 0 for never.
+  private SimulationRecorder recorder = null; // Records the run, null if it is not recorded.
+  private final TickProfiler profiler; // Times the phases of the steps, off unless switched on or recorded by the flight recorder.
+
+  /**
+   * The outcome of a run.
+   * @param steps The number of steps run.
+   * @param days The number of simulated days that passed.
+   * @param wallNanos The wall time of the run, in nanoseconds.
+   * @param entityCounts The number of entities of each species at the end of the run.
+   */
+  public record Report(long steps, int days, long wallNanos, Map<String, Integer> entityCounts) {
+    /**
+     * @return The number of steps run per second of wall time.
+     */
+    public double stepsPerSecond() {
+      return wallNanos > 0 ? steps * 1_000_000_000d / wallNanos : 0;
+    }
+
+    /**
+     * @return The total number of entities at the end of the run.
+     */
+    public int totalEntities() {
+      return entityCounts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      builder.append(String.format("Steps: %d | Days: %d | Wall time: %.3f s | Steps/sec: %.1f%n", steps, days, wallNanos / 1e9, stepsPerSecond()));
+      builder.append("Entities: ").append(totalEntities());
+      entityCounts.forEach((name, count) -> builder.append(String.format("%n  %s: %d", name, count)));
+      return builder.toString();
+    }
+  }
+
+  /**
+   * Constructor -- Create a runner over a new simulation.
+   * @param context The parameters of the simulation.
+   * @param fieldWidth The width of the field.
+   * @param fieldHeight The height of the field.
+   * @param reportEvery Print a progress line every this many steps, 0 for never.
+   */
+  public HeadlessRunner(SimulationContext context, int fieldWidth, int fieldHeight, long reportEvery) {
+    this.context = context;
+    simulator = new Simulator(context, fieldWidth, fieldHeight);
+    profiler = new FlightRecorderProfiler("headless", simulator);
+    this.reportEvery = reportEvery;
+  }
+
+  /**
+   * Runs a number of steps.
+   * @param steps The number of steps to run.
+   * @return The report of the run.
+   */
+  public Report runSteps(long steps) {
+    int startDay = simulator.getField().environment.getDay();
+    long start = System.nanoTime();
+    for (long step = 1; step <= steps; step++) {
+      simulator.step();
+      reportProgress(step, start);
+    }
+    return report(steps, startDay, start);
+  }
+
+  /**
+   * Runs until a number of simulated days have passed. Needs the day-night cycle, as
+   * otherwise no time passes in the simulation.
+   * @param days The number of days to run.
+   * @return The report of the run.
+   */
+  public Report runDays(int days) {
+    if (!context.getDoDayNightCycle() || context.getDayNightCycleSpeed() <= 0) {
+      throw new IllegalStateException("Running for a number of days needs the day-night cycle to be on");
+    }
+    int startDay = simulator.getField().environment.getDay();
+    long start = System.nanoTime();
+    long steps = 0;
+    while (simulator.getField().environment.getDay() - startDay < days) {
+      simulator.step();
+      reportProgress(++steps, start);
+    }
+    return report(steps, startDay, start);
+  }
+
+  /**
+   * Records the steps run from now on.
+   * @param path The file to record to.
+   * @param parameters The simulation data of the context, as JSON.
+   * @param keyframeInterval Steps between two keyframes of the recording.
+   * @throws IOException If the recording cannot be opened.
+   */
+  public void record(Path path, String parameters, int keyframeInterval) throws IOException {
+    recorder = SimulationRecorder.start(path, parameters, simulator, keyframeInterval);
+  }
+
+  /**
+   * Finishes the recording, if any, and releases the threads of the simulation. The runner
+   * should not be used afterwards.
+   * @throws IOException If the recording could not be written.
+   */
+  public void shutdown() throws IOException {
+    try {
+      if (recorder != null) recorder.close();
+    } finally {
+      simulator.shutdown();
+    }
+  }
+
+  /**
+   * Replays a recording up to a tick, checking it against the recording on the way.
+   * @param path The recording.
+   * @param toTick The tick to replay to, -1 for the last recorded tick.
+   * @return The report of the replay.
+   * @throws IOException If the recording cannot be read.
+   * @throws IllegalStateException If the replay does not match the recording.
+   */
+  public static Report replay(Path path, long toTick) throws IOException {
+    SimulationReplay replay = SimulationReplay.open(path);
+    long tick = toTick >= 0 ? toTick : replay.getLastTick();
+    long start = System.nanoTime();
+    try {
+      int startDay = replay.seek(replay.getFirstTick()).getField().environment.getDay();
+      Simulator simulator = replay.seek(tick);
+      int days = simulator.getField().environment.getDay() - startDay;
+      return new Report(tick - replay.getFirstTick(), days, System.nanoTime() - start, new TreeMap<>(simulator.getFieldData()));
+    } finally {
+      replay.shutdown();
+    }
+  }
+
+  /**
+   * Runs a simulation split between partition processes on this host, each owning a strip
+   * of the field.
+   * @param context The parameters of the simulation.
+   * @param parameters The simulation data of the context, as JSON, handed to the partitions.
+   * @param fieldWidth The width of the field.
+   * @param fieldHeight The height of the field.
+   * @param partitions The number of partition processes.
+   * @param steps The number of steps to run, or -1 to run for a number of days.
+   * @param days The number of days to run, if steps is -1.
+   * @param reportEvery Print a progress line every this many steps, 0 for never.
+   * @return The report of the run.
+   * @throws IOException If a partition fails.
+   */
+  public static Report runDistributed(SimulationContext context, String parameters, int fieldWidth, int fieldHeight, int partitions, long steps, int days, long reportEvery) throws IOException {
+    if (steps < 0 && (!context.getDoDayNightCycle() || context.getDayNightCycleSpeed() <= 0)) {
+      throw new IllegalStateException("Running for a number of days needs the day-night cycle to be on");
+    }
+    long seed = context.getSeed() != null ? context.getSeed() : ThreadLocalRandom.current().nextLong();
+    try (Coordinator coordinator = Coordinator.launch(partitions)) {
+      coordinator.start(parameters, fieldWidth, fieldHeight, seed, context.getStepThreads());
+      int startDay = coordinator.getDay();
+      long start = System.nanoTime();
+      long step = 0;
+      while (steps >= 0 ? step < steps : coordinator.getDay() - startDay < days) {
+        coordinator.step();
+        step++;
+        if (reportEvery > 0 && step % reportEvery == 0) {
+          double seconds = (System.nanoTime() - start) / 1e9;
+          System.out.printf("Step %d | Day %d | Entities: %d %s | Steps/sec: %.1f%n", step, coordinator.getDay(), coordinator.getPopulation(), Arrays.toString(coordinator.getPopulations()), step / seconds);
+        }
+      }
+      return new Report(step, coordinator.getDay() - startDay, System.nanoTime() - start, new TreeMap<>(coordinator.getEntityCounts()));
+    }
+  }
+
+  /**
+   * Prints a progress line if the step is a multiple of reportEvery.
+   */
+  private void reportProgress(long step, long start) {
+    if (reportEvery <= 0 || step % reportEvery != 0) return;
+    double seconds = (System.nanoTime() - start) / 1e9;
+    int entities = simulator.getField().getAllEntities().size();
+    System.out.printf("Step %d | Day %d | Entities: %d | Steps/sec: %.1f%n", step, simulator.getField().environment.getDay(), entities, step / seconds);
+  }
+
+  private Report report(long steps, int startDay, long start) {
+    long wallNanos = System.nanoTime() - start;
+    int days = simulator.getField().environment.getDay() - startDay;
+    return new Report(steps, days, wallNanos, new TreeMap<>(simulator.getFieldData()));
+  }
+
+  // Getters:
+  public Simulator getSimulator() { return simulator; }
+  public TickProfiler getProfiler() { return profiler; }
+
+  /**
+   * Parses the arguments, runs the simulation and prints the report.
+   * @param args The arguments, see the class documentation.
+   */
+  public static void main(String[] args) throws IOException {
+    String dataFile = System.getProperty("user.dir") + "/simulation_data.json";
+    long steps = -1;
+    int days = -1;
+    int width = 600; // The same display size the web API uses.
+    int height = 600;
+    long reportEvery = 0;
+    Path record = null;
+    int keyframeEvery = 1000;
+    Path replay = null;
+    long toTick = -1;
+    int partitions = 0;
+    boolean profile = false;
+
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--data" -> dataFile = valueOf(args, ++i);
+        case "--steps" -> steps = Long.parseLong(valueOf(args, ++i));
+        case "--days" -> days = Integer.parseInt(valueOf(args, ++i));
+        case "--width" -> width = Integer.parseInt(valueOf(args, ++i));
+        case "--height" -> height = Integer.parseInt(valueOf(args, ++i));
+        case "--report-every" -> reportEvery = Long.parseLong(valueOf(args, ++i));
+        case "--record" -> record = Path.of(valueOf(args, ++i));
+        case "--keyframe-every" -> keyframeEvery = Integer.parseInt(valueOf(args, ++i));
+        case "--replay" -> replay = Path.of(valueOf(args, ++i));
+        case "--to-tick" -> toTick = Long.parseLong(valueOf(args, ++i));
+        case "--partitions" -> partitions = Integer.parseInt(valueOf(args, ++i));
+        case "--profile" -> profile = true;
+        default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+      }
+    }
+    if (replay != null) {
+      Report report = replay(replay, toTick);
+      System.out.println("Replayed " + report.steps() + " ticks, matching the recording.");
+      System.out.println(report);
+      return;
+    }
+    if ((steps < 0) == (days < 0)) {
+      throw new IllegalArgumentException("Exactly one of --steps and --days must be given");
+    }
+
+    String parameters = Parser.getContentsOfFile(dataFile);
+    SimulationContext context = new SimulationContext(Parser.parseSimulationData(parameters));
+    int fieldWidth = (int) (width * context.getFieldScaleFactor());
+    int fieldHeight = (int) (height * context.getFieldScaleFactor());
+
+    if (partitions > 0) {
+      if (record != null || profile) {
+        throw new IllegalArgumentException("A run split between partitions cannot be recorded or profiled");
+      }
+      System.out.println(runDistributed(context, parameters, fieldWidth, fieldHeight, partitions, steps, days, reportEvery));
+      return;
+    }
+
+    HeadlessRunner runner = new HeadlessRunner(context, fieldWidth, fieldHeight, reportEvery);
+    try {
+      if (record != null) runner.record(record, parameters, keyframeEvery);
+      runner.getProfiler().setEnabled(profile);
+      Report report = steps >= 0 ? runner.runSteps(steps) : runner.runDays(days);
+      System.out.println(report);
+      if (profile) {
+        System.out.println("Phase latency over the last " + TickProfiler.WINDOW + " steps at most, in ms:");
+        runner.getProfiler().getSummaries().forEach((phase, summary) -> System.out.printf(
+          "  %s: p50 %.3f | p99 %.3f | max %.3f%n", phase, summary.p50(), summary.p99(), summary.max()
+        ));
+      }
+    } finally {
+      runner.shutdown();
+    }
+  }
+
+  /**
+   * @return The value following an option.
+   */
+  private static String valueOf(String[] args, int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+}
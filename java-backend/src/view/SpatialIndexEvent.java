@@ -0,0 +1,42 @@
+package view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for the update of the spatial index at the end of a step, such as
+ * the rebuild of a quadtree, with the size and depth of the index.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@Name("simulation.SpatialIndexUpdate")
+@Label("Spatial Index Update")
+@Category("Simulation")
+@Description("The update of the spatial index of a field at the end of a step")
+@StackTrace(false)
+public class SpatialIndexEvent extends Event {
+  @Label("Engine")
+  String engineId; // The engine running the simulation.
+
+  @Label("Tick")
+  long tick; // The tick being taken.
+
+  @Label("Index")
+  String index; // The kind of index.
+
+  @Label("Entities")
+  int entities; // The number of entities indexed.
+
+  @Label("Depth")
+  int depth; // The depth of the deepest cell, 0 for an index that is not a tree.
+
+  @Label("Update Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long updateTime; // The time the update took; the event is committed after it, so its own duration is none.
+}
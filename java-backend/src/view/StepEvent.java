@@ -0,0 +1,62 @@
+package view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for a step of a simulation, committed at the end of the step with
+ * the time taken by each of its phases and the entities born and dead in it.
+ *
+ * @author Mehmet Kutay Bozkurt and Anas Ahmed
+ * @version 1.0
+ */
+@Name("simulation.Step")
+@Label("Simulation Step")
+@Category("Simulation")
+@Description("A step of a simulation, with the time of each phase")
+@StackTrace(false)
+public class StepEvent extends Event {
+  @Label("Engine")
+  String engineId; // The engine running the simulation.
+
+  @Label("Tick")
+  long tick; // The tick just taken.
+
+  @Label("Population")
+  int population; // The number of entities after the step.
+
+  @Label("Births")
+  int births; // The entities spawned in the step.
+
+  @Label("Deaths")
+  int deaths; // The entities removed in the step.
+
+  @Label("Update")
+  @Timespan(Timespan.NANOSECONDS)
+  long update; // Updating the entities.
+
+  @Label("Spawn")
+  @Timespan(Timespan.NANOSECONDS)
+  long spawn; // Adding the entities born in the step.
+
+  @Label("Remove Dead")
+  @Timespan(Timespan.NANOSECONDS)
+  long removeDead; // Removing the entities that died in the step.
+
+  @Label("Spatial Index")
+  @Timespan(Timespan.NANOSECONDS)
+  long spatialIndex; // Updating the spatial index.
+
+  @Label("Environment")
+  @Timespan(Timespan.NANOSECONDS)
+  long environment; // Updating the time and weather.
+
+  @Label("Step")
+  @Timespan(Timespan.NANOSECONDS)
+  long step; // The whole step.
+}
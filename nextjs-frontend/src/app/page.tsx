@@ -5,6 +5,7 @@ import { useState } from 'react';
 import { CanvasComponent } from '@/components/canvasComponent';
 import { StartSimulationButton } from '@/components/startSimulationButton';
 import { StopSimulationButton } from '@/components/stopSimulationButton';
+import { SimulationControls } from '@/components/simulationControls';
 
 export default function Home() {
   const [ws, setWs] = useState<WebSocket | null>(null);
@@ -13,6 +14,7 @@ export default function Home() {
     <div className="w-fit mx-auto px-4 py-6 flex flex-col gap-2">
       {ws && <CanvasComponent ws={ws} />}
       {!ws && <StartSimulationButton setWs={setWs} />}
+      {ws && <SimulationControls ws={ws} />}
       {ws && <StopSimulationButton ws={ws} setWs={setWs} />}
     </div>
   );
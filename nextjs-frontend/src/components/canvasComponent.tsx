@@ -1,6 +1,6 @@
 import { useRef, useEffect, useState } from 'react';
 
-import { DisplayData, DrawCircleData, DrawEqualTriangleData, DrawLineData, DrawRectData, DrawTextData, DrawTransparentRectData, FillData } from '@/lib/schema';
+import { DisplayData, FastForwardProgress, History, Profile, TraitStatistics, DrawCircleData, DrawEqualTriangleData, DrawLineData, DrawRectData, DrawTextData, DrawTransparentRectData, FillData } from '@/lib/schema';
 
 export function CanvasComponent({
   ws,
@@ -10,10 +10,31 @@ export function CanvasComponent({
   const canvasRef = useRef<HTMLCanvasElement | null>(null);
   const canvasCtxRef = useRef<CanvasRenderingContext2D | null>(null);
   const [data, setData] = useState<DisplayData | null>(null);
+  const [progress, setProgress] = useState<FastForwardProgress | null>(null);
+  const [traits, setTraits] = useState<TraitStatistics | null>(null);
+  const [history, setHistory] = useState<History | null>(null);
+  const [profile, setProfile] = useState<Profile | null>(null);
   
   ws.onmessage = (event) => {
     try {
       const apiData = JSON.parse(event.data);
+      if (apiData.type === 'fast_forward') { // Not a frame, frames have no type
+        const fastForward = apiData as FastForwardProgress;
+        setProgress(fastForward.done ? null : fastForward);
+        return;
+      }
+      if (apiData.type === 'profile') {
+        setProfile(apiData as Profile);
+        return;
+      }
+      if (apiData.type === 'history') {
+        setHistory(apiData as History);
+        return;
+      }
+      if (apiData.type === 'trait_statistics') {
+        setTraits(apiData as TraitStatistics);
+        return;
+      }
       setData(apiData);
     } catch (e) {
       console.error('Failed to parse ws message', e);
@@ -73,10 +94,76 @@ export function CanvasComponent({
   return (
     <>
       {data !== null && <canvas ref={canvasRef} width={data.w} height={data.h} />}
+      {progress !== null && (
+        <p className="text-sm">
+          Fast-forwarding: {progress.targetDay >= 0 ? `day ${progress.day} of ${progress.targetDay}` : `step ${progress.step} of ${progress.targetStep}`}
+          {' '}({Math.round(progress.stepsPerSecond)} steps/s)
+        </p>
+      )}
+      {history !== null && <HistoryChart history={history} />}
+      {profile !== null && (
+        <table className="text-xs">
+          <tbody>
+            {Object.entries(profile.phases).map(([phase, latency]) => (
+              <tr key={phase}>
+                <td className="pr-2">{phase}</td>
+                <td className="pr-2">p50 {latency.p50.toFixed(2)} ms</td>
+                <td className="pr-2">p99 {latency.p99.toFixed(2)} ms</td>
+                <td className="pr-2">max {latency.max.toFixed(2)} ms</td>
+              </tr>
+            ))}
+          </tbody>
+        </table>
+      )}
+      {traits !== null && (
+        <table className="text-xs">
+          <tbody>
+            {traits.species.map((species) => (
+              <tr key={species.name}>
+                <td className="pr-2">{species.name} ({species.count})</td>
+                {['maxSpeed', 'sight', 'size', 'multiplyingRate'].filter((key) => species.traits[key]).map((key) => (
+                  <td key={key} className="pr-2">
+                    {key}: {species.traits[key].mean.toFixed(2)} ± {species.traits[key].standardDeviation.toFixed(2)}
+                  </td>
+                ))}
+              </tr>
+            ))}
+          </tbody>
+        </table>
+      )}
     </>
   )
 }
 
+function HistoryChart({ history }: { history: History }) {
+  const width = 600;
+  const height = 150;
+  const first = history.ticks[0] ?? 0;
+  const last = history.ticks[history.ticks.length - 1] ?? 1;
+  const columns = Object.entries(history.columns);
+  let max = 1; // A loop, as spreading tens of thousands of values into Math.max overflows the stack.
+  for (const [, values] of columns) {
+    for (const v of values) {
+      if (v !== null && v > max) max = v;
+    }
+  }
+
+  return (
+    <svg width={width} height={height} className="border">
+      {columns.map(([name, values], i) => (
+        <polyline
+          key={name}
+          fill="none"
+          stroke={`hsl(${(i * 67) % 360}, 70%, 50%)`}
+          points={values.map((v, j) => v === null ? '' : `${(history.ticks[j] - first) / Math.max(1, last - first) * width},${height - v / max * height}`).join(' ')}
+        >
+          <title>{name}</title>
+        </polyline>
+      ))}
+    </svg>
+  );
+}
+
 function getLengthFromKey(key: string) {
   if (key === "f") return 4;
   if (key === "c") return 7;
@@ -0,0 +1,58 @@
+import { useState } from 'react';
+
+import { Button } from '@/components/ui/button';
+
+const SPEEDS = [1, 2, 4, 8, 16];
+
+export function SimulationControls({
+  ws,
+}: {
+  ws: WebSocket;
+}) {
+  const [speed, setSpeed] = useState(1);
+  const [day, setDay] = useState('');
+  const [profiling, setProfiling] = useState(false);
+
+  const send = (type: string, data?: string) => ws.send(JSON.stringify({ type, data }));
+
+  return (
+    <div className="flex flex-col gap-2">
+      <div className="flex flex-row gap-2 items-center">
+        <span className="text-sm">Speed:</span>
+        {SPEEDS.map((s) => (
+          <Button key={s} size="sm" variant={s === speed ? 'default' : 'outline'} onClick={() => {
+            send('set_speed', String(s));
+            setSpeed(s);
+          }}>
+            {s}x
+          </Button>
+        ))}
+      </div>
+      <div className="flex flex-row gap-2 items-center">
+        <input
+          className="h-9 w-32 rounded-md border border-input bg-background px-3 text-sm"
+          type="number"
+          min={1}
+          placeholder="Day"
+          value={day}
+          onChange={(e) => setDay(e.target.value)}
+        />
+        <Button size="sm" disabled={day === ''} onClick={() => send('fast_forward', JSON.stringify({ day: Number(day) }))}>
+          Fast-forward to day
+        </Button>
+        <Button size="sm" variant="outline" onClick={() => send('cancel_fast_forward')}>
+          Cancel
+        </Button>
+        <Button size="sm" variant="outline" onClick={() => send('history')}>
+          Population history
+        </Button>
+        <Button size="sm" variant={profiling ? 'default' : 'outline'} onClick={() => {
+          send('set_profiling', String(!profiling));
+          setProfiling(!profiling);
+        }}>
+          Profile
+        </Button>
+      </div>
+    </div>
+  );
+}
@@ -1,3 +1,49 @@
+// Sent after every slice of a fast-forward instead of frames
+export type FastForwardProgress = {
+  type: 'fast_forward',
+  step: number,
+  day: number,
+  targetStep: number, // -1 if fast-forwarding to a day
+  targetDay: number, // -1 if fast-forwarding to a step
+  stepsPerSecond: number,
+  done: boolean,
+};
+
+// Sent about once a second, alongside frames
+export type TraitStatistics = {
+  type: 'trait_statistics',
+  step: number,
+  species: {
+    name: string,
+    count: number,
+    traits: Record<string, TraitSummary>, // By trait name, such as maxSpeed
+  }[],
+};
+
+export type TraitSummary = {
+  mean: number,
+  standardDeviation: number,
+  min: number,
+  max: number,
+  low: number, // Lower end of the histogram
+  high: number, // Upper end of the histogram
+  histogram: number[], // Entities in each bucket, evenly spanning low to high
+};
+
+// Sent when asked for with a history message
+export type History = {
+  type: 'history',
+  ticks: number[], // Oldest first; every tick at the end, every 10 or 100 ticks further back. Every 10 ticks at the end if a trait is asked for
+  columns: Record<string, (number | null)[]>, // By column name, such as population or Fox.count
+};
+
+// Sent about once a second while profiling is on
+export type Profile = {
+  type: 'profile',
+  step: number,
+  phases: Record<string, { count: number, p50: number, p99: number, max: number }>, // Latency in ms, by phase such as update or send
+};
+
 export type DisplayData = {
   w: number,
   h: number,